@@ -3,10 +3,13 @@ import java.util.*;
 /**
  * This class represents a Graph using an adjacency matrix.
  * It allows adding vertices and edges to the graph.
- * The graph can be either directed or undirected.
+ * The graph can be either directed or undirected, and repeated edges are parallel edges.
+ * The edges are stored in an {@link EdgeTable}; the matrix is derived from it when first needed.
  */
 public class AdjacencyMatrix {
+    private final EdgeTable edgeTable;
     private int[][] adjacencyMatrix;
+    private int matrixVersion = -1;
     private Map<String, Integer> vertexIndexMap;
 
     /**
@@ -14,7 +17,7 @@ public class AdjacencyMatrix {
      * @param vertexCount the number of vertices in the graph
      */
     public AdjacencyMatrix(int vertexCount) {
-        adjacencyMatrix = new int[vertexCount][vertexCount];
+        edgeTable = new EdgeTable(vertexCount, vertexCount);
         vertexIndexMap = new HashMap<>();
     }
 
@@ -31,7 +34,7 @@ public class AdjacencyMatrix {
     }
 
     /**
-     * Adds an edge to the graph.
+     * Adds an edge to the graph. Adding an edge that already exists adds a parallel edge.
      * @param vertex1 the first vertex of the edge
      * @param vertex2 the second vertex of the edge
      * @param isDirected whether the edge is directed or not
@@ -41,12 +44,72 @@ public class AdjacencyMatrix {
         if (!vertexIndexMap.containsKey(vertex1) || !vertexIndexMap.containsKey(vertex2)) {
             throw new IllegalArgumentException("Both vertices must exist");
         }
-        int index1 = vertexIndexMap.get(vertex1);
-        int index2 = vertexIndexMap.get(vertex2);
-        adjacencyMatrix[index1][index2]++;
-        if (!isDirected) {
-            adjacencyMatrix[index2][index1]++;
+        edgeTable.addEdge(vertexIndexMap.get(vertex1), vertexIndexMap.get(vertex2), isDirected, 1);
+        GraphMetrics.increment(GraphMetrics.Counter.EDGES_BUILT);
+    }
+
+    /**
+     * Adds all edges of a batch in one pass, without looking up vertex names.
+     * Parallel edges are collapsed first, so each distinct edge is looked up once.
+     * @param batch the edges to add, as vertex indices
+     * @param isDirected whether the edges are directed or not
+     * @throws IllegalArgumentException if a vertex index is out of range
+     */
+    public void addEdges(EdgeBatch batch, boolean isDirected) {
+        long start = GraphMetrics.startTimer();
+        CompactGraph graph = batch.build(edgeTable.getVertexCount(), isDirected, CompactGraph.DuplicatePolicy.AGGREGATE);
+        for (int v = 0; v < graph.getVertexCount(); v++) {
+            for (int i = graph.getRowStart(v); i < graph.getRowEnd(v); i++) {
+                // An undirected edge is stored in both rows; add it from its smaller end only
+                if (isDirected || v <= graph.getNeighbor(i)) {
+                    edgeTable.addEdge(v, graph.getNeighbor(i), isDirected, graph.getMultiplicity(i));
+                }
+            }
+        }
+        GraphMetrics.stopTimer(GraphMetrics.Timer.MATRIX_BUILD, start);
+    }
+
+    /**
+     * Converts the graph to a compact graph whose multiplicities are the edge counts.
+     * The graph is treated as undirected if the matrix is symmetric.
+     * @return the compact graph
+     */
+    public CompactGraph toCompactGraph() {
+        return edgeTable.toCompactGraph();
+    }
+
+    /**
+     * Gets the edge table the matrix is derived from.
+     * @return the edge table
+     */
+    public EdgeTable getEdgeTable() {
+        return edgeTable;
+    }
+
+    /**
+     * Gets the adjacency matrix, deriving it again if edges were added since it was last derived.
+     * @return the adjacency matrix
+     */
+    public int[][] getMatrix() {
+        if (matrixVersion != edgeTable.getVersion()) {
+            adjacencyMatrix = edgeTable.toAdjacencyMatrix();
+            matrixVersion = edgeTable.getVersion();
+        }
+        return adjacencyMatrix;
+    }
+
+    /**
+     * Gets the index of a vertex.
+     * @param vertex the vertex to look up
+     * @return the index of the vertex
+     * @throws IllegalArgumentException if the vertex does not exist
+     */
+    public int getVertexIndex(String vertex) {
+        Integer index = vertexIndexMap.get(vertex);
+        if (index == null) {
+            throw new IllegalArgumentException("Vertex does not exist: " + vertex);
         }
+        return index;
     }
 
     /**
@@ -88,6 +151,7 @@ public class AdjacencyMatrix {
      */
     public void printMatrix() {
         System.out.println("\nThe Adjacency Matrix of the graph: " + "\n");
+        int[][] adjacencyMatrix = getMatrix();
         for (int i = 0; i < adjacencyMatrix.length; i++) {
             for (int j = 0; j < adjacencyMatrix[i].length; j++) {
                 System.out.print(adjacencyMatrix[i][j] + " ");
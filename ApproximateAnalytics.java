@@ -0,0 +1,706 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+/**
+ * This class estimates analyses of graphs too large for exact answers, in memory sublinear in the number of edges.
+ * <ul>
+ *     <li>The neighborhood function, the number of vertex pairs within each distance, and from it the diameter,
+ *     with a HyperLogLog counter per vertex (HyperANF, Boldi, Rosa and Vigna).</li>
+ *     <li>The number of triangles, from reservoir samples of the edge stream (TRIÈST, De Stefani et al.).</li>
+ *     <li>The number of connected components, from truncated searches around sampled vertices
+ *     (Chazelle, Rubinfeld and Trevisan).</li>
+ * </ul>
+ * All three read the edges as an {@link EdgeStream}, one sequential pass at a time, so the edges can stay in a file;
+ * the component count can also search an in-memory graph directly. Every estimate carries an error bound.
+ */
+public final class ApproximateAnalytics {
+    /** The number of independent triangle samples, whose spread gives the error bound. */
+    private static final int TRIANGLE_REPLICAS = 4;
+    /** The two-sided 95% quantile of Student's t distribution with TRIANGLE_REPLICAS - 1 degrees of freedom. */
+    private static final double TRIANGLE_T_QUANTILE = 3.182;
+    /** The probability that the sampling error of a component count exceeds its bound. */
+    private static final double COMPONENT_FAILURE_PROBABILITY = 0.05;
+
+    private ApproximateAnalytics() {
+    }
+
+    /**
+     * This interface represents the action taken for every edge of an {@link EdgeStream}.
+     */
+    @FunctionalInterface
+    public interface EdgeVisitor {
+        /**
+         * Visits an undirected edge.
+         * @param vertexOne the index of the first vertex of the edge
+         * @param vertexTwo the index of the second vertex of the edge
+         */
+        void visit(int vertexOne, int vertexTwo);
+    }
+
+    /**
+     * This interface represents the undirected edges of a graph, which can be read from the start any number of times.
+     */
+    public interface EdgeStream {
+        /**
+         * Gets the number of vertices, which are numbered 0 .. vertexCount - 1.
+         * @return the number of vertices
+         */
+        int getVertexCount();
+
+        /**
+         * Reads every edge once, in the same order every time.
+         * @param visitor the action to run for every edge
+         */
+        void forEachEdge(EdgeVisitor visitor);
+    }
+
+    /**
+     * Streams the edges of a compact graph. Every undirected edge is read once; every arc of a directed graph
+     * is read as an undirected edge.
+     * @param graph the graph to stream
+     * @return the edge stream
+     */
+    public static EdgeStream edgesOf(CompactGraph graph) {
+        return new EdgeStream() {
+            @Override
+            public int getVertexCount() {
+                return graph.getVertexCount();
+            }
+
+            @Override
+            public void forEachEdge(EdgeVisitor visitor) {
+                for (int vertex = 0; vertex < graph.getVertexCount(); vertex++) {
+                    for (int i = graph.getRowStart(vertex); i < graph.getRowEnd(vertex); i++) {
+                        int neighbor = graph.getNeighbor(i);
+                        // An undirected edge is listed at both ends, except for a self-loop
+                        if (graph.isDirected() || vertex <= neighbor) {
+                            visitor.visit(vertex, neighbor);
+                        }
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Streams the edges of a compressed graph, decoding one row at a time. Every undirected edge is read once;
+     * every arc of a directed graph is read as an undirected edge.
+     * @param graph the graph to stream
+     * @return the edge stream
+     */
+    public static EdgeStream edgesOf(CompressedGraph graph) {
+        return new EdgeStream() {
+            @Override
+            public int getVertexCount() {
+                return graph.getVertexCount();
+            }
+
+            @Override
+            public void forEachEdge(EdgeVisitor visitor) {
+                if (graph.getVertexCount() == 0) {
+                    return;
+                }
+                CompressedGraph.NeighborIterator neighbors = graph.neighbors(0);
+                for (int vertex = 0; vertex < graph.getVertexCount(); vertex++) {
+                    for (neighbors.reset(vertex); neighbors.hasNext(); ) {
+                        int neighbor = neighbors.nextInt();
+                        if (graph.isDirected() || vertex <= neighbor) {
+                            visitor.visit(vertex, neighbor);
+                        }
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Streams the edges of an edge list file in the format of {@link StreamingGraphStats#scan(Path)}.
+     * The file is scanned once to number its vertices, and read again on every pass; only the vertex names
+     * are kept in memory.
+     * @param path the file to stream
+     * @return the edge stream, which throws {@link UncheckedIOException} if a later pass cannot read the file
+     * @throws IOException if the file cannot be read
+     */
+    public static EdgeStream edgesOf(Path path) throws IOException {
+        StreamingGraphStats stats = StreamingGraphStats.scan(path);
+        return new EdgeStream() {
+            @Override
+            public int getVertexCount() {
+                return stats.getVertexCount();
+            }
+
+            @Override
+            public void forEachEdge(EdgeVisitor visitor) {
+                try {
+                    stats.forEachEdge(path, visitor);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+
+    /**
+     * This class represents an estimated value and an interval that holds the true value with high probability.
+     */
+    public static final class Estimate {
+        private final double value;
+        private final double lowerBound;
+        private final double upperBound;
+
+        Estimate(double value, double lowerBound, double upperBound) {
+            this.value = value;
+            this.lowerBound = lowerBound;
+            this.upperBound = upperBound;
+        }
+
+        /**
+         * Gets the estimated value.
+         * @return the estimate
+         */
+        public double getValue() {
+            return value;
+        }
+
+        /**
+         * Gets the lower end of the interval.
+         * @return the lower bound
+         */
+        public double getLowerBound() {
+            return lowerBound;
+        }
+
+        /**
+         * Gets the upper end of the interval.
+         * @return the upper bound
+         */
+        public double getUpperBound() {
+            return upperBound;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%.1f [%.1f, %.1f]", value, lowerBound, upperBound);
+        }
+    }
+
+    /**
+     * This class represents an estimated neighborhood function: for every distance t, the number of ordered pairs
+     * of vertices (u, v), including u = v, such that v is at most t edges away from u.
+     */
+    public static final class NeighborhoodFunction {
+        private final double[] pairCounts;
+        private final double relativeStandardError;
+        private final boolean stabilized;
+
+        NeighborhoodFunction(double[] pairCounts, double relativeStandardError, boolean stabilized) {
+            this.pairCounts = pairCounts;
+            this.relativeStandardError = relativeStandardError;
+            this.stabilized = stabilized;
+        }
+
+        /**
+         * Gets the estimated number of pairs within a distance. The bounds are two standard errors wide,
+         * which covers the true value about 95% of the time.
+         * @param distance the distance, from 0 to {@link #getLastDistance()}
+         * @return the estimated number of pairs
+         */
+        public Estimate getPairCount(int distance) {
+            double value = pairCounts[distance];
+            double error = 2 * relativeStandardError * value;
+            return new Estimate(value, Math.max(value - error, 0), value + error);
+        }
+
+        /**
+         * Gets the last distance the function was computed for. Once the counters stop changing this is a lower bound
+         * on the diameter, the longest shortest path within a component.
+         * @return the last distance
+         */
+        public int getLastDistance() {
+            return pairCounts.length - 1;
+        }
+
+        /**
+         * Checks if the counters stopped changing, so that {@link #getLastDistance()} bounds the diameter,
+         * rather than the computation stopping at its distance limit.
+         * @return true if the function reached its final value, false otherwise
+         */
+        public boolean isStabilized() {
+            return stabilized;
+        }
+
+        /**
+         * Gets the relative standard error of every pair count, 1.04 / sqrt(registers).
+         * @return the relative standard error
+         */
+        public double getRelativeStandardError() {
+            return relativeStandardError;
+        }
+
+        /**
+         * Gets the effective diameter: the distance within which the given fraction of all connected pairs lie,
+         * interpolated between whole distances.
+         * @param fraction the fraction of pairs, usually 0.9
+         * @return the effective diameter
+         */
+        public double getEffectiveDiameter(double fraction) {
+            double target = fraction * pairCounts[pairCounts.length - 1];
+            for (int distance = 1; distance < pairCounts.length; distance++) {
+                if (pairCounts[distance] >= target) {
+                    double step = pairCounts[distance] - pairCounts[distance - 1];
+                    return distance - 1 + (step <= 0 ? 1 : (target - pairCounts[distance - 1]) / step);
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * Gets the average distance between two distinct connected vertices.
+         * @return the average distance, or 0 if no two vertices are connected
+         */
+        public double getAverageDistance() {
+            double weighted = 0;
+            for (int distance = 1; distance < pairCounts.length; distance++) {
+                weighted += distance * Math.max(pairCounts[distance] - pairCounts[distance - 1], 0);
+            }
+            double connectedPairs = pairCounts[pairCounts.length - 1] - pairCounts[0];
+            return connectedPairs <= 0 ? 0 : weighted / connectedPairs;
+        }
+    }
+
+    /**
+     * Estimates the neighborhood function. Every vertex has a HyperLogLog counter of the vertices within distance t;
+     * one pass over the edges turns the counters for t into the counters for t + 1, since a vertex's ball of radius
+     * t + 1 is the union of its neighbors' balls of radius t. The passes stop when no counter changes.
+     * Memory is two counters per vertex, of 2^log2Registers bytes each.
+     * @param edges the edges of the graph, read as undirected
+     * @param log2Registers the base-2 logarithm of the registers per counter, from 4 to 16; 6 gives 13% error
+     * @param maxDistance the most passes to make
+     * @return the neighborhood function
+     * @throws IllegalArgumentException if log2Registers is out of range or the counters do not fit in one array
+     */
+    public static NeighborhoodFunction neighborhoodFunction(EdgeStream edges, int log2Registers, int maxDistance) {
+        if (log2Registers < 4 || log2Registers > 16) {
+            throw new IllegalArgumentException("Registers per counter must be 2^4 to 2^16, not 2^" + log2Registers);
+        }
+        int vertexCount = edges.getVertexCount();
+        int registerCount = 1 << log2Registers;
+        if ((long) vertexCount * registerCount > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too many vertices for 2^" + log2Registers + " registers per counter");
+        }
+        long start = GraphMetrics.startTimer();
+        byte[] current = new byte[vertexCount * registerCount];
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            long hash = mix(vertex);
+            int register = (int) (hash >>> (64 - log2Registers));
+            // The rank is the position of the first 1 bit after the register bits, capped so it fits the counter
+            int rank = Long.numberOfLeadingZeros(hash << log2Registers | 1L << (log2Registers - 1)) + 1;
+            current[vertex * registerCount + register] = (byte) rank;
+        }
+        byte[] next = new byte[current.length];
+        List<Double> pairCounts = new ArrayList<>();
+        pairCounts.add(sumOfEstimates(current, vertexCount, registerCount));
+        boolean stabilized = false;
+        while (pairCounts.size() <= maxDistance) {
+            System.arraycopy(current, 0, next, 0, current.length);
+            byte[] previous = current;
+            byte[] updated = next;
+            boolean[] changed = new boolean[1];
+            edges.forEachEdge((vertexOne, vertexTwo) -> {
+                changed[0] |= union(updated, vertexOne, previous, vertexTwo, registerCount);
+                changed[0] |= union(updated, vertexTwo, previous, vertexOne, registerCount);
+            });
+            if (!changed[0]) {
+                stabilized = true;
+                break;
+            }
+            current = next;
+            next = previous;
+            pairCounts.add(sumOfEstimates(current, vertexCount, registerCount));
+        }
+        double[] counts = pairCounts.stream().mapToDouble(Double::doubleValue).toArray();
+        GraphMetrics.stopTimer(GraphMetrics.Timer.ESTIMATION, start);
+        return new NeighborhoodFunction(counts, 1.04 / Math.sqrt(registerCount), stabilized);
+    }
+
+    /**
+     * Raises every register of one counter to the matching register of another.
+     * @return true if any register changed
+     */
+    private static boolean union(byte[] target, int targetVertex, byte[] source, int sourceVertex, int registerCount) {
+        boolean changed = false;
+        int targetOffset = targetVertex * registerCount;
+        int sourceOffset = sourceVertex * registerCount;
+        for (int register = 0; register < registerCount; register++) {
+            if (source[sourceOffset + register] > target[targetOffset + register]) {
+                target[targetOffset + register] = source[sourceOffset + register];
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    private static double sumOfEstimates(byte[] counters, int vertexCount, int registerCount) {
+        double alpha = registerCount == 16 ? 0.673 : registerCount == 32 ? 0.697 : registerCount == 64 ? 0.709
+                : 0.7213 / (1 + 1.079 / registerCount);
+        double total = 0;
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            double harmonicSum = 0;
+            int zeros = 0;
+            for (int register = vertex * registerCount; register < (vertex + 1) * registerCount; register++) {
+                harmonicSum += Math.scalb(1.0, -counters[register]);
+                if (counters[register] == 0) {
+                    zeros++;
+                }
+            }
+            double estimate = alpha * registerCount * registerCount / harmonicSum;
+            // Small counts are estimated better by the fraction of empty registers (linear counting)
+            if (estimate <= 2.5 * registerCount && zeros > 0) {
+                estimate = registerCount * Math.log((double) registerCount / zeros);
+            }
+            total += estimate;
+        }
+        return total;
+    }
+
+    /**
+     * Scrambles a vertex index into 64 well-mixed bits (the SplitMix64 finalizer).
+     */
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+
+    /**
+     * Estimates the number of triangles with TRIÈST-IMPR: every replica keeps a uniform reservoir sample of the
+     * edges seen so far, and every arriving edge adds the triangles it closes within the sample, weighted by the
+     * inverse probability that the sample holds both other edges. Every replica is an unbiased estimate;
+     * the result is their mean, and the bounds are a 95% confidence interval from their spread.
+     * The count is exact when the whole stream fits in every replica.
+     * Self-loops are ignored. The edges should be distinct, since a repeated edge counts its triangles again.
+     * @param edges the edges of the graph, read once
+     * @param sampleSize the total number of edges the replicas may hold, at least {@value #TRIANGLE_REPLICAS} times 2
+     * @param seed the seed of the random sampling
+     * @return the estimated number of triangles
+     * @throws IllegalArgumentException if the sample size is too small
+     */
+    public static Estimate triangleCount(EdgeStream edges, int sampleSize, long seed) {
+        int replicaSize = sampleSize / TRIANGLE_REPLICAS;
+        if (replicaSize < 2) {
+            throw new IllegalArgumentException("The sample must hold at least " + 2 * TRIANGLE_REPLICAS + " edges");
+        }
+        long start = GraphMetrics.startTimer();
+        TriangleSample[] replicas = new TriangleSample[TRIANGLE_REPLICAS];
+        for (int i = 0; i < replicas.length; i++) {
+            replicas[i] = new TriangleSample(replicaSize, new Random(seed + i));
+        }
+        long[] edgesSeen = new long[1];
+        edges.forEachEdge((vertexOne, vertexTwo) -> {
+            if (vertexOne == vertexTwo) {
+                return;
+            }
+            long time = ++edgesSeen[0];
+            for (TriangleSample replica : replicas) {
+                replica.add(vertexOne, vertexTwo, time);
+            }
+        });
+        double mean = 0;
+        for (TriangleSample replica : replicas) {
+            mean += replica.estimate / replicas.length;
+        }
+        double variance = 0;
+        for (TriangleSample replica : replicas) {
+            variance += (replica.estimate - mean) * (replica.estimate - mean) / (replicas.length - 1);
+        }
+        double error = edgesSeen[0] <= replicaSize ? 0 : TRIANGLE_T_QUANTILE * Math.sqrt(variance / replicas.length);
+        GraphMetrics.stopTimer(GraphMetrics.Timer.ESTIMATION, start);
+        return new Estimate(mean, Math.max(mean - error, 0), mean + error);
+    }
+
+    /**
+     * This class represents one reservoir sample of edges and the triangle estimate built from it.
+     */
+    private static final class TriangleSample {
+        private final int capacity;
+        private final Random random;
+        private final long[] sampledEdges;
+        private final Map<Integer, Set<Integer>> neighbors = new HashMap<>();
+        private int size;
+        private double estimate;
+
+        TriangleSample(int capacity, Random random) {
+            this.capacity = capacity;
+            this.random = random;
+            this.sampledEdges = new long[capacity];
+        }
+
+        void add(int vertexOne, int vertexTwo, long time) {
+            Set<Integer> neighborsOne = neighbors.getOrDefault(vertexOne, Collections.emptySet());
+            Set<Integer> neighborsTwo = neighbors.getOrDefault(vertexTwo, Collections.emptySet());
+            if (neighborsOne.contains(vertexTwo)) {
+                // A repeat of a sampled edge would corrupt the sample if stored twice
+                return;
+            }
+            Set<Integer> smaller = neighborsOne.size() <= neighborsTwo.size() ? neighborsOne : neighborsTwo;
+            Set<Integer> larger = smaller == neighborsOne ? neighborsTwo : neighborsOne;
+            int closed = 0;
+            for (int neighbor : smaller) {
+                if (larger.contains(neighbor)) {
+                    closed++;
+                }
+            }
+            // Both other edges of a closed triangle are in the sample with probability about 1 / weight
+            double weight = Math.max(1.0, (double) (time - 1) * (time - 2) / ((double) capacity * (capacity - 1)));
+            estimate += weight * closed;
+
+            if (size < capacity) {
+                sampledEdges[size++] = (long) vertexOne << 32 | (vertexTwo & 0xFFFFFFFFL);
+                link(vertexOne, vertexTwo);
+            } else if (random.nextDouble() < (double) capacity / time) {
+                int evicted = random.nextInt(capacity);
+                unlink((int) (sampledEdges[evicted] >>> 32), (int) sampledEdges[evicted]);
+                sampledEdges[evicted] = (long) vertexOne << 32 | (vertexTwo & 0xFFFFFFFFL);
+                link(vertexOne, vertexTwo);
+            }
+        }
+
+        private void link(int vertexOne, int vertexTwo) {
+            neighbors.computeIfAbsent(vertexOne, vertex -> new HashSet<>()).add(vertexTwo);
+            neighbors.computeIfAbsent(vertexTwo, vertex -> new HashSet<>()).add(vertexOne);
+        }
+
+        private void unlink(int vertexOne, int vertexTwo) {
+            Set<Integer> neighborsOne = neighbors.get(vertexOne);
+            neighborsOne.remove(vertexTwo);
+            if (neighborsOne.isEmpty()) {
+                neighbors.remove(vertexOne);
+            }
+            Set<Integer> neighborsTwo = neighbors.get(vertexTwo);
+            neighborsTwo.remove(vertexOne);
+            if (neighborsTwo.isEmpty()) {
+                neighbors.remove(vertexTwo);
+            }
+        }
+    }
+
+    /**
+     * Estimates the number of connected components of an undirected graph. The count is the sum over all vertices
+     * of 1 / (size of the vertex's component), so it is estimated from a breadth-first search around each sampled
+     * vertex, abandoned once it finds more than maxComponentSize vertices. Abandoned searches contribute 0, which
+     * lowers the estimate by at most vertexCount / maxComponentSize; sampling adds at most
+     * vertexCount * sqrt(ln(40) / (2 * samples)) either way with 95% probability (Hoeffding's inequality).
+     * Memory is one search of maxComponentSize vertices.
+     * @param graph the graph to sample
+     * @param samples the number of vertices to sample
+     * @param maxComponentSize the largest component a search explores
+     * @param seed the seed of the random sampling
+     * @return the estimated number of connected components
+     * @throws IllegalArgumentException if the graph is directed or a parameter is not positive
+     */
+    public static Estimate componentCount(CompactGraph graph, int samples, int maxComponentSize, long seed) {
+        if (graph.isDirected()) {
+            throw new IllegalArgumentException("Components are only estimated for undirected graphs");
+        }
+        return componentCount(graph.getVertexCount(), vertex -> IntStream.range(graph.getRowStart(vertex),
+                graph.getRowEnd(vertex)).map(graph::getNeighbor).iterator(), samples, maxComponentSize, seed);
+    }
+
+    /**
+     * Estimates the number of connected components of an undirected compressed graph,
+     * as {@link #componentCount(CompactGraph, int, int, long)} does.
+     * @param graph the graph to sample
+     * @param samples the number of vertices to sample
+     * @param maxComponentSize the largest component a search explores
+     * @param seed the seed of the random sampling
+     * @return the estimated number of connected components
+     * @throws IllegalArgumentException if the graph is directed or a parameter is not positive
+     */
+    public static Estimate componentCount(CompressedGraph graph, int samples, int maxComponentSize, long seed) {
+        if (graph.isDirected()) {
+            throw new IllegalArgumentException("Components are only estimated for undirected graphs");
+        }
+        return componentCount(graph.getVertexCount(), graph::neighbors, samples, maxComponentSize, seed);
+    }
+
+    private static Estimate componentCount(int vertexCount, IntFunction<PrimitiveIterator.OfInt> neighbors,
+                                           int samples, int maxComponentSize, long seed) {
+        if (samples <= 0 || maxComponentSize <= 0) {
+            throw new IllegalArgumentException("Samples and component size must be positive");
+        }
+        if (vertexCount == 0) {
+            return new Estimate(0, 0, 0);
+        }
+        long start = GraphMetrics.startTimer();
+        Random random = new Random(seed);
+        double inverseSizes = 0;
+        Set<Integer> visited = new HashSet<>();
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int sample = 0; sample < samples; sample++) {
+            int root = random.nextInt(vertexCount);
+            visited.clear();
+            queue.clear();
+            visited.add(root);
+            queue.add(root);
+            while (!queue.isEmpty() && visited.size() <= maxComponentSize) {
+                for (PrimitiveIterator.OfInt iterator = neighbors.apply(queue.poll()); iterator.hasNext(); ) {
+                    int neighbor = iterator.nextInt();
+                    if (visited.add(neighbor)) {
+                        queue.add(neighbor);
+                        if (visited.size() > maxComponentSize) {
+                            break;
+                        }
+                    }
+                }
+            }
+            if (visited.size() <= maxComponentSize) {
+                inverseSizes += 1.0 / visited.size();
+            }
+        }
+        GraphMetrics.stopTimer(GraphMetrics.Timer.ESTIMATION, start);
+        return componentEstimate(vertexCount, inverseSizes, samples, maxComponentSize);
+    }
+
+    /**
+     * Estimates the number of connected components of an undirected graph whose edges are streamed,
+     * as {@link #componentCount(CompactGraph, int, int, long)} does. All the searches advance together,
+     * one breadth-first level per pass over the edges, so a graph whose components are at most maxComponentSize
+     * vertices across takes at most maxComponentSize passes, and usually far fewer because a search around a large
+     * component reaches its limit in a few levels. Memory is one search of maxComponentSize vertices per sample.
+     * @param edges the edges of the graph, read as undirected
+     * @param samples the number of vertices to sample
+     * @param maxComponentSize the largest component a search explores
+     * @param seed the seed of the random sampling
+     * @return the estimated number of connected components
+     * @throws IllegalArgumentException if a parameter is not positive
+     */
+    public static Estimate componentCount(EdgeStream edges, int samples, int maxComponentSize, long seed) {
+        if (samples <= 0 || maxComponentSize <= 0) {
+            throw new IllegalArgumentException("Samples and component size must be positive");
+        }
+        int vertexCount = edges.getVertexCount();
+        if (vertexCount == 0) {
+            return new Estimate(0, 0, 0);
+        }
+        long start = GraphMetrics.startTimer();
+        Random random = new Random(seed);
+        List<Set<Integer>> visited = new ArrayList<>(samples);
+        List<List<Integer>> nextFrontiers = new ArrayList<>(samples);
+        boolean[] active = new boolean[samples];
+        // The samples whose current frontier holds each vertex, so an edge finds its searches in one lookup
+        Map<Integer, List<Integer>> frontierSamples = new HashMap<>();
+        for (int sample = 0; sample < samples; sample++) {
+            int root = random.nextInt(vertexCount);
+            visited.add(new HashSet<>(Collections.singleton(root)));
+            nextFrontiers.add(new ArrayList<>());
+            active[sample] = true;
+            frontierSamples.computeIfAbsent(root, vertex -> new ArrayList<>()).add(sample);
+        }
+        double inverseSizes = 0;
+        while (!frontierSamples.isEmpty()) {
+            Map<Integer, List<Integer>> frontier = frontierSamples;
+            edges.forEachEdge((vertexOne, vertexTwo) -> {
+                extendSearches(frontier.get(vertexOne), vertexTwo, visited, nextFrontiers, active, maxComponentSize);
+                extendSearches(frontier.get(vertexTwo), vertexOne, visited, nextFrontiers, active, maxComponentSize);
+            });
+            frontierSamples = new HashMap<>();
+            for (int sample = 0; sample < samples; sample++) {
+                if (!active[sample]) {
+                    continue;
+                }
+                if (nextFrontiers.get(sample).isEmpty()) {
+                    // Nothing new was reached, so the search has seen its whole component
+                    inverseSizes += 1.0 / visited.get(sample).size();
+                    active[sample] = false;
+                    visited.set(sample, null);
+                    continue;
+                }
+                for (int vertex : nextFrontiers.get(sample)) {
+                    frontierSamples.computeIfAbsent(vertex, key -> new ArrayList<>()).add(sample);
+                }
+                nextFrontiers.get(sample).clear();
+            }
+        }
+        GraphMetrics.stopTimer(GraphMetrics.Timer.ESTIMATION, start);
+        return componentEstimate(vertexCount, inverseSizes, samples, maxComponentSize);
+    }
+
+    /**
+     * Extends the searches whose frontier holds one end of an edge to its other end.
+     * A search that grows past maxComponentSize vertices is abandoned.
+     * @param samples the searches whose frontier holds the first end, or null if there are none
+     * @param neighbor the other end of the edge
+     * @param visited the vertices every search has reached
+     * @param nextFrontiers the vertices every search reached in this pass
+     * @param active whether every search is still running
+     * @param maxComponentSize the largest component a search explores
+     */
+    private static void extendSearches(List<Integer> samples, int neighbor, List<Set<Integer>> visited,
+                                       List<List<Integer>> nextFrontiers, boolean[] active, int maxComponentSize) {
+        if (samples == null) {
+            return;
+        }
+        for (int sample : samples) {
+            if (active[sample] && visited.get(sample).add(neighbor)) {
+                if (visited.get(sample).size() > maxComponentSize) {
+                    active[sample] = false;
+                    visited.set(sample, null);
+                    nextFrontiers.get(sample).clear();
+                } else {
+                    nextFrontiers.get(sample).add(neighbor);
+                }
+            }
+        }
+    }
+
+    /**
+     * Turns the sum of 1 / (component size) over the sampled vertices into an estimate with error bounds.
+     * @param vertexCount the number of vertices
+     * @param inverseSizes the sum over the finished searches; abandoned searches add nothing
+     * @param samples the number of vertices sampled
+     * @param maxComponentSize the largest component a search explores
+     * @return the estimated number of connected components
+     */
+    private static Estimate componentEstimate(int vertexCount, double inverseSizes, int samples, int maxComponentSize) {
+        // A graph with a vertex has at least one component, even if every search was abandoned
+        double value = Math.max((double) vertexCount * inverseSizes / samples, 1);
+        double samplingError = vertexCount * Math.sqrt(Math.log(2 / COMPONENT_FAILURE_PROBABILITY) / (2.0 * samples));
+        double truncationError = (double) vertexCount / maxComponentSize;
+        return new Estimate(value, Math.max(value - samplingError, 1),
+                Math.min(value + samplingError + truncationError, vertexCount));
+    }
+
+    /**
+     * The main method that estimates the analyses of an edge list file.
+     * @param args the edge list file to read, and optionally the base-2 logarithm of the registers per counter,
+     *             the number of edges to sample for triangles, the number of vertices to sample for components
+     *             and the largest component a search explores
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 5) {
+            System.out.println("Usage: java ApproximateAnalytics <edge list file> [log2 registers] [triangle sample size]"
+                    + " [component samples] [max component size]");
+            return;
+        }
+        int log2Registers = args.length > 1 ? Integer.parseInt(args[1]) : 6;
+        int sampleSize = args.length > 2 ? Integer.parseInt(args[2]) : 1_000_000;
+        int componentSamples = args.length > 3 ? Integer.parseInt(args[3]) : 1000;
+        int maxComponentSize = args.length > 4 ? Integer.parseInt(args[4]) : 100;
+        Path path = Paths.get(args[0]);
+        EdgeStream edges = edgesOf(path);
+        System.out.println("Vertices\t\t\t: " + edges.getVertexCount());
+
+        NeighborhoodFunction function = neighborhoodFunction(edges, log2Registers, Integer.MAX_VALUE);
+        System.out.println("Reachable pairs\t\t: " + function.getPairCount(function.getLastDistance()));
+        System.out.printf("Diameter\t\t\t: at least %d%n", function.getLastDistance());
+        System.out.printf("Effective diameter\t: %.2f%n", function.getEffectiveDiameter(0.9));
+        System.out.printf("Average distance\t: %.2f%n", function.getAverageDistance());
+        System.out.println("Triangles\t\t\t: " + triangleCount(edges, sampleSize, 42));
+        System.out.println("Components\t\t\t: " + componentCount(edges, componentSamples, maxComponentSize, 42));
+    }
+}
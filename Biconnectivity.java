@@ -0,0 +1,235 @@
+import java.util.*;
+
+/**
+ * This class represents the bridges, articulation points and biconnected components of an undirected graph.
+ * They are found with Tarjan's low-link method in a single depth-first search (DFS) that keeps its own stack,
+ * so the running time is linear and graphs with millions of vertices do not overflow the call stack.
+ */
+public class Biconnectivity {
+    private final int connectedComponentCount;
+    private final int biconnectedComponentCount;
+    private final int[] articulationPoints;
+    private final int[] bridges;
+    private final int[] arcComponents;
+
+    private Biconnectivity(int connectedComponentCount, int biconnectedComponentCount, int[] articulationPoints,
+                           int[] bridges, int[] arcComponents) {
+        this.connectedComponentCount = connectedComponentCount;
+        this.biconnectedComponentCount = biconnectedComponentCount;
+        this.articulationPoints = articulationPoints;
+        this.bridges = bridges;
+        this.arcComponents = arcComponents;
+    }
+
+    /**
+     * Analyzes an undirected graph.
+     * Parallel edges, whether kept as separate entries or folded into a multiplicity, are never bridges.
+     * @param graph the graph to analyze
+     * @return the analysis
+     * @throws IllegalArgumentException if the graph is directed
+     */
+    public static Biconnectivity analyze(CompactGraph graph) {
+        if (graph.isDirected()) {
+            throw new IllegalArgumentException("Biconnectivity is only defined for undirected graphs");
+        }
+        int vertexCount = graph.getVertexCount();
+        int[] discovery = new int[vertexCount];
+        int[] low = new int[vertexCount];
+        int[] parent = new int[vertexCount];
+        int[] nextArc = new int[vertexCount];
+        int[] childCount = new int[vertexCount];
+        int[] arcMark = new int[vertexCount];
+        boolean[] parentSkipped = new boolean[vertexCount];
+        boolean[] isArticulation = new boolean[vertexCount];
+        Arrays.fill(discovery, -1);
+
+        int[] vertexStack = new int[vertexCount];
+        int[] arcStack = new int[graph.getArcCount()];
+        int[] arcComponents = new int[graph.getArcCount()];
+        Arrays.fill(arcComponents, -1);
+        int[] bridges = new int[16];
+        int bridgeSize = 0;
+        int time = 0;
+        int connectedComponentCount = 0;
+        int biconnectedComponentCount = 0;
+
+        for (int root = 0; root < vertexCount; root++) {
+            if (discovery[root] != -1) {
+                continue;
+            }
+            connectedComponentCount++;
+            int vertexTop = 0;
+            int arcTop = 0;
+            vertexStack[vertexTop++] = root;
+            discovery[root] = low[root] = time++;
+            parent[root] = -1;
+            nextArc[root] = graph.getRowStart(root);
+
+            while (vertexTop > 0) {
+                int vertex = vertexStack[vertexTop - 1];
+                if (nextArc[vertex] < graph.getRowEnd(vertex)) {
+                    int arc = nextArc[vertex]++;
+                    int neighbor = graph.getNeighbor(arc);
+                    if (neighbor == vertex) {
+                        continue;
+                    }
+                    if (neighbor == parent[vertex] && !parentSkipped[vertex]) {
+                        // The edge back to the parent is the tree edge itself, unless it has a parallel copy
+                        parentSkipped[vertex] = true;
+                        if (graph.getMultiplicity(arc) > 1) {
+                            low[vertex] = Math.min(low[vertex], discovery[neighbor]);
+                        }
+                        continue;
+                    }
+                    if (discovery[neighbor] == -1) {
+                        arcMark[neighbor] = arcTop;
+                        arcStack[arcTop++] = arc;
+                        parent[neighbor] = vertex;
+                        discovery[neighbor] = low[neighbor] = time++;
+                        nextArc[neighbor] = graph.getRowStart(neighbor);
+                        childCount[vertex]++;
+                        vertexStack[vertexTop++] = neighbor;
+                        GraphMetrics.increment(GraphMetrics.Counter.TRAVERSAL_VISITS);
+                    } else if (discovery[neighbor] < discovery[vertex]) {
+                        // A back edge to an ancestor; edges to descendants were already seen from the other end
+                        arcStack[arcTop++] = arc;
+                        low[vertex] = Math.min(low[vertex], discovery[neighbor]);
+                    }
+                    continue;
+                }
+
+                // Every edge of the vertex is done, so report it to its parent
+                vertexTop--;
+                int parentVertex = parent[vertex];
+                if (parentVertex == -1) {
+                    if (childCount[vertex] > 1) {
+                        isArticulation[vertex] = true;
+                    }
+                    continue;
+                }
+                low[parentVertex] = Math.min(low[parentVertex], low[vertex]);
+                if (low[vertex] > discovery[parentVertex]) {
+                    if (bridgeSize + 2 > bridges.length) {
+                        bridges = Arrays.copyOf(bridges, bridges.length * 2);
+                    }
+                    bridges[bridgeSize++] = Math.min(parentVertex, vertex);
+                    bridges[bridgeSize++] = Math.max(parentVertex, vertex);
+                }
+                if (low[vertex] >= discovery[parentVertex]) {
+                    if (parent[parentVertex] != -1) {
+                        isArticulation[parentVertex] = true;
+                    }
+                    // Everything pushed since the tree edge into this vertex forms one biconnected component
+                    while (arcTop > arcMark[vertex]) {
+                        arcComponents[arcStack[--arcTop]] = biconnectedComponentCount;
+                    }
+                    biconnectedComponentCount++;
+                }
+            }
+        }
+
+        labelReverseArcs(graph, arcComponents);
+        int articulationCount = 0;
+        for (boolean articulation : isArticulation) {
+            if (articulation) {
+                articulationCount++;
+            }
+        }
+        int[] articulationPoints = new int[articulationCount];
+        for (int v = 0, i = 0; v < vertexCount; v++) {
+            if (isArticulation[v]) {
+                articulationPoints[i++] = v;
+            }
+        }
+        return new Biconnectivity(connectedComponentCount, biconnectedComponentCount, articulationPoints,
+                Arrays.copyOf(bridges, bridgeSize), arcComponents);
+    }
+
+    /**
+     * Gives every arc the component of its edge. The search labels one direction of every edge,
+     * and all parallel copies of an edge always share a component, so the label of any copy is used.
+     * @param graph the graph the arcs belong to
+     * @param arcComponents the component of every arc, filled in place
+     */
+    private static void labelReverseArcs(CompactGraph graph, int[] arcComponents) {
+        int[] neighbors = graph.getNeighbors();
+        for (int vertex = 0; vertex < graph.getVertexCount(); vertex++) {
+            for (int i = graph.getRowStart(vertex); i < graph.getRowEnd(vertex); i++) {
+                int neighbor = neighbors[i];
+                if (arcComponents[i] != -1 || neighbor == vertex) {
+                    continue;
+                }
+                int label = findLabel(graph, arcComponents, vertex, neighbor);
+                if (label == -1) {
+                    label = findLabel(graph, arcComponents, neighbor, vertex);
+                }
+                arcComponents[i] = label;
+            }
+        }
+    }
+
+    /**
+     * Finds a labeled copy of an arc.
+     * @param graph the graph the arcs belong to
+     * @param arcComponents the component of every arc
+     * @param vertex the row to look in
+     * @param neighbor the neighbor to look for
+     * @return the label of a labeled copy, or -1 if no copy in the row is labeled yet
+     */
+    private static int findLabel(CompactGraph graph, int[] arcComponents, int vertex, int neighbor) {
+        int[] neighbors = graph.getNeighbors();
+        int position = Arrays.binarySearch(neighbors, graph.getRowStart(vertex), graph.getRowEnd(vertex), neighbor);
+        if (position < 0) {
+            return -1;
+        }
+        while (position > graph.getRowStart(vertex) && neighbors[position - 1] == neighbor) {
+            position--;
+        }
+        for (; position < graph.getRowEnd(vertex) && neighbors[position] == neighbor; position++) {
+            if (arcComponents[position] != -1) {
+                return arcComponents[position];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the number of connected components.
+     * @return the number of connected components
+     */
+    public int getConnectedComponentCount() {
+        return connectedComponentCount;
+    }
+
+    /**
+     * Gets the number of biconnected components. Every bridge is a biconnected component of its own.
+     * @return the number of biconnected components
+     */
+    public int getBiconnectedComponentCount() {
+        return biconnectedComponentCount;
+    }
+
+    /**
+     * Gets the vertices whose removal would increase the number of connected components.
+     * @return the articulation points, in ascending order
+     */
+    public int[] getArticulationPoints() {
+        return articulationPoints;
+    }
+
+    /**
+     * Gets the edges whose removal would increase the number of connected components.
+     * @return the bridges as consecutive (smaller vertex, larger vertex) pairs
+     */
+    public int[] getBridges() {
+        return bridges;
+    }
+
+    /**
+     * Gets the biconnected component of every neighbor entry of the graph.
+     * @return the component of every arc, indexed like {@link CompactGraph#getNeighbors()}; self-loops are -1
+     */
+    public int[] getArcComponents() {
+        return arcComponents;
+    }
+}
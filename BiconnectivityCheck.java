@@ -0,0 +1,227 @@
+import java.util.*;
+
+/**
+ * This class cross-checks {@link Biconnectivity} against brute force on random undirected multigraphs.
+ * A vertex is an articulation point exactly when deleting it leaves more components than before, and an edge is a
+ * bridge exactly when deleting all of its copies does. Two edges that meet at a vertex share a biconnected component
+ * exactly when their other ends stay connected without that vertex, and the number of components follows from the
+ * block-cut tree: one per connected component with an edge, plus one for every extra block at each vertex.
+ * Any disagreement stops the check with an exception.
+ * Usage: java BiconnectivityCheck [graphCount] [maxVertices] [seed]
+ */
+public class BiconnectivityCheck {
+
+    /**
+     * Labels the connected components of a graph with some of its parts deleted.
+     * @param graph the graph to label
+     * @param deletedVertex a vertex to delete, or -1 to keep every vertex
+     * @param deletedFrom one end of an edge to delete with all of its copies, or -1 to keep every edge
+     * @param deletedTo the other end of the edge to delete
+     * @return the root of every vertex, or -1 for the deleted vertex
+     */
+    static int[] components(CompactGraph graph, int deletedVertex, int deletedFrom, int deletedTo) {
+        int vertexCount = graph.getVertexCount();
+        int[] roots = new int[vertexCount];
+        for (int v = 0; v < vertexCount; v++) {
+            roots[v] = v;
+        }
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            for (int i = graph.getRowStart(vertex); i < graph.getRowEnd(vertex); i++) {
+                int neighbor = graph.getNeighbor(i);
+                if (vertex == deletedVertex || neighbor == deletedVertex
+                        || (vertex == deletedFrom && neighbor == deletedTo)
+                        || (vertex == deletedTo && neighbor == deletedFrom)) {
+                    continue;
+                }
+                roots[find(roots, vertex)] = find(roots, neighbor);
+            }
+        }
+        for (int v = 0; v < vertexCount; v++) {
+            roots[v] = v == deletedVertex ? -1 : find(roots, v);
+        }
+        return roots;
+    }
+
+    private static int find(int[] roots, int vertex) {
+        while (roots[vertex] != vertex) {
+            roots[vertex] = roots[roots[vertex]];
+            vertex = roots[vertex];
+        }
+        return vertex;
+    }
+
+    private static int countRoots(int[] roots) {
+        int count = 0;
+        for (int v = 0; v < roots.length; v++) {
+            if (roots[v] == v) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Counts the copies of an edge, whether kept as separate entries or folded into a multiplicity.
+     * @param graph the graph to look in
+     * @param from one end of the edge
+     * @param to the other end of the edge
+     * @return the number of copies
+     */
+    private static int copies(CompactGraph graph, int from, int to) {
+        int count = 0;
+        for (int i = graph.getRowStart(from); i < graph.getRowEnd(from); i++) {
+            if (graph.getNeighbor(i) == to) {
+                count += graph.getMultiplicity(i);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Analyzes one graph and compares every part of the result with brute force.
+     * @param graph the undirected graph to check
+     */
+    static void checkGraph(CompactGraph graph) {
+        int vertexCount = graph.getVertexCount();
+        Biconnectivity result = Biconnectivity.analyze(graph);
+        int[] roots = components(graph, -1, -1, -1);
+        int componentCount = countRoots(roots);
+        if (result.getConnectedComponentCount() != componentCount) {
+            throw new IllegalStateException(result.getConnectedComponentCount() + " connected components instead of "
+                    + componentCount);
+        }
+
+        List<Integer> articulationPoints = new ArrayList<>();
+        int[][] rootsWithout = new int[vertexCount][];
+        boolean[] hasEdge = new boolean[vertexCount];
+        int expectedBlocks = 0;
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            rootsWithout[vertex] = components(graph, vertex, -1, -1);
+            if (countRoots(rootsWithout[vertex]) > componentCount) {
+                articulationPoints.add(vertex);
+            }
+            // Every piece left behind that touches the vertex is one block at the vertex
+            Set<Integer> pieces = new HashSet<>();
+            for (int i = graph.getRowStart(vertex); i < graph.getRowEnd(vertex); i++) {
+                int neighbor = graph.getNeighbor(i);
+                if (neighbor != vertex) {
+                    pieces.add(rootsWithout[vertex][neighbor]);
+                    hasEdge[roots[vertex]] = true;
+                }
+            }
+            expectedBlocks += Math.max(pieces.size() - 1, 0);
+        }
+        for (int v = 0; v < vertexCount; v++) {
+            if (hasEdge[v]) {
+                expectedBlocks++;
+            }
+        }
+        int[] expectedPoints = articulationPoints.stream().mapToInt(Integer::intValue).toArray();
+        if (!Arrays.equals(result.getArticulationPoints(), expectedPoints)) {
+            throw new IllegalStateException("Articulation points " + Arrays.toString(result.getArticulationPoints())
+                    + " instead of " + Arrays.toString(expectedPoints));
+        }
+        if (result.getBiconnectedComponentCount() != expectedBlocks) {
+            throw new IllegalStateException(result.getBiconnectedComponentCount() + " biconnected components instead of "
+                    + expectedBlocks);
+        }
+
+        List<Integer> bridges = new ArrayList<>();
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            for (int i = graph.getRowStart(vertex); i < graph.getRowEnd(vertex); i++) {
+                int neighbor = graph.getNeighbor(i);
+                if (neighbor <= vertex || (i > graph.getRowStart(vertex) && graph.getNeighbor(i - 1) == neighbor)) {
+                    continue;
+                }
+                if (copies(graph, vertex, neighbor) == 1
+                        && countRoots(components(graph, -1, vertex, neighbor)) > componentCount) {
+                    bridges.add(vertex);
+                    bridges.add(neighbor);
+                }
+            }
+        }
+        int[] expectedBridges = bridges.stream().mapToInt(Integer::intValue).toArray();
+        int[] actualBridges = result.getBridges().clone();
+        sortPairs(actualBridges);
+        if (!Arrays.equals(actualBridges, expectedBridges)) {
+            throw new IllegalStateException("Bridges " + Arrays.toString(actualBridges) + " instead of "
+                    + Arrays.toString(expectedBridges));
+        }
+
+        int[] arcComponents = result.getArcComponents();
+        Set<Integer> labels = new HashSet<>();
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            for (int i = graph.getRowStart(vertex); i < graph.getRowEnd(vertex); i++) {
+                int first = graph.getNeighbor(i);
+                if (first == vertex) {
+                    if (arcComponents[i] != -1) {
+                        throw new IllegalStateException("Self-loop at " + vertex + " has component " + arcComponents[i]);
+                    }
+                    continue;
+                }
+                if (arcComponents[i] < 0 || arcComponents[i] >= expectedBlocks) {
+                    throw new IllegalStateException("Arc " + vertex + "->" + first + " has component " + arcComponents[i]);
+                }
+                labels.add(arcComponents[i]);
+                for (int j = graph.getRowStart(vertex); j < graph.getRowEnd(vertex); j++) {
+                    int second = graph.getNeighbor(j);
+                    if (second == vertex) {
+                        continue;
+                    }
+                    boolean together = first == second || rootsWithout[vertex][first] == rootsWithout[vertex][second];
+                    if ((arcComponents[i] == arcComponents[j]) != together) {
+                        throw new IllegalStateException("Arcs " + vertex + "->" + first + " and " + vertex + "->" + second
+                                + (together ? " should" : " should not") + " share a component");
+                    }
+                }
+            }
+        }
+        if (labels.size() != expectedBlocks) {
+            throw new IllegalStateException(labels.size() + " arc labels in use instead of " + expectedBlocks);
+        }
+    }
+
+    /**
+     * Sorts a flat array of vertex pairs by their first and then their second vertex.
+     * @param pairs the pairs, sorted in place
+     */
+    private static void sortPairs(int[] pairs) {
+        long[] keys = new long[pairs.length / 2];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = ((long) pairs[2 * i] << 32) | pairs[2 * i + 1];
+        }
+        Arrays.sort(keys);
+        for (int i = 0; i < keys.length; i++) {
+            pairs[2 * i] = (int) (keys[i] >>> 32);
+            pairs[2 * i + 1] = (int) keys[i];
+        }
+    }
+
+    /**
+     * The main method that runs the check.
+     * @param args the number of graphs, the largest vertex count and the random seed, all optional
+     */
+    public static void main(String[] args) {
+        int graphCount = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int maxVertices = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+
+        Random random = new Random(seed);
+        for (int graph = 0; graph < graphCount; graph++) {
+            int vertexCount = 1 + random.nextInt(maxVertices);
+            // Sparse graphs have the most bridges and articulation points, so stay close to a forest
+            int edgeCount = random.nextInt(vertexCount * 3 / 2 + 1);
+            int[] sources = new int[edgeCount];
+            int[] targets = new int[edgeCount];
+            int[] counts = new int[edgeCount];
+            for (int edge = 0; edge < edgeCount; edge++) {
+                sources[edge] = random.nextInt(vertexCount);
+                targets[edge] = random.nextInt(vertexCount);
+                counts[edge] = 1 + random.nextInt(2);
+            }
+            CompactGraph.DuplicatePolicy policy = CompactGraph.DuplicatePolicy.values()[random.nextInt(3)];
+            checkGraph(CompactGraph.fromEdges(vertexCount, sources, targets, counts, edgeCount, false, policy));
+        }
+        System.out.println(graphCount + " random graphs agree with brute-force bridges and articulation points");
+    }
+}
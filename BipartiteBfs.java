@@ -0,0 +1,229 @@
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * This class two-colors a {@link CompactGraph} with a breadth-first search (BFS) whose frontiers are bitsets.
+ * Every level is expanded either top-down (from the frontier to its unvisited neighbors) or bottom-up
+ * (from every unvisited vertex to any neighbor in the frontier), whichever touches fewer edges,
+ * following Beamer's direction-optimizing BFS. A graph is bipartite exactly when no edge joins two
+ * vertices of the same BFS level, and the level parity is then a valid coloring.
+ */
+public class BipartiteBfs {
+    /** Switch to bottom-up once the frontier's edges exceed 1/ALPHA of the unvisited vertices' edges. */
+    private static final int ALPHA = 14;
+    /** Switch back to top-down once the frontier holds fewer than 1/BETA of the vertices. */
+    private static final int BETA = 24;
+    /** The number of 64-vertex words one parallel task handles. */
+    private static final int WORDS_PER_TASK = 64;
+
+    private final CompactGraph graph;
+    private final boolean parallel;
+    private final int vertexCount;
+    private final int wordCount;
+    private final int[] levels;
+    private final long[] visited;
+    private long[] frontierBits;
+    private long[] nextFrontierBits;
+    private int[] frontierQueue;
+    private int[] nextFrontierQueue;
+    private int frontierQueueSize;
+
+    private BipartiteBfs(CompactGraph graph, boolean parallel) {
+        this.graph = graph;
+        this.parallel = parallel;
+        this.vertexCount = graph.getVertexCount();
+        this.wordCount = (vertexCount + 63) >>> 6;
+        this.levels = new int[vertexCount];
+        this.visited = new long[wordCount];
+        this.frontierBits = new long[wordCount];
+        this.nextFrontierBits = new long[wordCount];
+        this.frontierQueue = new int[vertexCount];
+        this.nextFrontierQueue = new int[vertexCount];
+        Arrays.fill(levels, -1);
+    }
+
+    /**
+     * Checks if an undirected graph is bipartite.
+     * @param graph the graph to check
+     * @param parallel whether to expand bottom-up levels and check edges on all cores
+     * @return true if the graph is bipartite, false otherwise
+     * @throws IllegalArgumentException if the graph is directed
+     */
+    public static boolean isBipartite(CompactGraph graph, boolean parallel) {
+        return twoColor(graph, parallel) != null;
+    }
+
+    /**
+     * Two-colors an undirected graph.
+     * @param graph the graph to color
+     * @param parallel whether to expand bottom-up levels and check edges on all cores
+     * @return the color, 0 or 1, of every vertex, or null if the graph is not bipartite
+     * @throws IllegalArgumentException if the graph is directed
+     */
+    public static int[] twoColor(CompactGraph graph, boolean parallel) {
+        if (graph.isDirected()) {
+            throw new IllegalArgumentException("Bipartiteness is only checked on undirected graphs");
+        }
+        long start = GraphMetrics.startTimer();
+        BipartiteBfs search = new BipartiteBfs(graph, parallel);
+        search.layerAllComponents();
+        int[] colors = search.hasEdgeWithinLevel() ? null : search.levelParities();
+        GraphMetrics.stopTimer(GraphMetrics.Timer.BIPARTITE, start);
+        return colors;
+    }
+
+    /**
+     * Gives every vertex its BFS level, starting a new search from every vertex that is not reached yet.
+     * Top-down levels keep the frontier as a queue, so small components cost nothing per bitset word;
+     * bottom-up levels keep it as a bitset, which is all-zero again whenever the search is top-down.
+     */
+    private void layerAllComponents() {
+        long unvisitedArcs = graph.getArcCount();
+        for (int source = 0; source < vertexCount; source++) {
+            if (levels[source] != -1) {
+                continue;
+            }
+            visited[source >>> 6] |= 1L << source;
+            levels[source] = 0;
+            frontierQueue[0] = source;
+            frontierQueueSize = 1;
+            long frontierSize = 1;
+            long frontierArcs = graph.getDegree(source);
+            unvisitedArcs -= frontierArcs;
+            boolean bottomUp = false;
+
+            for (int level = 1; frontierSize > 0; level++) {
+                if (!bottomUp && frontierArcs > unvisitedArcs / ALPHA) {
+                    bottomUp = true;
+                    for (int i = 0; i < frontierQueueSize; i++) {
+                        frontierBits[frontierQueue[i] >>> 6] |= 1L << frontierQueue[i];
+                    }
+                } else if (bottomUp && frontierSize < vertexCount / BETA) {
+                    bottomUp = false;
+                    frontierQueueSize = 0;
+                    for (int word = 0; word < wordCount; word++) {
+                        for (long bits = frontierBits[word]; bits != 0; bits &= bits - 1) {
+                            frontierQueue[frontierQueueSize++] = (word << 6) + Long.numberOfTrailingZeros(bits);
+                        }
+                    }
+                    Arrays.fill(frontierBits, 0L);
+                }
+                long[] expanded = bottomUp ? expandBottomUp(level) : expandTopDown(level);
+                frontierSize = expanded[0];
+                frontierArcs = expanded[1];
+                unvisitedArcs -= frontierArcs;
+                GraphMetrics.add(GraphMetrics.Counter.TRAVERSAL_VISITS, frontierSize);
+            }
+        }
+    }
+
+    /**
+     * Expands the frontier queue by scanning the edges of every frontier vertex.
+     * @param level the level given to newly reached vertices
+     * @return the size of the next frontier and the number of arcs leaving it
+     */
+    private long[] expandTopDown(int level) {
+        int size = 0;
+        long arcs = 0;
+        for (int f = 0; f < frontierQueueSize; f++) {
+            int vertex = frontierQueue[f];
+            for (int i = graph.getRowStart(vertex); i < graph.getRowEnd(vertex); i++) {
+                int neighbor = graph.getNeighbor(i);
+                long mask = 1L << neighbor;
+                if ((visited[neighbor >>> 6] & mask) == 0) {
+                    visited[neighbor >>> 6] |= mask;
+                    levels[neighbor] = level;
+                    nextFrontierQueue[size++] = neighbor;
+                    arcs += graph.getDegree(neighbor);
+                }
+            }
+        }
+        int[] swap = frontierQueue;
+        frontierQueue = nextFrontierQueue;
+        nextFrontierQueue = swap;
+        frontierQueueSize = size;
+        return new long[]{size, arcs};
+    }
+
+    /**
+     * Expands the frontier by letting every unvisited vertex look for a neighbor in the frontier.
+     * Each task owns a range of bitset words, so in parallel mode no two tasks write the same word.
+     * @param level the level given to newly reached vertices
+     * @return the size of the next frontier and the number of arcs leaving it
+     */
+    private long[] expandBottomUp(int level) {
+        int taskCount = (wordCount + WORDS_PER_TASK - 1) / WORDS_PER_TASK;
+        IntStream tasks = IntStream.range(0, taskCount);
+        if (parallel) {
+            tasks = tasks.parallel();
+        }
+        long[][] results = tasks.mapToObj(task -> expandBottomUpWords(level, task * WORDS_PER_TASK,
+                Math.min(wordCount, (task + 1) * WORDS_PER_TASK))).toArray(long[][]::new);
+        long size = 0;
+        long arcs = 0;
+        for (long[] result : results) {
+            size += result[0];
+            arcs += result[1];
+        }
+        long[] swap = frontierBits;
+        frontierBits = nextFrontierBits;
+        nextFrontierBits = swap;
+        return new long[]{size, arcs};
+    }
+
+    private long[] expandBottomUpWords(int level, int firstWord, int endWord) {
+        long size = 0;
+        long arcs = 0;
+        for (int word = firstWord; word < endWord; word++) {
+            long unvisited = ~visited[word];
+            if (word == wordCount - 1 && (vertexCount & 63) != 0) {
+                unvisited &= (1L << vertexCount) - 1;
+            }
+            long reached = 0;
+            while (unvisited != 0) {
+                int vertex = (word << 6) + Long.numberOfTrailingZeros(unvisited);
+                unvisited &= unvisited - 1;
+                for (int i = graph.getRowStart(vertex); i < graph.getRowEnd(vertex); i++) {
+                    int neighbor = graph.getNeighbor(i);
+                    if ((frontierBits[neighbor >>> 6] & (1L << neighbor)) != 0) {
+                        reached |= 1L << vertex;
+                        levels[vertex] = level;
+                        size++;
+                        arcs += graph.getDegree(vertex);
+                        break;
+                    }
+                }
+            }
+            visited[word] |= reached;
+            nextFrontierBits[word] = reached;
+        }
+        return new long[]{size, arcs};
+    }
+
+    /**
+     * Checks every edge for two ends on the same level, which means an odd cycle.
+     * @return true if some edge joins two vertices of the same level, false otherwise
+     */
+    private boolean hasEdgeWithinLevel() {
+        IntStream vertices = IntStream.range(0, vertexCount);
+        if (parallel) {
+            vertices = vertices.parallel();
+        }
+        return vertices.anyMatch(vertex -> {
+            for (int i = graph.getRowStart(vertex); i < graph.getRowEnd(vertex); i++) {
+                if (levels[graph.getNeighbor(i)] == levels[vertex]) {
+                    return true;
+                }
+            }
+            return false;
+        });
+    }
+
+    private int[] levelParities() {
+        int[] colors = new int[vertexCount];
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            colors[vertex] = levels[vertex] & 1;
+        }
+        return colors;
+    }
+}
@@ -3,18 +3,27 @@ import java.util.*;
 /**
  * This class represents a Bipartite Graph.
  * It provides methods to add vertices and edges, check if a vertex does not exist, and check if the graph is bipartite.
+ * Besides the named adjacency lists it keeps every edge as a pair of vertex indices, so that the compact graph
+ * behind the large-graph methods is built without a single name lookup, and only again after the graph changes.
  */
 public class BipartiteGraph {
     private final Map<String, List<String>> adjacencyList;
     private final Map<String, Integer> vertexSet;
+    private final Map<String, Integer> vertexIndexMap;
+    private EdgeBatch edges;
+    private CompactGraph compactGraph;
+    private final GraphFingerprint fingerprint;
 
     /**
      * Constructs a new BipartiteGraph with the specified number of vertices.
      * @param vertexCount the number of vertices in the graph
      */
     public BipartiteGraph(int vertexCount) {
-        adjacencyList = new HashMap<>(vertexCount);
+        adjacencyList = new LinkedHashMap<>(vertexCount);
         vertexSet = new HashMap<>(vertexCount);
+        vertexIndexMap = new HashMap<>(vertexCount);
+        edges = new EdgeBatch(vertexCount);
+        fingerprint = new GraphFingerprint(false, 0);
     }
 
     /**
@@ -22,7 +31,11 @@ public class BipartiteGraph {
      * @param vertex the vertex to be added
      */
     public void addVertex(String vertex) {
-        adjacencyList.putIfAbsent(vertex, new ArrayList<>());
+        if (adjacencyList.putIfAbsent(vertex, new ArrayList<>()) == null) {
+            fingerprint.addVertex(vertex);
+            vertexIndexMap.put(vertex, vertexIndexMap.size());
+            compactGraph = null;
+        }
         vertexSet.putIfAbsent(vertex, -1);
     }
 
@@ -34,6 +47,9 @@ public class BipartiteGraph {
     public void addEdge(String vertexOne, String vertexTwo) {
         adjacencyList.get(vertexOne).add(vertexTwo);
         adjacencyList.get(vertexTwo).add(vertexOne);
+        edges.addEdge(vertexIndexMap.get(vertexOne), vertexIndexMap.get(vertexTwo));
+        compactGraph = null;
+        fingerprint.addEdge(vertexOne, vertexTwo);
     }
 
     /**
@@ -46,10 +62,21 @@ public class BipartiteGraph {
     }
 
     /**
-     * Checks if the graph is bipartite.
+     * Checks if the graph is bipartite. The answer is cached for as long as the graph does not change.
      * @return true if the graph is bipartite, false otherwise
      */
     public boolean checkIfBipartite() {
+        return ResultCache.shared().get(fingerprint.key("bipartite"), this::assignAllSets);
+    }
+
+    /**
+     * Assigns every vertex to a set, starting over from unassigned vertices.
+     * @return true if the graph is bipartite, false otherwise
+     */
+    private boolean assignAllSets() {
+        long start = GraphMetrics.startTimer();
+        vertexSet.replaceAll((vertex, set) -> -1);
+        boolean isBipartite = true;
         // Try to assign each unassigned vertex to a set
         for (String startingVertex : adjacencyList.keySet()) {
             if (vertexSet.get(startingVertex) == -1) {
@@ -57,11 +84,131 @@ public class BipartiteGraph {
                 vertexSet.put(startingVertex, 0);
                 // Try to assign the other vertices so that no two adjacent vertices are in the same set
                 if (cannotAssignSets(startingVertex)) {
-                    return false;
+                    isBipartite = false;
+                    break;
                 }
             }
         }
-        return true;
+        GraphMetrics.stopTimer(GraphMetrics.Timer.BIPARTITE, start);
+        return isBipartite;
+    }
+
+    /**
+     * Checks if the graph is bipartite with a bitset BFS over compact int storage.
+     * This avoids the hash lookups of {@link #checkIfBipartite()} and suits large graphs.
+     * Both methods share the cached answer.
+     * @param parallel whether to use all cores for the large BFS levels
+     * @return true if the graph is bipartite, false otherwise
+     */
+    public boolean checkIfBipartite(boolean parallel) {
+        return ResultCache.shared().get(fingerprint.key("bipartite"),
+                () -> BipartiteBfs.isBipartite(toCompactGraph(), parallel));
+    }
+
+    /**
+     * Converts the graph to an undirected compact graph, keeping parallel edges.
+     * Vertices are numbered in the order of {@link #getVertexIndexMap()}. The edges are kept as indices
+     * while they are added, so the graph is radix sorted from them, and the result is reused until the graph changes.
+     * @return the compact graph
+     */
+    public CompactGraph toCompactGraph() {
+        if (compactGraph == null) {
+            compactGraph = edges.build(vertexIndexMap.size(), false, CompactGraph.DuplicatePolicy.KEEP);
+        }
+        return compactGraph;
+    }
+
+    /**
+     * Colors the graph with as many colors as it needs, generalizing the two sets of {@link #checkIfBipartite()}.
+     * @param strategy how to color the vertices
+     * @return a map from vertex names to colors, numbered from 0
+     * @throws IllegalArgumentException if the graph has a self-loop, or is too large for an exact search
+     */
+    public Map<String, Integer> colorVertices(GraphColoring.Strategy strategy) {
+        return nameColors(GraphColoring.compute(toCompactGraph(), strategy));
+    }
+
+    /**
+     * Looks up the color of every vertex by name.
+     * @param coloring a coloring of {@link #toCompactGraph()}
+     * @return a map from vertex names to colors, in iteration order
+     */
+    private Map<String, Integer> nameColors(GraphColoring coloring) {
+        Map<String, Integer> vertexColors = new LinkedHashMap<>(adjacencyList.size() * 2);
+        for (String vertex : adjacencyList.keySet()) {
+            vertexColors.put(vertex, coloring.getColor(vertexIndexMap.get(vertex)));
+        }
+        return vertexColors;
+    }
+
+    /**
+     * Gets the chromatic number, the fewest colors that keep adjacent vertices apart.
+     * The answer is cached for as long as the graph does not change.
+     * @return the chromatic number, which is at most 2 exactly when the graph is bipartite
+     * @throws IllegalArgumentException if the graph has a self-loop, or more than
+     *                                  {@link GraphColoring#MAX_EXACT_VERTICES} vertices
+     * @throws IllegalStateException if the exact search runs out of its {@link GraphColoring#MAX_EXACT_NODES}
+     *                               nodes before proving its best coloring optimal
+     */
+    public int getChromaticNumber() {
+        return ResultCache.shared().get(fingerprint.key("chromatic-number"), () -> {
+            GraphColoring coloring = GraphColoring.compute(toCompactGraph(), GraphColoring.Strategy.EXACT);
+            if (!coloring.isOptimal()) {
+                throw new IllegalStateException("The chromatic number is at most " + coloring.getColorCount()
+                        + ", but the search ran out of nodes before proving it");
+            }
+            return coloring.getColorCount();
+        });
+    }
+
+    /**
+     * Relabels the vertices so that the two ends of most edges are close together in iteration order,
+     * which makes the compact graph of {@link #checkIfBipartite(boolean)} read memory in order.
+     * @param strategy how to order the vertices
+     * @return the ordering, which maps indices in the old {@link #getVertexIndexMap()} to the new ones
+     */
+    public VertexOrdering reorderVertices(VertexOrdering.Strategy strategy) {
+        CompactGraph graph = toCompactGraph();
+        VertexOrdering ordering = VertexOrdering.compute(graph, strategy);
+        String[] vertexNames = new String[vertexIndexMap.size()];
+        for (Map.Entry<String, Integer> entry : vertexIndexMap.entrySet()) {
+            vertexNames[ordering.getNewIndex(entry.getValue())] = entry.getKey();
+        }
+        Map<String, List<String>> reorderedLists = new LinkedHashMap<>(adjacencyList.size() * 2);
+        for (String vertex : vertexNames) {
+            List<String> neighbors = new ArrayList<>(adjacencyList.get(vertex));
+            neighbors.sort(Comparator.comparingInt(neighbor -> ordering.getNewIndex(vertexIndexMap.get(neighbor))));
+            reorderedLists.put(vertex, neighbors);
+        }
+        adjacencyList.clear();
+        adjacencyList.putAll(reorderedLists);
+
+        // The indexed edges follow the new numbering, and the relabeled compact graph is already built
+        EdgeBatch reorderedEdges = new EdgeBatch(edges.size());
+        for (int i = 0; i < edges.size(); i++) {
+            reorderedEdges.addEdge(ordering.getNewIndex(edges.getSource(i)), ordering.getNewIndex(edges.getTarget(i)));
+        }
+        edges = reorderedEdges;
+        vertexIndexMap.replaceAll((vertex, index) -> ordering.getNewIndex(index));
+        compactGraph = ordering.apply(graph);
+        return ordering;
+    }
+
+    /**
+     * Gets the index of every vertex, numbered in insertion order, or in the order of the last
+     * {@link #reorderVertices(VertexOrdering.Strategy)}.
+     * @return a read-only view of the map from vertex names to indices
+     */
+    public Map<String, Integer> getVertexIndexMap() {
+        return Collections.unmodifiableMap(vertexIndexMap);
+    }
+
+    /**
+     * Gets the structural fingerprint of the graph, which changes whenever a vertex or an edge is added.
+     * @return the fingerprint
+     */
+    public GraphFingerprint getFingerprint() {
+        return fingerprint;
     }
 
     /**
@@ -70,6 +217,7 @@ public class BipartiteGraph {
      * @return true if the assignment was not successful, false otherwise
      */
     private boolean cannotAssignSets(String startingVertex) {
+        GraphMetrics.increment(GraphMetrics.Counter.TRAVERSAL_VISITS);
         for (String neighbor : adjacencyList.get(startingVertex)) {
             if (vertexSet.get(neighbor) == -1) {
                 vertexSet.put(neighbor, 1 - vertexSet.get(startingVertex));
@@ -133,6 +281,13 @@ public class BipartiteGraph {
                 System.out.println("The graph is bipartite.");
             } else {
                 System.out.println("The graph is not bipartite.");
+                // The exact search keeps DSATUR's coloring, or a better one, when it runs out of nodes
+                GraphColoring.Strategy strategy = vertexCount <= GraphColoring.MAX_EXACT_VERTICES
+                        ? GraphColoring.Strategy.EXACT : GraphColoring.Strategy.DSATUR;
+                GraphColoring coloring = GraphColoring.compute(checker.toCompactGraph(), strategy);
+                System.out.println("It can be colored with " + coloring.getColorCount()
+                        + (coloring.isOptimal() ? " colors, and no fewer: " : " colors, not proven to be the fewest: ")
+                        + checker.nameColors(coloring));
             }
         } catch (InputMismatchException e) {
             System.out.println("Invalid input. Please enter a number for the number of edges.");
@@ -0,0 +1,317 @@
+import java.util.*;
+
+/**
+ * This class represents a Graph stored in compressed sparse row (CSR) form.
+ * The neighbors of vertex v are stored in neighbors[offsets[v]] .. neighbors[offsets[v + 1] - 1],
+ * sorted in ascending order. Parallel edges are either kept, dropped, or folded into a multiplicity.
+ * Instances are immutable and are normally created through an {@link EdgeBatch}.
+ */
+public class CompactGraph {
+
+    /**
+     * What to do with parallel edges while building the graph.
+     */
+    public enum DuplicatePolicy {
+        /** Keep every parallel edge as its own neighbor entry. */
+        KEEP,
+        /** Keep a single neighbor entry per vertex pair. */
+        DROP,
+        /** Keep a single neighbor entry per vertex pair and record how many times it appeared. */
+        AGGREGATE
+    }
+
+    private final int vertexCount;
+    private final boolean isDirected;
+    private final int[] offsets;
+    private final int[] neighbors;
+    private final int[] multiplicities;
+
+    /**
+     * Constructs a CompactGraph from already built CSR arrays.
+     * @param vertexCount the number of vertices in the graph
+     * @param isDirected whether the graph is directed or not
+     * @param offsets the row offsets, of length vertexCount + 1
+     * @param neighbors the neighbor entries of every row
+     * @param multiplicities the multiplicity of every neighbor entry, or null if every entry counts once
+     */
+    CompactGraph(int vertexCount, boolean isDirected, int[] offsets, int[] neighbors, int[] multiplicities) {
+        this.vertexCount = vertexCount;
+        this.isDirected = isDirected;
+        this.offsets = offsets;
+        this.neighbors = neighbors;
+        this.multiplicities = multiplicities;
+    }
+
+    /**
+     * Builds a graph from primitive edge arrays in one pass.
+     * The edges are radix sorted by (source, target) with two counting-sort passes,
+     * so the cost is linear in the number of edges plus the number of vertices.
+     * For an undirected graph every edge is stored in both rows, except self-loops which are stored once.
+     * @param vertexCount the number of vertices in the graph
+     * @param sources the source vertex index of every edge
+     * @param targets the target vertex index of every edge
+     * @param edgeCount the number of edges to read from the arrays
+     * @param isDirected whether the graph is directed or not
+     * @param policy what to do with parallel edges
+     * @return the built graph
+     * @throws IllegalArgumentException if a vertex index is out of range
+     */
+    public static CompactGraph fromEdges(int vertexCount, int[] sources, int[] targets, int edgeCount,
+                                         boolean isDirected, DuplicatePolicy policy) {
+        return fromEdges(vertexCount, sources, targets, null, edgeCount, isDirected, policy);
+    }
+
+    /**
+     * Builds a graph from primitive edge arrays where every edge may stand for several parallel edges.
+     * With {@link DuplicatePolicy#AGGREGATE} the counts of repeated edges are summed, with
+     * {@link DuplicatePolicy#KEEP} every entry keeps its own count, and {@link DuplicatePolicy#DROP} ignores them.
+     * @param vertexCount the number of vertices in the graph
+     * @param sources the source vertex index of every edge
+     * @param targets the target vertex index of every edge
+     * @param counts the number of parallel edges every entry stands for, or null if every entry counts once
+     * @param edgeCount the number of edges to read from the arrays
+     * @param isDirected whether the graph is directed or not
+     * @param policy what to do with parallel edges
+     * @return the built graph
+     * @throws IllegalArgumentException if a vertex index is out of range or a count is not positive
+     */
+    public static CompactGraph fromEdges(int vertexCount, int[] sources, int[] targets, int[] counts, int edgeCount,
+                                         boolean isDirected, DuplicatePolicy policy) {
+        if (edgeCount > sources.length || edgeCount > targets.length || (counts != null && edgeCount > counts.length)) {
+            throw new IllegalArgumentException("Edge count exceeds the edge arrays");
+        }
+        long start = GraphMetrics.startTimer();
+        GraphMetrics.add(GraphMetrics.Counter.EDGES_BUILT, edgeCount);
+        // Count the arcs ending at every vertex and validate the input at the same time
+        int[] targetBuckets = new int[vertexCount + 1];
+        int[] offsets = new int[vertexCount + 1];
+        int arcCount = 0;
+        for (int i = 0; i < edgeCount; i++) {
+            int source = sources[i];
+            int target = targets[i];
+            if (source < 0 || source >= vertexCount || target < 0 || target >= vertexCount) {
+                throw new IllegalArgumentException("Vertex index out of range: " + source + "-" + target);
+            }
+            if (counts != null && counts[i] <= 0) {
+                throw new IllegalArgumentException("Edge counts must be positive");
+            }
+            targetBuckets[target + 1]++;
+            offsets[source + 1]++;
+            arcCount++;
+            if (!isDirected && source != target) {
+                targetBuckets[source + 1]++;
+                offsets[target + 1]++;
+                arcCount++;
+            }
+        }
+        for (int v = 0; v < vertexCount; v++) {
+            targetBuckets[v + 1] += targetBuckets[v];
+            offsets[v + 1] += offsets[v];
+        }
+
+        // First pass: scatter the arcs by target
+        boolean carryCounts = counts != null && policy != DuplicatePolicy.DROP;
+        int[] sortedSources = new int[arcCount];
+        int[] sortedTargets = new int[arcCount];
+        int[] sortedCounts = carryCounts ? new int[arcCount] : null;
+        for (int i = 0; i < edgeCount; i++) {
+            int source = sources[i];
+            int target = targets[i];
+            int position = targetBuckets[target]++;
+            sortedSources[position] = source;
+            sortedTargets[position] = target;
+            if (carryCounts) {
+                sortedCounts[position] = counts[i];
+            }
+            if (!isDirected && source != target) {
+                position = targetBuckets[source]++;
+                sortedSources[position] = target;
+                sortedTargets[position] = source;
+                if (carryCounts) {
+                    sortedCounts[position] = counts[i];
+                }
+            }
+        }
+
+        // Second pass: stable scatter by source, which leaves every row sorted by target
+        int[] cursor = Arrays.copyOf(offsets, vertexCount);
+        int[] neighbors = new int[arcCount];
+        int[] entryCounts = carryCounts ? new int[arcCount] : null;
+        for (int i = 0; i < arcCount; i++) {
+            int position = cursor[sortedSources[i]]++;
+            neighbors[position] = sortedTargets[i];
+            if (carryCounts) {
+                entryCounts[position] = sortedCounts[i];
+            }
+        }
+
+        CompactGraph graph = policy == DuplicatePolicy.KEEP
+                ? new CompactGraph(vertexCount, isDirected, offsets, neighbors, entryCounts)
+                : collapseDuplicates(vertexCount, isDirected, offsets, neighbors, entryCounts,
+                        policy == DuplicatePolicy.AGGREGATE);
+        GraphMetrics.stopTimer(GraphMetrics.Timer.GRAPH_BUILD, start);
+        return graph;
+    }
+
+    /**
+     * Removes repeated neighbors from sorted rows in place.
+     * @param vertexCount the number of vertices in the graph
+     * @param isDirected whether the graph is directed or not
+     * @param offsets the row offsets, rewritten in place
+     * @param neighbors the sorted neighbor entries, compacted in place
+     * @param entryCounts the count of every neighbor entry, or null if every entry counts once
+     * @param keepMultiplicities whether to count how many times each neighbor appeared
+     * @return the compacted graph
+     */
+    private static CompactGraph collapseDuplicates(int vertexCount, boolean isDirected, int[] offsets,
+                                                   int[] neighbors, int[] entryCounts, boolean keepMultiplicities) {
+        int[] multiplicities = keepMultiplicities ? new int[neighbors.length] : null;
+        int write = 0;
+        for (int v = 0; v < vertexCount; v++) {
+            int start = offsets[v];
+            int end = offsets[v + 1];
+            offsets[v] = write;
+            for (int i = start; i < end; i++) {
+                if (i > start && neighbors[i] == neighbors[i - 1]) {
+                    if (keepMultiplicities) {
+                        multiplicities[write - 1] += entryCounts == null ? 1 : entryCounts[i];
+                    }
+                    continue;
+                }
+                neighbors[write] = neighbors[i];
+                if (keepMultiplicities) {
+                    multiplicities[write] = entryCounts == null ? 1 : entryCounts[i];
+                }
+                write++;
+            }
+        }
+        offsets[vertexCount] = write;
+        return new CompactGraph(vertexCount, isDirected, offsets, Arrays.copyOf(neighbors, write),
+                keepMultiplicities ? Arrays.copyOf(multiplicities, write) : null);
+    }
+
+    /**
+     * Gets the number of vertices in the graph.
+     * @return the number of vertices
+     */
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    /**
+     * Gets the number of stored neighbor entries (arcs).
+     * For an undirected graph every non-loop edge counts twice.
+     * @return the number of neighbor entries
+     */
+    public int getArcCount() {
+        return neighbors.length;
+    }
+
+    /**
+     * Checks if the graph is directed.
+     * @return true if the graph is directed, false otherwise
+     */
+    public boolean isDirected() {
+        return isDirected;
+    }
+
+    /**
+     * Gets the number of neighbor entries of a vertex.
+     * @param vertex the index of the vertex
+     * @return the number of neighbor entries of the vertex
+     */
+    public int getDegree(int vertex) {
+        return offsets[vertex + 1] - offsets[vertex];
+    }
+
+    /**
+     * Gets the position of the first neighbor entry of a vertex.
+     * @param vertex the index of the vertex
+     * @return the first position of the vertex's row
+     */
+    public int getRowStart(int vertex) {
+        return offsets[vertex];
+    }
+
+    /**
+     * Gets the position just past the last neighbor entry of a vertex.
+     * @param vertex the index of the vertex
+     * @return the end position of the vertex's row
+     */
+    public int getRowEnd(int vertex) {
+        return offsets[vertex + 1];
+    }
+
+    /**
+     * Gets the neighbor stored at a position.
+     * @param position the position in the neighbor array
+     * @return the index of the neighbor
+     */
+    public int getNeighbor(int position) {
+        return neighbors[position];
+    }
+
+    /**
+     * Gets the multiplicity of the neighbor entry stored at a position.
+     * @param position the position in the neighbor array
+     * @return how many parallel edges the entry stands for
+     */
+    public int getMultiplicity(int position) {
+        return multiplicities == null ? 1 : multiplicities[position];
+    }
+
+    /**
+     * Builds the graph with every arc reversed. An undirected graph is its own transpose.
+     * @return the transposed graph
+     */
+    public CompactGraph transpose() {
+        if (!isDirected) {
+            return this;
+        }
+        int[] transposedOffsets = new int[vertexCount + 1];
+        for (int neighbor : neighbors) {
+            transposedOffsets[neighbor + 1]++;
+        }
+        for (int v = 0; v < vertexCount; v++) {
+            transposedOffsets[v + 1] += transposedOffsets[v];
+        }
+        int[] cursor = Arrays.copyOf(transposedOffsets, vertexCount);
+        int[] transposedNeighbors = new int[neighbors.length];
+        int[] transposedMultiplicities = multiplicities == null ? null : new int[neighbors.length];
+        // Walking the rows in order keeps every transposed row sorted
+        for (int v = 0; v < vertexCount; v++) {
+            for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                int position = cursor[neighbors[i]]++;
+                transposedNeighbors[position] = v;
+                if (transposedMultiplicities != null) {
+                    transposedMultiplicities[position] = multiplicities[i];
+                }
+            }
+        }
+        return new CompactGraph(vertexCount, true, transposedOffsets, transposedNeighbors, transposedMultiplicities);
+    }
+
+    /**
+     * Gets the row offsets. The array is shared, not copied, and must not be modified.
+     * @return the row offsets, of length vertexCount + 1
+     */
+    public int[] getOffsets() {
+        return offsets;
+    }
+
+    /**
+     * Gets the neighbor entries. The array is shared, not copied, and must not be modified.
+     * @return the neighbor entries of every row
+     */
+    public int[] getNeighbors() {
+        return neighbors;
+    }
+
+    /**
+     * Gets the multiplicities. The array is shared, not copied, and must not be modified.
+     * @return the multiplicity of every neighbor entry, or null if every entry counts once
+     */
+    public int[] getMultiplicities() {
+        return multiplicities;
+    }
+}
@@ -0,0 +1,395 @@
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.*;
+
+/**
+ * This class represents a Graph whose neighbor lists are compressed with gap and varint encoding, as in WebGraph.
+ * Every row is stored as its degree, the gap from the vertex to its first neighbor, and the gaps between
+ * consecutive sorted neighbors, each as a variable-length integer of 7 bits per byte. Neighbors of related
+ * vertices tend to have close indices, especially after a {@link VertexOrdering}, so most gaps fit in one byte.
+ * Rows are read back with a {@link NeighborIterator}, which decodes them on the fly without building any list.
+ * The rows and offsets live in buffers, which are heap arrays for a graph compressed in memory and the mapped
+ * file for a graph restored from a {@link GraphSnapshot}, so a snapshot is read in place without being copied.
+ * Instances are immutable.
+ */
+public final class CompressedGraph {
+    private final int vertexCount;
+    private final boolean isDirected;
+    private final int arcCount;
+    private final boolean hasMultiplicities;
+    private final IntBuffer offsets;
+    private final ByteBuffer data;
+
+    private CompressedGraph(int vertexCount, boolean isDirected, int arcCount, boolean hasMultiplicities,
+                            IntBuffer offsets, ByteBuffer data) {
+        this.vertexCount = vertexCount;
+        this.isDirected = isDirected;
+        this.arcCount = arcCount;
+        this.hasMultiplicities = hasMultiplicities;
+        this.offsets = offsets;
+        this.data = data;
+    }
+
+    /**
+     * Compresses a graph. Multiplicities, if the graph has any, are stored after each neighbor.
+     * @param graph the graph to compress
+     * @return the compressed graph
+     * @throws IllegalArgumentException if the compressed rows do not fit in one array
+     */
+    public static CompressedGraph compress(CompactGraph graph) {
+        long start = GraphMetrics.startTimer();
+        int vertexCount = graph.getVertexCount();
+        boolean hasMultiplicities = graph.getMultiplicities() != null;
+        int[] offsets = new int[vertexCount + 1];
+        Encoder encoder = new Encoder(graph.getArcCount() + vertexCount * 2 + 16);
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            offsets[vertex] = encoder.size;
+            encoder.write(graph.getDegree(vertex));
+            int previous = vertex;
+            for (int i = graph.getRowStart(vertex); i < graph.getRowEnd(vertex); i++) {
+                int neighbor = graph.getNeighbor(i);
+                if (i == graph.getRowStart(vertex)) {
+                    // The first neighbor may come before the vertex, so its gap is zigzag encoded
+                    int gap = neighbor - vertex;
+                    encoder.write((gap << 1) ^ (gap >> 31));
+                } else {
+                    encoder.write(neighbor - previous);
+                }
+                if (hasMultiplicities) {
+                    encoder.write(graph.getMultiplicity(i) - 1);
+                }
+                previous = neighbor;
+            }
+        }
+        offsets[vertexCount] = encoder.size;
+        CompressedGraph compressed = new CompressedGraph(vertexCount, graph.isDirected(), graph.getArcCount(),
+                hasMultiplicities, IntBuffer.wrap(offsets),
+                ByteBuffer.wrap(Arrays.copyOf(encoder.bytes, encoder.size)));
+        GraphMetrics.stopTimer(GraphMetrics.Timer.GRAPH_BUILD, start);
+        return compressed;
+    }
+
+    /**
+     * Compresses adjacency lists such as the ones held by {@link ConnectedGraph} and {@link VertexDegree}.
+     * Every list entry becomes one neighbor entry of its row, so a row holds exactly the entries of its list.
+     * @param adjacencyLists the neighbor list of every vertex, where null stands for an empty list
+     * @param isDirected whether the lists describe a directed graph
+     * @return the compressed graph
+     * @throws IllegalArgumentException if a neighbor index is out of range
+     */
+    public static CompressedGraph compress(List<List<Integer>> adjacencyLists, boolean isDirected) {
+        int vertexCount = adjacencyLists.size();
+        int[] offsets = new int[vertexCount + 1];
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            List<Integer> neighbors = adjacencyLists.get(vertex);
+            offsets[vertex + 1] = offsets[vertex] + (neighbors == null ? 0 : neighbors.size());
+        }
+        int[] neighbors = new int[offsets[vertexCount]];
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            int position = offsets[vertex];
+            if (adjacencyLists.get(vertex) == null) {
+                continue;
+            }
+            for (int neighbor : adjacencyLists.get(vertex)) {
+                if (neighbor < 0 || neighbor >= vertexCount) {
+                    throw new IllegalArgumentException("Vertex index out of range: " + vertex + "-" + neighbor);
+                }
+                neighbors[position++] = neighbor;
+            }
+            Arrays.sort(neighbors, offsets[vertex], position);
+        }
+        return compress(new CompactGraph(vertexCount, isDirected, offsets, neighbors, null));
+    }
+
+    /**
+     * Wraps rows that are already compressed, such as the ones mapped from a {@link GraphSnapshot}.
+     * The buffers are read in place rather than copied, so they must not change afterwards. The caller checks
+     * that there are vertexCount + 1 offsets, starting at 0 and ending at the end of the rows.
+     * @param vertexCount the number of vertices
+     * @param isDirected whether the graph is directed
+     * @param arcCount the number of neighbor entries in the rows
+     * @param hasMultiplicities whether every neighbor entry is followed by its multiplicity
+     * @param offsets where every row starts, plus the end of the last one
+     * @param rows the encoded rows
+     * @return the compressed graph
+     */
+    static CompressedGraph wrap(int vertexCount, boolean isDirected, int arcCount, boolean hasMultiplicities,
+                                IntBuffer offsets, ByteBuffer rows) {
+        return new CompressedGraph(vertexCount, isDirected, arcCount, hasMultiplicities, offsets.slice(), rows.slice());
+    }
+
+    /**
+     * Compresses the rows of this graph merged with the rows of another graph on the same vertices, so that a
+     * large batch of edges joins compressed storage without expanding it into lists. Every entry of both graphs
+     * is kept, and every merged row stays sorted.
+     * @param rows the rows to merge in, sorted and without multiplicities
+     * @return the merged graph
+     * @throws IllegalArgumentException if the graphs differ in vertex count, either has multiplicities,
+     *                                  or the merged rows do not fit in one array
+     */
+    public CompressedGraph merge(CompactGraph rows) {
+        if (rows.getVertexCount() != vertexCount || hasMultiplicities || rows.getMultiplicities() != null) {
+            throw new IllegalArgumentException("Only graphs on the same vertices without multiplicities can be merged");
+        }
+        if ((long) arcCount + rows.getArcCount() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The merged graph does not fit in one array");
+        }
+        long start = GraphMetrics.startTimer();
+        int[] mergedOffsets = new int[vertexCount + 1];
+        Encoder encoder = new Encoder(data.limit() + (long) rows.getArcCount() + 16);
+        NeighborIterator iterator = new NeighborIterator();
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            mergedOffsets[vertex] = encoder.size;
+            encoder.write(getDegree(vertex) + rows.getDegree(vertex));
+            iterator.reset(vertex);
+            int position = rows.getRowStart(vertex);
+            int end = rows.getRowEnd(vertex);
+            // No vertex index reaches Integer.MAX_VALUE, so it marks the end of the compressed row
+            int next = iterator.hasNext() ? iterator.nextInt() : Integer.MAX_VALUE;
+            int previous = vertex;
+            boolean first = true;
+            while (next != Integer.MAX_VALUE || position < end) {
+                int neighbor;
+                if (position < end && rows.getNeighbor(position) < next) {
+                    neighbor = rows.getNeighbor(position++);
+                } else {
+                    neighbor = next;
+                    next = iterator.hasNext() ? iterator.nextInt() : Integer.MAX_VALUE;
+                }
+                if (first) {
+                    // The first neighbor may come before the vertex, so its gap is zigzag encoded
+                    int gap = neighbor - vertex;
+                    encoder.write((gap << 1) ^ (gap >> 31));
+                    first = false;
+                } else {
+                    encoder.write(neighbor - previous);
+                }
+                previous = neighbor;
+            }
+        }
+        mergedOffsets[vertexCount] = encoder.size;
+        CompressedGraph merged = new CompressedGraph(vertexCount, isDirected, arcCount + rows.getArcCount(), false,
+                IntBuffer.wrap(mergedOffsets), ByteBuffer.wrap(Arrays.copyOf(encoder.bytes, encoder.size)));
+        GraphMetrics.stopTimer(GraphMetrics.Timer.GRAPH_BUILD, start);
+        return merged;
+    }
+
+    /**
+     * Decompresses the graph back into compressed sparse row form.
+     * @return the decompressed graph
+     */
+    public CompactGraph decompress() {
+        int[] compactOffsets = new int[vertexCount + 1];
+        int[] neighbors = new int[arcCount];
+        int[] multiplicities = hasMultiplicities ? new int[arcCount] : null;
+        NeighborIterator iterator = new NeighborIterator();
+        int write = 0;
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            compactOffsets[vertex] = write;
+            for (iterator.reset(vertex); iterator.hasNext(); write++) {
+                neighbors[write] = iterator.nextInt();
+                if (multiplicities != null) {
+                    multiplicities[write] = iterator.getMultiplicity();
+                }
+            }
+        }
+        compactOffsets[vertexCount] = write;
+        return new CompactGraph(vertexCount, isDirected, compactOffsets, neighbors, multiplicities);
+    }
+
+    /**
+     * Gets the number of vertices in the graph.
+     * @return the number of vertices
+     */
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    /**
+     * Gets the number of stored neighbor entries (arcs).
+     * @return the number of neighbor entries
+     */
+    public int getArcCount() {
+        return arcCount;
+    }
+
+    /**
+     * Checks if the graph is directed.
+     * @return true if the graph is directed, false otherwise
+     */
+    public boolean isDirected() {
+        return isDirected;
+    }
+
+    /**
+     * Checks if every neighbor entry carries a multiplicity.
+     * @return true if the rows hold multiplicities, false otherwise
+     */
+    boolean hasMultiplicities() {
+        return hasMultiplicities;
+    }
+
+    /**
+     * Gets where every row starts, plus the end of the last one, for writing the rows out as they are.
+     * @return a read-only view of the offsets
+     */
+    IntBuffer getOffsets() {
+        return offsets.asReadOnlyBuffer();
+    }
+
+    /**
+     * Gets the encoded rows, for writing them out as they are.
+     * @return a read-only view of the rows
+     */
+    ByteBuffer getRows() {
+        return data.asReadOnlyBuffer();
+    }
+
+    /**
+     * Gets the number of neighbor entries of a vertex, decoding only the head of its row.
+     * @param vertex the index of the vertex
+     * @return the number of neighbor entries of the vertex
+     */
+    public int getDegree(int vertex) {
+        int position = offsets.get(vertex);
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte next = data.get(position++);
+            value |= (next & 0x7F) << shift;
+            if (next >= 0) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * Starts decoding the row of a vertex.
+     * @param vertex the index of the vertex
+     * @return an iterator over the neighbors of the vertex, in ascending order
+     */
+    public NeighborIterator neighbors(int vertex) {
+        NeighborIterator iterator = new NeighborIterator();
+        iterator.reset(vertex);
+        return iterator;
+    }
+
+    /**
+     * Gets the memory held by the compressed rows and their offsets.
+     * @return the size in bytes
+     */
+    public long getSizeInBytes() {
+        return data.limit() + 4L * offsets.limit();
+    }
+
+    /**
+     * Gets the average number of bits a neighbor entry costs, including the row offsets and headers.
+     * An uncompressed {@link CompactGraph} costs 32 bits per entry plus 32 bits per vertex.
+     * @return the bits per neighbor entry, or 0 for a graph without edges
+     */
+    public double getBitsPerArc() {
+        return arcCount == 0 ? 0 : getSizeInBytes() * 8.0 / arcCount;
+    }
+
+    /**
+     * This class represents a cursor over one compressed row. It can be reset to another row,
+     * so a traversal can decode every row with a single iterator.
+     */
+    public final class NeighborIterator implements PrimitiveIterator.OfInt {
+        // Local copies spare the decoder a trip through the enclosing instance on every byte
+        private final ByteBuffer bytes = data;
+        private final boolean decodeMultiplicities = hasMultiplicities;
+        private int position;
+        private int remaining;
+        private int current;
+        private int multiplicity = 1;
+        private boolean first;
+
+        private NeighborIterator() {
+        }
+
+        /**
+         * Moves the cursor to the start of the row of a vertex.
+         * @param vertex the index of the vertex
+         */
+        public void reset(int vertex) {
+            position = offsets.get(vertex);
+            remaining = readVarint();
+            current = vertex;
+            first = true;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        @Override
+        public int nextInt() {
+            if (remaining == 0) {
+                throw new NoSuchElementException();
+            }
+            remaining--;
+            int gap = readVarint();
+            if (first) {
+                current += (gap >>> 1) ^ -(gap & 1);
+                first = false;
+            } else {
+                current += gap;
+            }
+            if (decodeMultiplicities) {
+                multiplicity = readVarint() + 1;
+            }
+            return current;
+        }
+
+        /**
+         * Gets the multiplicity of the neighbor entry returned by the last call to {@link #nextInt()}.
+         * @return how many parallel edges the entry stands for
+         */
+        public int getMultiplicity() {
+            return multiplicity;
+        }
+
+        private int readVarint() {
+            byte next = bytes.get(position++);
+            if (next >= 0) {
+                return next;
+            }
+            int value = next & 0x7F;
+            for (int shift = 7; ; shift += 7) {
+                next = bytes.get(position++);
+                value |= (next & 0x7F) << shift;
+                if (next >= 0) {
+                    return value;
+                }
+            }
+        }
+    }
+
+    /**
+     * This class represents a growable byte buffer that writes non-negative integers as varints.
+     */
+    private static final class Encoder {
+        private byte[] bytes;
+        private int size;
+
+        Encoder(long expectedBytes) {
+            bytes = new byte[(int) Math.min(Math.max(expectedBytes, 16), Integer.MAX_VALUE - 8)];
+        }
+
+        void write(int value) {
+            if (bytes.length - size < 5) {
+                long capacity = bytes.length + (bytes.length >> 1) + 5L;
+                if (capacity > Integer.MAX_VALUE - 8) {
+                    throw new IllegalArgumentException("The compressed graph does not fit in one array");
+                }
+                bytes = Arrays.copyOf(bytes, (int) capacity);
+            }
+            while ((value & ~0x7F) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+import java.util.*;
+
+/**
+ * This class compares {@link CompressedGraph} with an uncompressed {@link CompactGraph} on a power-law graph:
+ * the bits every neighbor entry costs, and how fast a breadth-first traversal of every component runs.
+ * Gap encoding pays off most when neighbors have close indices, so every ordering is measured.
+ * Usage: java CompressedGraphBenchmark [vertexCount] [averageDegree] [gamma] [seed]
+ */
+public class CompressedGraphBenchmark {
+    private static final int RUNS = 5;
+
+    /**
+     * Labels every connected component of a compressed graph with a breadth-first search.
+     * @param graph the graph to traverse
+     * @return the number of connected components
+     */
+    static int countComponents(CompressedGraph graph) {
+        int vertexCount = graph.getVertexCount();
+        int[] component = new int[vertexCount];
+        Arrays.fill(component, -1);
+        int[] queue = new int[vertexCount];
+        int componentCount = 0;
+        CompressedGraph.NeighborIterator neighbors = vertexCount == 0 ? null : graph.neighbors(0);
+        for (int root = 0; root < vertexCount; root++) {
+            if (component[root] != -1) {
+                continue;
+            }
+            component[root] = componentCount;
+            int tail = 0;
+            queue[tail++] = root;
+            for (int head = 0; head < tail; head++) {
+                for (neighbors.reset(queue[head]); neighbors.hasNext(); ) {
+                    int neighbor = neighbors.nextInt();
+                    if (component[neighbor] == -1) {
+                        component[neighbor] = componentCount;
+                        queue[tail++] = neighbor;
+                    }
+                }
+            }
+            componentCount++;
+        }
+        return componentCount;
+    }
+
+    private static double bestOf(Runnable task) {
+        long best = Long.MAX_VALUE;
+        for (int run = 0; run < RUNS; run++) {
+            long start = System.nanoTime();
+            task.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best / 1e9;
+    }
+
+    /**
+     * The main method that runs the benchmark.
+     * @param args the vertex count, average degree, exponent and random seed, all optional
+     */
+    public static void main(String[] args) {
+        int vertexCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int averageDegree = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        double gamma = args.length > 2 ? Double.parseDouble(args[2]) : 2.1;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 42;
+
+        CompactGraph original = VertexOrderingBenchmark.generatePowerLawGraph(vertexCount, averageDegree, gamma,
+                new Random(seed));
+        System.out.printf("Power-law graph: %d vertices, %d arcs, gamma %.2f%n", vertexCount, original.getArcCount(), gamma);
+        System.out.printf("%-14s %9s %9s %11s %14s %14s%n",
+                "Ordering", "CSR b/arc", "Gap b/arc", "Compress ms", "CSR Marcs/s", "Gap Marcs/s");
+
+        List<String> names = new ArrayList<>();
+        names.add("INSERTION");
+        for (VertexOrdering.Strategy strategy : VertexOrdering.Strategy.values()) {
+            names.add(strategy.name());
+        }
+        for (String name : names) {
+            CompactGraph graph = name.equals("INSERTION") ? original
+                    : VertexOrdering.compute(original, VertexOrdering.Strategy.valueOf(name)).apply(original);
+            long start = System.nanoTime();
+            CompressedGraph compressed = CompressedGraph.compress(graph);
+            double compressMillis = (System.nanoTime() - start) / 1e6;
+            if (VertexOrderingBenchmark.countComponents(graph) != countComponents(compressed)) {
+                throw new IllegalStateException("The compressed graph does not match the original");
+            }
+            double csrBits = (4.0 * graph.getArcCount() + 4.0 * (vertexCount + 1)) * 8 / graph.getArcCount();
+            double csrSeconds = bestOf(() -> VertexOrderingBenchmark.countComponents(graph));
+            double compressedSeconds = bestOf(() -> countComponents(compressed));
+            System.out.printf("%-14s %9.2f %9.2f %11.1f %14.1f %14.1f%n", name, csrBits, compressed.getBitsPerArc(),
+                    compressMillis, graph.getArcCount() / csrSeconds / 1e6, graph.getArcCount() / compressedSeconds / 1e6);
+        }
+    }
+}
@@ -0,0 +1,455 @@
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * This class represents an undirected Graph that many threads can add edges to while other threads query it.
+ * Writers append edges to striped logs; readers work on an immutable {@link Snapshot}
+ * that is republished only when edges were added since the last one was published.
+ * A new snapshot shares the base rows of the previous one and merges only the edges logged since then
+ * into a small delta, which is folded into the base once it grows past an eighth of it. A publish thus costs
+ * time in proportion to the vertex count and the delta rather than to the whole graph, and every fold is paid
+ * for by the edges that grew the delta.
+ * Writers never wait for readers, and a reader always sees a graph made of whole edges.
+ */
+public class ConcurrentGraph {
+    private static final int STRIPE_COUNT = 64;
+    /** The delta is folded into the base rows once it holds more than 1 / COMPACTION_RATIO of their entries. */
+    private static final int COMPACTION_RATIO = 8;
+
+    private final int totalVertices;
+    private final Map<String, Integer> vertexIndexMap;
+    private final AtomicInteger registeredVertices;
+    private final EdgeLog[] edgeLogs;
+    private final AtomicLong writeEpoch;
+    private final ReentrantLock publishLock;
+    private volatile Snapshot publishedSnapshot;
+
+    /**
+     * An append-only list of edges guarded by its own lock.
+     * The arrays are replaced rather than resized in place, so a captured (array, size) pair stays valid.
+     */
+    private static final class EdgeLog {
+        private int[] sources = new int[16];
+        private int[] targets = new int[16];
+        private int size;
+
+        synchronized void append(int source, int target) {
+            if (size == sources.length) {
+                sources = Arrays.copyOf(sources, size * 2);
+                targets = Arrays.copyOf(targets, size * 2);
+            }
+            sources[size] = source;
+            targets[size] = target;
+            size++;
+        }
+
+        /**
+         * Copies the entries logged since a position into a batch.
+         * @param batch the batch to copy into
+         * @param from the number of entries already copied by an earlier call
+         * @return the number of entries logged so far, to pass as the position of the next call
+         */
+        int copyTo(EdgeBatch batch, int from) {
+            int[] capturedSources;
+            int[] capturedTargets;
+            int capturedSize;
+            // Only the capture needs the lock; entries below the captured size are never rewritten
+            synchronized (this) {
+                capturedSources = sources;
+                capturedTargets = targets;
+                capturedSize = size;
+            }
+            for (int i = from; i < capturedSize; i++) {
+                batch.addEdge(capturedSources[i], capturedTargets[i]);
+            }
+            return capturedSize;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+    }
+
+    /**
+     * Constructs a new ConcurrentGraph with room for the specified number of vertices.
+     * @param totalVertices the maximum number of vertices in the graph
+     */
+    public ConcurrentGraph(int totalVertices) {
+        this.totalVertices = totalVertices;
+        vertexIndexMap = new ConcurrentHashMap<>();
+        registeredVertices = new AtomicInteger();
+        edgeLogs = new EdgeLog[STRIPE_COUNT];
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            edgeLogs[i] = new EdgeLog();
+        }
+        writeEpoch = new AtomicLong();
+        publishLock = new ReentrantLock();
+        publishedSnapshot = new Snapshot(-1, new EdgeBatch(0).build(totalVertices, false, CompactGraph.DuplicatePolicy.KEEP),
+                null, new int[STRIPE_COUNT], 0, vertexIndexMap);
+    }
+
+    /**
+     * Adds a vertex to the graph. Adding an existing vertex does nothing.
+     * @param vertex the vertex to be added
+     * @throws IllegalArgumentException if the graph is already full
+     */
+    public void addVertex(String vertex) {
+        vertexIndexMap.computeIfAbsent(vertex, name -> {
+            // Reserve the index without ever counting past the capacity, which a snapshot could observe
+            int index;
+            do {
+                index = registeredVertices.get();
+                if (index >= totalVertices) {
+                    throw new IllegalArgumentException("Graph is full, cannot add vertex: " + name);
+                }
+            } while (!registeredVertices.compareAndSet(index, index + 1));
+            // A new vertex is a new component, so the next snapshot must count it
+            writeEpoch.incrementAndGet();
+            return index;
+        });
+    }
+
+    /**
+     * Adds an edge between two vertices in the graph.
+     * @param vertexOne the first vertex of the edge
+     * @param vertexTwo the second vertex of the edge
+     * @throws IllegalArgumentException if either vertex does not exist
+     */
+    public void createEdge(String vertexOne, String vertexTwo) {
+        Integer indexOne = vertexIndexMap.get(vertexOne);
+        Integer indexTwo = vertexIndexMap.get(vertexTwo);
+        if (indexOne == null || indexTwo == null) {
+            throw new IllegalArgumentException("One or both vertices not found in the graph.");
+        }
+        edgeLogs[indexOne & (STRIPE_COUNT - 1)].append(indexOne, indexTwo);
+        writeEpoch.incrementAndGet();
+    }
+
+    /**
+     * Gets a snapshot that contains every edge added before this call.
+     * The snapshot is shared between readers until the next edge is added.
+     * @return the current snapshot
+     */
+    public Snapshot snapshot() {
+        Snapshot current = publishedSnapshot;
+        if (current.getEpoch() == writeEpoch.get()) {
+            return current;
+        }
+        publishLock.lock();
+        try {
+            current = publishedSnapshot;
+            long epoch = writeEpoch.get();
+            if (current.getEpoch() == epoch) {
+                return current;
+            }
+            int edgeCount = 0;
+            int[] copiedSizes = current.logSizes;
+            for (int i = 0; i < STRIPE_COUNT; i++) {
+                edgeCount += edgeLogs[i].size() - copiedSizes[i];
+            }
+            EdgeBatch batch = new EdgeBatch(edgeCount);
+            int[] logSizes = new int[STRIPE_COUNT];
+            for (int i = 0; i < STRIPE_COUNT; i++) {
+                logSizes[i] = edgeLogs[i].copyTo(batch, copiedSizes[i]);
+            }
+            // Every captured edge refers to vertices registered before it, so count vertices afterwards
+            int vertexCount = registeredVertices.get();
+            CompactGraph recent = batch.build(totalVertices, false, CompactGraph.DuplicatePolicy.KEEP);
+            CompactGraph base = current.base;
+            CompactGraph delta = current.delta == null ? recent : mergeRows(current.delta, recent);
+            if ((long) delta.getArcCount() * COMPACTION_RATIO > base.getArcCount()) {
+                base = mergeRows(base, delta);
+                delta = null;
+            }
+            current = new Snapshot(epoch, base, delta, logSizes, vertexCount, vertexIndexMap);
+            publishedSnapshot = current;
+            return current;
+        } finally {
+            publishLock.unlock();
+        }
+    }
+
+    /**
+     * Merges the rows of two graphs on the same vertices, keeping every entry of both and every row sorted.
+     * @param first the first graph
+     * @param second the second graph
+     * @return the merged graph
+     */
+    private static CompactGraph mergeRows(CompactGraph first, CompactGraph second) {
+        int vertexCount = first.getVertexCount();
+        int[] offsets = new int[vertexCount + 1];
+        int[] neighbors = new int[first.getArcCount() + second.getArcCount()];
+        int write = 0;
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            offsets[vertex] = write;
+            int i = first.getRowStart(vertex);
+            int j = second.getRowStart(vertex);
+            int firstEnd = first.getRowEnd(vertex);
+            int secondEnd = second.getRowEnd(vertex);
+            while (i < firstEnd && j < secondEnd) {
+                neighbors[write++] = first.getNeighbor(i) <= second.getNeighbor(j)
+                        ? first.getNeighbor(i++) : second.getNeighbor(j++);
+            }
+            while (i < firstEnd) {
+                neighbors[write++] = first.getNeighbor(i++);
+            }
+            while (j < secondEnd) {
+                neighbors[write++] = second.getNeighbor(j++);
+            }
+        }
+        offsets[vertexCount] = write;
+        return new CompactGraph(vertexCount, false, offsets, neighbors, null);
+    }
+
+    /**
+     * Checks if the graph is connected, using the current snapshot.
+     * @return true if the graph is connected, false otherwise
+     */
+    public boolean checkGraphConnectivity() {
+        return snapshot().checkGraphConnectivity();
+    }
+
+    /**
+     * Checks if the graph is bipartite, using the current snapshot.
+     * @return true if the graph is bipartite, false otherwise
+     */
+    public boolean checkIfBipartite() {
+        return snapshot().checkIfBipartite();
+    }
+
+    /**
+     * Returns the degree of a vertex, using the current snapshot.
+     * @param vertex the vertex to get the degree of
+     * @return the degree of the vertex
+     * @throws IllegalArgumentException if the vertex does not exist in the graph
+     */
+    public int getVertexDegree(String vertex) {
+        return snapshot().getVertexDegree(vertex);
+    }
+
+    /**
+     * This class represents an immutable view of a ConcurrentGraph at one point in time.
+     * All analyses on a snapshot agree with each other, whatever writers do in the meantime.
+     */
+    public static final class Snapshot {
+        private final long epoch;
+        private final CompactGraph base;
+        private final CompactGraph delta;
+        /** The rows of every vertex are split between the base and the delta, which every traversal reads in turn. */
+        private final CompactGraph[] parts;
+        private final int[] logSizes;
+        private final int vertexCount;
+        private final Map<String, Integer> vertexIndexMap;
+        private volatile int[] componentLabels;
+        private volatile CompactGraph graph;
+
+        private Snapshot(long epoch, CompactGraph base, CompactGraph delta, int[] logSizes, int vertexCount,
+                         Map<String, Integer> vertexIndexMap) {
+            this.epoch = epoch;
+            this.base = base;
+            this.delta = delta;
+            this.parts = delta == null ? new CompactGraph[] {base} : new CompactGraph[] {base, delta};
+            this.logSizes = logSizes;
+            this.vertexCount = vertexCount;
+            this.vertexIndexMap = vertexIndexMap;
+        }
+
+        /**
+         * Gets the write epoch this snapshot was taken at.
+         * @return the epoch of the snapshot
+         */
+        public long getEpoch() {
+            return epoch;
+        }
+
+        /**
+         * Gets the number of vertices registered when the snapshot was taken.
+         * @return the number of vertices
+         */
+        public int getVertexCount() {
+            return vertexCount;
+        }
+
+        /**
+         * Gets the adjacency of the snapshot, merging the delta into the base rows the first time.
+         * @return the compact graph holding every edge of the snapshot
+         */
+        public CompactGraph getGraph() {
+            CompactGraph merged = graph;
+            if (merged == null) {
+                merged = delta == null ? base : mergeRows(base, delta);
+                graph = merged;
+            }
+            return merged;
+        }
+
+        /**
+         * Returns the degree of a vertex. A self-loop counts twice.
+         * @param vertex the vertex to get the degree of
+         * @return the degree of the vertex
+         * @throws IllegalArgumentException if the vertex does not exist in the snapshot
+         */
+        public int getVertexDegree(String vertex) {
+            int index = indexOf(vertex);
+            int degree = 0;
+            for (CompactGraph part : parts) {
+                for (int i = part.getRowStart(index); i < part.getRowEnd(index); i++) {
+                    degree += part.getNeighbor(i) == index ? 2 : 1;
+                }
+            }
+            return degree;
+        }
+
+        /**
+         * Checks if the graph is connected.
+         * @return true if the graph is connected, false otherwise
+         */
+        public boolean checkGraphConnectivity() {
+            return calculateConnectedComponents() <= 1;
+        }
+
+        /**
+         * Calculates the number of connected components in the graph.
+         * @return the number of connected components
+         */
+        public int calculateConnectedComponents() {
+            return getComponentLabels()[vertexCount];
+        }
+
+        /**
+         * Checks if two vertices are in the same connected component.
+         * @param vertexOne the first vertex
+         * @param vertexTwo the second vertex
+         * @return true if a path joins the two vertices, false otherwise
+         * @throws IllegalArgumentException if either vertex does not exist in the snapshot
+         */
+        public boolean areConnected(String vertexOne, String vertexTwo) {
+            int[] labels = getComponentLabels();
+            return labels[indexOf(vertexOne)] == labels[indexOf(vertexTwo)];
+        }
+
+        /**
+         * Checks if the graph contains a cycle. A self-loop or a pair of parallel edges counts as a cycle.
+         * @return true if the graph has a cycle, false otherwise
+         */
+        public boolean hasCycle() {
+            long start = GraphMetrics.startTimer();
+            int loopCount = 0;
+            long arcCount = 0;
+            for (CompactGraph part : parts) {
+                arcCount += part.getArcCount();
+                for (int vertex = 0; vertex < vertexCount; vertex++) {
+                    for (int i = part.getRowStart(vertex); i < part.getRowEnd(vertex); i++) {
+                        if (part.getNeighbor(i) == vertex) {
+                            loopCount++;
+                        }
+                    }
+                }
+            }
+            // A forest has exactly vertexCount - componentCount edges
+            long edgeCount = (arcCount - loopCount) / 2 + loopCount;
+            boolean hasCycle = edgeCount > vertexCount - calculateConnectedComponents();
+            GraphMetrics.stopTimer(GraphMetrics.Timer.CYCLE_SEARCH, start);
+            return hasCycle;
+        }
+
+        /**
+         * Gets the component of every vertex, numbered from 0.
+         * The labels are followed by the component count, so the array has vertexCount + 1 entries.
+         * The labels are computed once per snapshot.
+         * @return the component labels followed by the component count
+         */
+        private int[] getComponentLabels() {
+            int[] labels = componentLabels;
+            if (labels != null) {
+                return labels;
+            }
+            long start = GraphMetrics.startTimer();
+            labels = new int[vertexCount + 1];
+            Arrays.fill(labels, -1);
+            int[] queue = new int[vertexCount];
+            int componentCount = 0;
+            for (int vertex = 0; vertex < vertexCount; vertex++) {
+                if (labels[vertex] == -1) {
+                    labels[vertex] = componentCount;
+                    int head = 0;
+                    int tail = 0;
+                    queue[tail++] = vertex;
+                    while (head < tail) {
+                        int current = queue[head++];
+                        GraphMetrics.increment(GraphMetrics.Counter.TRAVERSAL_VISITS);
+                        for (CompactGraph part : parts) {
+                            for (int i = part.getRowStart(current); i < part.getRowEnd(current); i++) {
+                                int neighbor = part.getNeighbor(i);
+                                if (labels[neighbor] == -1) {
+                                    labels[neighbor] = componentCount;
+                                    queue[tail++] = neighbor;
+                                }
+                            }
+                        }
+                    }
+                    componentCount++;
+                }
+            }
+            labels[vertexCount] = componentCount;
+            componentLabels = labels;
+            GraphMetrics.stopTimer(GraphMetrics.Timer.COMPONENTS, start);
+            return labels;
+        }
+
+        /**
+         * Gets the index of a vertex in the snapshot.
+         * @param vertex the vertex to look up
+         * @return the index of the vertex
+         * @throws IllegalArgumentException if the vertex does not exist in the snapshot
+         */
+        private int indexOf(String vertex) {
+            Integer index = vertexIndexMap.get(vertex);
+            if (index == null || index >= vertexCount) {
+                throw new IllegalArgumentException("Vertex does not exist: " + vertex);
+            }
+            return index;
+        }
+
+        /**
+         * Checks if the graph is bipartite.
+         * @return true if the graph is bipartite, false otherwise
+         */
+        public boolean checkIfBipartite() {
+            long start = GraphMetrics.startTimer();
+            boolean isBipartite = true;
+            int[] vertexSet = new int[vertexCount];
+            Arrays.fill(vertexSet, -1);
+            int[] queue = new int[vertexCount];
+            search:
+            for (int vertex = 0; vertex < vertexCount; vertex++) {
+                if (vertexSet[vertex] == -1) {
+                    vertexSet[vertex] = 0;
+                    int head = 0;
+                    int tail = 0;
+                    queue[tail++] = vertex;
+                    while (head < tail) {
+                        int current = queue[head++];
+                        for (CompactGraph part : parts) {
+                            for (int i = part.getRowStart(current); i < part.getRowEnd(current); i++) {
+                                int neighbor = part.getNeighbor(i);
+                                if (vertexSet[neighbor] == -1) {
+                                    vertexSet[neighbor] = 1 - vertexSet[current];
+                                    queue[tail++] = neighbor;
+                                } else if (vertexSet[neighbor] == vertexSet[current]) {
+                                    isBipartite = false;
+                                    break search;
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+            GraphMetrics.stopTimer(GraphMetrics.Timer.BIPARTITE, start);
+            return isBipartite;
+        }
+    }
+}
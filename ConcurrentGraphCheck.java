@@ -0,0 +1,302 @@
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * This class cross-checks the snapshots of {@link ConcurrentGraph} against sequential rebuilds while writer threads
+ * add vertices and edges and reader threads take snapshots. Every writer records the edges it has added, so a
+ * reader knows which edges a snapshot must hold (every edge added before the snapshot was asked for) and which it
+ * may hold (at most the one edge each writer was adding at the time). Every snapshot is then rebuilt from its edges
+ * with a single thread, and its rows, arc count, degrees and component count must match the rebuild.
+ * Snapshots of the same epoch must hold the same edges, and the snapshots a reader sees must only grow.
+ * The edges include self-loops and parallel edges. Any disagreement stops the check with an exception.
+ * Usage: java ConcurrentGraphCheck [roundCount] [vertexCount] [writerCount] [readerCount] [edgesPerWriter] [seed]
+ */
+public class ConcurrentGraphCheck {
+
+    /**
+     * This class represents the edges one writer thread has added so far. The endpoints are stored before the
+     * count is raised, so a reader that reads the count also sees every edge below it.
+     */
+    private static final class WriterLog {
+        private final int[] sources;
+        private final int[] targets;
+        private volatile int completed;
+
+        WriterLog(int edgeCount) {
+            sources = new int[edgeCount];
+            targets = new int[edgeCount];
+        }
+    }
+
+    /**
+     * Counts the edges of a graph, keyed by their two ends in ascending order.
+     * @param graph the undirected rows, which list every edge at both ends and a self-loop once
+     * @return the number of copies of every edge
+     */
+    static Map<Long, Integer> edgeCounts(CompactGraph graph) {
+        Map<Long, Integer> counts = new HashMap<>();
+        for (int vertex = 0; vertex < graph.getVertexCount(); vertex++) {
+            for (int i = graph.getRowStart(vertex); i < graph.getRowEnd(vertex); i++) {
+                if (graph.getNeighbor(i) >= vertex) {
+                    counts.merge(edgeKey(vertex, graph.getNeighbor(i)), 1, Integer::sum);
+                }
+            }
+        }
+        return counts;
+    }
+
+    private static long edgeKey(int vertexOne, int vertexTwo) {
+        return ((long) Math.min(vertexOne, vertexTwo) << 32) | Math.max(vertexOne, vertexTwo);
+    }
+
+    /**
+     * Counts the first edges of every writer.
+     * @param logs the writer logs
+     * @param lengths how many edges of every log to count
+     * @return the number of copies of every edge
+     */
+    private static Map<Long, Integer> loggedCounts(WriterLog[] logs, int[] lengths) {
+        Map<Long, Integer> counts = new HashMap<>();
+        for (int writer = 0; writer < logs.length; writer++) {
+            for (int i = 0; i < lengths[writer]; i++) {
+                counts.merge(edgeKey(logs[writer].sources[i], logs[writer].targets[i]), 1, Integer::sum);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Checks one snapshot against the writer logs read just before and just after it was taken,
+     * and against a sequential rebuild of its own edges.
+     * @param snapshot the snapshot to check
+     * @param totalVertices the capacity of the graph
+     * @param logs the writer logs
+     * @param before how many edges every writer had completed before the snapshot was asked for
+     * @param after how many edges every writer had completed after the snapshot was taken
+     * @param verticesBefore how many vertices had been added before the snapshot was asked for
+     * @param verticesAfter how many vertices had been added after the snapshot was taken
+     */
+    static void checkSnapshot(ConcurrentGraph.Snapshot snapshot, int totalVertices, WriterLog[] logs, int[] before,
+                              int[] after, int verticesBefore, int verticesAfter) {
+        int vertexCount = snapshot.getVertexCount();
+        // A vertex being added while the snapshot was taken may or may not be in it
+        if (vertexCount < verticesBefore || vertexCount > verticesAfter + 1) {
+            throw new IllegalStateException("Epoch " + snapshot.getEpoch() + ": " + vertexCount
+                    + " vertices, expected " + verticesBefore + " to " + (verticesAfter + 1));
+        }
+        CompactGraph graph = snapshot.getGraph();
+        Map<Long, Integer> counts = edgeCounts(graph);
+        int[] upper = new int[logs.length];
+        for (int writer = 0; writer < logs.length; writer++) {
+            upper[writer] = Math.min(after[writer] + 1, logs[writer].sources.length);
+        }
+        Map<Long, Integer> required = loggedCounts(logs, before);
+        Map<Long, Integer> allowed = loggedCounts(logs, upper);
+        for (Map.Entry<Long, Integer> entry : required.entrySet()) {
+            if (counts.getOrDefault(entry.getKey(), 0) < entry.getValue()) {
+                throw new IllegalStateException("Epoch " + snapshot.getEpoch() + " lost edge "
+                        + (entry.getKey() >>> 32) + "-" + (int) (long) entry.getKey());
+            }
+        }
+        for (Map.Entry<Long, Integer> entry : counts.entrySet()) {
+            if (entry.getValue() > allowed.getOrDefault(entry.getKey(), 0)) {
+                throw new IllegalStateException("Epoch " + snapshot.getEpoch() + " holds an edge never added: "
+                        + (entry.getKey() >>> 32) + "-" + (int) (long) entry.getKey());
+            }
+        }
+
+        EdgeBatch batch = new EdgeBatch(Math.max(1, graph.getArcCount()));
+        int[] degrees = new int[totalVertices];
+        int[] roots = new int[vertexCount];
+        for (int v = 0; v < vertexCount; v++) {
+            roots[v] = v;
+        }
+        int componentCount = vertexCount;
+        for (Map.Entry<Long, Integer> entry : counts.entrySet()) {
+            int vertexOne = (int) (entry.getKey() >>> 32);
+            int vertexTwo = (int) (long) entry.getKey();
+            if (vertexTwo >= vertexCount) {
+                throw new IllegalStateException("Epoch " + snapshot.getEpoch() + " holds an edge to vertex "
+                        + vertexTwo + " of only " + vertexCount);
+            }
+            for (int copy = 0; copy < entry.getValue(); copy++) {
+                batch.addEdge(vertexOne, vertexTwo);
+                degrees[vertexOne]++;
+                degrees[vertexTwo]++;
+            }
+            int rootOne = find(roots, vertexOne);
+            int rootTwo = find(roots, vertexTwo);
+            if (rootOne != rootTwo) {
+                roots[rootOne] = rootTwo;
+                componentCount--;
+            }
+        }
+        CompactGraph rebuilt = batch.build(totalVertices, false, CompactGraph.DuplicatePolicy.KEEP);
+        if (graph.getArcCount() != rebuilt.getArcCount()) {
+            throw new IllegalStateException("Epoch " + snapshot.getEpoch() + ": " + graph.getArcCount()
+                    + " arcs instead of " + rebuilt.getArcCount());
+        }
+        for (int v = 0; v < totalVertices; v++) {
+            if (graph.getRowStart(v) != rebuilt.getRowStart(v) || graph.getRowEnd(v) != rebuilt.getRowEnd(v)) {
+                throw new IllegalStateException("Epoch " + snapshot.getEpoch() + ": the row of vertex " + v
+                        + " does not match a rebuild");
+            }
+            for (int i = graph.getRowStart(v); i < graph.getRowEnd(v); i++) {
+                if (graph.getNeighbor(i) != rebuilt.getNeighbor(i)) {
+                    throw new IllegalStateException("Epoch " + snapshot.getEpoch() + ": the row of vertex " + v
+                            + " does not match a rebuild");
+                }
+            }
+        }
+        for (int v = 0; v < vertexCount; v++) {
+            if (snapshot.getVertexDegree("v" + v) != degrees[v]) {
+                throw new IllegalStateException("Epoch " + snapshot.getEpoch() + ": degree of v" + v + " is "
+                        + snapshot.getVertexDegree("v" + v) + " instead of " + degrees[v]);
+            }
+        }
+        if (snapshot.calculateConnectedComponents() != componentCount) {
+            throw new IllegalStateException("Epoch " + snapshot.getEpoch() + ": "
+                    + snapshot.calculateConnectedComponents() + " components instead of " + componentCount);
+        }
+    }
+
+    private static int find(int[] roots, int vertex) {
+        while (roots[vertex] != vertex) {
+            roots[vertex] = roots[roots[vertex]];
+            vertex = roots[vertex];
+        }
+        return vertex;
+    }
+
+    /**
+     * Runs one round: writers and one vertex adder fill a new graph while readers check snapshots of it.
+     * @param vertexCount the capacity of the graph
+     * @param writerCount the number of edge writer threads
+     * @param readerCount the number of reader threads
+     * @param edgesPerWriter the number of edges every writer adds
+     * @param seed the random seed of the round
+     * @return the number of snapshots checked
+     * @throws InterruptedException if the round is interrupted
+     */
+    static int runRound(int vertexCount, int writerCount, int readerCount, int edgesPerWriter, long seed)
+            throws InterruptedException {
+        ConcurrentGraph graph = new ConcurrentGraph(vertexCount);
+        // Half the vertices exist from the start; one thread adds the rest while edges arrive, so every
+        // vertex "v" + i gets index i
+        int initialVertices = Math.max(1, vertexCount / 2);
+        for (int v = 0; v < initialVertices; v++) {
+            graph.addVertex("v" + v);
+        }
+        AtomicInteger addedVertices = new AtomicInteger(initialVertices);
+        WriterLog[] logs = new WriterLog[writerCount];
+        for (int writer = 0; writer < writerCount; writer++) {
+            logs[writer] = new WriterLog(edgesPerWriter);
+        }
+        AtomicInteger runningWriters = new AtomicInteger(writerCount + 1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        AtomicInteger checkedSnapshots = new AtomicInteger();
+        Map<Long, Map<Long, Integer>> edgesByEpoch = new ConcurrentHashMap<>();
+        List<Thread> threads = new ArrayList<>();
+
+        threads.add(new Thread(() -> {
+            for (int v = initialVertices; v < vertexCount; v++) {
+                graph.addVertex("v" + v);
+                addedVertices.set(v + 1);
+                Thread.yield();
+            }
+            runningWriters.decrementAndGet();
+        }));
+        for (int writer = 0; writer < writerCount; writer++) {
+            WriterLog log = logs[writer];
+            Random random = new Random(seed * 31 + writer);
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < edgesPerWriter; i++) {
+                    int available = addedVertices.get();
+                    int source = random.nextInt(available);
+                    // Self-loops and parallel edges come up on purpose
+                    int target = random.nextInt(8) == 0 ? source : random.nextInt(available);
+                    log.sources[i] = source;
+                    log.targets[i] = target;
+                    graph.createEdge("v" + source, "v" + target);
+                    log.completed = i + 1;
+                }
+                runningWriters.decrementAndGet();
+            }));
+        }
+        for (int reader = 0; reader < readerCount; reader++) {
+            threads.add(new Thread(() -> {
+                try {
+                    long lastEpoch = Long.MIN_VALUE;
+                    int lastArcCount = 0;
+                    boolean last = false;
+                    while (!last) {
+                        // One more snapshot once every writer is done, which must then hold every edge
+                        last = runningWriters.get() == 0;
+                        int[] before = new int[writerCount];
+                        for (int writer = 0; writer < writerCount; writer++) {
+                            before[writer] = logs[writer].completed;
+                        }
+                        int verticesBefore = addedVertices.get();
+                        ConcurrentGraph.Snapshot snapshot = graph.snapshot();
+                        int verticesAfter = addedVertices.get();
+                        int[] after = new int[writerCount];
+                        for (int writer = 0; writer < writerCount; writer++) {
+                            after[writer] = logs[writer].completed;
+                        }
+                        checkSnapshot(snapshot, vertexCount, logs, before, after, verticesBefore, verticesAfter);
+
+                        Map<Long, Integer> counts = edgeCounts(snapshot.getGraph());
+                        Map<Long, Integer> earlier = edgesByEpoch.putIfAbsent(snapshot.getEpoch(), counts);
+                        if (earlier != null && !earlier.equals(counts)) {
+                            throw new IllegalStateException("Two snapshots of epoch " + snapshot.getEpoch()
+                                    + " hold different edges");
+                        }
+                        if (snapshot.getEpoch() < lastEpoch || snapshot.getGraph().getArcCount() < lastArcCount) {
+                            throw new IllegalStateException("Epoch " + snapshot.getEpoch() + " came after epoch "
+                                    + lastEpoch + " and lost edges");
+                        }
+                        lastEpoch = snapshot.getEpoch();
+                        lastArcCount = snapshot.getGraph().getArcCount();
+                        checkedSnapshots.incrementAndGet();
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (failure.get() != null) {
+            throw new IllegalStateException("Round with seed " + seed + " failed", failure.get());
+        }
+        return checkedSnapshots.get();
+    }
+
+    /**
+     * The main method that runs the check.
+     * @param args the number of rounds, the vertex count, the writer count, the reader count,
+     *             the edges per writer and the random seed, all optional
+     * @throws InterruptedException if the check is interrupted
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int roundCount = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int vertexCount = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int writerCount = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        int readerCount = args.length > 3 ? Integer.parseInt(args[3]) : 2;
+        int edgesPerWriter = args.length > 4 ? Integer.parseInt(args[4]) : 2000;
+        long seed = args.length > 5 ? Long.parseLong(args[5]) : 42;
+
+        long snapshots = 0;
+        for (int round = 0; round < roundCount; round++) {
+            snapshots += runRound(vertexCount, writerCount, readerCount, edgesPerWriter, seed + round);
+        }
+        System.out.println(roundCount + " rounds, " + snapshots
+                + " snapshots taken during concurrent writes agree with sequential rebuilds");
+    }
+}
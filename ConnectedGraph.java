@@ -1,3 +1,5 @@
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
 
 /**
@@ -5,21 +7,67 @@ import java.util.*;
  * It provides methods to add vertices and edges, perform depth-first search (DFS), check if the graph is connected, and calculate the number of connected components.
  */
 public class ConnectedGraph {
+    /** The smallest batch that {@link #createEdges(EdgeBatch)} merges into compressed storage. */
+    public static final int BULK_BATCH_EDGES = 1 << 16;
+
     private final List<List<Integer>> graphAdjacencyList;
     private final int totalVertices;
     private final Map<String, Integer> vertexIndexMap;
+    private DynamicConnectivity dynamicConnectivity;
+    private GraphFingerprint fingerprint;
+    private CompressedGraph compressedAdjacency;
+    /** The snapshot whose vertex names have not been read into the index map yet, or null. */
+    private GraphSnapshot unreadNames;
 
     /**
      * Constructs a new ConnectedGraph with the specified number of vertices.
+     * The adjacency list of a vertex is only allocated once an edge is listed there.
      * @param totalVertices the number of vertices in the graph
      */
     public ConnectedGraph(int totalVertices) {
         this.totalVertices = totalVertices;
-        graphAdjacencyList = new ArrayList<>(totalVertices);
+        graphAdjacencyList = new ArrayList<>(Collections.nCopies(totalVertices, null));
         vertexIndexMap = new HashMap<>();
-        for (int i = 0; i < totalVertices; i++) {
-            graphAdjacencyList.add(new LinkedList<>());
+        fingerprint = new GraphFingerprint(false, totalVertices);
+    }
+
+    /**
+     * Gets the adjacency list of a vertex for reading.
+     * @param vertex the index of the vertex
+     * @return the listed neighbors of the vertex, empty if none was ever listed
+     */
+    private List<Integer> listedVertices(int vertex) {
+        List<Integer> adjacentVertices = graphAdjacencyList.get(vertex);
+        return adjacentVertices == null ? Collections.emptyList() : adjacentVertices;
+    }
+
+    /**
+     * Gets the adjacency list of a vertex for adding to it, allocating it on first use.
+     * @param vertex the index of the vertex
+     * @return the listed neighbors of the vertex
+     */
+    private List<Integer> listFor(int vertex) {
+        List<Integer> adjacentVertices = graphAdjacencyList.get(vertex);
+        if (adjacentVertices == null) {
+            adjacentVertices = new LinkedList<>();
+            graphAdjacencyList.set(vertex, adjacentVertices);
         }
+        return adjacentVertices;
+    }
+
+    /**
+     * Gets the index of every named vertex, reading the names of a restored snapshot on first use,
+     * so that a restore does not pay for names that are never looked up.
+     * @return the map from vertex names to indices
+     */
+    private Map<String, Integer> vertexIndices() {
+        if (unreadNames != null) {
+            for (String vertex : unreadNames.getVertexNames()) {
+                vertexIndexMap.putIfAbsent(vertex, vertexIndexMap.size());
+            }
+            unreadNames = null;
+        }
+        return vertexIndexMap;
     }
 
     /**
@@ -27,8 +75,9 @@ public class ConnectedGraph {
      * @param vertex the vertex to be added
      */
     public void addVertex(String vertex) {
-        if (!vertexIndexMap.containsKey(vertex)) {
-            vertexIndexMap.put(vertex, vertexIndexMap.size());
+        Map<String, Integer> indices = vertexIndices();
+        if (!indices.containsKey(vertex)) {
+            indices.put(vertex, indices.size());
         }
     }
 
@@ -38,69 +87,481 @@ public class ConnectedGraph {
      * @param vertexTwo the second vertex of the edge
      */
     public void createEdge(String vertexOne, String vertexTwo) throws IllegalArgumentException {
-        if (!vertexIndexMap.containsKey(vertexOne) || !vertexIndexMap.containsKey(vertexTwo)) {
+        if (!vertexIndices().containsKey(vertexOne) || !vertexIndices().containsKey(vertexTwo)) {
+            throw new IllegalArgumentException("One or both vertices not found in the graph.");
+        }
+        int indexOne = vertexIndices().get(vertexOne);
+        int indexTwo = vertexIndices().get(vertexTwo);
+        listFor(indexOne).add(indexTwo);
+        listFor(indexTwo).add(indexOne);
+        fingerprint.addEdge(indexOne, indexTwo);
+        if (dynamicConnectivity != null) {
+            dynamicConnectivity.addEdge(indexOne, indexTwo);
+        }
+    }
+
+    /**
+     * Removes one edge between two vertices in the graph.
+     * The first removal switches the graph to dynamic connectivity tracking, so that later
+     * insertions and removals keep {@link #getConnectedComponentCount()} up to date without a full traversal.
+     * @param vertexOne the first vertex of the edge
+     * @param vertexTwo the second vertex of the edge
+     * @throws IllegalArgumentException if either vertex or the edge does not exist
+     */
+    public void removeEdge(String vertexOne, String vertexTwo) throws IllegalArgumentException {
+        if (!vertexIndices().containsKey(vertexOne) || !vertexIndices().containsKey(vertexTwo)) {
+            throw new IllegalArgumentException("One or both vertices not found in the graph.");
+        }
+        int indexOne = vertexIndices().get(vertexOne);
+        int indexTwo = vertexIndices().get(vertexTwo);
+        // Build the tracker from the current edges before any of them goes away
+        DynamicConnectivity connectivity = getDynamicConnectivity();
+        expandAdjacency();
+        if (!listedVertices(indexOne).remove(Integer.valueOf(indexTwo))) {
+            throw new IllegalArgumentException("Edge not found in the graph.");
+        }
+        listedVertices(indexTwo).remove(Integer.valueOf(indexOne));
+        fingerprint.removeEdge(indexOne, indexTwo);
+        connectivity.removeEdge(indexOne, indexTwo);
+    }
+
+    /**
+     * Gets the number of connected components, kept up to date as edges are added and removed.
+     * @return the number of connected components
+     */
+    public int getConnectedComponentCount() {
+        return getDynamicConnectivity().getComponentCount();
+    }
+
+    /**
+     * Checks if a path joins two vertices, using the dynamic connectivity tracker.
+     * @param vertexOne the first vertex
+     * @param vertexTwo the second vertex
+     * @return true if the vertices are in the same connected component, false otherwise
+     * @throws IllegalArgumentException if either vertex does not exist
+     */
+    public boolean areConnected(String vertexOne, String vertexTwo) {
+        if (!vertexIndices().containsKey(vertexOne) || !vertexIndices().containsKey(vertexTwo)) {
             throw new IllegalArgumentException("One or both vertices not found in the graph.");
         }
-        int indexOne = vertexIndexMap.get(vertexOne);
-        int indexTwo = vertexIndexMap.get(vertexTwo);
-        graphAdjacencyList.get(indexOne).add(indexTwo);
-        graphAdjacencyList.get(indexTwo).add(indexOne);
+        return getDynamicConnectivity().connected(vertexIndices().get(vertexOne), vertexIndices().get(vertexTwo));
+    }
+
+    /**
+     * Gets the dynamic connectivity tracker, building it from the current edges the first time.
+     * @return the tracker
+     */
+    private DynamicConnectivity getDynamicConnectivity() {
+        if (dynamicConnectivity == null) {
+            CompactGraph graph = toCompactGraph();
+            DynamicConnectivity connectivity = new DynamicConnectivity(totalVertices);
+            for (int vertex = 0; vertex < totalVertices; vertex++) {
+                for (int i = graph.getRowStart(vertex); i < graph.getRowEnd(vertex); i++) {
+                    if (graph.getNeighbor(i) >= vertex) {
+                        connectivity.addEdge(vertex, graph.getNeighbor(i));
+                    }
+                }
+            }
+            dynamicConnectivity = connectivity;
+        }
+        return dynamicConnectivity;
+    }
+
+    /**
+     * Adds all edges of a batch, without looking up vertex names. A batch of at least {@link #BULK_BATCH_EDGES}
+     * edges, and at least a quarter the size of the compressed storage, is radix sorted into rows and merged
+     * straight into compressed storage in one pass; smaller batches are appended to the adjacency lists.
+     * @param batch the edges to add, as vertex indices
+     * @throws IllegalArgumentException if a vertex index is out of range
+     */
+    public void createEdges(EdgeBatch batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            int indexOne = batch.getSource(i);
+            int indexTwo = batch.getTarget(i);
+            if (indexOne < 0 || indexOne >= totalVertices || indexTwo < 0 || indexTwo >= totalVertices) {
+                throw new IllegalArgumentException("Vertex index out of range: " + indexOne + "-" + indexTwo);
+            }
+        }
+        boolean bulk = batch.size() >= BULK_BATCH_EDGES
+                && (compressedAdjacency == null || batch.size() >= compressedAdjacency.getArcCount() / 4);
+        for (int i = 0; i < batch.size(); i++) {
+            int indexOne = batch.getSource(i);
+            int indexTwo = batch.getTarget(i);
+            if (!bulk) {
+                listFor(indexOne).add(indexTwo);
+                listFor(indexTwo).add(indexOne);
+            }
+            fingerprint.addEdge(indexOne, indexTwo);
+            if (dynamicConnectivity != null) {
+                dynamicConnectivity.addEdge(indexOne, indexTwo);
+            }
+        }
+        if (bulk) {
+            CompactGraph rows = batch.build(totalVertices, false, CompactGraph.DuplicatePolicy.KEEP);
+            compressedAdjacency = compressedAdjacency == null ? CompressedGraph.compress(rows)
+                    : compressedAdjacency.merge(rows);
+            listSecondLoopEntries(rows, graphAdjacencyList);
+        }
+    }
+
+    /**
+     * Lists the second entry of every self-loop of rows that were moved into compressed storage.
+     * The adjacency lists hold every edge at both ends, so a self-loop twice in the list of its vertex,
+     * while the rows of an undirected {@link CompactGraph} hold a self-loop once. Rows kept next to the lists
+     * therefore leave the second entry of each self-loop to the lists, which keeps degrees and every traversal
+     * that counts list entries unchanged.
+     * @param rows the rows that were compressed
+     * @param adjacencyLists the lists kept next to the compressed rows, where null stands for an empty list
+     */
+    static void listSecondLoopEntries(CompactGraph rows, List<List<Integer>> adjacencyLists) {
+        for (int vertex = 0; vertex < rows.getVertexCount(); vertex++) {
+            for (int i = rows.getRowStart(vertex); i < rows.getRowEnd(vertex); i++) {
+                if (rows.getNeighbor(i) != vertex) {
+                    continue;
+                }
+                if (adjacencyLists.get(vertex) == null) {
+                    adjacencyLists.set(vertex, new LinkedList<>());
+                }
+                adjacencyLists.get(vertex).add(vertex);
+            }
+        }
     }
 
     /**
      * Performs depth-first search (DFS) from a given vertex.
-     * @param currentVertex the vertex to start the DFS from
+     * The search keeps its own stack, so a long path cannot overflow the call stack,
+     * and it decodes compressed rows with a single reused cursor.
+     * @param startVertex the vertex to start the DFS from
      * @param visitedVertices an array that keeps track of the visited vertices
+     * @param stack room for every vertex, shared between searches so that it is allocated once
      */
-    private void executeDFS(int currentVertex, boolean[] visitedVertices) {
-        // Mark the current vertex as visited
-        visitedVertices[currentVertex] = true;
-        // Visit all the adjacent vertices that haven't been visited yet
-        for (int adjacentVertex : graphAdjacencyList.get(currentVertex)) {
-            if (!visitedVertices[adjacentVertex]) {
-                executeDFS(adjacentVertex, visitedVertices);
+    private void executeDFS(int startVertex, boolean[] visitedVertices, int[] stack) {
+        CompressedGraph.NeighborIterator compressedVertices =
+                compressedAdjacency == null ? null : compressedAdjacency.neighbors(startVertex);
+        // Vertices are marked when pushed, so each one is pushed at most once
+        visitedVertices[startVertex] = true;
+        int size = 0;
+        stack[size++] = startVertex;
+        while (size > 0) {
+            int currentVertex = stack[--size];
+            GraphMetrics.increment(GraphMetrics.Counter.TRAVERSAL_VISITS);
+            // Push all the adjacent vertices that haven't been visited yet
+            if (compressedVertices != null) {
+                compressedVertices.reset(currentVertex);
+                while (compressedVertices.hasNext()) {
+                    int adjacentVertex = compressedVertices.nextInt();
+                    if (!visitedVertices[adjacentVertex]) {
+                        visitedVertices[adjacentVertex] = true;
+                        stack[size++] = adjacentVertex;
+                    }
+                }
+            }
+            List<Integer> listedVertices = graphAdjacencyList.get(currentVertex);
+            if (listedVertices == null) {
+                continue;
+            }
+            for (int adjacentVertex : listedVertices) {
+                if (!visitedVertices[adjacentVertex]) {
+                    visitedVertices[adjacentVertex] = true;
+                    stack[size++] = adjacentVertex;
+                }
             }
         }
     }
 
     /**
-     * Checks if the graph is connected.
+     * Checks if the graph is connected. The answer is cached for as long as the edges do not change.
      * @return true if the graph is connected, false otherwise
      */
     public boolean checkGraphConnectivity() {
+        return ResultCache.shared().get(fingerprint.key("connectivity"), this::traverseForConnectivity);
+    }
+
+    private boolean traverseForConnectivity() {
+        long start = GraphMetrics.startTimer();
         // Array to keep track of visited vertices
         boolean[] visitedVertices = new boolean[totalVertices];
         // Start DFS from the first vertex
-        executeDFS(0, visitedVertices);
+        executeDFS(0, visitedVertices, new int[totalVertices]);
         // If any vertex hasn't been visited, the graph is not connected
+        boolean isConnected = true;
         for (boolean visitStatus : visitedVertices) {
             if (!visitStatus) {
-                return false;
+                isConnected = false;
+                break;
             }
         }
-        return true;
+        GraphMetrics.stopTimer(GraphMetrics.Timer.CONNECTIVITY, start);
+        return isConnected;
     }
 
     /**
      * Calculates the number of connected components in the graph.
+     * The answer is cached for as long as the edges do not change.
      * @return the number of connected components
      */
     public int calculateConnectedComponents() {
+        return ResultCache.shared().get(fingerprint.key("components"), this::traverseForComponents);
+    }
+
+    private int traverseForComponents() {
+        long start = GraphMetrics.startTimer();
         // Array to keep track of visited vertices
         boolean[] visitedVertices = new boolean[totalVertices];
+        int[] stack = new int[totalVertices];
         int componentCount = 0;
         // For each vertex, if it hasn't been visited, perform DFS and increment the component count
         for (int vertex = 0; vertex < totalVertices; vertex++) {
             if (!visitedVertices[vertex]) {
-                executeDFS(vertex, visitedVertices);
+                executeDFS(vertex, visitedVertices, stack);
                 componentCount++;
             }
         }
+        GraphMetrics.stopTimer(GraphMetrics.Timer.COMPONENTS, start);
         return componentCount;
     }
 
+    /**
+     * Converts the adjacency lists to an undirected compact graph, keeping parallel edges.
+     * @return the compact graph
+     */
+    public CompactGraph toCompactGraph() {
+        EdgeBatch batch = new EdgeBatch(totalVertices);
+        for (int vertex = 0; vertex < totalVertices; vertex++) {
+            int loopEntries = 0;
+            if (compressedAdjacency != null) {
+                CompressedGraph.NeighborIterator compressedVertices = compressedAdjacency.neighbors(vertex);
+                while (compressedVertices.hasNext()) {
+                    loopEntries = addListedEdge(batch, vertex, compressedVertices.nextInt(), loopEntries);
+                }
+            }
+            for (int adjacentVertex : listedVertices(vertex)) {
+                loopEntries = addListedEdge(batch, vertex, adjacentVertex, loopEntries);
+            }
+        }
+        return batch.build(totalVertices, false, CompactGraph.DuplicatePolicy.KEEP);
+    }
+
+    /**
+     * Adds one adjacency list entry to a batch, skipping the entries that repeat an edge.
+     * Every edge is listed at both ends, and a self-loop twice in the same list.
+     * @param batch the batch to add to
+     * @param vertex the vertex whose list holds the entry
+     * @param adjacentVertex the entry
+     * @param loopEntries the number of self-loop entries of the vertex seen so far
+     * @return the number of self-loop entries of the vertex seen, including this one
+     */
+    private static int addListedEdge(EdgeBatch batch, int vertex, int adjacentVertex, int loopEntries) {
+        if (vertex < adjacentVertex) {
+            batch.addEdge(vertex, adjacentVertex);
+        } else if (vertex == adjacentVertex && ++loopEntries % 2 == 0) {
+            batch.addEdge(vertex, vertex);
+        }
+        return loopEntries;
+    }
+
+    /**
+     * Moves every edge into compressed storage, with gap and varint encoded neighbor lists that traversals
+     * decode on the fly. Edges created afterwards go to the adjacency lists until the next compression;
+     * removing an edge expands the compressed edges back into the lists first, and reordering the vertices
+     * compresses them again in the new order.
+     * @return the compressed edges, which report their size
+     */
+    public CompressedGraph compressAdjacency() {
+        expandAdjacency();
+        compressedAdjacency = CompressedGraph.compress(graphAdjacencyList, false);
+        Collections.fill(graphAdjacencyList, null);
+        return compressedAdjacency;
+    }
+
+    /**
+     * Moves every compressed edge back into the adjacency lists.
+     */
+    private void expandAdjacency() {
+        if (compressedAdjacency == null) {
+            return;
+        }
+        for (int vertex = 0; vertex < totalVertices; vertex++) {
+            CompressedGraph.NeighborIterator compressedVertices = compressedAdjacency.neighbors(vertex);
+            if (!compressedVertices.hasNext()) {
+                continue;
+            }
+            List<Integer> adjacentVertices = new LinkedList<>();
+            while (compressedVertices.hasNext()) {
+                adjacentVertices.add(compressedVertices.nextInt());
+            }
+            adjacentVertices.addAll(listedVertices(vertex));
+            graphAdjacencyList.set(vertex, adjacentVertices);
+        }
+        compressedAdjacency = null;
+    }
+
+    /**
+     * Finds the bridges, articulation points and biconnected components of the graph.
+     * @return the analysis, whose vertex numbers are the indices in {@link #getVertexIndexMap()}
+     */
+    public Biconnectivity analyzeBiconnectivity() {
+        return Biconnectivity.analyze(toCompactGraph());
+    }
+
     public Map<String, Integer> getVertexIndexMap() {
-        return vertexIndexMap;
+        return vertexIndices();
+    }
+
+    /**
+     * Relabels the vertices so that the two ends of most edges get nearby indices, which makes the traversals
+     * of large graphs read memory in order. The relabeled rows go straight into compressed storage, which the
+     * traversals read row by row in the new order, rather than back into scattered list nodes.
+     * Vertex names keep pointing at the same vertices; named vertices keep the lowest indices
+     * so that {@link #addVertex(String)} still hands out free ones.
+     * @param strategy how to order the vertices
+     * @return the ordering, which maps the old indices to the new ones
+     */
+    public VertexOrdering reorderVertices(VertexOrdering.Strategy strategy) {
+        CompactGraph rows = toCompactGraph();
+        VertexOrdering ordering = VertexOrdering.compute(rows, strategy).keepingPrefix(vertexIndices().size());
+        CompactGraph relabeledRows = ordering.apply(rows);
+        compressedAdjacency = CompressedGraph.compress(relabeledRows);
+        Collections.fill(graphAdjacencyList, null);
+        listSecondLoopEntries(relabeledRows, graphAdjacencyList);
+        Map<String, Integer> relabeledIndices = ordering.apply(vertexIndices());
+        vertexIndices().clear();
+        vertexIndices().putAll(relabeledIndices);
+
+        // The tracker and the fingerprint refer to vertex indices, so both start over
+        dynamicConnectivity = null;
+        fingerprint = new GraphFingerprint(false, totalVertices);
+        for (int vertex = 0; vertex < totalVertices; vertex++) {
+            for (int i = relabeledRows.getRowStart(vertex); i < relabeledRows.getRowEnd(vertex); i++) {
+                if (relabeledRows.getNeighbor(i) >= vertex) {
+                    fingerprint.addEdge(vertex, relabeledRows.getNeighbor(i));
+                }
+            }
+        }
+        return ordering;
+    }
+
+    /**
+     * Saves the graph to a snapshot file: the vertex names, the adjacency as compressed rows, the fingerprint
+     * and the connected component of every vertex.
+     * @param path the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void saveSnapshot(Path path) throws IOException {
+        CompactGraph rows = GraphSnapshot.adjacencyRows(compressedAdjacency, graphAdjacencyList);
+        String[] vertexNames = new String[vertexIndices().size()];
+        for (Map.Entry<String, Integer> entry : vertexIndices().entrySet()) {
+            vertexNames[entry.getValue()] = entry.getKey();
+        }
+        GraphSnapshot.write(path, CompressedGraph.compress(rows), Arrays.asList(vertexNames), fingerprint,
+                labelComponents(rows));
+    }
+
+    /**
+     * Restores a graph saved with {@link #saveSnapshot(Path)}, without checking the snapshot's payload checksum.
+     * @param path the file to read
+     * @return the restored graph
+     * @throws IOException if the file cannot be read, is not an undirected graph snapshot, or its header is damaged
+     * @see #restoreSnapshot(Path, boolean)
+     */
+    public static ConnectedGraph restoreSnapshot(Path path) throws IOException {
+        return restoreSnapshot(path, false);
+    }
+
+    /**
+     * Restores a graph saved with {@link #saveSnapshot(Path)}, or an undirected graph written with
+     * {@link GraphSnapshot#write(Path, CompactGraph, List, GraphFingerprint, int[])}. Saved compressed rows are used
+     * in place from the mapped file, while saved compressed sparse row arrays are compressed once here, and the
+     * saved component count answers {@link #checkGraphConnectivity()} and {@link #calculateConnectedComponents()}
+     * without a traversal. The vertex names are read on the first lookup
+     * by name, so the restore itself takes the same time whatever the size of the graph. The header and section
+     * table are always checked; checking the payload checksum as well reads the whole file, and without it
+     * damage inside the rows only shows once they are read.
+     * @param path the file to read
+     * @param verifyChecksum whether to check the payload checksum before restoring
+     * @return the restored graph
+     * @throws IOException if the file cannot be read, is not an undirected graph snapshot, or is damaged
+     */
+    public static ConnectedGraph restoreSnapshot(Path path, boolean verifyChecksum) throws IOException {
+        long start = GraphMetrics.startTimer();
+        GraphSnapshot snapshot = GraphSnapshot.open(path);
+        if (snapshot.isDirected()) {
+            throw new IOException("Not an undirected graph snapshot: " + path);
+        }
+        if (verifyChecksum && !snapshot.verifyChecksum()) {
+            throw new IOException("Snapshot checksum mismatch: " + path);
+        }
+        ConnectedGraph graph = new ConnectedGraph(snapshot.getVertexCount());
+        graph.unreadNames = snapshot;
+        CompressedGraph rows = snapshot.getCompressedGraph();
+        if (rows != null) {
+            graph.compressedAdjacency = rows;
+        } else {
+            // A snapshot written with GraphSnapshot.write(Path, CompactGraph, ...) holds compressed sparse row arrays
+            CompactGraph compactRows = snapshot.toCompactGraph();
+            graph.compressedAdjacency = CompressedGraph.compress(compactRows);
+            listSecondLoopEntries(compactRows, graph.graphAdjacencyList);
+        }
+        GraphFingerprint savedFingerprint = snapshot.getFingerprint();
+        if (savedFingerprint != null) {
+            graph.fingerprint = savedFingerprint;
+        } else {
+            CompactGraph edges = graph.toCompactGraph();
+            for (int vertex = 0; vertex < graph.totalVertices; vertex++) {
+                for (int i = edges.getRowStart(vertex); i < edges.getRowEnd(vertex); i++) {
+                    if (edges.getNeighbor(i) >= vertex) {
+                        graph.fingerprint.addEdge(vertex, edges.getNeighbor(i));
+                    }
+                }
+            }
+        }
+        int componentCount = snapshot.getComponentCount();
+        if (componentCount > 0) {
+            ResultCache.shared().get(graph.fingerprint.key("components"), () -> componentCount);
+            ResultCache.shared().get(graph.fingerprint.key("connectivity"), () -> componentCount == 1);
+        }
+        GraphMetrics.stopTimer(GraphMetrics.Timer.SNAPSHOT_RESTORE, start);
+        return graph;
+    }
+
+    /**
+     * Labels every vertex with its connected component, numbering the components by their lowest vertex.
+     * @param rows the adjacency of the graph
+     * @return the component of every vertex
+     */
+    private static int[] labelComponents(CompactGraph rows) {
+        int[] labels = new int[rows.getVertexCount()];
+        Arrays.fill(labels, -1);
+        int[] stack = new int[rows.getVertexCount()];
+        int componentCount = 0;
+        for (int root = 0; root < labels.length; root++) {
+            if (labels[root] >= 0) {
+                continue;
+            }
+            labels[root] = componentCount;
+            int size = 0;
+            stack[size++] = root;
+            while (size > 0) {
+                int vertex = stack[--size];
+                for (int i = rows.getRowStart(vertex); i < rows.getRowEnd(vertex); i++) {
+                    int adjacentVertex = rows.getNeighbor(i);
+                    if (labels[adjacentVertex] < 0) {
+                        labels[adjacentVertex] = componentCount;
+                        stack[size++] = adjacentVertex;
+                    }
+                }
+            }
+            componentCount++;
+        }
+        return labels;
+    }
+
+    /**
+     * Gets the structural fingerprint of the graph, which changes whenever an edge is added or removed.
+     * @return the fingerprint
+     */
+    public GraphFingerprint getFingerprint() {
+        return fingerprint;
     }
 
     /**
@@ -152,6 +613,23 @@ public class ConnectedGraph {
             System.out.println("Number of connected components: " + graphChecker.calculateConnectedComponents());
         }
 
+        String[] vertexNames = new String[totalVertices];
+        for (Map.Entry<String, Integer> entry : graphChecker.getVertexIndexMap().entrySet()) {
+            vertexNames[entry.getValue()] = entry.getKey();
+        }
+        Biconnectivity biconnectivity = graphChecker.analyzeBiconnectivity();
+        StringJoiner articulationPoints = new StringJoiner(", ");
+        for (int vertex : biconnectivity.getArticulationPoints()) {
+            articulationPoints.add(vertexNames[vertex]);
+        }
+        StringJoiner bridges = new StringJoiner(", ");
+        int[] bridgeEndpoints = biconnectivity.getBridges();
+        for (int i = 0; i < bridgeEndpoints.length; i += 2) {
+            bridges.add(vertexNames[bridgeEndpoints[i]] + "-" + vertexNames[bridgeEndpoints[i + 1]]);
+        }
+        System.out.println("Articulation points: " + (articulationPoints.length() == 0 ? "none" : articulationPoints));
+        System.out.println("Bridges: " + (bridges.length() == 0 ? "none" : bridges));
+
         userInput.close();
     }
 }
\ No newline at end of file
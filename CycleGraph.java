@@ -10,6 +10,7 @@ class CycleGraph {
     private final Map<String, Integer> vertexToIndexMap;
     private final Map<Integer, String> indexToVertexMap;
     private final boolean isDirected;
+    private GraphFingerprint fingerprint;
 
     /**
      * Constructs a new CycleGraph with the specified number of vertices and directed/undirected property.
@@ -22,6 +23,7 @@ class CycleGraph {
         adjacencyList = new ArrayList<>(vertexCount);
         vertexToIndexMap = new HashMap<>();
         indexToVertexMap = new HashMap<>();
+        fingerprint = new GraphFingerprint(isDirected, vertexCount);
         for (int i = 0; i < vertexCount; i++)
             adjacencyList.add(new LinkedList<>());
     }
@@ -46,6 +48,7 @@ class CycleGraph {
 
         visitedVertices[vertexIndex] = true;
         recursionStack[vertexIndex] = true;
+        GraphMetrics.increment(GraphMetrics.Counter.CYCLE_SEARCH_VISITS);
 
         for (Integer neighborIndex: adjacencyList.get(vertexIndex)) {
             // If the neighbor is the parent in the DFS traversal, skip this iteration
@@ -68,7 +71,7 @@ class CycleGraph {
      * @param sourceVertex the source vertex of the edge
      * @param destinationVertex the destination vertex of the edge
      */
-    private void addEdge(String sourceVertex, String destinationVertex) {
+    void addEdge(String sourceVertex, String destinationVertex) {
         if (!vertexToIndexMap.containsKey(sourceVertex)) {
             vertexToIndexMap.put(sourceVertex, vertexToIndexMap.size());
             indexToVertexMap.put(vertexToIndexMap.get(sourceVertex), sourceVertex);
@@ -81,29 +84,87 @@ class CycleGraph {
         if (!isDirected) {
             adjacencyList.get(vertexToIndexMap.get(destinationVertex)).add(vertexToIndexMap.get(sourceVertex));
         }
+        fingerprint.addEdge(vertexToIndexMap.get(sourceVertex), vertexToIndexMap.get(destinationVertex));
+    }
+
+    /**
+     * Relabels the vertices so that the two ends of most edges get nearby indices, which makes the cycle search
+     * of a large graph read memory in order. Vertex names keep pointing at the same vertices.
+     * @param strategy how to order the vertices
+     * @return the ordering, which maps the old indices to the new ones
+     */
+    VertexOrdering reorderVertices(VertexOrdering.Strategy strategy) {
+        EdgeBatch batch = new EdgeBatch(vertexCnt);
+        for (int vertex = 0; vertex < vertexCnt; vertex++) {
+            for (int neighbor : adjacencyList.get(vertex)) {
+                batch.addEdge(vertex, neighbor);
+            }
+        }
+        // Every list entry is one arc; an undirected graph already lists each edge at both ends
+        CompactGraph graph = batch.build(vertexCnt, true, CompactGraph.DuplicatePolicy.KEEP);
+        VertexOrdering ordering = VertexOrdering.compute(graph, strategy).keepingPrefix(vertexToIndexMap.size());
+        List<List<Integer>> relabeledLists = ordering.apply(adjacencyList);
+        for (int vertex = 0; vertex < vertexCnt; vertex++) {
+            adjacencyList.set(vertex, relabeledLists.get(vertex));
+        }
+        Map<String, Integer> relabeledIndices = ordering.apply(vertexToIndexMap);
+        vertexToIndexMap.clear();
+        vertexToIndexMap.putAll(relabeledIndices);
+        indexToVertexMap.clear();
+        for (Map.Entry<String, Integer> entry : vertexToIndexMap.entrySet()) {
+            indexToVertexMap.put(entry.getValue(), entry.getKey());
+        }
+
+        fingerprint = new GraphFingerprint(isDirected, vertexCnt);
+        for (int vertex = 0; vertex < vertexCnt; vertex++) {
+            int loopEntries = 0;
+            for (int neighbor : adjacencyList.get(vertex)) {
+                // An undirected edge is listed at both ends, and an undirected self-loop twice in the same list
+                if (isDirected || vertex < neighbor || (vertex == neighbor && ++loopEntries % 2 == 0)) {
+                    fingerprint.addEdge(vertex, neighbor);
+                }
+            }
+        }
+        return ordering;
     }
 
     /**
      * Initiates cycle detection in the graph.
+     * The cycle found is cached for as long as the edges do not change.
      */
     void cycleSearch() {
+        int[] cycleIndices = ResultCache.shared().get(fingerprint.key("cycle"), this::findCycle);
+        List<Integer> cycle = new ArrayList<>(cycleIndices.length);
+        for (int index : cycleIndices) {
+            cycle.add(index);
+        }
+
+        if (cycle.isEmpty()) {
+            System.out.println("The graph doesn't contain a cycle");
+        } else if (cycle.size() == vertexCnt) {
+            System.out.println("The graph has a cycle");
+        } else {
+            printCycle(cycle);
+        }
+    }
+
+    /**
+     * Searches every vertex for a cycle.
+     * @return the vertex indices of the cycle found, or an empty array if there is no cycle
+     */
+    int[] findCycle() {
+        long start = GraphMetrics.startTimer();
         boolean[] visitedVertices = new boolean[vertexCnt];
         boolean[] recursionStack = new boolean[vertexCnt];
         List<Integer> cycle = new ArrayList<>();
 
         for (int i = 0; i < vertexCnt; i++) {
             if (!visitedVertices[i] && isCycleFromVertex(i, -1, visitedVertices, recursionStack, cycle)) {
-                if (cycle.size() == vertexCnt) {
-                    System.out.println("The graph has a cycle");
-                    return;
-                } else {
-                    printCycle(cycle);
-                    return;
-                }
+                break;
             }
         }
-
-        System.out.println("The graph doesn't contain a cycle");
+        GraphMetrics.stopTimer(GraphMetrics.Timer.CYCLE_SEARCH, start);
+        return cycle.stream().mapToInt(Integer::intValue).toArray();
     }
 
     /**
@@ -0,0 +1,555 @@
+import java.util.*;
+
+/**
+ * This class keeps track of the connected components of an undirected graph while edges are added and removed.
+ * It follows Holm, de Lichtenberg and Thorup: every edge has a level, every level keeps a spanning forest
+ * as Euler tours stored in treaps, and a removed tree edge is replaced by searching the smaller half,
+ * raising the levels of the edges it looked at so that no edge is looked at more than log n times.
+ * Adding and removing an edge take O(log^2 n) amortized time; a connectivity query takes O(log n).
+ */
+public class DynamicConnectivity {
+    private final int vertexCount;
+    private final int maxLevel;
+    private final Level[] levels;
+    private final Random random;
+    private final Map<Long, List<Integer>> edgesByPair;
+
+    private int[] edgeSources;
+    private int[] edgeTargets;
+    private int[] edgeLevels;
+    private boolean[] edgeIsTree;
+    private Node[][] edgeArcs;
+    private int edgeCapacityUsed;
+    private final Deque<Integer> freeEdgeIds;
+    private int componentCount;
+
+    /**
+     * Constructs a new DynamicConnectivity with the specified number of vertices and no edges.
+     * @param vertexCount the number of vertices in the graph
+     */
+    public DynamicConnectivity(int vertexCount) {
+        this.vertexCount = vertexCount;
+        this.maxLevel = 32 - Integer.numberOfLeadingZeros(Math.max(vertexCount, 1));
+        this.levels = new Level[maxLevel + 1];
+        this.random = new Random();
+        this.edgesByPair = new HashMap<>();
+        this.edgeSources = new int[16];
+        this.edgeTargets = new int[16];
+        this.edgeLevels = new int[16];
+        this.edgeIsTree = new boolean[16];
+        this.edgeArcs = new Node[16][];
+        this.freeEdgeIds = new ArrayDeque<>();
+        this.componentCount = vertexCount;
+    }
+
+    /**
+     * Adds an edge between two vertices. Parallel edges and self-loops are allowed.
+     * @param vertexOne the first vertex of the edge
+     * @param vertexTwo the second vertex of the edge
+     * @throws IllegalArgumentException if a vertex index is out of range
+     */
+    public void addEdge(int vertexOne, int vertexTwo) {
+        checkVertex(vertexOne);
+        checkVertex(vertexTwo);
+        int edge = allocateEdge(vertexOne, vertexTwo);
+        edgesByPair.computeIfAbsent(pairKey(vertexOne, vertexTwo), key -> new ArrayList<>()).add(edge);
+        if (vertexOne == vertexTwo) {
+            // A self-loop never changes connectivity, so it is only remembered for removal
+            edgeLevels[edge] = -1;
+            return;
+        }
+        if (level(0).connected(vertexOne, vertexTwo)) {
+            addNonTreeEdge(edge, 0);
+        } else {
+            linkTreeEdge(edge, 0);
+            componentCount--;
+        }
+    }
+
+    /**
+     * Removes one edge between two vertices.
+     * @param vertexOne the first vertex of the edge
+     * @param vertexTwo the second vertex of the edge
+     * @return true if an edge was removed, false if there was no edge between the vertices
+     * @throws IllegalArgumentException if a vertex index is out of range
+     */
+    public boolean removeEdge(int vertexOne, int vertexTwo) {
+        checkVertex(vertexOne);
+        checkVertex(vertexTwo);
+        long key = pairKey(vertexOne, vertexTwo);
+        List<Integer> edges = edgesByPair.get(key);
+        if (edges == null) {
+            return false;
+        }
+        // Prefer removing a non-tree copy, which never needs a replacement search
+        int chosen = edges.size() - 1;
+        for (int i = 0; i < edges.size(); i++) {
+            if (!edgeIsTree[edges.get(i)]) {
+                chosen = i;
+                break;
+            }
+        }
+        int edge = edges.get(chosen);
+        edges.set(chosen, edges.get(edges.size() - 1));
+        edges.remove(edges.size() - 1);
+        if (edges.isEmpty()) {
+            edgesByPair.remove(key);
+        }
+
+        if (edgeLevels[edge] >= 0) {
+            if (edgeIsTree[edge]) {
+                removeTreeEdge(edge);
+            } else {
+                removeNonTreeEdge(edge, edgeLevels[edge]);
+            }
+        }
+        edgeArcs[edge] = null;
+        freeEdgeIds.push(edge);
+        return true;
+    }
+
+    /**
+     * Checks if a path joins two vertices.
+     * @param vertexOne the first vertex
+     * @param vertexTwo the second vertex
+     * @return true if the vertices are in the same connected component, false otherwise
+     * @throws IllegalArgumentException if a vertex index is out of range
+     */
+    public boolean connected(int vertexOne, int vertexTwo) {
+        checkVertex(vertexOne);
+        checkVertex(vertexTwo);
+        return level(0).connected(vertexOne, vertexTwo);
+    }
+
+    /**
+     * Gets the number of connected components.
+     * @return the number of connected components
+     */
+    public int getComponentCount() {
+        return componentCount;
+    }
+
+    /**
+     * Removes a tree edge from every forest it belongs to and looks for a replacement,
+     * starting at the edge's own level and working down.
+     * @param edge the tree edge to remove
+     */
+    private void removeTreeEdge(int edge) {
+        int edgeLevel = edgeLevels[edge];
+        int source = edgeSources[edge];
+        int target = edgeTargets[edge];
+        for (int i = 0; i <= edgeLevel; i++) {
+            level(i).cut(edgeArcs[edge][2 * i], edgeArcs[edge][2 * i + 1]);
+        }
+        edgeIsTree[edge] = false;
+
+        for (int i = edgeLevel; i >= 0; i--) {
+            Level level = level(i);
+            int smallSide = level.componentSize(source) <= level.componentSize(target) ? source : target;
+
+            // Push the tree edges of the smaller half up a level, so its next search starts from a smaller forest
+            for (int treeEdge : level.collectLevelTreeEdges(smallSide)) {
+                raiseTreeEdge(treeEdge);
+            }
+
+            for (int vertex : level.collectNonTreeVertices(smallSide)) {
+                Set<Integer> incidentEdges = level.nonTreeEdges.get(vertex);
+                if (incidentEdges == null) {
+                    // Every edge of this vertex led back into the smaller half and was already raised
+                    continue;
+                }
+                for (int candidate : new ArrayList<>(incidentEdges)) {
+                    int other = edgeSources[candidate] == vertex ? edgeTargets[candidate] : edgeSources[candidate];
+                    removeNonTreeEdge(candidate, i);
+                    if (level.connected(vertex, other)) {
+                        // Both ends are in the smaller half; charge this look to the edge by raising it
+                        addNonTreeEdge(candidate, i + 1);
+                    } else {
+                        linkTreeEdge(candidate, i);
+                        return;
+                    }
+                }
+            }
+        }
+        componentCount++;
+    }
+
+    /**
+     * Makes an edge a tree edge of the given level and links it into the forests of that level and every level below.
+     * @param edge the edge to link
+     * @param edgeLevel the level of the edge
+     */
+    private void linkTreeEdge(int edge, int edgeLevel) {
+        edgeLevels[edge] = edgeLevel;
+        edgeIsTree[edge] = true;
+        edgeArcs[edge] = new Node[2 * (edgeLevel + 1)];
+        for (int i = 0; i <= edgeLevel; i++) {
+            linkAtLevel(edge, i);
+        }
+        level(edgeLevel).setLevelTreeFlag(edgeArcs[edge][2 * edgeLevel], true);
+    }
+
+    /**
+     * Moves a tree edge one level up.
+     * @param edge the tree edge to raise
+     */
+    private void raiseTreeEdge(int edge) {
+        int oldLevel = edgeLevels[edge];
+        int newLevel = oldLevel + 1;
+        level(oldLevel).setLevelTreeFlag(edgeArcs[edge][2 * oldLevel], false);
+        edgeLevels[edge] = newLevel;
+        edgeArcs[edge] = Arrays.copyOf(edgeArcs[edge], 2 * (newLevel + 1));
+        linkAtLevel(edge, newLevel);
+        level(newLevel).setLevelTreeFlag(edgeArcs[edge][2 * newLevel], true);
+    }
+
+    /**
+     * Links a tree edge into the forest of one level.
+     * @param edge the tree edge to link
+     * @param levelIndex the level to link it into
+     */
+    private void linkAtLevel(int edge, int levelIndex) {
+        Node forward = new Node(-1, edge, random.nextInt());
+        Node backward = new Node(-1, edge, random.nextInt());
+        edgeArcs[edge][2 * levelIndex] = forward;
+        edgeArcs[edge][2 * levelIndex + 1] = backward;
+        level(levelIndex).link(edgeSources[edge], edgeTargets[edge], forward, backward);
+    }
+
+    /**
+     * Records a non-tree edge at a level.
+     * @param edge the edge to record
+     * @param edgeLevel the level of the edge
+     */
+    private void addNonTreeEdge(int edge, int edgeLevel) {
+        edgeLevels[edge] = edgeLevel;
+        edgeIsTree[edge] = false;
+        level(edgeLevel).addNonTreeEdge(edgeSources[edge], edge);
+        level(edgeLevel).addNonTreeEdge(edgeTargets[edge], edge);
+    }
+
+    /**
+     * Forgets a non-tree edge at a level.
+     * @param edge the edge to forget
+     * @param edgeLevel the level of the edge
+     */
+    private void removeNonTreeEdge(int edge, int edgeLevel) {
+        level(edgeLevel).removeNonTreeEdge(edgeSources[edge], edge);
+        level(edgeLevel).removeNonTreeEdge(edgeTargets[edge], edge);
+    }
+
+    private Level level(int index) {
+        if (index > maxLevel) {
+            throw new IllegalStateException("Edge level exceeds log2 of the vertex count: " + index);
+        }
+        if (levels[index] == null) {
+            levels[index] = new Level(vertexCount);
+        }
+        return levels[index];
+    }
+
+    private int allocateEdge(int source, int target) {
+        int edge;
+        if (!freeEdgeIds.isEmpty()) {
+            edge = freeEdgeIds.pop();
+        } else {
+            if (edgeCapacityUsed == edgeSources.length) {
+                int capacity = edgeSources.length * 2;
+                edgeSources = Arrays.copyOf(edgeSources, capacity);
+                edgeTargets = Arrays.copyOf(edgeTargets, capacity);
+                edgeLevels = Arrays.copyOf(edgeLevels, capacity);
+                edgeIsTree = Arrays.copyOf(edgeIsTree, capacity);
+                edgeArcs = Arrays.copyOf(edgeArcs, capacity);
+            }
+            edge = edgeCapacityUsed++;
+        }
+        edgeSources[edge] = source;
+        edgeTargets[edge] = target;
+        edgeIsTree[edge] = false;
+        return edge;
+    }
+
+    private void checkVertex(int vertex) {
+        if (vertex < 0 || vertex >= vertexCount) {
+            throw new IllegalArgumentException("Vertex index out of range: " + vertex);
+        }
+    }
+
+    private static long pairKey(int vertexOne, int vertexTwo) {
+        return ((long) Math.min(vertexOne, vertexTwo) << 32) | Math.max(vertexOne, vertexTwo);
+    }
+
+    /**
+     * A treap node standing either for a vertex or for one direction of a tree edge in an Euler tour.
+     * Every node keeps aggregates over its subtree so that whole trees can be sized and searched quickly.
+     */
+    private static final class Node {
+        private final int vertex;
+        private final int edge;
+        private final int priority;
+        private Node left;
+        private Node right;
+        private Node parent;
+        private boolean hasNonTreeEdges;
+        private boolean isLevelTreeEdge;
+        private int size = 1;
+        private int vertexCount;
+        private boolean subtreeHasNonTreeEdges;
+        private boolean subtreeHasLevelTreeEdges;
+
+        Node(int vertex, int edge, int priority) {
+            this.vertex = vertex;
+            this.edge = edge;
+            this.priority = priority;
+            this.vertexCount = vertex >= 0 ? 1 : 0;
+        }
+
+        void update() {
+            size = 1;
+            vertexCount = vertex >= 0 ? 1 : 0;
+            subtreeHasNonTreeEdges = hasNonTreeEdges;
+            subtreeHasLevelTreeEdges = isLevelTreeEdge;
+            if (left != null) {
+                size += left.size;
+                vertexCount += left.vertexCount;
+                subtreeHasNonTreeEdges |= left.subtreeHasNonTreeEdges;
+                subtreeHasLevelTreeEdges |= left.subtreeHasLevelTreeEdges;
+            }
+            if (right != null) {
+                size += right.size;
+                vertexCount += right.vertexCount;
+                subtreeHasNonTreeEdges |= right.subtreeHasNonTreeEdges;
+                subtreeHasLevelTreeEdges |= right.subtreeHasLevelTreeEdges;
+            }
+        }
+    }
+
+    /**
+     * One level of the structure: a spanning forest stored as Euler tours, and the non-tree edges of that level.
+     * Every tour is a sequence of vertex nodes and edge nodes held in an implicit treap, and is treated as cyclic.
+     */
+    private final class Level {
+        private final Node[] vertexNodes;
+        private final Map<Integer, Set<Integer>> nonTreeEdges;
+
+        Level(int vertexCount) {
+            vertexNodes = new Node[vertexCount];
+            nonTreeEdges = new HashMap<>();
+        }
+
+        Node vertexNode(int vertex) {
+            Node node = vertexNodes[vertex];
+            if (node == null) {
+                node = new Node(vertex, -1, random.nextInt());
+                vertexNodes[vertex] = node;
+            }
+            return node;
+        }
+
+        boolean connected(int vertexOne, int vertexTwo) {
+            if (vertexOne == vertexTwo) {
+                return true;
+            }
+            Node nodeOne = vertexNodes[vertexOne];
+            Node nodeTwo = vertexNodes[vertexTwo];
+            return nodeOne != null && nodeTwo != null && root(nodeOne) == root(nodeTwo);
+        }
+
+        int componentSize(int vertex) {
+            Node node = vertexNodes[vertex];
+            return node == null ? 1 : root(node).vertexCount;
+        }
+
+        void link(int source, int target, Node forward, Node backward) {
+            Node sourceTour = reroot(vertexNode(source));
+            Node targetTour = reroot(vertexNode(target));
+            merge(merge(merge(sourceTour, forward), targetTour), backward).parent = null;
+        }
+
+        void cut(Node forward, Node backward) {
+            Node tour = root(forward);
+            int first = indexOf(forward);
+            int second = indexOf(backward);
+            if (first > second) {
+                int swap = first;
+                first = second;
+                second = swap;
+            }
+            Node[] parts = new Node[2];
+            split(tour, second, parts);
+            Node beforeSecond = parts[0];
+            split(parts[1], 1, parts);
+            Node afterSecond = parts[1];
+            split(beforeSecond, first, parts);
+            Node beforeFirst = parts[0];
+            split(parts[1], 1, parts);
+            Node between = parts[1];
+            if (between != null) {
+                between.parent = null;
+            }
+            Node rest = merge(beforeFirst, afterSecond);
+            if (rest != null) {
+                rest.parent = null;
+            }
+        }
+
+        void addNonTreeEdge(int vertex, int edge) {
+            Set<Integer> edges = nonTreeEdges.computeIfAbsent(vertex, key -> new HashSet<>());
+            edges.add(edge);
+            if (edges.size() == 1) {
+                setNonTreeFlag(vertexNode(vertex), true);
+            }
+        }
+
+        void removeNonTreeEdge(int vertex, int edge) {
+            Set<Integer> edges = nonTreeEdges.get(vertex);
+            if (edges == null || !edges.remove(edge)) {
+                return;
+            }
+            if (edges.isEmpty()) {
+                nonTreeEdges.remove(vertex);
+                setNonTreeFlag(vertexNode(vertex), false);
+            }
+        }
+
+        void setNonTreeFlag(Node node, boolean value) {
+            node.hasNonTreeEdges = value;
+            for (Node current = node; current != null; current = current.parent) {
+                current.update();
+            }
+        }
+
+        void setLevelTreeFlag(Node node, boolean value) {
+            node.isLevelTreeEdge = value;
+            for (Node current = node; current != null; current = current.parent) {
+                current.update();
+            }
+        }
+
+        List<Integer> collectLevelTreeEdges(int vertex) {
+            List<Integer> edges = new ArrayList<>();
+            Deque<Node> pending = new ArrayDeque<>();
+            pending.push(root(vertexNode(vertex)));
+            while (!pending.isEmpty()) {
+                Node node = pending.pop();
+                if (!node.subtreeHasLevelTreeEdges) {
+                    continue;
+                }
+                if (node.isLevelTreeEdge) {
+                    edges.add(node.edge);
+                }
+                if (node.left != null) {
+                    pending.push(node.left);
+                }
+                if (node.right != null) {
+                    pending.push(node.right);
+                }
+            }
+            return edges;
+        }
+
+        List<Integer> collectNonTreeVertices(int vertex) {
+            List<Integer> vertices = new ArrayList<>();
+            Deque<Node> pending = new ArrayDeque<>();
+            pending.push(root(vertexNode(vertex)));
+            while (!pending.isEmpty()) {
+                Node node = pending.pop();
+                if (!node.subtreeHasNonTreeEdges) {
+                    continue;
+                }
+                if (node.hasNonTreeEdges) {
+                    vertices.add(node.vertex);
+                }
+                if (node.left != null) {
+                    pending.push(node.left);
+                }
+                if (node.right != null) {
+                    pending.push(node.right);
+                }
+            }
+            return vertices;
+        }
+
+        private Node reroot(Node node) {
+            Node tour = root(node);
+            Node[] parts = new Node[2];
+            split(tour, indexOf(node), parts);
+            Node before = parts[0];
+            Node after = parts[1];
+            Node rotated = merge(after, before);
+            rotated.parent = null;
+            return rotated;
+        }
+    }
+
+    private static Node root(Node node) {
+        while (node.parent != null) {
+            node = node.parent;
+        }
+        return node;
+    }
+
+    private static int indexOf(Node node) {
+        int index = node.left == null ? 0 : node.left.size;
+        while (node.parent != null) {
+            if (node == node.parent.right) {
+                index += 1 + (node.parent.left == null ? 0 : node.parent.left.size);
+            }
+            node = node.parent;
+        }
+        return index;
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.right.parent = left;
+            left.update();
+            return left;
+        }
+        right.left = merge(left, right.left);
+        right.left.parent = right;
+        right.update();
+        return right;
+    }
+
+    /**
+     * Splits a treap into its first count nodes and the rest.
+     * @param node the root of the treap
+     * @param count the number of nodes that go to the left part
+     * @param parts receives the left part at index 0 and the right part at index 1, both with no parent
+     */
+    private static void split(Node node, int count, Node[] parts) {
+        if (node == null) {
+            parts[0] = null;
+            parts[1] = null;
+            return;
+        }
+        int leftSize = node.left == null ? 0 : node.left.size;
+        if (count <= leftSize) {
+            split(node.left, count, parts);
+            node.left = parts[1];
+            if (node.left != null) {
+                node.left.parent = node;
+            }
+            node.update();
+            node.parent = null;
+            parts[1] = node;
+        } else {
+            split(node.right, count - leftSize - 1, parts);
+            node.right = parts[0];
+            if (node.right != null) {
+                node.right.parent = node;
+            }
+            node.update();
+            node.parent = null;
+            parts[0] = node;
+        }
+    }
+}
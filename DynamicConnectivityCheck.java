@@ -0,0 +1,197 @@
+import java.util.*;
+
+/**
+ * This class cross-checks {@link DynamicConnectivity} and the connectivity queries of {@link ConnectedGraph}
+ * against full recomputation on random sequences of edge insertions and deletions.
+ * After every operation the component count and every vertex pair are compared with a union-find
+ * built from scratch over the edges that remain. The sequences include self-loops, parallel edges and removals
+ * of edges that do not exist, and the ConnectedGraph runs compress their adjacency from time to time.
+ * Any disagreement stops the check with an exception.
+ * Usage: java DynamicConnectivityCheck [sequenceCount] [maxVertices] [operationCount] [seed]
+ */
+public class DynamicConnectivityCheck {
+
+    /**
+     * Labels the connected components of a list of edges with a fresh union-find.
+     * @param vertexCount the number of vertices
+     * @param edges the edges, as pairs of vertex indices
+     * @return the root of every vertex
+     */
+    static int[] recompute(int vertexCount, List<int[]> edges) {
+        int[] roots = new int[vertexCount];
+        for (int v = 0; v < vertexCount; v++) {
+            roots[v] = v;
+        }
+        for (int[] edge : edges) {
+            roots[find(roots, edge[0])] = find(roots, edge[1]);
+        }
+        for (int v = 0; v < vertexCount; v++) {
+            roots[v] = find(roots, v);
+        }
+        return roots;
+    }
+
+    private static int find(int[] roots, int vertex) {
+        while (roots[vertex] != vertex) {
+            roots[vertex] = roots[roots[vertex]];
+            vertex = roots[vertex];
+        }
+        return vertex;
+    }
+
+    private static int countRoots(int[] roots) {
+        int count = 0;
+        for (int v = 0; v < roots.length; v++) {
+            if (roots[v] == v) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Removes one copy of an edge from a list of edges, in either direction.
+     * @param edges the edges to remove from
+     * @param vertexOne the first vertex of the edge
+     * @param vertexTwo the second vertex of the edge
+     * @return true if a copy was removed, false if there was none
+     */
+    private static boolean removeEdge(List<int[]> edges, int vertexOne, int vertexTwo) {
+        for (int i = 0; i < edges.size(); i++) {
+            int[] edge = edges.get(i);
+            if ((edge[0] == vertexOne && edge[1] == vertexTwo) || (edge[0] == vertexTwo && edge[1] == vertexOne)) {
+                edges.remove(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Picks the next edge to add or remove. Removals usually pick an existing edge, so that trees are really cut.
+     * @param vertexCount the number of vertices
+     * @param edges the edges present
+     * @param remove whether the edge is to be removed
+     * @param random the source of randomness
+     * @return the two vertices of the edge
+     */
+    private static int[] pickEdge(int vertexCount, List<int[]> edges, boolean remove, Random random) {
+        if (remove && !edges.isEmpty() && random.nextInt(8) > 0) {
+            int[] edge = edges.get(random.nextInt(edges.size()));
+            return random.nextBoolean() ? new int[]{edge[0], edge[1]} : new int[]{edge[1], edge[0]};
+        }
+        return new int[]{random.nextInt(vertexCount), random.nextInt(vertexCount)};
+    }
+
+    /**
+     * Runs one random sequence directly on a {@link DynamicConnectivity}.
+     * @param vertexCount the number of vertices
+     * @param operationCount the number of insertions and deletions
+     * @param random the source of randomness
+     */
+    static void checkTracker(int vertexCount, int operationCount, Random random) {
+        DynamicConnectivity connectivity = new DynamicConnectivity(vertexCount);
+        List<int[]> edges = new ArrayList<>();
+        for (int operation = 0; operation < operationCount; operation++) {
+            // Lean towards insertions at first and deletions later, so the graph fills up and then falls apart
+            boolean remove = random.nextInt(operationCount) < operation;
+            int[] edge = pickEdge(vertexCount, edges, remove, random);
+            if (remove) {
+                boolean expected = removeEdge(edges, edge[0], edge[1]);
+                if (connectivity.removeEdge(edge[0], edge[1]) != expected) {
+                    throw new IllegalStateException("removeEdge(" + edge[0] + ", " + edge[1] + ") should return " + expected);
+                }
+            } else {
+                edges.add(edge);
+                connectivity.addEdge(edge[0], edge[1]);
+            }
+
+            int[] roots = recompute(vertexCount, edges);
+            if (connectivity.getComponentCount() != countRoots(roots)) {
+                throw new IllegalStateException("Operation " + operation + ": " + connectivity.getComponentCount()
+                        + " components instead of " + countRoots(roots));
+            }
+            for (int first = 0; first < vertexCount; first++) {
+                for (int second = 0; second < vertexCount; second++) {
+                    if (connectivity.connected(first, second) != (roots[first] == roots[second])) {
+                        throw new IllegalStateException("Operation " + operation + ": connected(" + first + ", "
+                                + second + ") disagrees with recomputation");
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs one random sequence through the vertex names of a {@link ConnectedGraph}.
+     * @param vertexCount the number of vertices
+     * @param operationCount the number of insertions and deletions
+     * @param random the source of randomness
+     */
+    static void checkGraph(int vertexCount, int operationCount, Random random) {
+        ConnectedGraph graph = new ConnectedGraph(vertexCount);
+        String[] names = new String[vertexCount];
+        for (int v = 0; v < vertexCount; v++) {
+            names[v] = "v" + v;
+            graph.addVertex(names[v]);
+        }
+        List<int[]> edges = new ArrayList<>();
+        for (int operation = 0; operation < operationCount; operation++) {
+            boolean remove = random.nextInt(operationCount) < operation;
+            int[] edge = pickEdge(vertexCount, edges, remove, random);
+            if (remove) {
+                boolean expected = removeEdge(edges, edge[0], edge[1]);
+                boolean removed = true;
+                try {
+                    graph.removeEdge(names[edge[0]], names[edge[1]]);
+                } catch (IllegalArgumentException e) {
+                    removed = false;
+                }
+                if (removed != expected) {
+                    throw new IllegalStateException("removeEdge(" + names[edge[0]] + ", " + names[edge[1]] + ") "
+                            + (expected ? "failed" : "removed an edge that does not exist"));
+                }
+            } else {
+                edges.add(edge);
+                graph.createEdge(names[edge[0]], names[edge[1]]);
+            }
+            if (random.nextInt(16) == 0) {
+                graph.compressAdjacency();
+            }
+
+            int[] roots = recompute(vertexCount, edges);
+            if (graph.getConnectedComponentCount() != countRoots(roots)) {
+                throw new IllegalStateException("Operation " + operation + ": " + graph.getConnectedComponentCount()
+                        + " components instead of " + countRoots(roots));
+            }
+            for (int first = 0; first < vertexCount; first++) {
+                for (int second = 0; second < vertexCount; second++) {
+                    if (graph.areConnected(names[first], names[second]) != (roots[first] == roots[second])) {
+                        throw new IllegalStateException("Operation " + operation + ": areConnected(" + names[first]
+                                + ", " + names[second] + ") disagrees with recomputation");
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * The main method that runs the check.
+     * @param args the number of sequences, the largest vertex count, the operations per sequence
+     *             and the random seed, all optional
+     */
+    public static void main(String[] args) {
+        int sequenceCount = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        int maxVertices = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int operationCount = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 42;
+
+        Random random = new Random(seed);
+        for (int sequence = 0; sequence < sequenceCount; sequence++) {
+            int vertexCount = 1 + random.nextInt(maxVertices);
+            checkTracker(vertexCount, operationCount, random);
+            checkGraph(vertexCount, operationCount, random);
+        }
+        System.out.println(sequenceCount + " random insert/delete sequences agree with union-find recomputation");
+    }
+}
@@ -0,0 +1,108 @@
+import java.util.*;
+
+/**
+ * This class collects edges as primitive vertex indices so that a graph can be built in one pass.
+ * Vertex names are resolved once while collecting, instead of once per graph class.
+ */
+public class EdgeBatch {
+    private int[] sources;
+    private int[] targets;
+    private int edgeCount;
+
+    /**
+     * Constructs a new EdgeBatch with room for the expected number of edges.
+     * @param expectedEdges the number of edges the batch is expected to hold
+     */
+    public EdgeBatch(int expectedEdges) {
+        sources = new int[Math.max(expectedEdges, 16)];
+        targets = new int[sources.length];
+    }
+
+    /**
+     * Wraps existing edge arrays without copying them.
+     * @param sources the source vertex index of every edge
+     * @param targets the target vertex index of every edge
+     * @return a batch holding the given edges
+     * @throws IllegalArgumentException if the arrays have different lengths
+     */
+    public static EdgeBatch of(int[] sources, int[] targets) {
+        if (sources.length != targets.length) {
+            throw new IllegalArgumentException("Source and target arrays must have the same length");
+        }
+        EdgeBatch batch = new EdgeBatch(0);
+        batch.sources = sources;
+        batch.targets = targets;
+        batch.edgeCount = sources.length;
+        return batch;
+    }
+
+    /**
+     * Adds an edge between two vertex indices.
+     * @param source the index of the first vertex of the edge
+     * @param target the index of the second vertex of the edge
+     */
+    public void addEdge(int source, int target) {
+        if (edgeCount == sources.length) {
+            int capacity = sources.length + (sources.length >> 1);
+            sources = Arrays.copyOf(sources, capacity);
+            targets = Arrays.copyOf(targets, capacity);
+        }
+        sources[edgeCount] = source;
+        targets[edgeCount] = target;
+        edgeCount++;
+    }
+
+    /**
+     * Adds an edge between two named vertices.
+     * @param vertexIndexMap the map from vertex names to indices
+     * @param vertex1 the first vertex of the edge
+     * @param vertex2 the second vertex of the edge
+     * @throws IllegalArgumentException if either vertex does not exist
+     */
+    public void addEdge(Map<String, Integer> vertexIndexMap, String vertex1, String vertex2) {
+        Integer index1 = vertexIndexMap.get(vertex1);
+        Integer index2 = vertexIndexMap.get(vertex2);
+        if (index1 == null || index2 == null) {
+            throw new IllegalArgumentException("Both vertices must exist");
+        }
+        addEdge(index1, index2);
+    }
+
+    /**
+     * Gets the number of edges in the batch.
+     * @return the number of edges
+     */
+    public int size() {
+        return edgeCount;
+    }
+
+    /**
+     * Gets the source vertex index of an edge.
+     * @param edge the position of the edge in the batch
+     * @return the source vertex index
+     */
+    public int getSource(int edge) {
+        return sources[edge];
+    }
+
+    /**
+     * Gets the target vertex index of an edge.
+     * @param edge the position of the edge in the batch
+     * @return the target vertex index
+     */
+    public int getTarget(int edge) {
+        return targets[edge];
+    }
+
+    /**
+     * Builds a compact graph from the edges in the batch.
+     * @param vertexCount the number of vertices in the graph
+     * @param isDirected whether the graph is directed or not
+     * @param policy what to do with parallel edges
+     * @return the built graph
+     * @throws IllegalArgumentException if a vertex index is out of range
+     */
+    public CompactGraph build(int vertexCount, boolean isDirected, CompactGraph.DuplicatePolicy policy) {
+        return CompactGraph.fromEdges(vertexCount, sources, targets, edgeCount, isDirected, policy);
+    }
+}
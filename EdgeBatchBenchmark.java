@@ -0,0 +1,100 @@
+import java.util.*;
+
+/**
+ * This class compares building a graph from one {@link EdgeBatch} against adding the same edges one call at a time.
+ * It times {@link EdgeBatch#build} for every {@link CompactGraph.DuplicatePolicy}, and the bulk
+ * {@link ConnectedGraph#createEdges(EdgeBatch)} and {@link VertexDegree#addEdges(EdgeBatch)} against repeated
+ * {@link ConnectedGraph#createEdge(String, String)} and {@link VertexDegree#addEdge(String, String)}.
+ * The one-at-a-time builds keep two boxed list entries per edge, so their edge count is capped separately;
+ * their rate is what 100M edges would cost on a machine with the memory to hold them.
+ * Usage: java EdgeBatchBenchmark [vertexCount] [edgeCount] [perEdgeCount] [seed]
+ */
+public class EdgeBatchBenchmark {
+    private static final int RUNS = 3;
+
+    /**
+     * Times a build and reports its rate.
+     * @param name the name of the build
+     * @param edgeCount the number of edges the build adds
+     * @param task the build
+     * @return the rate, in edges per second
+     */
+    private static double report(String name, int edgeCount, Runnable task) {
+        long best = Long.MAX_VALUE;
+        for (int run = 0; run < RUNS; run++) {
+            long start = System.nanoTime();
+            task.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        double rate = edgeCount / (best / 1e9);
+        System.out.printf("%-34s %12d %10.1f %12.2f%n", name, edgeCount, best / 1e6, rate / 1e6);
+        return rate;
+    }
+
+    /**
+     * The main method that runs the benchmark.
+     * @param args the vertex count, the batch edge count, the one-at-a-time edge count and the random seed, all optional
+     */
+    public static void main(String[] args) {
+        int vertexCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int edgeCount = args.length > 1 ? Integer.parseInt(args[1]) : 20_000_000;
+        int perEdgeCount = Math.min(edgeCount, args.length > 2 ? Integer.parseInt(args[2]) : 5_000_000);
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 42;
+
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] sources = new int[edgeCount];
+        int[] targets = new int[edgeCount];
+        for (int edge = 0; edge < edgeCount; edge++) {
+            sources[edge] = random.nextInt(vertexCount);
+            targets[edge] = random.nextInt(vertexCount);
+        }
+        EdgeBatch batch = EdgeBatch.of(sources, targets);
+        String[] names = new String[vertexCount];
+        for (int v = 0; v < vertexCount; v++) {
+            names[v] = "v" + v;
+        }
+        System.out.printf("Random multigraph: %d vertices, %d edges (%d added one at a time)%n",
+                vertexCount, edgeCount, perEdgeCount);
+        System.out.printf("%-34s %12s %10s %12s%n", "Build", "Edges", "Best ms", "Medges/s");
+
+        for (CompactGraph.DuplicatePolicy policy : CompactGraph.DuplicatePolicy.values()) {
+            report("EdgeBatch.build " + policy, edgeCount, () -> batch.build(vertexCount, false, policy));
+        }
+
+        double perEdge = report("ConnectedGraph.createEdge", perEdgeCount, () -> {
+            ConnectedGraph graph = new ConnectedGraph(vertexCount);
+            for (String name : names) {
+                graph.addVertex(name);
+            }
+            for (int edge = 0; edge < perEdgeCount; edge++) {
+                graph.createEdge(names[sources[edge]], names[targets[edge]]);
+            }
+        });
+        double bulk = report("ConnectedGraph.createEdges", edgeCount, () -> {
+            ConnectedGraph graph = new ConnectedGraph(vertexCount);
+            for (String name : names) {
+                graph.addVertex(name);
+            }
+            graph.createEdges(batch);
+        });
+        System.out.printf("%-34s %35.1fx%n", "ConnectedGraph speedup", bulk / perEdge);
+
+        perEdge = report("VertexDegree.addEdge", perEdgeCount, () -> {
+            VertexDegree graph = new VertexDegree(vertexCount);
+            for (String name : names) {
+                graph.addVertex(name);
+            }
+            for (int edge = 0; edge < perEdgeCount; edge++) {
+                graph.addEdge(names[sources[edge]], names[targets[edge]]);
+            }
+        });
+        bulk = report("VertexDegree.addEdges", edgeCount, () -> {
+            VertexDegree graph = new VertexDegree(vertexCount);
+            for (String name : names) {
+                graph.addVertex(name);
+            }
+            graph.addEdges(batch);
+        });
+        System.out.printf("%-34s %35.1fx%n", "VertexDegree speedup", bulk / perEdge);
+    }
+}
@@ -3,12 +3,12 @@ import java.util.*;
 /**
  * This class represents a graph and provides methods to add vertices and edges,
  * and to print the edges and their counts.
+ * The edges are directed and stored in an {@link EdgeTable}, whose multiplicities are the counts.
  */
 public class EdgeCounter
 {
-    private int[][] adjacencyMatrix;
+    private final EdgeTable edgeTable;
     private Map<String, Integer> vertexIndexMap;
-    private Map<String, Integer> edgeCountMap;
 
     /**
      * Constructs a new EdgeCounter with the specified number of vertices.
@@ -16,9 +16,8 @@ public class EdgeCounter
      * @param vertexCount the number of vertices in the graph
      */
     public EdgeCounter(int vertexCount) {
-        adjacencyMatrix = new int[vertexCount][vertexCount];
+        edgeTable = new EdgeTable(vertexCount, vertexCount);
         vertexIndexMap = new HashMap<>();
-        edgeCountMap = new HashMap<>();
     }
 
     /**
@@ -35,32 +34,146 @@ public class EdgeCounter
     }
 
     /**
-     * Adds an edge to the graph.
+     * Adds an edge to the graph. Adding an edge that already exists adds to its count.
      *
      * @param vertex1 the first vertex of the edge
      * @param vertex2 the second vertex of the edge
      * @param count the number of times the edge appears
-     * @throws IllegalArgumentException if either vertex does not exist
+     * @throws IllegalArgumentException if either vertex does not exist or the count is not positive
      */
     public void addEdge(String vertex1, String vertex2, int count) {
         if (!vertexIndexMap.containsKey(vertex1) || !vertexIndexMap.containsKey(vertex2)) {
             throw new IllegalArgumentException("Both vertices must exist");
         }
-        int vertex1Index = vertexIndexMap.get(vertex1);
-        int vertex2Index = vertexIndexMap.get(vertex2);
-        adjacencyMatrix[vertex1Index][vertex2Index] = count;
+        edgeTable.addEdge(vertexIndexMap.get(vertex1), vertexIndexMap.get(vertex2), true, count);
+        GraphMetrics.increment(GraphMetrics.Counter.EDGES_BUILT);
+    }
+
+    /**
+     * Adds all edges of a batch in one pass.
+     * Repeated edges in the batch are aggregated, so each edge is looked up once and its count raised by
+     * the number of times it appears.
+     *
+     * Every endpoint is checked before the first edge is added, so a rejected batch leaves the counts unchanged.
+     *
+     * @param batch the edges to add, as vertex indices
+     * @throws IllegalArgumentException if a vertex index is out of range or has not been added as a vertex
+     */
+    public void addEdges(EdgeBatch batch) {
+        // Vertices get the indices 0 to vertexIndexMap.size() - 1 in the order they are added
+        int vertexCount = vertexIndexMap.size();
+        int capacity = edgeTable.getVertexCount();
+        for (int i = 0; i < batch.size(); i++) {
+            int index1 = batch.getSource(i);
+            int index2 = batch.getTarget(i);
+            if (index1 < 0 || index1 >= capacity || index2 < 0 || index2 >= capacity) {
+                throw new IllegalArgumentException("Vertex index out of range: " + index1 + "-" + index2);
+            }
+            if (index1 >= vertexCount || index2 >= vertexCount) {
+                throw new IllegalArgumentException("Both vertices must exist");
+            }
+        }
+        long start = GraphMetrics.startTimer();
+        CompactGraph graph = batch.build(edgeTable.getVertexCount(), true, CompactGraph.DuplicatePolicy.AGGREGATE);
+        for (int v = 0; v < graph.getVertexCount(); v++) {
+            for (int i = graph.getRowStart(v); i < graph.getRowEnd(v); i++) {
+                edgeTable.addEdge(v, graph.getNeighbor(i), true, graph.getMultiplicity(i));
+            }
+        }
+        GraphMetrics.stopTimer(GraphMetrics.Timer.MATRIX_BUILD, start);
+    }
 
-        String edge = vertex1 + "-" + vertex2;
-        edgeCountMap.put(edge, count);
+    /**
+     * Converts the graph to a compact graph whose multiplicities are the edge counts.
+     * The graph is treated as undirected if the count matrix is symmetric.
+     *
+     * @return the compact graph
+     */
+    public CompactGraph toCompactGraph() {
+        return edgeTable.toCompactGraph();
+    }
+
+    /**
+     * Gets the edge table holding the edges and their counts.
+     *
+     * @return the edge table
+     */
+    public EdgeTable getEdgeTable() {
+        return edgeTable;
+    }
+
+    /**
+     * Gets the count of an edge.
+     *
+     * @param vertex1 the first vertex of the edge
+     * @param vertex2 the second vertex of the edge
+     * @return the number of times the edge appears, or 0 if it was never added
+     * @throws IllegalArgumentException if either vertex does not exist
+     */
+    public int getEdgeCount(String vertex1, String vertex2) {
+        int edge = edgeTable.findEdge(getVertexIndex(vertex1), getVertexIndex(vertex2), true);
+        return edge == -1 ? 0 : edgeTable.getMultiplicity(edge);
+    }
+
+    /**
+     * Computes a spanning forest of the graph, weighted by the edge counts. Edge direction is ignored.
+     *
+     * @param algorithm how to compute the forest
+     * @param maximum whether to keep the most frequent edges instead of the least frequent
+     * @return the spanning forest, whose edge ids are the ids of {@link #getEdgeTable()}
+     */
+    public SpanningForest spanningForest(SpanningForest.Algorithm algorithm, boolean maximum) {
+        return SpanningForest.compute(edgeTable, algorithm, maximum);
+    }
+
+    /**
+     * Prints the edges of a spanning forest of the graph and their total count.
+     *
+     * @param maximum whether to print the maximum spanning forest instead of the minimum
+     */
+    public void printSpanningForest(boolean maximum) {
+        SpanningForest forest = spanningForest(SpanningForest.Algorithm.KRUSKAL, maximum);
+        System.out.println("The " + (maximum ? "maximum" : "minimum") + " spanning forest, with total count "
+                + forest.getTotalWeight() + ": ");
+        String[] vertexNames = getVertexNames();
+        for (int edge : forest.getEdges()) {
+            System.out.println("Edge: " + vertexNames[edgeTable.getSource(edge)] + "-"
+                    + vertexNames[edgeTable.getTarget(edge)] + ", Count: " + edgeTable.getMultiplicity(edge));
+        }
+    }
+
+    private String[] getVertexNames() {
+        String[] vertexNames = new String[edgeTable.getVertexCount()];
+        for (Map.Entry<String, Integer> entry : vertexIndexMap.entrySet()) {
+            vertexNames[entry.getValue()] = entry.getKey();
+        }
+        return vertexNames;
+    }
+
+    /**
+     * Gets the index of a vertex.
+     *
+     * @param vertex the vertex to look up
+     * @return the index of the vertex
+     * @throws IllegalArgumentException if the vertex does not exist
+     */
+    public int getVertexIndex(String vertex) {
+        Integer index = vertexIndexMap.get(vertex);
+        if (index == null) {
+            throw new IllegalArgumentException("Vertex does not exist: " + vertex);
+        }
+        return index;
     }
 
     /**
-     * Prints the edges of the graph and their counts.
+     * Prints the edges of the graph and their counts, in the order the edges were first added.
      */
     public void printEdges() {
         System.out.println("The edges of the graph and their counts: ");
-        for (Map.Entry<String, Integer> entry : edgeCountMap.entrySet()) {
-            System.out.println("Edge: " + entry.getKey() + ", Count: " + entry.getValue());
+        String[] vertexNames = getVertexNames();
+        for (int edge = 0; edge < edgeTable.getEdgeCount(); edge++) {
+            System.out.println("Edge: " + vertexNames[edgeTable.getSource(edge)] + "-"
+                    + vertexNames[edgeTable.getTarget(edge)] + ", Count: " + edgeTable.getMultiplicity(edge));
         }
     }
 
@@ -99,6 +212,9 @@ public class EdgeCounter
 
         System.out.println("\nEdges and their counts:");
         adjacencyMatrixGraph.printEdges();
+        System.out.println();
+        adjacencyMatrixGraph.printSpanningForest(false);
+        adjacencyMatrixGraph.printSpanningForest(true);
 
         scanner.close();
     }
@@ -0,0 +1,280 @@
+import java.util.*;
+
+/**
+ * This class represents a multigraph as a single table of distinct edges.
+ * Every distinct edge gets a stable id, in the order it was first added, and a multiplicity that counts
+ * its parallel copies; adding an existing edge again only raises its multiplicity. An undirected edge
+ * is the same edge whichever way round its vertices are given, and a directed edge never matches an
+ * undirected one. The adjacency matrix, incidence matrix and edge counts are views derived from the table.
+ */
+public class EdgeTable {
+    private static final int NO_EDGE = -1;
+
+    private final int vertexCount;
+    private int[] sources;
+    private int[] targets;
+    private int[] multiplicities;
+    private final BitSet directedEdges = new BitSet();
+    private int edgeCount;
+    private int directedEdgeCount;
+    private int version;
+    /** Open-addressing index from an edge's endpoints to its id, kept at most half full. */
+    private int[] slots;
+
+    /**
+     * Constructs a new EdgeTable with room for the expected number of distinct edges.
+     * @param vertexCount the number of vertices in the graph
+     * @param expectedEdges the number of distinct edges the table is expected to hold
+     */
+    public EdgeTable(int vertexCount, int expectedEdges) {
+        this.vertexCount = vertexCount;
+        int capacity = Math.max(expectedEdges, 16);
+        sources = new int[capacity];
+        targets = new int[capacity];
+        multiplicities = new int[capacity];
+        slots = new int[Integer.highestOneBit(capacity * 2 - 1) * 2];
+        Arrays.fill(slots, NO_EDGE);
+    }
+
+    /**
+     * Adds parallel copies of an edge.
+     * @param source the index of the first vertex of the edge
+     * @param target the index of the second vertex of the edge
+     * @param isDirected whether the edge is directed or not
+     * @param count the number of parallel copies to add
+     * @return the id of the edge
+     * @throws IllegalArgumentException if a vertex index is out of range or the count is not positive
+     */
+    public int addEdge(int source, int target, boolean isDirected, int count) {
+        if (source < 0 || source >= vertexCount || target < 0 || target >= vertexCount) {
+            throw new IllegalArgumentException("Vertex index out of range: " + source + "-" + target);
+        }
+        if (count <= 0) {
+            throw new IllegalArgumentException("Edge count must be positive: " + count);
+        }
+        if (!isDirected && source > target) {
+            int swap = source;
+            source = target;
+            target = swap;
+        }
+        version++;
+        int slot = findSlot(source, target, isDirected);
+        if (slots[slot] != NO_EDGE) {
+            int edge = slots[slot];
+            if (multiplicities[edge] > Integer.MAX_VALUE - count) {
+                throw new IllegalArgumentException("Edge count overflows: " + source + "-" + target);
+            }
+            multiplicities[edge] += count;
+            return edge;
+        }
+        if (edgeCount == sources.length) {
+            int capacity = sources.length + (sources.length >> 1);
+            sources = Arrays.copyOf(sources, capacity);
+            targets = Arrays.copyOf(targets, capacity);
+            multiplicities = Arrays.copyOf(multiplicities, capacity);
+        }
+        int edge = edgeCount++;
+        sources[edge] = source;
+        targets[edge] = target;
+        multiplicities[edge] = count;
+        if (isDirected) {
+            directedEdges.set(edge);
+            directedEdgeCount++;
+        }
+        slots[slot] = edge;
+        if (edgeCount * 2 > slots.length) {
+            rehash(slots.length * 2);
+        }
+        return edge;
+    }
+
+    /**
+     * Finds the id of an edge.
+     * @param source the index of the first vertex of the edge
+     * @param target the index of the second vertex of the edge
+     * @param isDirected whether the edge is directed or not
+     * @return the id of the edge, or -1 if it was never added
+     */
+    public int findEdge(int source, int target, boolean isDirected) {
+        if (source < 0 || source >= vertexCount || target < 0 || target >= vertexCount) {
+            return NO_EDGE;
+        }
+        if (!isDirected && source > target) {
+            return slots[findSlot(target, source, false)];
+        }
+        return slots[findSlot(source, target, isDirected)];
+    }
+
+    /**
+     * Finds the slot holding an edge, or the empty slot where it belongs. Undirected edges must be given
+     * with the smaller vertex first.
+     */
+    private int findSlot(int source, int target, boolean isDirected) {
+        int mask = slots.length - 1;
+        int slot = hash(source, target, isDirected) & mask;
+        while (slots[slot] != NO_EDGE) {
+            int edge = slots[slot];
+            if (sources[edge] == source && targets[edge] == target && directedEdges.get(edge) == isDirected) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int hash(int source, int target, boolean isDirected) {
+        long key = ((long) source << 32 | target) * 2 + (isDirected ? 1 : 0);
+        key *= 0x9E3779B97F4A7C15L;
+        return (int) (key ^ (key >>> 32));
+    }
+
+    private void rehash(int capacity) {
+        slots = new int[capacity];
+        Arrays.fill(slots, NO_EDGE);
+        for (int edge = 0; edge < edgeCount; edge++) {
+            slots[findSlot(sources[edge], targets[edge], directedEdges.get(edge))] = edge;
+        }
+    }
+
+    /**
+     * Gets the number of vertices in the graph.
+     * @return the number of vertices
+     */
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    /**
+     * Gets the number of distinct edges, which is one more than the largest edge id.
+     * @return the number of distinct edges
+     */
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * Gets the first vertex of an edge. For an undirected edge it is the smaller vertex index.
+     * @param edge the id of the edge
+     * @return the index of the first vertex
+     */
+    public int getSource(int edge) {
+        return sources[edge];
+    }
+
+    /**
+     * Gets the second vertex of an edge. For an undirected edge it is the larger vertex index.
+     * @param edge the id of the edge
+     * @return the index of the second vertex
+     */
+    public int getTarget(int edge) {
+        return targets[edge];
+    }
+
+    /**
+     * Gets the number of parallel copies of an edge.
+     * @param edge the id of the edge
+     * @return the multiplicity of the edge
+     */
+    public int getMultiplicity(int edge) {
+        return multiplicities[edge];
+    }
+
+    /**
+     * Checks if an edge is directed.
+     * @param edge the id of the edge
+     * @return true if the edge is directed, false otherwise
+     */
+    public boolean isDirected(int edge) {
+        return directedEdges.get(edge);
+    }
+
+    /**
+     * Gets a number that changes whenever the table changes, so derived views know when to rebuild.
+     * @return the version of the table
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Derives the adjacency matrix, where cell [i][j] counts the edges from i to j.
+     * An undirected edge counts in both cells, so an undirected self-loop counts twice in its cell.
+     * @return the adjacency matrix
+     */
+    public int[][] toAdjacencyMatrix() {
+        long start = GraphMetrics.startTimer();
+        int[][] matrix = new int[vertexCount][vertexCount];
+        for (int edge = 0; edge < edgeCount; edge++) {
+            matrix[sources[edge]][targets[edge]] += multiplicities[edge];
+            if (!directedEdges.get(edge)) {
+                matrix[targets[edge]][sources[edge]] += multiplicities[edge];
+            }
+        }
+        GraphMetrics.stopTimer(GraphMetrics.Timer.MATRIX_BUILD, start);
+        return matrix;
+    }
+
+    /**
+     * Derives the incidence matrix, with one column per edge id. Both vertices of an edge hold its multiplicity.
+     * @return the incidence matrix, of size vertexCount by edgeCount
+     */
+    public int[][] toIncidenceMatrix() {
+        long start = GraphMetrics.startTimer();
+        int[][] matrix = new int[vertexCount][edgeCount];
+        for (int edge = 0; edge < edgeCount; edge++) {
+            matrix[sources[edge]][edge] = multiplicities[edge];
+            matrix[targets[edge]][edge] = multiplicities[edge];
+        }
+        GraphMetrics.stopTimer(GraphMetrics.Timer.MATRIX_BUILD, start);
+        return matrix;
+    }
+
+    /**
+     * Checks if every directed edge is matched by a reverse directed edge of the same multiplicity,
+     * in which case the table describes an undirected multigraph.
+     * @return true if the adjacency matrix of the table is symmetric, false otherwise
+     */
+    public boolean isSymmetric() {
+        for (int edge = directedEdges.nextSetBit(0); edge >= 0; edge = directedEdges.nextSetBit(edge + 1)) {
+            int reverse = findEdge(targets[edge], sources[edge], true);
+            if (reverse == NO_EDGE || multiplicities[reverse] != multiplicities[edge]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Converts the table to a compact graph whose multiplicities are the edge multiplicities, without
+     * a dense matrix in between. The graph is undirected if {@link #isSymmetric()} holds, and directed otherwise,
+     * in which case every undirected edge becomes a pair of arcs. A self-loop is always a single entry.
+     * @return the compact graph
+     */
+    public CompactGraph toCompactGraph() {
+        boolean isDirected = !isSymmetric();
+        int size = isDirected ? edgeCount + (edgeCount - directedEdgeCount) : edgeCount;
+        int[] graphSources = new int[size];
+        int[] graphTargets = new int[size];
+        int[] graphCounts = new int[size];
+        int write = 0;
+        for (int edge = 0; edge < edgeCount; edge++) {
+            int source = sources[edge];
+            int target = targets[edge];
+            boolean directed = directedEdges.get(edge);
+            if (!isDirected && directed && source > target) {
+                // The reverse copy of a symmetric pair stands for the same undirected edges
+                continue;
+            }
+            graphSources[write] = source;
+            graphTargets[write] = target;
+            graphCounts[write++] = multiplicities[edge];
+            if (isDirected && !directed && source != target) {
+                graphSources[write] = target;
+                graphTargets[write] = source;
+                graphCounts[write++] = multiplicities[edge];
+            }
+        }
+        return CompactGraph.fromEdges(vertexCount, graphSources, graphTargets, graphCounts, write, isDirected,
+                CompactGraph.DuplicatePolicy.AGGREGATE);
+    }
+}
@@ -0,0 +1,523 @@
+import java.util.*;
+
+/**
+ * This class represents a proper vertex coloring of an undirected graph: adjacent vertices never share a color.
+ * {@link BipartiteGraph} answers whether two colors are enough; this class finds colorings with any number
+ * of colors. The heuristics run in linear or near-linear time on large graphs, and the exact search finds
+ * the chromatic number of small graphs, or gives up after a fixed number of search nodes and keeps the best
+ * coloring found, which {@link #isOptimal()} reports as unproven.
+ */
+public final class GraphColoring {
+    /**
+     * The largest graph {@link Strategy#EXACT} accepts, which keeps the bitsets of the search small.
+     */
+    public static final int MAX_EXACT_VERTICES = 256;
+    /**
+     * The number of search nodes after which {@link Strategy#EXACT} stops and keeps the best coloring found so far.
+     * The search is exponential in the worst case: sparse graphs usually finish in a few thousand nodes, but dense
+     * random graphs of 70 vertices can take many millions. A node costs more on larger graphs, so this budget stops
+     * a dense search of 70 vertices after about 0.3 seconds, and one of {@link #MAX_EXACT_VERTICES} after about 3.
+     */
+    public static final long MAX_EXACT_NODES = 100_000;
+
+    /**
+     * How to color the vertices.
+     */
+    public enum Strategy {
+        /** First-fit in index order: every vertex takes the smallest color its colored neighbors do not use. */
+        GREEDY,
+        /**
+         * First-fit in smallest-last order, which repeatedly sets aside a vertex of least remaining degree.
+         * It never uses more than the degeneracy plus one colors, which is small for sparse and planar graphs.
+         */
+        SMALLEST_LAST,
+        /** Brélaz's DSATUR: always color the vertex whose neighbors already use the most distinct colors. */
+        DSATUR,
+        /** Branch and bound over DSATUR choices, giving the chromatic number. Limited to small graphs. */
+        EXACT
+    }
+
+    private final int[] colors;
+    private final int colorCount;
+    private final boolean optimal;
+
+    private GraphColoring(int[] colors, int colorCount, boolean optimal) {
+        this.colors = colors;
+        this.colorCount = colorCount;
+        this.optimal = optimal;
+    }
+
+    /**
+     * Colors an undirected graph. Parallel edges are allowed.
+     * An exact search gives up after {@link #MAX_EXACT_NODES} search nodes.
+     * @param graph the graph to color
+     * @param strategy how to color the vertices
+     * @return the coloring
+     * @throws IllegalArgumentException if the graph is directed, has a self-loop, or is too large for an exact search
+     */
+    public static GraphColoring compute(CompactGraph graph, Strategy strategy) {
+        return compute(graph, strategy, MAX_EXACT_NODES);
+    }
+
+    /**
+     * Colors an undirected graph. Parallel edges are allowed.
+     * @param graph the graph to color
+     * @param strategy how to color the vertices
+     * @param nodeLimit the number of search nodes after which an exact search keeps the best coloring found so far
+     * @return the coloring
+     * @throws IllegalArgumentException if the graph is directed, has a self-loop, or is too large for an exact search
+     */
+    public static GraphColoring compute(CompactGraph graph, Strategy strategy, long nodeLimit) {
+        if (graph.isDirected()) {
+            throw new IllegalArgumentException("Colorings are only computed for undirected graphs");
+        }
+        for (int vertex = 0; vertex < graph.getVertexCount(); vertex++) {
+            for (int i = graph.getRowStart(vertex); i < graph.getRowEnd(vertex); i++) {
+                if (graph.getNeighbor(i) == vertex) {
+                    throw new IllegalArgumentException("A vertex with a self-loop cannot be colored: " + vertex);
+                }
+            }
+        }
+        long start = GraphMetrics.startTimer();
+        GraphColoring coloring;
+        switch (strategy) {
+            case GREEDY:
+                int[] indexOrder = new int[graph.getVertexCount()];
+                Arrays.setAll(indexOrder, vertex -> vertex);
+                coloring = firstFit(graph, indexOrder);
+                break;
+            case SMALLEST_LAST:
+                coloring = firstFit(graph, smallestLastOrder(graph));
+                break;
+            case DSATUR:
+                coloring = dsatur(graph);
+                break;
+            default:
+                coloring = ExactSearch.solve(graph, nodeLimit);
+                break;
+        }
+        GraphMetrics.stopTimer(GraphMetrics.Timer.COLORING, start);
+        return coloring;
+    }
+
+    /**
+     * Colors the vertices one by one, each with the smallest color none of its colored neighbors uses.
+     * @param graph the graph to color
+     * @param order the vertices in the order to color them
+     * @return the coloring
+     */
+    private static GraphColoring firstFit(CompactGraph graph, int[] order) {
+        int vertexCount = graph.getVertexCount();
+        int[] colors = new int[vertexCount];
+        Arrays.fill(colors, -1);
+        // usedBy[c] == vertex marks color c as taken around the current vertex, so nothing needs clearing
+        int[] usedBy = new int[vertexCount + 1];
+        Arrays.fill(usedBy, -1);
+        int colorCount = 0;
+        for (int vertex : order) {
+            for (int i = graph.getRowStart(vertex); i < graph.getRowEnd(vertex); i++) {
+                int neighborColor = colors[graph.getNeighbor(i)];
+                if (neighborColor != -1) {
+                    usedBy[neighborColor] = vertex;
+                }
+            }
+            int color = 0;
+            while (usedBy[color] == vertex) {
+                color++;
+            }
+            colors[vertex] = color;
+            colorCount = Math.max(colorCount, color + 1);
+        }
+        return new GraphColoring(colors, colorCount, false);
+    }
+
+    /**
+     * Computes the smallest-last order of Matula and Beck with a bucket queue keyed by remaining degree,
+     * in time linear in the size of the graph.
+     * @param graph the graph to order
+     * @return the vertices in the order to color them, which is the reverse of the order they were set aside
+     */
+    public static int[] smallestLastOrder(CompactGraph graph) {
+        int vertexCount = graph.getVertexCount();
+        int[] degrees = new int[vertexCount];
+        int maxDegree = 0;
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            degrees[vertex] = graph.getDegree(vertex);
+            maxDegree = Math.max(maxDegree, degrees[vertex]);
+        }
+        BucketQueue queue = new BucketQueue(vertexCount, maxDegree);
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            queue.add(vertex, degrees[vertex]);
+        }
+        int[] order = new int[vertexCount];
+        boolean[] removed = new boolean[vertexCount];
+        for (int position = vertexCount - 1; position >= 0; position--) {
+            int vertex = queue.pollMin();
+            removed[vertex] = true;
+            order[position] = vertex;
+            for (int i = graph.getRowStart(vertex); i < graph.getRowEnd(vertex); i++) {
+                int neighbor = graph.getNeighbor(i);
+                if (!removed[neighbor]) {
+                    queue.move(neighbor, --degrees[neighbor]);
+                }
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Colors the vertices in DSATUR order. A bucket queue keyed by saturation, the number of distinct colors
+     * around a vertex, finds the next vertex in constant amortized time. Within a bucket the vertex that
+     * reached it last comes first, and vertices start in bucket 0 with the highest degree first.
+     * @param graph the graph to color
+     * @return the coloring
+     */
+    private static GraphColoring dsatur(CompactGraph graph) {
+        int vertexCount = graph.getVertexCount();
+        int[] colors = new int[vertexCount];
+        Arrays.fill(colors, -1);
+        int[] saturation = new int[vertexCount];
+        long[][] adjacentColors = new long[vertexCount][];
+        int maxDegree = 0;
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            maxDegree = Math.max(maxDegree, graph.getDegree(vertex));
+        }
+        // Saturation never exceeds the degree, so maxDegree + 1 buckets are enough
+        BucketQueue queue = new BucketQueue(vertexCount, maxDegree);
+        VertexOrdering byDegree = VertexOrdering.compute(graph, VertexOrdering.Strategy.DEGREE);
+        for (int i = vertexCount - 1; i >= 0; i--) {
+            queue.add(byDegree.getOldIndex(i), 0);
+        }
+        int[] usedBy = new int[vertexCount + 1];
+        Arrays.fill(usedBy, -1);
+        int colorCount = 0;
+        for (int colored = 0; colored < vertexCount; colored++) {
+            int vertex = queue.pollMax();
+            for (int i = graph.getRowStart(vertex); i < graph.getRowEnd(vertex); i++) {
+                int neighborColor = colors[graph.getNeighbor(i)];
+                if (neighborColor != -1) {
+                    usedBy[neighborColor] = vertex;
+                }
+            }
+            int color = 0;
+            while (usedBy[color] == vertex) {
+                color++;
+            }
+            colors[vertex] = color;
+            colorCount = Math.max(colorCount, color + 1);
+
+            for (int i = graph.getRowStart(vertex); i < graph.getRowEnd(vertex); i++) {
+                int neighbor = graph.getNeighbor(i);
+                if (colors[neighbor] != -1) {
+                    continue;
+                }
+                long[] seen = adjacentColors[neighbor];
+                if (seen == null || seen.length <= color >>> 6) {
+                    seen = Arrays.copyOf(seen == null ? new long[0] : seen, Math.max((color >>> 6) + 1,
+                            seen == null ? 1 : seen.length * 2));
+                    adjacentColors[neighbor] = seen;
+                }
+                if ((seen[color >>> 6] & (1L << color)) == 0) {
+                    seen[color >>> 6] |= 1L << color;
+                    queue.move(neighbor, ++saturation[neighbor]);
+                }
+            }
+            adjacentColors[vertex] = null;
+        }
+        return new GraphColoring(colors, colorCount, false);
+    }
+
+    /**
+     * Checks that no edge joins two vertices of the same color.
+     * @param graph the graph the colors belong to
+     * @param colors the color of every vertex
+     * @return true if the coloring is proper, false otherwise
+     */
+    public static boolean isProper(CompactGraph graph, int[] colors) {
+        for (int vertex = 0; vertex < graph.getVertexCount(); vertex++) {
+            for (int i = graph.getRowStart(vertex); i < graph.getRowEnd(vertex); i++) {
+                if (colors[graph.getNeighbor(i)] == colors[vertex]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the color of every vertex, numbered from 0.
+     * @return the colors, indexed by vertex
+     */
+    public int[] getColors() {
+        return colors;
+    }
+
+    /**
+     * Gets the color of a vertex.
+     * @param vertex the index of the vertex
+     * @return the color of the vertex, numbered from 0
+     */
+    public int getColor(int vertex) {
+        return colors[vertex];
+    }
+
+    /**
+     * Gets the number of colors used. For an optimal coloring this is the chromatic number.
+     * @return the number of colors
+     */
+    public int getColorCount() {
+        return colorCount;
+    }
+
+    /**
+     * Checks if the coloring is proven to use the fewest colors possible. Only {@link Strategy#EXACT} proves it,
+     * and only when its search finishes within the node limit; otherwise the color count is an upper bound.
+     * @return true if the color count is the chromatic number, false if it is only an upper bound
+     */
+    public boolean isOptimal() {
+        return optimal;
+    }
+
+    /**
+     * This class represents a set of vertices keyed by small integers, stored as one doubly linked list per key.
+     * Adding, moving and removing a vertex take constant time; finding the smallest or largest key takes
+     * constant amortized time as long as keys change by one at a time, as degrees and saturations do.
+     */
+    private static final class BucketQueue {
+        private final int[] heads;
+        private final int[] next;
+        private final int[] previous;
+        private final int[] keys;
+        private int minKey;
+        private int maxKey = -1;
+
+        BucketQueue(int vertexCount, int maxKey) {
+            heads = new int[maxKey + 1];
+            Arrays.fill(heads, -1);
+            next = new int[vertexCount];
+            previous = new int[vertexCount];
+            keys = new int[vertexCount];
+            minKey = maxKey + 1;
+        }
+
+        void add(int vertex, int key) {
+            keys[vertex] = key;
+            previous[vertex] = -1;
+            next[vertex] = heads[key];
+            if (heads[key] != -1) {
+                previous[heads[key]] = vertex;
+            }
+            heads[key] = vertex;
+            minKey = Math.min(minKey, key);
+            maxKey = Math.max(maxKey, key);
+        }
+
+        void remove(int vertex) {
+            int key = keys[vertex];
+            if (previous[vertex] != -1) {
+                next[previous[vertex]] = next[vertex];
+            } else {
+                heads[key] = next[vertex];
+            }
+            if (next[vertex] != -1) {
+                previous[next[vertex]] = previous[vertex];
+            }
+        }
+
+        void move(int vertex, int key) {
+            remove(vertex);
+            add(vertex, key);
+        }
+
+        int pollMin() {
+            while (heads[minKey] == -1) {
+                minKey++;
+            }
+            int vertex = heads[minKey];
+            remove(vertex);
+            return vertex;
+        }
+
+        int pollMax() {
+            while (heads[maxKey] == -1) {
+                maxKey--;
+            }
+            int vertex = heads[maxKey];
+            remove(vertex);
+            return vertex;
+        }
+    }
+
+    /**
+     * This class represents the exact branch-and-bound search for the chromatic number.
+     * Every vertex has its neighbors as a bitset, and every color its members, so checking whether a color
+     * is free for a vertex and computing saturations are a few word operations. A greedy clique is colored
+     * first, which gives a lower bound and removes color symmetry; DSATUR gives the first upper bound.
+     * The search stops after a fixed number of nodes, so the best coloring it returns may not be optimal.
+     */
+    private static final class ExactSearch {
+        private final int vertexCount;
+        private final int wordCount;
+        private final long[][] adjacency;
+        private final long[][] colorClasses;
+        private final int[] colors;
+        private int[] bestColors;
+        private int bestCount;
+        private final int lowerBound;
+        private final long nodeLimit;
+        private long nodes;
+
+        private ExactSearch(CompactGraph graph, int[] clique, GraphColoring heuristic, long nodeLimit) {
+            vertexCount = graph.getVertexCount();
+            wordCount = (vertexCount + 63) >>> 6;
+            adjacency = new long[vertexCount][wordCount];
+            for (int vertex = 0; vertex < vertexCount; vertex++) {
+                for (int i = graph.getRowStart(vertex); i < graph.getRowEnd(vertex); i++) {
+                    int neighbor = graph.getNeighbor(i);
+                    adjacency[vertex][neighbor >>> 6] |= 1L << neighbor;
+                }
+            }
+            colorClasses = new long[vertexCount + 1][wordCount];
+            colors = new int[vertexCount];
+            Arrays.fill(colors, -1);
+            for (int i = 0; i < clique.length; i++) {
+                colors[clique[i]] = i;
+                colorClasses[i][clique[i] >>> 6] |= 1L << clique[i];
+            }
+            bestColors = heuristic.colors.clone();
+            bestCount = heuristic.colorCount;
+            lowerBound = clique.length;
+            this.nodeLimit = nodeLimit;
+        }
+
+        static GraphColoring solve(CompactGraph graph, long nodeLimit) {
+            if (graph.getVertexCount() > MAX_EXACT_VERTICES) {
+                throw new IllegalArgumentException("Exact coloring is limited to " + MAX_EXACT_VERTICES + " vertices");
+            }
+            if (graph.getVertexCount() == 0) {
+                return new GraphColoring(new int[0], 0, true);
+            }
+            GraphColoring heuristic = dsatur(graph);
+            ExactSearch search = new ExactSearch(graph, greedyClique(graph), heuristic, nodeLimit);
+            if (search.lowerBound < search.bestCount) {
+                search.extend(graph.getVertexCount() - search.lowerBound, search.lowerBound);
+            }
+            // Reaching the clique bound proves optimality even if the search ran out of nodes on the way
+            boolean optimal = search.nodes <= nodeLimit || search.bestCount == search.lowerBound;
+            return new GraphColoring(search.bestColors, search.bestCount, optimal);
+        }
+
+        /**
+         * Grows a clique from the highest-degree vertex, each time adding the candidate with the most
+         * neighbors among the remaining candidates.
+         * @param graph the graph to search
+         * @return the vertices of the clique
+         */
+        private static int[] greedyClique(CompactGraph graph) {
+            int vertexCount = graph.getVertexCount();
+            int wordCount = (vertexCount + 63) >>> 6;
+            long[][] adjacency = new long[vertexCount][wordCount];
+            int start = 0;
+            for (int vertex = 0; vertex < vertexCount; vertex++) {
+                for (int i = graph.getRowStart(vertex); i < graph.getRowEnd(vertex); i++) {
+                    adjacency[vertex][graph.getNeighbor(i) >>> 6] |= 1L << graph.getNeighbor(i);
+                }
+                if (graph.getDegree(vertex) > graph.getDegree(start)) {
+                    start = vertex;
+                }
+            }
+            List<Integer> clique = new ArrayList<>();
+            clique.add(start);
+            long[] candidates = adjacency[start].clone();
+            while (true) {
+                int best = -1;
+                int bestOverlap = -1;
+                for (int word = 0; word < wordCount; word++) {
+                    for (long bits = candidates[word]; bits != 0; bits &= bits - 1) {
+                        int vertex = (word << 6) + Long.numberOfTrailingZeros(bits);
+                        int overlap = 0;
+                        for (int w = 0; w < wordCount; w++) {
+                            overlap += Long.bitCount(candidates[w] & adjacency[vertex][w]);
+                        }
+                        if (overlap > bestOverlap) {
+                            best = vertex;
+                            bestOverlap = overlap;
+                        }
+                    }
+                }
+                if (best == -1) {
+                    break;
+                }
+                clique.add(best);
+                for (int word = 0; word < wordCount; word++) {
+                    candidates[word] &= adjacency[best][word];
+                }
+            }
+            return clique.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        /**
+         * Colors the remaining vertices in every way that could beat the best coloring found so far.
+         * @param uncolored the number of vertices without a color
+         * @param usedColors the number of colors used so far
+         */
+        private void extend(int uncolored, int usedColors) {
+            if (++nodes > nodeLimit) {
+                return;
+            }
+            GraphMetrics.increment(GraphMetrics.Counter.COLORING_NODES);
+            if (uncolored == 0) {
+                bestColors = colors.clone();
+                bestCount = usedColors;
+                return;
+            }
+            // Branch on the uncolored vertex with the most distinct neighbor colors, then the most neighbors
+            int vertex = -1;
+            int bestSaturation = -1;
+            int bestDegree = -1;
+            for (int candidate = 0; candidate < vertexCount; candidate++) {
+                if (colors[candidate] != -1) {
+                    continue;
+                }
+                int saturation = 0;
+                for (int color = 0; color < usedColors; color++) {
+                    if (intersects(adjacency[candidate], colorClasses[color])) {
+                        saturation++;
+                    }
+                }
+                int degree = 0;
+                if (saturation >= bestSaturation) {
+                    for (long word : adjacency[candidate]) {
+                        degree += Long.bitCount(word);
+                    }
+                }
+                if (saturation > bestSaturation || (saturation == bestSaturation && degree > bestDegree)) {
+                    vertex = candidate;
+                    bestSaturation = saturation;
+                    bestDegree = degree;
+                }
+            }
+            // A vertex that needs a new color raises the count; only try it if that can still beat the best
+            int colorLimit = Math.min(usedColors + 1, bestCount - 1);
+            for (int color = 0; color < colorLimit && bestCount > lowerBound && nodes <= nodeLimit; color++) {
+                if (color < usedColors && intersects(adjacency[vertex], colorClasses[color])) {
+                    continue;
+                }
+                colors[vertex] = color;
+                colorClasses[color][vertex >>> 6] |= 1L << vertex;
+                extend(uncolored - 1, Math.max(usedColors, color + 1));
+                colorClasses[color][vertex >>> 6] &= ~(1L << vertex);
+                colors[vertex] = -1;
+            }
+        }
+
+        private boolean intersects(long[] first, long[] second) {
+            for (int word = 0; word < wordCount; word++) {
+                if ((first[word] & second[word]) != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
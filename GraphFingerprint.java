@@ -0,0 +1,221 @@
+import java.util.*;
+
+/**
+ * This class represents a structural fingerprint of a graph: a hash over its vertex count and the multiset
+ * of its edges. The hash of every edge is added to a running sum, so the fingerprint is updated in constant
+ * time whenever an edge is added or removed, and does not depend on the order the edges were added in.
+ * Two independent 64-bit sums are kept, so unrelated graphs share a fingerprint with negligible probability.
+ */
+public final class GraphFingerprint {
+    private static final long FIRST_SEED = 0x9E3779B97F4A7C15L;
+    private static final long SECOND_SEED = 0xC2B2AE3D27D4EB4FL;
+
+    private final boolean isDirected;
+    private int vertexCount;
+    private long edgeCount;
+    private long firstSum;
+    private long secondSum;
+
+    /**
+     * Constructs the fingerprint of a graph with vertices but no edges.
+     * @param isDirected whether the graph is directed or not
+     * @param vertexCount the number of vertices in the graph
+     */
+    public GraphFingerprint(boolean isDirected, int vertexCount) {
+        this.isDirected = isDirected;
+        this.vertexCount = vertexCount;
+    }
+
+    /**
+     * Computes the fingerprint of an adjacency matrix, where every cell counts the edges from its row to its column.
+     * @param matrix the adjacency matrix
+     * @return the fingerprint of the matrix
+     */
+    public static GraphFingerprint ofMatrix(int[][] matrix) {
+        GraphFingerprint fingerprint = new GraphFingerprint(true, matrix.length);
+        for (int i = 0; i < matrix.length; i++) {
+            for (int j = 0; j < matrix[i].length; j++) {
+                if (matrix[i][j] != 0) {
+                    fingerprint.addElement(i, j, matrix[i][j]);
+                }
+            }
+        }
+        return fingerprint;
+    }
+
+    /**
+     * Records a named vertex, for graphs whose vertices are identified by name rather than by index.
+     * @param vertex the name of the vertex
+     */
+    public void addVertex(String vertex) {
+        vertexCount++;
+        addElement(hashName(vertex), -1, 1);
+    }
+
+    /**
+     * Records an edge between two vertex indices.
+     * @param vertexOne the index of the first vertex of the edge
+     * @param vertexTwo the index of the second vertex of the edge
+     */
+    public void addEdge(int vertexOne, int vertexTwo) {
+        addEdge(vertexOne, vertexTwo, 1);
+    }
+
+    /**
+     * Forgets one copy of an edge between two vertex indices.
+     * @param vertexOne the index of the first vertex of the edge
+     * @param vertexTwo the index of the second vertex of the edge
+     */
+    public void removeEdge(int vertexOne, int vertexTwo) {
+        addEdge(vertexOne, vertexTwo, -1);
+    }
+
+    /**
+     * Records an edge between two named vertices.
+     * @param vertexOne the name of the first vertex of the edge
+     * @param vertexTwo the name of the second vertex of the edge
+     */
+    public void addEdge(String vertexOne, String vertexTwo) {
+        addEdge(hashName(vertexOne), hashName(vertexTwo), 1);
+    }
+
+    private void addEdge(long vertexOne, long vertexTwo, long copies) {
+        edgeCount += copies;
+        // An undirected edge must hash the same whichever way round it is given
+        if (!isDirected && vertexOne > vertexTwo) {
+            addElement(vertexTwo, vertexOne, copies);
+        } else {
+            addElement(vertexOne, vertexTwo, copies);
+        }
+    }
+
+    private void addElement(long first, long second, long copies) {
+        firstSum += copies * mix(first * FIRST_SEED + second);
+        secondSum += copies * mix((first ^ SECOND_SEED) * SECOND_SEED + Long.rotateLeft(second, 29));
+    }
+
+    /**
+     * Finalizes a 64-bit value so that nearby inputs give unrelated outputs (the SplitMix64 finalizer).
+     * @param value the value to mix
+     * @return the mixed value
+     */
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+
+    /**
+     * Hashes a vertex name to 64 bits with FNV-1a, so names hash apart from small vertex indices.
+     * @param vertex the name of the vertex
+     * @return the hash of the name
+     */
+    private static long hashName(String vertex) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < vertex.length(); i++) {
+            hash = (hash ^ vertex.charAt(i)) * 0x100000001B3L;
+        }
+        return mix(hash) | Long.MIN_VALUE;
+    }
+
+    /**
+     * Gets the number of edges recorded, counting every copy of a parallel edge.
+     * @return the number of edges
+     */
+    public long getEdgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * Gets the state of the fingerprint, so that it can be saved with the graph.
+     * @return the vertex count, the edge count and the two sums
+     */
+    long[] getState() {
+        return new long[] {vertexCount, edgeCount, firstSum, secondSum};
+    }
+
+    /**
+     * Restores a fingerprint from a state saved with {@link #getState()}.
+     * @param isDirected whether the graph is directed or not
+     * @param state the saved state
+     * @return the restored fingerprint
+     */
+    static GraphFingerprint fromState(boolean isDirected, long[] state) {
+        GraphFingerprint fingerprint = new GraphFingerprint(isDirected, (int) state[0]);
+        fingerprint.edgeCount = state[1];
+        fingerprint.firstSum = state[2];
+        fingerprint.secondSum = state[3];
+        return fingerprint;
+    }
+
+    /**
+     * Captures the current fingerprint as the cache key of an analysis.
+     * @param analysis the name of the analysis whose result the key stands for
+     * @return the key
+     */
+    public Key key(String analysis) {
+        return new Key(analysis, isDirected, vertexCount, edgeCount, firstSum, secondSum);
+    }
+
+    /**
+     * Captures the fingerprint of an unordered pair of graphs as the cache key of an analysis.
+     * @param analysis the name of the analysis whose result the key stands for
+     * @param other the fingerprint of the other graph
+     * @return the key, which is the same whichever graph it is asked on
+     */
+    public Key pairKey(String analysis, GraphFingerprint other) {
+        GraphFingerprint low = this;
+        GraphFingerprint high = other;
+        if (Long.compareUnsigned(low.firstSum, high.firstSum) > 0) {
+            low = other;
+            high = this;
+        }
+        return new Key(analysis, low.isDirected, low.vertexCount, low.edgeCount * 31 + high.edgeCount,
+                low.firstSum * 31 + high.firstSum, Long.rotateLeft(low.secondSum, 17) ^ high.secondSum);
+    }
+
+    /**
+     * This class represents an immutable snapshot of a fingerprint, tagged with the analysis it caches.
+     */
+    public static final class Key {
+        private final String analysis;
+        private final boolean isDirected;
+        private final int vertexCount;
+        private final long edgeCount;
+        private final long firstSum;
+        private final long secondSum;
+
+        private Key(String analysis, boolean isDirected, int vertexCount, long edgeCount, long firstSum, long secondSum) {
+            this.analysis = analysis;
+            this.isDirected = isDirected;
+            this.vertexCount = vertexCount;
+            this.edgeCount = edgeCount;
+            this.firstSum = firstSum;
+            this.secondSum = secondSum;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return isDirected == key.isDirected && vertexCount == key.vertexCount && edgeCount == key.edgeCount
+                    && firstSum == key.firstSum && secondSum == key.secondSum && analysis.equals(key.analysis);
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (firstSum ^ (firstSum >>> 32)) * 31 + analysis.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s[%s, %d vertices, %d edges, %016x%016x]", analysis,
+                    isDirected ? "directed" : "undirected", vertexCount, edgeCount, firstSum, secondSum);
+        }
+    }
+}
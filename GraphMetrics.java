@@ -0,0 +1,272 @@
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * This class collects counters and latency histograms from the graph algorithms.
+ * Metrics are off unless the JVM is started with -Dgraph.metrics=true; the switch is a static final flag,
+ * so the JIT removes every disabled call site. With -Dgraph.metrics.jfr=true every timed operation
+ * is also emitted as a JFR event named graph.Operation.
+ */
+public final class GraphMetrics {
+    public static final boolean ENABLED = Boolean.getBoolean("graph.metrics");
+    private static final boolean JFR_ENABLED = ENABLED && Boolean.getBoolean("graph.metrics.jfr");
+
+    /**
+     * The things the algorithms count.
+     */
+    public enum Counter {
+        /** Vertices visited by a connectivity traversal. */
+        TRAVERSAL_VISITS,
+        /** Vertices visited while searching for a cycle. */
+        CYCLE_SEARCH_VISITS,
+        /** Partial mappings tried by the isomorphism backtracking search. */
+        ISOMORPHISM_NODES,
+        /** Edges fed into a graph or matrix build. */
+        EDGES_BUILT,
+        /** Analyses answered from the {@link ResultCache}. */
+        CACHE_HITS,
+        /** Analyses that missed the {@link ResultCache} and ran. */
+        CACHE_MISSES,
+        /** Partial colorings tried by the exact chromatic number search. */
+        COLORING_NODES,
+        /** Connections the {@link GraphQueryServer} failed to accept. */
+        ACCEPT_FAILURES
+    }
+
+    /**
+     * The operations the algorithms time.
+     */
+    public enum Timer {
+        CONNECTIVITY,
+        COMPONENTS,
+        BIPARTITE,
+        CYCLE_SEARCH,
+        ISOMORPHISM,
+        SHORTEST_PATH,
+        GRAPH_BUILD,
+        MATRIX_BUILD,
+        GRAPH_LOAD,
+        COLORING,
+        STREAM_SCAN,
+        SPANNING_FOREST,
+        ESTIMATION,
+        SNAPSHOT_WRITE,
+        SNAPSHOT_RESTORE
+    }
+
+    private static final LongAdder[] COUNTERS = new LongAdder[Counter.values().length];
+    private static final LatencyHistogram[] HISTOGRAMS = new LatencyHistogram[Timer.values().length];
+
+    static {
+        for (int i = 0; i < COUNTERS.length; i++) {
+            COUNTERS[i] = new LongAdder();
+        }
+        for (int i = 0; i < HISTOGRAMS.length; i++) {
+            HISTOGRAMS[i] = new LatencyHistogram();
+        }
+    }
+
+    private GraphMetrics() {
+    }
+
+    /**
+     * Adds one to a counter.
+     * @param counter the counter to increment
+     */
+    public static void increment(Counter counter) {
+        if (ENABLED) {
+            COUNTERS[counter.ordinal()].increment();
+        }
+    }
+
+    /**
+     * Adds an amount to a counter.
+     * @param counter the counter to add to
+     * @param amount the amount to add
+     */
+    public static void add(Counter counter, long amount) {
+        if (ENABLED) {
+            COUNTERS[counter.ordinal()].add(amount);
+        }
+    }
+
+    /**
+     * Starts timing an operation.
+     * @return the start time to pass to {@link #stopTimer}, or 0 if metrics are disabled
+     */
+    public static long startTimer() {
+        return ENABLED ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Records the time elapsed since {@link #startTimer} was called.
+     * @param timer the operation that was timed
+     * @param startNanos the value returned by startTimer
+     */
+    public static void stopTimer(Timer timer, long startNanos) {
+        if (ENABLED) {
+            long elapsedNanos = System.nanoTime() - startNanos;
+            HISTOGRAMS[timer.ordinal()].record(elapsedNanos);
+            if (JFR_ENABLED) {
+                GraphOperationEvent event = new GraphOperationEvent();
+                event.operation = timer.name();
+                event.elapsedNanos = elapsedNanos;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Gets the current value of a counter.
+     * @param counter the counter to read
+     * @return the sum of everything added to the counter
+     */
+    public static long getCount(Counter counter) {
+        return COUNTERS[counter.ordinal()].sum();
+    }
+
+    /**
+     * Gets a latency percentile of an operation.
+     * @param timer the operation to read
+     * @param percentile the percentile, between 0 and 100
+     * @return the latency in nanoseconds, accurate to within 1/8 of the value
+     */
+    public static long getPercentile(Timer timer, double percentile) {
+        return HISTOGRAMS[timer.ordinal()].getPercentile(percentile);
+    }
+
+    /**
+     * Clears all counters and histograms.
+     */
+    public static void reset() {
+        for (LongAdder counter : COUNTERS) {
+            counter.reset();
+        }
+        for (LatencyHistogram histogram : HISTOGRAMS) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * Formats every counter and every timed operation that was recorded at least once.
+     * @return a human-readable report, one metric per line
+     */
+    public static String dump() {
+        StringBuilder report = new StringBuilder();
+        for (Counter counter : Counter.values()) {
+            report.append(counter.name()).append(": ").append(getCount(counter)).append('\n');
+        }
+        for (Timer timer : Timer.values()) {
+            LatencyHistogram histogram = HISTOGRAMS[timer.ordinal()];
+            long count = histogram.getCount();
+            if (count == 0) {
+                continue;
+            }
+            report.append(String.format("%s: count=%d mean=%.1fus p50=%.1fus p99=%.1fus max=%.1fus%n",
+                    timer.name(), count, histogram.getTotal() / 1e3 / count,
+                    histogram.getPercentile(50) / 1e3, histogram.getPercentile(99) / 1e3, histogram.getMax() / 1e3));
+        }
+        return report.toString();
+    }
+
+    /**
+     * This class represents a log-linear histogram of non-negative values, in the style of HdrHistogram.
+     * Every power of two is split into 8 linear buckets, so any recorded value is known to within 12.5%.
+     */
+    static final class LatencyHistogram {
+        private static final int SUB_BUCKET_BITS = 3;
+        private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+        private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder total = new LongAdder();
+        private final AtomicLongArray max = new AtomicLongArray(1);
+
+        void record(long value) {
+            value = Math.max(value, 0);
+            buckets.incrementAndGet(bucketIndex(value));
+            count.increment();
+            total.add(value);
+            long currentMax;
+            while (value > (currentMax = max.get(0)) && !max.compareAndSet(0, currentMax, value)) {
+                // Another thread raised the maximum; try again against the new value
+            }
+        }
+
+        static int bucketIndex(long value) {
+            if (value < SUB_BUCKET_COUNT) {
+                return (int) value;
+            }
+            int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+            int subBucket = (int) (value >>> shift) & (SUB_BUCKET_COUNT - 1);
+            return (shift + 1) * SUB_BUCKET_COUNT + subBucket;
+        }
+
+        static long bucketLowerBound(int index) {
+            if (index < SUB_BUCKET_COUNT) {
+                return index;
+            }
+            int shift = index / SUB_BUCKET_COUNT - 1;
+            return (long) (SUB_BUCKET_COUNT + index % SUB_BUCKET_COUNT) << shift;
+        }
+
+        long getPercentile(double percentile) {
+            long recorded = count.sum();
+            if (recorded == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * recorded));
+            long seen = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                seen += buckets.get(i);
+                if (seen >= rank) {
+                    return Math.min(bucketLowerBound(i), getMax());
+                }
+            }
+            return getMax();
+        }
+
+        long getCount() {
+            return count.sum();
+        }
+
+        long getTotal() {
+            return total.sum();
+        }
+
+        long getMax() {
+            return max.get(0);
+        }
+
+        void reset() {
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                buckets.set(i, 0);
+            }
+            count.reset();
+            total.reset();
+            max.set(0, 0);
+        }
+    }
+
+    /**
+     * The JFR event emitted for every timed operation when -Dgraph.metrics.jfr=true.
+     */
+    @Name("graph.Operation")
+    @Label("Graph Operation")
+    @Category("Graph")
+    static final class GraphOperationEvent extends Event {
+        @Label("Operation")
+        String operation;
+
+        @Label("Elapsed")
+        @Timespan(Timespan.NANOSECONDS)
+        long elapsedNanos;
+    }
+}
@@ -0,0 +1,104 @@
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * This class drives load against a running {@link GraphQueryServer} and reports latency and throughput.
+ * Every client sends its requests one at a time and waits for each response before sending the next.
+ */
+public class GraphQueryLoadGenerator {
+    private static final List<String> DEFAULT_REQUESTS = List.of("CONNECTED", "COMPONENTS", "BIPARTITE", "CYCLE", "PING");
+
+    /**
+     * Sends requests from one client and records the latency of every request.
+     * @param port the port of the server
+     * @param requests the requests to cycle through
+     * @param requestCount the number of requests to send
+     * @return the latency of every request in nanoseconds
+     * @throws IOException if the connection fails
+     */
+    private static long[] runClient(int port, List<String> requests, int requestCount) throws IOException {
+        long[] latencies = new long[requestCount];
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            socket.setTcpNoDelay(true);
+            for (int i = 0; i < requestCount; i++) {
+                long start = System.nanoTime();
+                writer.write(requests.get(i % requests.size()));
+                writer.newLine();
+                writer.flush();
+                if (reader.readLine() == null) {
+                    throw new IOException("Server closed the connection");
+                }
+                latencies[i] = System.nanoTime() - start;
+            }
+        }
+        return latencies;
+    }
+
+    /**
+     * Gets a percentile from sorted latencies.
+     * @param sortedLatencies the latencies in ascending order
+     * @param percentile the percentile, between 0 and 100
+     * @return the latency at the percentile
+     */
+    private static long percentile(long[] sortedLatencies, double percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sortedLatencies.length) - 1;
+        return sortedLatencies[Math.max(0, Math.min(index, sortedLatencies.length - 1))];
+    }
+
+    /**
+     * The main method that runs the load test.
+     * @param args the server port, the number of clients, the number of requests per client,
+     *             and optionally a file with one request per line
+     * @throws IllegalArgumentException if the clients would send more requests than one array can record
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.out.println("Usage: java GraphQueryLoadGenerator <port> <clients> <requests per client> [request file]");
+            return;
+        }
+        int port = Integer.parseInt(args[0]);
+        int clientCount = Integer.parseInt(args[1]);
+        int requestCount = Integer.parseInt(args[2]);
+        int totalRequests;
+        try {
+            totalRequests = Math.multiplyExact(clientCount, requestCount);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Too many requests to record: " + clientCount + " clients times "
+                    + requestCount + " requests exceeds " + Integer.MAX_VALUE);
+        }
+        List<String> requests = args.length > 3 ? Files.readAllLines(Paths.get(args[3]), StandardCharsets.UTF_8) : DEFAULT_REQUESTS;
+
+        List<Future<long[]>> results = new ArrayList<>();
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clientCount; i++) {
+                results.add(executor.submit(() -> runClient(port, requests, requestCount)));
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        long[] latencies = new long[totalRequests];
+        int position = 0;
+        for (Future<long[]> result : results) {
+            long[] clientLatencies = result.get();
+            System.arraycopy(clientLatencies, 0, latencies, position, clientLatencies.length);
+            position += clientLatencies.length;
+        }
+        Arrays.sort(latencies);
+
+        System.out.println("Requests\t: " + latencies.length);
+        System.out.printf("Throughput\t: %.0f requests/s%n", latencies.length / (elapsed / 1e9));
+        System.out.printf("p50 latency\t: %.1f us%n", percentile(latencies, 50) / 1e3);
+        System.out.printf("p99 latency\t: %.1f us%n", percentile(latencies, 99) / 1e3);
+    }
+}
@@ -0,0 +1,316 @@
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * This class represents a long-lived query server over a graph that is loaded once.
+ * It listens on localhost and speaks a line protocol: one request per line, one response per line.
+ * Every connection is served by its own virtual thread, and all queries run on a {@link ConcurrentGraph} snapshot.
+ *
+ * <pre>
+ * DEGREE v1 [v2 ...]          degrees of the given vertices, separated by spaces
+ * SAME v1 v2 [v3 v4 ...]      for every pair, whether the two vertices are in the same component
+ * CONNECTED                   whether the graph is connected
+ * COMPONENTS                  the number of connected components
+ * BIPARTITE                   whether the graph is bipartite
+ * CYCLE                       whether the graph contains a cycle
+ * ISOMORPHIC a-b [c-d ...]    whether the graph is isomorphic to the graph with the given edges,
+ *                             for graphs of at most MAX_ISOMORPHISM_VERTICES vertices
+ * ADD v1 v2                   adds an edge, adding the vertices if needed
+ * METRICS                     the {@link GraphMetrics} report, with lines separated by "; "
+ * PING                        answers PONG
+ * </pre>
+ * Failed requests are answered with a line starting with ERROR.
+ */
+public class GraphQueryServer implements Closeable {
+    private static final int SPARE_VERTICES = 1024;
+    /** The largest graph ISOMORPHIC compares, since the backtracking search takes exponential time. */
+    static final int MAX_ISOMORPHISM_VERTICES = 16;
+
+    private final ConcurrentGraph graph;
+    private final ServerSocket serverSocket;
+    private final ExecutorService executor;
+
+    /**
+     * Constructs a new GraphQueryServer bound to a local port.
+     * @param graph the graph to answer queries about
+     * @param port the port to listen on, or 0 to pick a free one
+     * @throws IOException if the port cannot be bound
+     */
+    public GraphQueryServer(ConcurrentGraph graph, int port) throws IOException {
+        this.graph = graph;
+        serverSocket = new ServerSocket(port, 128, InetAddress.getLoopbackAddress());
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    /**
+     * Gets the port the server listens on.
+     * @return the local port
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Starts accepting connections in the background.
+     */
+    public void start() {
+        executor.submit(this::acceptConnections);
+    }
+
+    /**
+     * Stops accepting connections and closes the server socket.
+     * @throws IOException if the socket cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Accepts connections until the server is closed, handing each one to a new virtual thread.
+     */
+    private void acceptConnections() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                executor.submit(() -> handleConnection(socket));
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    GraphMetrics.increment(GraphMetrics.Counter.ACCEPT_FAILURES);
+                    System.err.println("Failed to accept a connection: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Answers the requests of one connection in order.
+     * Responses are only flushed once no further request is already waiting,
+     * so a client that pipelines many small lookups gets them back in a few writes.
+     * @param socket the client connection
+     */
+    private void handleConnection(Socket socket) {
+        try (socket;
+             BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            socket.setTcpNoDelay(true);
+            String request;
+            while ((request = reader.readLine()) != null) {
+                writer.write(answer(request));
+                writer.newLine();
+                if (!reader.ready()) {
+                    writer.flush();
+                }
+            }
+        } catch (IOException e) {
+            // The client went away; nothing to answer
+        }
+    }
+
+    /**
+     * Answers a single request.
+     * @param request the request line
+     * @return the response line
+     */
+    String answer(String request) {
+        String[] parts = request.trim().split("\\s+");
+        try {
+            switch (parts[0].toUpperCase()) {
+                case "DEGREE":
+                    return answerDegrees(graph.snapshot(), parts);
+                case "SAME":
+                    return answerSameComponent(graph.snapshot(), parts);
+                case "CONNECTED":
+                    return String.valueOf(graph.snapshot().checkGraphConnectivity());
+                case "COMPONENTS":
+                    return String.valueOf(graph.snapshot().calculateConnectedComponents());
+                case "BIPARTITE":
+                    return String.valueOf(graph.snapshot().checkIfBipartite());
+                case "CYCLE":
+                    return String.valueOf(graph.snapshot().hasCycle());
+                case "ISOMORPHIC":
+                    return answerIsomorphic(graph.snapshot(), parts);
+                case "ADD":
+                    if (parts.length != 3) {
+                        throw new IllegalArgumentException("Usage: ADD vertex1 vertex2");
+                    }
+                    graph.addVertex(parts[1]);
+                    graph.addVertex(parts[2]);
+                    graph.createEdge(parts[1], parts[2]);
+                    return "OK";
+                case "METRICS":
+                    return GraphMetrics.dump().trim().replace("\n", "; ");
+                case "PING":
+                    return "PONG";
+                default:
+                    return "ERROR Unknown request: " + parts[0];
+            }
+        } catch (IllegalArgumentException e) {
+            return "ERROR " + e.getMessage();
+        } catch (RuntimeException e) {
+            // Any other failure is a bug, but the client still gets an answer and keeps its connection
+            return "ERROR " + e;
+        }
+    }
+
+    /**
+     * Answers a batch of degree lookups against one snapshot.
+     * @param snapshot the snapshot to read from
+     * @param parts the request words, starting with DEGREE
+     * @return the degrees separated by spaces
+     */
+    private static String answerDegrees(ConcurrentGraph.Snapshot snapshot, String[] parts) {
+        if (parts.length < 2) {
+            throw new IllegalArgumentException("Usage: DEGREE vertex [vertex ...]");
+        }
+        StringBuilder response = new StringBuilder();
+        for (int i = 1; i < parts.length; i++) {
+            if (i > 1) {
+                response.append(' ');
+            }
+            response.append(snapshot.getVertexDegree(parts[i]));
+        }
+        return response.toString();
+    }
+
+    /**
+     * Answers a batch of same-component lookups against one snapshot.
+     * @param snapshot the snapshot to read from
+     * @param parts the request words, starting with SAME
+     * @return one true/false per vertex pair, separated by spaces
+     */
+    private static String answerSameComponent(ConcurrentGraph.Snapshot snapshot, String[] parts) {
+        if (parts.length < 3 || parts.length % 2 == 0) {
+            throw new IllegalArgumentException("Usage: SAME vertex1 vertex2 [vertex3 vertex4 ...]");
+        }
+        StringBuilder response = new StringBuilder();
+        for (int i = 1; i < parts.length; i += 2) {
+            if (i > 1) {
+                response.append(' ');
+            }
+            response.append(snapshot.areConnected(parts[i], parts[i + 1]));
+        }
+        return response.toString();
+    }
+
+    /**
+     * Checks the snapshot against another graph given as a list of edges.
+     * @param snapshot the snapshot to read from
+     * @param parts the request words, starting with ISOMORPHIC, followed by edges written as vertex1-vertex2
+     * @return true if the graphs are isomorphic, false otherwise
+     */
+    private static String answerIsomorphic(ConcurrentGraph.Snapshot snapshot, String[] parts) {
+        int vertexCount = snapshot.getVertexCount();
+        if (vertexCount > MAX_ISOMORPHISM_VERTICES) {
+            throw new IllegalArgumentException("ISOMORPHIC is limited to graphs of at most "
+                    + MAX_ISOMORPHISM_VERTICES + " vertices");
+        }
+        Map<String, Integer> vertexIndices = new HashMap<>();
+        List<int[]> edges = new ArrayList<>();
+        for (int i = 1; i < parts.length; i++) {
+            String[] verticesForEdge = parts[i].split("-");
+            if (verticesForEdge.length != 2) {
+                throw new IllegalArgumentException("Invalid edge: " + parts[i]);
+            }
+            int vertex1 = vertexIndices.computeIfAbsent(verticesForEdge[0], name -> vertexIndices.size());
+            int vertex2 = vertexIndices.computeIfAbsent(verticesForEdge[1], name -> vertexIndices.size());
+            edges.add(new int[]{vertex1, vertex2});
+        }
+        if (vertexIndices.size() > vertexCount) {
+            return "false";
+        }
+
+        // Isomorphic graphs have the same degree sequence, which is cheap to compare before any search
+        CompactGraph compactGraph = snapshot.getGraph();
+        int[] firstDegrees = new int[vertexCount];
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            for (int i = compactGraph.getRowStart(vertex); i < compactGraph.getRowEnd(vertex); i++) {
+                // The matrix counts parallel edges once, and the rows are sorted, so skip repeated entries
+                if (i == compactGraph.getRowStart(vertex) || compactGraph.getNeighbor(i) != compactGraph.getNeighbor(i - 1)) {
+                    firstDegrees[vertex]++;
+                }
+            }
+        }
+        int[][] secondGraph = new int[vertexCount][vertexCount];
+        int[] secondDegrees = new int[vertexCount];
+        for (int[] edge : edges) {
+            if (secondGraph[edge[0]][edge[1]] == 0) {
+                secondGraph[edge[0]][edge[1]] = 1;
+                secondDegrees[edge[0]]++;
+            }
+            if (secondGraph[edge[1]][edge[0]] == 0) {
+                secondGraph[edge[1]][edge[0]] = 1;
+                secondDegrees[edge[1]]++;
+            }
+        }
+        Arrays.sort(firstDegrees);
+        Arrays.sort(secondDegrees);
+        if (!Arrays.equals(firstDegrees, secondDegrees)) {
+            return "false";
+        }
+
+        int[][] firstGraph = new int[vertexCount][vertexCount];
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            for (int i = compactGraph.getRowStart(vertex); i < compactGraph.getRowEnd(vertex); i++) {
+                firstGraph[vertex][compactGraph.getNeighbor(i)] = 1;
+            }
+        }
+        return String.valueOf(vertexCount == 0 || new IsomorphicGraph(firstGraph, secondGraph).areGraphsIsomorphic());
+    }
+
+    /**
+     * Reads an edge list with one "vertex1 vertex2" pair per line.
+     * @param path the file to read
+     * @return the loaded graph
+     * @throws IOException if the file cannot be read
+     */
+    static ConcurrentGraph loadGraph(String path) throws IOException {
+        long start = GraphMetrics.startTimer();
+        List<String[]> edges = new ArrayList<>();
+        Set<String> vertices = new LinkedHashSet<>();
+        for (String line : Files.readAllLines(Paths.get(path), StandardCharsets.UTF_8)) {
+            String[] edge = line.trim().split("\\s+");
+            if (edge.length != 2) {
+                continue;
+            }
+            edges.add(edge);
+            vertices.add(edge[0]);
+            vertices.add(edge[1]);
+        }
+        // Leave room for vertices added later through ADD requests
+        ConcurrentGraph graph = new ConcurrentGraph(vertices.size() + SPARE_VERTICES);
+        for (String vertex : vertices) {
+            graph.addVertex(vertex);
+        }
+        for (String[] edge : edges) {
+            graph.createEdge(edge[0], edge[1]);
+        }
+        GraphMetrics.stopTimer(GraphMetrics.Timer.GRAPH_LOAD, start);
+        return graph;
+    }
+
+    /**
+     * The main method that runs the server until the process is stopped.
+     * @param args the port to listen on and the edge list file to load
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.out.println("Usage: java GraphQueryServer <port> <edge list file>");
+            return;
+        }
+        ConcurrentGraph graph = loadGraph(args[1]);
+        GraphQueryServer server = new GraphQueryServer(graph, Integer.parseInt(args[0]));
+        System.out.println("Graph loaded with " + graph.snapshot().getVertexCount() + " vertices, listening on port " + server.getPort());
+        // Virtual threads do not keep the JVM alive, so accept on the main thread
+        server.acceptConnections();
+    }
+}
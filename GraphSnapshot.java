@@ -0,0 +1,881 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.CRC32C;
+
+/**
+ * This class represents a snapshot of a built graph, saved to a single file and restored by memory mapping it.
+ * The file holds a versioned header, a table of sections and the sections themselves: the vertex names,
+ * the adjacency as either compressed sparse row arrays or the encoded rows of a {@link CompressedGraph},
+ * and optionally the fingerprint and component labels computed for it.
+ * All numbers are little-endian and every section starts on an 8-byte boundary.
+ * <p>
+ * Opening a snapshot reads and checks only the header and the section table, then maps the sections, so it
+ * takes the same time whatever the size of the graph; the rows are read straight from the mapped file with
+ * {@link #getRowStart(int)} and {@link #getNeighbor(int)}, or with {@link #getCompressedGraph()}, and the
+ * operating system pages them in on first use. The header carries a CRC-32C of itself and of the section table,
+ * checked on every open, and a CRC-32C of all sections, checked by {@link #verifyChecksum()}. Snapshots are
+ * written to a temporary file that is moved over the target once complete, so a crash while saving never leaves
+ * a half-written snapshot behind. A mapping stays valid until the snapshot, and any compressed graph taken from it,
+ * is garbage collected. Instances are immutable.
+ */
+public final class GraphSnapshot {
+    /** The version written into every new snapshot; a snapshot of any other version is rejected. */
+    public static final int FORMAT_VERSION = 1;
+    /** The bytes "GSNP" read as a little-endian integer. */
+    private static final int MAGIC = 0x504E5347;
+    private static final int FLAG_DIRECTED = 1;
+    private static final int HEADER_BYTES = 40;
+    private static final int HEADER_CHECKSUM_POSITION = 20;
+    private static final int SECTION_ENTRY_BYTES = 24;
+    /** Sections are mapped in chunks, since one mapping cannot cover more than 2 GiB, except compressed rows. */
+    private static final int CHUNK_SHIFT = 30;
+    private static final long CHUNK_BYTES = 1L << CHUNK_SHIFT;
+    private static final int WRITE_BUFFER_BYTES = 1 << 20;
+
+    /**
+     * The sections a snapshot can hold. Readers skip the sections they do not know.
+     */
+    public enum Section {
+        /** Where the name of every named vertex starts in {@link #NAME_CHARS}, plus the end of the last one. */
+        NAME_OFFSETS(1, Integer.BYTES),
+        /** The characters of all vertex names, one after another. */
+        NAME_CHARS(2, Character.BYTES),
+        /** The row offsets, of length vertexCount + 1. */
+        OFFSETS(3, Integer.BYTES),
+        /** The neighbor entries of every row. */
+        NEIGHBORS(4, Integer.BYTES),
+        /** The multiplicity of every neighbor entry. */
+        MULTIPLICITIES(5, Integer.BYTES),
+        /** The state of the {@link GraphFingerprint} of the graph. */
+        FINGERPRINT(6, Long.BYTES),
+        /** The connected component of every vertex. */
+        COMPONENT_LABELS(7, Integer.BYTES),
+        // Tag 8 is not used, so that the tags of the sections below stay the same
+        /** One more than the largest component label, saved with the labels so that it is known without them. */
+        COMPONENT_COUNT(9, Integer.BYTES),
+        /** The arc count of the compressed rows, then 1 if every neighbor entry carries a multiplicity, else 0. */
+        COMPRESSED_HEADER(10, Integer.BYTES),
+        /** Where every row starts in {@link #COMPRESSED_ROWS}, plus the end of the last one. */
+        COMPRESSED_OFFSETS(11, Integer.BYTES),
+        /** The gap and varint encoded rows of a {@link CompressedGraph}, mapped in one piece. */
+        COMPRESSED_ROWS(12, Byte.BYTES);
+
+        private final int tag;
+        private final int elementBytes;
+
+        Section(int tag, int elementBytes) {
+            this.tag = tag;
+            this.elementBytes = elementBytes;
+        }
+
+        private static Section forTag(int tag) {
+            for (Section section : values()) {
+                if (section.tag == tag) {
+                    return section;
+                }
+            }
+            return null;
+        }
+    }
+
+    private final Path path;
+    private final int vertexCount;
+    private final boolean isDirected;
+    private final long payloadStart;
+    private final long fileLength;
+    private final long payloadChecksum;
+    private final EnumMap<Section, ByteBuffer[]> sections;
+    private final EnumMap<Section, Long> sectionLengths;
+    private final ByteBuffer[] offsetChunks;
+    private final ByteBuffer[] neighborChunks;
+    private final CompressedGraph compressed;
+    private final int arcCount;
+    private final int nameCount;
+
+    private GraphSnapshot(Path path, int vertexCount, boolean isDirected, long payloadStart, long fileLength,
+                          long payloadChecksum, EnumMap<Section, ByteBuffer[]> sections,
+                          EnumMap<Section, Long> sectionLengths, CompressedGraph compressed) {
+        this.path = path;
+        this.vertexCount = vertexCount;
+        this.isDirected = isDirected;
+        this.payloadStart = payloadStart;
+        this.fileLength = fileLength;
+        this.payloadChecksum = payloadChecksum;
+        this.sections = sections;
+        this.sectionLengths = sectionLengths;
+        this.offsetChunks = sections.get(Section.OFFSETS);
+        this.neighborChunks = sections.get(Section.NEIGHBORS);
+        this.compressed = compressed;
+        this.arcCount = neighborChunks != null ? (int) getElementCount(Section.NEIGHBORS)
+                : compressed != null ? compressed.getArcCount() : 0;
+        this.nameCount = sections.containsKey(Section.NAME_OFFSETS) ? (int) getElementCount(Section.NAME_OFFSETS) - 1 : 0;
+    }
+
+    /**
+     * Writes a snapshot of a graph, replacing the file if it exists.
+     * @param path the file to write
+     * @param graph the adjacency of the graph
+     * @param vertexNames the names of the vertices 0 to vertexNames.size() - 1, or null if the vertices have no names
+     * @param fingerprint the fingerprint of the graph, or null to leave it out
+     * @param componentLabels the connected component of every vertex, or null to leave them out
+     * @throws IllegalArgumentException if there are more names than vertices, a name is null,
+     *                                  or the labels do not have one entry per vertex
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Path path, CompactGraph graph, List<String> vertexNames, GraphFingerprint fingerprint,
+                             int[] componentLabels) throws IOException {
+        write(path, graph.getVertexCount(), graph.isDirected(), graph, null, vertexNames, fingerprint,
+                componentLabels);
+    }
+
+    /**
+     * Writes a snapshot of a compressed graph, replacing the file if it exists. The encoded rows are saved as they
+     * are, so a restore reads them in place through {@link #getCompressedGraph()} without decoding them.
+     * @param path the file to write
+     * @param graph the adjacency of the graph
+     * @param vertexNames the names of the vertices 0 to vertexNames.size() - 1, or null if the vertices have no names
+     * @param fingerprint the fingerprint of the graph, or null to leave it out
+     * @param componentLabels the connected component of every vertex, or null to leave them out
+     * @throws IllegalArgumentException if there are more names than vertices, a name is null, the labels do not
+     *                                  have one entry per vertex, or the row offsets do not fit in one mapping
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Path path, CompressedGraph graph, List<String> vertexNames, GraphFingerprint fingerprint,
+                             int[] componentLabels) throws IOException {
+        if (graph.getVertexCount() >= Integer.MAX_VALUE / Integer.BYTES) {
+            throw new IllegalArgumentException("The compressed row offsets do not fit in one mapping");
+        }
+        write(path, graph.getVertexCount(), graph.isDirected(), null, graph, vertexNames, fingerprint,
+                componentLabels);
+    }
+
+    private static void write(Path path, int vertexCount, boolean isDirected, CompactGraph graph,
+                              CompressedGraph compressed, List<String> vertexNames, GraphFingerprint fingerprint,
+                              int[] componentLabels) throws IOException {
+        long start = GraphMetrics.startTimer();
+        if (vertexNames != null && vertexNames.size() > vertexCount) {
+            throw new IllegalArgumentException("There are more vertex names than vertices");
+        }
+        if (componentLabels != null && componentLabels.length != vertexCount) {
+            throw new IllegalArgumentException("Component labels need one entry per vertex");
+        }
+        int[] nameOffsets = null;
+        if (vertexNames != null) {
+            nameOffsets = new int[vertexNames.size() + 1];
+            for (int i = 0; i < vertexNames.size(); i++) {
+                String name = vertexNames.get(i);
+                if (name == null) {
+                    throw new IllegalArgumentException("Vertex names must not be null");
+                }
+                long end = (long) nameOffsets[i] + name.length();
+                if (end > Integer.MAX_VALUE) {
+                    throw new IllegalArgumentException("The vertex names do not fit in one snapshot");
+                }
+                nameOffsets[i + 1] = (int) end;
+            }
+        }
+
+        List<Section> present = new ArrayList<>();
+        if (nameOffsets != null) {
+            present.add(Section.NAME_OFFSETS);
+            present.add(Section.NAME_CHARS);
+        }
+        if (graph != null) {
+            present.add(Section.OFFSETS);
+            present.add(Section.NEIGHBORS);
+            if (graph.getMultiplicities() != null) {
+                present.add(Section.MULTIPLICITIES);
+            }
+        } else {
+            present.add(Section.COMPRESSED_HEADER);
+            present.add(Section.COMPRESSED_OFFSETS);
+            present.add(Section.COMPRESSED_ROWS);
+        }
+        if (fingerprint != null) {
+            present.add(Section.FINGERPRINT);
+        }
+        int componentCount = 0;
+        if (componentLabels != null) {
+            present.add(Section.COMPONENT_LABELS);
+            present.add(Section.COMPONENT_COUNT);
+            for (int label : componentLabels) {
+                componentCount = Math.max(componentCount, label + 1);
+            }
+        }
+
+        Path target = path.toAbsolutePath();
+        Path temporary = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                long payloadStart = align(HEADER_BYTES + (long) SECTION_ENTRY_BYTES * present.size());
+                SectionWriter writer = new SectionWriter(channel, payloadStart);
+                long[] sectionOffsets = new long[present.size()];
+                long[] sectionLengths = new long[present.size()];
+                for (int i = 0; i < present.size(); i++) {
+                    sectionOffsets[i] = writer.startSection();
+                    switch (present.get(i)) {
+                        case NAME_OFFSETS:
+                            writer.writeInts(nameOffsets, nameOffsets.length);
+                            break;
+                        case NAME_CHARS:
+                            for (String name : vertexNames) {
+                                writer.writeChars(name);
+                            }
+                            break;
+                        case OFFSETS:
+                            writer.writeInts(graph.getOffsets(), vertexCount + 1);
+                            break;
+                        case NEIGHBORS:
+                            writer.writeInts(graph.getNeighbors(), graph.getArcCount());
+                            break;
+                        case MULTIPLICITIES:
+                            writer.writeInts(graph.getMultiplicities(), graph.getArcCount());
+                            break;
+                        case FINGERPRINT:
+                            for (long value : fingerprint.getState()) {
+                                writer.writeLong(value);
+                            }
+                            break;
+                        case COMPONENT_LABELS:
+                            writer.writeInts(componentLabels, vertexCount);
+                            break;
+                        case COMPONENT_COUNT:
+                            writer.writeInts(new int[]{componentCount}, 1);
+                            break;
+                        case COMPRESSED_HEADER:
+                            writer.writeInts(new int[]{compressed.getArcCount(),
+                                    compressed.hasMultiplicities() ? 1 : 0}, 2);
+                            break;
+                        case COMPRESSED_OFFSETS:
+                            writer.writeInts(compressed.getOffsets());
+                            break;
+                        case COMPRESSED_ROWS:
+                            writer.writeBytes(compressed.getRows());
+                            break;
+                    }
+                    sectionLengths[i] = writer.position - sectionOffsets[i];
+                }
+                long fileLength = writer.finish();
+
+                ByteBuffer header = ByteBuffer.allocate((int) payloadStart).order(ByteOrder.LITTLE_ENDIAN);
+                header.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(isDirected ? FLAG_DIRECTED : 0)
+                        .putInt(vertexCount).putInt(present.size()).putInt(0)
+                        .putLong(writer.checksum.getValue()).putLong(fileLength);
+                for (int i = 0; i < present.size(); i++) {
+                    header.putInt(present.get(i).tag).putInt(0).putLong(sectionOffsets[i]).putLong(sectionLengths[i]);
+                }
+                header.putInt(HEADER_CHECKSUM_POSITION, headerChecksum(header.array(), present.size()));
+                header.clear();
+                while (header.hasRemaining()) {
+                    channel.write(header, header.position());
+                }
+                channel.force(true);
+            }
+            try {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        GraphMetrics.stopTimer(GraphMetrics.Timer.SNAPSHOT_WRITE, start);
+    }
+
+    /**
+     * Opens a snapshot, checking its header and section table and mapping its sections.
+     * The sections themselves are not read; call {@link #verifyChecksum()} to check them.
+     * @param path the file to open
+     * @return the snapshot
+     * @throws IOException if the file cannot be read, is not a snapshot, has another format version,
+     *                     or its header or section table is damaged
+     */
+    public static GraphSnapshot open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long actualLength = channel.size();
+            ByteBuffer header = readFully(channel, 0, HEADER_BYTES, path);
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException("Not a graph snapshot: " + path);
+            }
+            int version = header.getInt(4);
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + " (expected " + FORMAT_VERSION
+                        + "): " + path);
+            }
+            int flags = header.getInt(8);
+            int vertexCount = header.getInt(12);
+            int sectionCount = header.getInt(16);
+            long payloadChecksum = header.getLong(24);
+            long fileLength = header.getLong(32);
+            if (vertexCount < 0 || sectionCount < 0 || sectionCount > 1024) {
+                throw new IOException("Damaged snapshot header: " + path);
+            }
+            long payloadStart = align(HEADER_BYTES + (long) SECTION_ENTRY_BYTES * sectionCount);
+            if (fileLength != actualLength || fileLength < payloadStart) {
+                throw new IOException("Truncated snapshot: " + path);
+            }
+            ByteBuffer table = readFully(channel, 0, (int) payloadStart, path);
+            int storedChecksum = table.getInt(HEADER_CHECKSUM_POSITION);
+            table.putInt(HEADER_CHECKSUM_POSITION, 0);
+            if (headerChecksum(table.array(), sectionCount) != storedChecksum) {
+                throw new IOException("Damaged snapshot header: " + path);
+            }
+
+            EnumMap<Section, ByteBuffer[]> sections = new EnumMap<>(Section.class);
+            EnumMap<Section, Long> sectionLengths = new EnumMap<>(Section.class);
+            for (int i = 0; i < sectionCount; i++) {
+                int entry = HEADER_BYTES + i * SECTION_ENTRY_BYTES;
+                Section section = Section.forTag(table.getInt(entry));
+                long offset = table.getLong(entry + 8);
+                long length = table.getLong(entry + 16);
+                if (offset < payloadStart || length < 0 || offset + length > fileLength || offset % 8 != 0) {
+                    throw new IOException("Damaged snapshot section table: " + path);
+                }
+                if (section == null) {
+                    continue;
+                }
+                // A compressed graph reads its rows and their offsets from single buffers
+                boolean whole = section == Section.COMPRESSED_OFFSETS || section == Section.COMPRESSED_ROWS;
+                if (length % section.elementBytes != 0 || sections.containsKey(section)
+                        || (whole && length > Integer.MAX_VALUE)) {
+                    throw new IOException("Damaged snapshot section " + section + ": " + path);
+                }
+                sections.put(section, whole ? new ByteBuffer[]{channel.map(FileChannel.MapMode.READ_ONLY, offset,
+                        length).order(ByteOrder.LITTLE_ENDIAN)} : map(channel, offset, length));
+                sectionLengths.put(section, length);
+            }
+            boolean isDirected = (flags & FLAG_DIRECTED) != 0;
+            GraphSnapshot snapshot = new GraphSnapshot(path, vertexCount, isDirected, payloadStart, fileLength,
+                    payloadChecksum, sections, sectionLengths, mapCompressed(path, vertexCount, isDirected, sections));
+            snapshot.checkSections();
+            return snapshot;
+        }
+    }
+
+    /**
+     * Wraps the compressed rows of a snapshot, which are read in place from the mapped file.
+     * Only their sizes are checked here; the rows themselves are covered by {@link #verifyChecksum()}.
+     * @param path the file the sections were mapped from
+     * @param vertexCount the number of vertices
+     * @param isDirected whether the graph is directed
+     * @param sections the mapped sections
+     * @return the compressed graph, or null if the snapshot holds no compressed rows
+     * @throws IOException if the compressed sections are incomplete or disagree on their sizes
+     */
+    private static CompressedGraph mapCompressed(Path path, int vertexCount, boolean isDirected,
+                                                 EnumMap<Section, ByteBuffer[]> sections) throws IOException {
+        ByteBuffer[] header = sections.get(Section.COMPRESSED_HEADER);
+        ByteBuffer[] offsets = sections.get(Section.COMPRESSED_OFFSETS);
+        ByteBuffer[] rows = sections.get(Section.COMPRESSED_ROWS);
+        if (header == null && offsets == null && rows == null) {
+            return null;
+        }
+        if (header == null || offsets == null || rows == null || header[0].limit() != 2 * Integer.BYTES
+                || offsets[0].limit() != (vertexCount + 1L) * Integer.BYTES) {
+            throw new IOException("Damaged snapshot compressed rows: " + path);
+        }
+        int arcCount = header[0].getInt(0);
+        int multiplicities = header[0].getInt(Integer.BYTES);
+        IntBuffer rowOffsets = offsets[0].asIntBuffer();
+        if (arcCount < 0 || (multiplicities & ~1) != 0 || rowOffsets.get(0) != 0
+                || rowOffsets.get(vertexCount) != rows[0].limit()) {
+            throw new IOException("Damaged snapshot compressed rows: " + path);
+        }
+        return CompressedGraph.wrap(vertexCount, isDirected, arcCount, multiplicities == 1, rowOffsets, rows[0]);
+    }
+
+    /**
+     * Checks that the sections a snapshot needs are there and agree on their sizes.
+     * @throws IOException if they are missing or disagree
+     */
+    private void checkSections() throws IOException {
+        boolean hasRows = offsetChunks != null || neighborChunks != null;
+        if (!hasRows && compressed == null) {
+            throw new IOException("Snapshot has no adjacency: " + path);
+        }
+        if (hasRows) {
+            if (offsetChunks == null || neighborChunks == null) {
+                throw new IOException("Damaged snapshot adjacency: " + path);
+            }
+            long arcs = getElementCount(Section.NEIGHBORS);
+            if (getElementCount(Section.OFFSETS) != vertexCount + 1L || arcs > Integer.MAX_VALUE
+                    || getRowStart(0) != 0 || getRowEnd(vertexCount - 1) != arcs
+                    || (compressed != null && compressed.getArcCount() != arcs)) {
+                throw new IOException("Damaged snapshot adjacency: " + path);
+            }
+        }
+        if (sections.containsKey(Section.MULTIPLICITIES)
+                && (!hasRows || getElementCount(Section.MULTIPLICITIES) != arcCount)) {
+            throw new IOException("Damaged snapshot multiplicities: " + path);
+        }
+        if (sections.containsKey(Section.NAME_OFFSETS) != sections.containsKey(Section.NAME_CHARS)
+                || (sections.containsKey(Section.NAME_OFFSETS) && (nameCount < 0 || nameCount > vertexCount
+                || readInt(sections.get(Section.NAME_OFFSETS), nameCount) != getElementCount(Section.NAME_CHARS)))) {
+            throw new IOException("Damaged snapshot vertex names: " + path);
+        }
+        if (sections.containsKey(Section.FINGERPRINT) && getElementCount(Section.FINGERPRINT) != 4) {
+            throw new IOException("Damaged snapshot fingerprint: " + path);
+        }
+        if (sections.containsKey(Section.COMPONENT_COUNT) && getElementCount(Section.COMPONENT_COUNT) != 1) {
+            throw new IOException("Damaged snapshot section " + Section.COMPONENT_COUNT + ": " + path);
+        }
+        if (sections.containsKey(Section.COMPONENT_LABELS)
+                && getElementCount(Section.COMPONENT_LABELS) != vertexCount) {
+            throw new IOException("Damaged snapshot section " + Section.COMPONENT_LABELS + ": " + path);
+        }
+    }
+
+    /**
+     * Reads every section and compares the result with the checksum stored in the header.
+     * This reads the whole file, so it takes time in proportion to the size of the graph.
+     * @return true if the sections are intact, false if any of them was damaged
+     * @throws IOException if the file cannot be read
+     */
+    public boolean verifyChecksum() throws IOException {
+        CRC32C checksum = new CRC32C();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            for (long position = payloadStart; position < fileLength; position += CHUNK_BYTES) {
+                checksum.update(channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(CHUNK_BYTES, fileLength - position)));
+            }
+        }
+        return checksum.getValue() == payloadChecksum;
+    }
+
+    /**
+     * Gets the number of vertices in the graph.
+     * @return the number of vertices
+     */
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    /**
+     * Gets the number of stored neighbor entries (arcs).
+     * @return the number of neighbor entries
+     */
+    public int getArcCount() {
+        return arcCount;
+    }
+
+    /**
+     * Checks if the graph is directed.
+     * @return true if the graph is directed, false otherwise
+     */
+    public boolean isDirected() {
+        return isDirected;
+    }
+
+    /**
+     * Checks if the snapshot holds a section.
+     * @param section the section
+     * @return true if the section was saved, false otherwise
+     */
+    public boolean hasSection(Section section) {
+        return sections.containsKey(section);
+    }
+
+    /**
+     * Gets the size of the snapshot file.
+     * @return the size in bytes
+     */
+    public long getSizeInBytes() {
+        return fileLength;
+    }
+
+    /**
+     * Gets the number of named vertices, which are the vertices 0 to getVertexNameCount() - 1.
+     * @return the number of named vertices
+     */
+    public int getVertexNameCount() {
+        return nameCount;
+    }
+
+    /**
+     * Gets the name of a vertex, read from the mapped file.
+     * @param vertex the index of the vertex
+     * @return the name of the vertex
+     * @throws IndexOutOfBoundsException if the vertex has no name
+     */
+    public String getVertexName(int vertex) {
+        Objects.checkIndex(vertex, nameCount);
+        ByteBuffer[] offsets = sections.get(Section.NAME_OFFSETS);
+        ByteBuffer[] chars = sections.get(Section.NAME_CHARS);
+        int start = readInt(offsets, vertex);
+        int end = readInt(offsets, vertex + 1);
+        char[] name = new char[end - start];
+        for (int i = 0; i < name.length; i++) {
+            long position = (long) (start + i) * Character.BYTES;
+            name[i] = chars[(int) (position >>> CHUNK_SHIFT)].getChar((int) (position & (CHUNK_BYTES - 1)));
+        }
+        return new String(name);
+    }
+
+    /**
+     * Gets the names of all named vertices.
+     * @return the names, in vertex order
+     */
+    public List<String> getVertexNames() {
+        List<String> names = new ArrayList<>(nameCount);
+        if (nameCount == 0) {
+            return names;
+        }
+        int[] offsets = readInts(Section.NAME_OFFSETS);
+        char[] chars = new char[offsets[nameCount]];
+        int write = 0;
+        for (ByteBuffer chunk : sections.get(Section.NAME_CHARS)) {
+            CharBuffer view = chunk.duplicate().order(ByteOrder.LITTLE_ENDIAN).asCharBuffer();
+            int count = view.remaining();
+            view.get(chars, write, count);
+            write += count;
+        }
+        for (int vertex = 0; vertex < nameCount; vertex++) {
+            names.add(new String(chars, offsets[vertex], offsets[vertex + 1] - offsets[vertex]));
+        }
+        return names;
+    }
+
+    /**
+     * Gets the number of neighbor entries of a vertex, read from the mapped file.
+     * @param vertex the index of the vertex
+     * @return the number of neighbor entries of the vertex
+     */
+    public int getDegree(int vertex) {
+        return offsetChunks == null ? compressed.getDegree(vertex) : getRowEnd(vertex) - getRowStart(vertex);
+    }
+
+    /**
+     * Gets the position of the first neighbor entry of a vertex, read from the mapped file.
+     * @param vertex the index of the vertex
+     * @return the first position of the vertex's row
+     * @throws IllegalStateException if the snapshot holds only compressed rows
+     */
+    public int getRowStart(int vertex) {
+        return readInt(rowChunks(offsetChunks), vertex);
+    }
+
+    /**
+     * Gets the position just past the last neighbor entry of a vertex, read from the mapped file.
+     * @param vertex the index of the vertex
+     * @return the end position of the vertex's row
+     * @throws IllegalStateException if the snapshot holds only compressed rows
+     */
+    public int getRowEnd(int vertex) {
+        return readInt(rowChunks(offsetChunks), vertex + 1L);
+    }
+
+    /**
+     * Gets the neighbor stored at a position, read from the mapped file.
+     * @param position the position in the neighbor array
+     * @return the index of the neighbor
+     * @throws IllegalStateException if the snapshot holds only compressed rows
+     */
+    public int getNeighbor(int position) {
+        return readInt(rowChunks(neighborChunks), position);
+    }
+
+    /**
+     * Gets the compressed rows, read in place from the mapped file without copying or decoding them.
+     * The graph stays valid for as long as it is referenced, even after the snapshot itself is dropped.
+     * @return the compressed graph, or null if the snapshot holds only compressed sparse row arrays
+     */
+    public CompressedGraph getCompressedGraph() {
+        return compressed;
+    }
+
+    /**
+     * Copies the adjacency out of the mapped file into a compact graph, decoding compressed rows if that is
+     * all the snapshot holds.
+     * @return the compact graph
+     */
+    public CompactGraph toCompactGraph() {
+        if (offsetChunks == null) {
+            return compressed.decompress();
+        }
+        int[] multiplicities = sections.containsKey(Section.MULTIPLICITIES) ? readInts(Section.MULTIPLICITIES) : null;
+        return new CompactGraph(vertexCount, isDirected, readInts(Section.OFFSETS), readInts(Section.NEIGHBORS),
+                multiplicities);
+    }
+
+    /**
+     * Restores the fingerprint saved with the graph.
+     * @return the fingerprint, or null if none was saved
+     */
+    public GraphFingerprint getFingerprint() {
+        ByteBuffer[] chunks = sections.get(Section.FINGERPRINT);
+        if (chunks == null) {
+            return null;
+        }
+        long[] state = new long[4];
+        for (int i = 0; i < state.length; i++) {
+            state[i] = chunks[0].getLong(i * Long.BYTES);
+        }
+        return GraphFingerprint.fromState(isDirected, state);
+    }
+
+    /**
+     * Copies the saved component labels out of the mapped file.
+     * @return the connected component of every vertex, or null if none were saved
+     */
+    public int[] getComponentLabels() {
+        return sections.containsKey(Section.COMPONENT_LABELS) ? readInts(Section.COMPONENT_LABELS) : null;
+    }
+
+    /**
+     * Gets the number of connected components saved with the component labels, without reading the labels
+     * unless the snapshot predates the saved count.
+     * @return one more than the largest component label, or -1 if no labels were saved
+     */
+    public int getComponentCount() {
+        if (sections.containsKey(Section.COMPONENT_COUNT)) {
+            return sections.get(Section.COMPONENT_COUNT)[0].getInt(0);
+        }
+        int[] labels = getComponentLabels();
+        if (labels == null) {
+            return -1;
+        }
+        int componentCount = 0;
+        for (int label : labels) {
+            componentCount = Math.max(componentCount, label + 1);
+        }
+        return componentCount;
+    }
+
+    /**
+     * Builds the compressed sparse row form of adjacency lists kept partly compressed, as in {@link ConnectedGraph}
+     * and {@link VertexDegree}. Every row holds the compressed entries and the listed entries of its vertex, sorted.
+     * @param compressed the compressed entries, or null if there are none
+     * @param adjacencyLists the listed entries of every vertex, where null stands for an empty list
+     * @return the rows, as an undirected graph that lists every entry of the lists
+     */
+    static CompactGraph adjacencyRows(CompressedGraph compressed, List<List<Integer>> adjacencyLists) {
+        int vertexCount = adjacencyLists.size();
+        int[] offsets = new int[vertexCount + 1];
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            int compressedDegree = compressed == null ? 0 : compressed.getDegree(vertex);
+            List<Integer> listed = adjacencyLists.get(vertex);
+            offsets[vertex + 1] = offsets[vertex] + compressedDegree + (listed == null ? 0 : listed.size());
+        }
+        int[] neighbors = new int[offsets[vertexCount]];
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            int position = offsets[vertex];
+            if (compressed != null) {
+                CompressedGraph.NeighborIterator compressedNeighbors = compressed.neighbors(vertex);
+                while (compressedNeighbors.hasNext()) {
+                    neighbors[position++] = compressedNeighbors.nextInt();
+                }
+            }
+            if (adjacencyLists.get(vertex) != null) {
+                for (int neighbor : adjacencyLists.get(vertex)) {
+                    neighbors[position++] = neighbor;
+                }
+            }
+            Arrays.sort(neighbors, offsets[vertex], position);
+        }
+        return new CompactGraph(vertexCount, false, offsets, neighbors, null);
+    }
+
+    /**
+     * Checks that the snapshot holds compressed sparse row arrays before one of them is read.
+     * @param chunks the mapped array
+     * @return the same chunks
+     * @throws IllegalStateException if the snapshot holds only compressed rows
+     */
+    private ByteBuffer[] rowChunks(ByteBuffer[] chunks) {
+        if (chunks == null) {
+            throw new IllegalStateException("The snapshot holds only compressed rows: " + path);
+        }
+        return chunks;
+    }
+
+    private long getElementCount(Section section) {
+        return sectionLengths.get(section) / section.elementBytes;
+    }
+
+    private static int readInt(ByteBuffer[] chunks, long index) {
+        long position = index * Integer.BYTES;
+        return chunks[(int) (position >>> CHUNK_SHIFT)].getInt((int) (position & (CHUNK_BYTES - 1)));
+    }
+
+    /**
+     * Copies an int section out of the mapped file in bulk.
+     * @param section the section
+     * @return the values of the section
+     */
+    private int[] readInts(Section section) {
+        int[] values = new int[(int) getElementCount(section)];
+        int write = 0;
+        for (ByteBuffer chunk : sections.get(section)) {
+            IntBuffer ints = chunk.duplicate().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+            int count = ints.remaining();
+            ints.get(values, write, count);
+            write += count;
+        }
+        return values;
+    }
+
+    private static ByteBuffer[] map(FileChannel channel, long offset, long length) throws IOException {
+        ByteBuffer[] chunks = new ByteBuffer[(int) Math.max(1, (length + CHUNK_BYTES - 1) >>> CHUNK_SHIFT)];
+        for (int i = 0; i < chunks.length; i++) {
+            long chunkStart = (long) i << CHUNK_SHIFT;
+            chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset + chunkStart,
+                    Math.min(CHUNK_BYTES, length - chunkStart)).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return chunks;
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length, Path path) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Truncated snapshot: " + path);
+            }
+        }
+        return buffer;
+    }
+
+    /**
+     * Computes the CRC-32C of the header and section table, whose own checksum field must hold 0.
+     */
+    private static int headerChecksum(byte[] table, int sectionCount) {
+        CRC32C checksum = new CRC32C();
+        checksum.update(table, 0, HEADER_BYTES + SECTION_ENTRY_BYTES * sectionCount);
+        return (int) checksum.getValue();
+    }
+
+    private static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+
+    /**
+     * This class represents the payload of a snapshot being written: it streams values through one
+     * little-endian buffer into the file and keeps the checksum of everything written.
+     */
+    private static final class SectionWriter {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        private final CRC32C checksum = new CRC32C();
+        private long position;
+
+        SectionWriter(FileChannel channel, long payloadStart) throws IOException {
+            this.channel = channel;
+            this.position = payloadStart;
+            channel.position(payloadStart);
+        }
+
+        /**
+         * Pads the payload to the next 8-byte boundary, where the next section starts.
+         * @return the position of the section in the file
+         */
+        long startSection() throws IOException {
+            while (position % 8 != 0) {
+                ensureSpace(1);
+                buffer.put((byte) 0);
+                position++;
+            }
+            return position;
+        }
+
+        void writeInts(int[] values, int length) throws IOException {
+            writeInts(IntBuffer.wrap(values, 0, length));
+        }
+
+        void writeInts(IntBuffer values) throws IOException {
+            for (int i = values.position(); i < values.limit(); ) {
+                ensureSpace(Integer.BYTES);
+                int count = Math.min(values.limit() - i, buffer.remaining() / Integer.BYTES);
+                buffer.asIntBuffer().put(0, values, i, count);
+                buffer.position(buffer.position() + count * Integer.BYTES);
+                i += count;
+                position += (long) count * Integer.BYTES;
+            }
+        }
+
+        void writeBytes(ByteBuffer values) throws IOException {
+            for (int i = values.position(); i < values.limit(); ) {
+                ensureSpace(1);
+                int count = Math.min(values.limit() - i, buffer.remaining());
+                buffer.put(buffer.position(), values, i, count);
+                buffer.position(buffer.position() + count);
+                i += count;
+                position += count;
+            }
+        }
+
+        void writeChars(String value) throws IOException {
+            for (int i = 0; i < value.length(); i++) {
+                ensureSpace(Character.BYTES);
+                buffer.putChar(value.charAt(i));
+            }
+            position += (long) value.length() * Character.BYTES;
+        }
+
+        void writeLong(long value) throws IOException {
+            ensureSpace(Long.BYTES);
+            buffer.putLong(value);
+            position += Long.BYTES;
+        }
+
+        /**
+         * Flushes what is left in the buffer.
+         * @return the length of the file
+         */
+        long finish() throws IOException {
+            flush();
+            return position;
+        }
+
+        private void ensureSpace(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            checksum.update(buffer.duplicate());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Opens a snapshot, checks it and prints what it holds, timing each step.
+     * @param args the command-line arguments: the snapshot file
+     * @throws IOException if the snapshot cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.out.println("Usage: java GraphSnapshot <snapshot file>");
+            return;
+        }
+        long start = System.nanoTime();
+        GraphSnapshot snapshot = open(Paths.get(args[0]));
+        System.out.printf("Opened %d bytes in %.1f ms%n", snapshot.getSizeInBytes(), (System.nanoTime() - start) / 1e6);
+        start = System.nanoTime();
+        boolean intact = snapshot.verifyChecksum();
+        System.out.printf("Checksum %s in %.1f ms%n", intact ? "verified" : "MISMATCH", (System.nanoTime() - start) / 1e6);
+        System.out.println("Vertices\t\t: " + snapshot.getVertexCount() + " (" + snapshot.getVertexNameCount() + " named)");
+        System.out.println("Arcs\t\t\t: " + snapshot.getArcCount() + (snapshot.isDirected() ? " (directed)" : ""));
+        StringJoiner saved = new StringJoiner(", ");
+        for (Section section : Section.values()) {
+            if (snapshot.hasSection(section)) {
+                saved.add(section.name());
+            }
+        }
+        System.out.println("Sections\t\t: " + saved);
+    }
+}
@@ -0,0 +1,363 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * This class cross-checks {@link GraphSnapshot} on random graphs with self-loops and parallel edges.
+ * Every graph is written through both {@link GraphSnapshot#write} overloads, from compressed sparse rows and from
+ * a {@link CompressedGraph}, and saved and restored through {@link ConnectedGraph} and {@link VertexDegree},
+ * which also restore the compressed sparse rows.
+ * The restored rows, names, degrees, component count and fingerprint must match the graph that was saved.
+ * Every snapshot is then damaged: a flipped byte in the header or section table must make
+ * {@link GraphSnapshot#open(Path)} fail, a flipped byte in the sections must make it fail or be caught by
+ * {@link GraphSnapshot#verifyChecksum()}, and a truncated file must never open.
+ * Any disagreement stops the check with an exception.
+ * Usage: java GraphSnapshotCheck [graphCount] [maxVertices] [seed]
+ */
+public class GraphSnapshotCheck {
+    private static final int HEADER_BYTES = 40;
+    private static final int SECTION_ENTRY_BYTES = 24;
+
+    /**
+     * Checks that two graphs hold the same rows, in the same order.
+     * @param expected the rows that were saved
+     * @param actual the rows that were restored
+     * @param what the restore being checked, for the error message
+     */
+    static void checkRows(CompactGraph expected, CompactGraph actual, String what) {
+        if (expected.getVertexCount() != actual.getVertexCount() || expected.getArcCount() != actual.getArcCount()) {
+            throw new IllegalStateException(what + ": " + actual.getVertexCount() + " vertices and "
+                    + actual.getArcCount() + " arcs instead of " + expected.getVertexCount() + " and "
+                    + expected.getArcCount());
+        }
+        for (int vertex = 0; vertex < expected.getVertexCount(); vertex++) {
+            if (expected.getDegree(vertex) != actual.getDegree(vertex)) {
+                throw new IllegalStateException(what + ": the row of vertex " + vertex + " changed");
+            }
+            for (int i = 0; i < expected.getDegree(vertex); i++) {
+                if (expected.getNeighbor(expected.getRowStart(vertex) + i)
+                        != actual.getNeighbor(actual.getRowStart(vertex) + i)) {
+                    throw new IllegalStateException(what + ": the row of vertex " + vertex + " changed");
+                }
+            }
+        }
+    }
+
+    /**
+     * Labels every vertex with its connected component, numbering the components by their lowest vertex.
+     * @param rows the graph
+     * @return the component of every vertex
+     */
+    static int[] componentLabels(CompactGraph rows) {
+        int vertexCount = rows.getVertexCount();
+        int[] roots = new int[vertexCount];
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            roots[vertex] = vertex;
+        }
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            for (int i = rows.getRowStart(vertex); i < rows.getRowEnd(vertex); i++) {
+                roots[find(roots, vertex)] = find(roots, rows.getNeighbor(i));
+            }
+        }
+        int[] labels = new int[vertexCount];
+        int[] labelOfRoot = new int[vertexCount];
+        Arrays.fill(labelOfRoot, -1);
+        int componentCount = 0;
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            int root = find(roots, vertex);
+            if (labelOfRoot[root] < 0) {
+                labelOfRoot[root] = componentCount++;
+            }
+            labels[vertex] = labelOfRoot[root];
+        }
+        return labels;
+    }
+
+    private static int find(int[] roots, int vertex) {
+        while (roots[vertex] != vertex) {
+            roots[vertex] = roots[roots[vertex]];
+            vertex = roots[vertex];
+        }
+        return vertex;
+    }
+
+    private static int countComponents(int[] labels) {
+        int componentCount = 0;
+        for (int label : labels) {
+            componentCount = Math.max(componentCount, label + 1);
+        }
+        return componentCount;
+    }
+
+    /**
+     * Checks what every snapshot holds, whichever way it was written.
+     * @param snapshot the opened snapshot
+     * @param rows the rows that were saved
+     * @param names the vertex names that were saved
+     * @param componentCount the component count that was saved, or -1 if none was
+     * @param fingerprint the fingerprint that was saved, or null if none was
+     * @param what the snapshot being checked, for the error message
+     * @throws IOException if the snapshot cannot be read
+     */
+    private static void checkSnapshot(GraphSnapshot snapshot, CompactGraph rows, List<String> names,
+                                      int componentCount, GraphFingerprint fingerprint, String what)
+            throws IOException {
+        if (!snapshot.verifyChecksum()) {
+            throw new IllegalStateException(what + ": the checksum of an intact snapshot does not match");
+        }
+        if (snapshot.isDirected() || snapshot.getVertexCount() != rows.getVertexCount()
+                || snapshot.getArcCount() != rows.getArcCount()) {
+            throw new IllegalStateException(what + ": the header does not describe the saved graph");
+        }
+        checkRows(rows, snapshot.toCompactGraph(), what);
+        if (!snapshot.getVertexNames().equals(names)) {
+            throw new IllegalStateException(what + ": the vertex names changed");
+        }
+        if (snapshot.getComponentCount() != componentCount) {
+            throw new IllegalStateException(what + ": " + snapshot.getComponentCount() + " components saved instead of "
+                    + componentCount);
+        }
+        GraphFingerprint restored = snapshot.getFingerprint();
+        if (fingerprint == null ? restored != null
+                : restored == null || !fingerprint.key("snapshot").equals(restored.key("snapshot"))) {
+            throw new IllegalStateException(what + ": the fingerprint changed");
+        }
+    }
+
+    /**
+     * Damages copies of a snapshot and checks that the damage is caught.
+     * @param file the intact snapshot
+     * @param damaged where to write the damaged copies
+     * @param random the source of the damage
+     * @throws IOException if the files cannot be read or written
+     */
+    static void checkDamage(Path file, Path damaged, Random random) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        int sectionCount = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).getInt(16);
+        int payloadStart = HEADER_BYTES + SECTION_ENTRY_BYTES * sectionCount;
+
+        for (int attempt = 0; attempt < 4; attempt++) {
+            int position = random.nextInt(payloadStart);
+            writeDamaged(damaged, flipped(bytes, position, random));
+            try {
+                GraphSnapshot.open(damaged);
+                throw new IllegalStateException("A flipped byte at " + position + " of the header was not caught");
+            } catch (IOException expected) {
+                // The header checksum covers every byte before the sections
+            }
+        }
+        if (payloadStart < bytes.length) {
+            for (int attempt = 0; attempt < 4; attempt++) {
+                int position = payloadStart + random.nextInt(bytes.length - payloadStart);
+                writeDamaged(damaged, flipped(bytes, position, random));
+                GraphSnapshot snapshot;
+                try {
+                    snapshot = GraphSnapshot.open(damaged);
+                } catch (IOException expected) {
+                    // Damage to the sizes that open checks is caught before the checksum is read
+                    continue;
+                }
+                if (snapshot.verifyChecksum()) {
+                    throw new IllegalStateException("A flipped byte at " + position
+                            + " of the sections was not caught");
+                }
+            }
+        }
+        int length = random.nextInt(bytes.length);
+        writeDamaged(damaged, Arrays.copyOf(bytes, length));
+        try {
+            GraphSnapshot.open(damaged);
+            throw new IllegalStateException("A snapshot cut to " + length + " of " + bytes.length + " bytes opened");
+        } catch (IOException expected) {
+            // The header records the length of the file
+        }
+    }
+
+    /**
+     * Writes a damaged copy as a new file, so that a snapshot still mapping the previous copy never sees it change.
+     * @param damaged the file to write
+     * @param bytes the damaged bytes
+     * @throws IOException if the file cannot be written
+     */
+    private static void writeDamaged(Path damaged, byte[] bytes) throws IOException {
+        Files.deleteIfExists(damaged);
+        Files.write(damaged, bytes);
+    }
+
+    private static byte[] flipped(byte[] bytes, int position, Random random) {
+        byte[] copy = bytes.clone();
+        copy[position] ^= (byte) (1 + random.nextInt(255));
+        return copy;
+    }
+
+    /**
+     * Runs the check on one random graph.
+     * @param vertexCount the number of vertices
+     * @param random the source of the graph and the damage
+     * @param directory where to write the snapshots
+     * @throws IOException if a snapshot cannot be written or read
+     */
+    static void checkGraph(int vertexCount, Random random, Path directory) throws IOException {
+        int edgeCount = random.nextInt(3 * vertexCount + 1);
+        List<String> names = new ArrayList<>();
+        ConnectedGraph connectedGraph = new ConnectedGraph(vertexCount);
+        VertexDegree vertexDegree = new VertexDegree(vertexCount);
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            names.add("v" + vertex);
+            connectedGraph.addVertex("v" + vertex);
+            vertexDegree.addVertex("v" + vertex);
+        }
+        EdgeBatch edges = new EdgeBatch(edgeCount);
+        // The adjacency lists hold a self-loop twice, so the rows they save do too
+        EdgeBatch listedEdges = new EdgeBatch(edgeCount);
+        int[] degrees = new int[vertexCount];
+        for (int edge = 0; edge < edgeCount; edge++) {
+            int source = random.nextInt(vertexCount);
+            // Self-loops and parallel edges come up on purpose
+            int target = random.nextInt(6) == 0 ? source : random.nextInt(vertexCount);
+            edges.addEdge(source, target);
+            listedEdges.addEdge(source, target);
+            if (source == target) {
+                listedEdges.addEdge(source, target);
+            }
+            degrees[source]++;
+            degrees[target]++;
+            if (random.nextBoolean()) {
+                connectedGraph.createEdge("v" + source, "v" + target);
+                vertexDegree.addEdge("v" + source, "v" + target);
+            } else {
+                EdgeBatch single = new EdgeBatch(1);
+                single.addEdge(source, target);
+                connectedGraph.createEdges(single);
+                vertexDegree.addEdges(single);
+            }
+            // Leave some edges compressed and some listed
+            if (random.nextInt(4 * vertexCount) == 0) {
+                connectedGraph.compressAdjacency();
+                vertexDegree.compressAdjacency();
+            }
+        }
+        CompactGraph rows = edges.build(vertexCount, false, CompactGraph.DuplicatePolicy.KEEP);
+        CompactGraph listedRows = listedEdges.build(vertexCount, false, CompactGraph.DuplicatePolicy.KEEP);
+        int[] labels = componentLabels(rows);
+        int componentCount = countComponents(labels);
+        List<String> namedPrefix = names.subList(0, random.nextInt(vertexCount + 1));
+
+        Path compactFile = directory.resolve("compact.snapshot");
+        GraphFingerprint savedFingerprint = random.nextBoolean() ? connectedGraph.getFingerprint() : null;
+        GraphSnapshot.write(compactFile, rows, namedPrefix, savedFingerprint, labels);
+        GraphSnapshot compactSnapshot = GraphSnapshot.open(compactFile);
+        checkSnapshot(compactSnapshot, rows, namedPrefix, componentCount, savedFingerprint, "Compact rows");
+        if (compactSnapshot.getCompressedGraph() != null
+                || !Arrays.equals(compactSnapshot.getComponentLabels(), labels)) {
+            throw new IllegalStateException("Compact rows: the saved sections changed");
+        }
+        // Compact rows hold a self-loop once, which a restore must turn back into two list entries
+        ConnectedGraph restoredFromRows = ConnectedGraph.restoreSnapshot(compactFile, true);
+        checkRows(rows, restoredFromRows.toCompactGraph(), "ConnectedGraph restore of compact rows");
+        if (!restoredFromRows.getFingerprint().key("snapshot").equals(
+                connectedGraph.getFingerprint().key("snapshot"))) {
+            throw new IllegalStateException("ConnectedGraph restore of compact rows: the fingerprint changed");
+        }
+        VertexDegree degreesFromRows = VertexDegree.restoreSnapshot(compactFile, true);
+        for (int vertex = 0; vertex < namedPrefix.size(); vertex++) {
+            if (degreesFromRows.getVertexDegree("v" + vertex) != degrees[vertex]) {
+                throw new IllegalStateException("VertexDegree restore of compact rows: the degree of v" + vertex
+                        + " is " + degreesFromRows.getVertexDegree("v" + vertex) + " instead of " + degrees[vertex]);
+            }
+        }
+
+        Path compressedFile = directory.resolve("compressed.snapshot");
+        GraphSnapshot.write(compressedFile, CompressedGraph.compress(rows), namedPrefix, null, null);
+        GraphSnapshot compressedSnapshot = GraphSnapshot.open(compressedFile);
+        checkSnapshot(compressedSnapshot, rows, namedPrefix, -1, null, "Compressed rows");
+        checkRows(rows, compressedSnapshot.getCompressedGraph().decompress(), "Compressed rows in place");
+        boolean readRowStart = true;
+        try {
+            compressedSnapshot.getRowStart(0);
+        } catch (IllegalStateException expected) {
+            // Only the compressed rows were saved
+            readRowStart = false;
+        }
+        if (readRowStart) {
+            throw new IllegalStateException("Compressed rows: a snapshot without row arrays read a row start");
+        }
+
+        Path connectedFile = directory.resolve("connected.snapshot");
+        connectedGraph.saveSnapshot(connectedFile);
+        checkSnapshot(GraphSnapshot.open(connectedFile), listedRows, names, componentCount,
+                connectedGraph.getFingerprint(), "ConnectedGraph");
+        ConnectedGraph restoredGraph = ConnectedGraph.restoreSnapshot(connectedFile, true);
+        checkRows(rows, restoredGraph.toCompactGraph(), "ConnectedGraph restore");
+        if (restoredGraph.calculateConnectedComponents() != componentCount
+                || restoredGraph.checkGraphConnectivity() != (componentCount == 1)
+                || !restoredGraph.getFingerprint().key("snapshot").equals(
+                connectedGraph.getFingerprint().key("snapshot"))) {
+            throw new IllegalStateException("ConnectedGraph restore: the components or fingerprint changed");
+        }
+        for (int attempt = 0; attempt < 4; attempt++) {
+            int vertexOne = random.nextInt(vertexCount);
+            int vertexTwo = random.nextInt(vertexCount);
+            boolean connected = labels[vertexOne] == labels[vertexTwo];
+            if (restoredGraph.areConnected("v" + vertexOne, "v" + vertexTwo) != connected) {
+                throw new IllegalStateException("ConnectedGraph restore: v" + vertexOne + " and v" + vertexTwo
+                        + " are answered wrongly");
+            }
+        }
+
+        Path degreeFile = directory.resolve("degree.snapshot");
+        vertexDegree.saveSnapshot(degreeFile);
+        checkSnapshot(GraphSnapshot.open(degreeFile), listedRows, names, -1, null, "VertexDegree");
+        VertexDegree restoredDegrees = VertexDegree.restoreSnapshot(degreeFile, true);
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            if (restoredDegrees.getVertexDegree("v" + vertex) != degrees[vertex]) {
+                throw new IllegalStateException("VertexDegree restore: the degree of v" + vertex + " is "
+                        + restoredDegrees.getVertexDegree("v" + vertex) + " instead of " + degrees[vertex]);
+            }
+        }
+
+        Path damaged = directory.resolve("damaged.snapshot");
+        for (Path file : List.of(compactFile, compressedFile, connectedFile, degreeFile)) {
+            checkDamage(file, damaged, random);
+        }
+        try {
+            writeDamaged(damaged, flipped(Files.readAllBytes(connectedFile),
+                    (int) Files.size(connectedFile) - 1, random));
+            ConnectedGraph.restoreSnapshot(damaged, true);
+            throw new IllegalStateException("ConnectedGraph restored a snapshot with a damaged last byte");
+        } catch (IOException expected) {
+            // The payload checksum was asked for
+        }
+    }
+
+    /**
+     * The main method that runs the check.
+     * @param args the number of graphs, the largest vertex count and the random seed, all optional
+     * @throws IOException if a snapshot cannot be written or read
+     */
+    public static void main(String[] args) throws IOException {
+        int graphCount = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        int maxVertices = args.length > 1 ? Integer.parseInt(args[1]) : 40;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+
+        Random random = new Random(seed);
+        Path directory = Files.createTempDirectory("graph-snapshot-check");
+        try {
+            for (int graph = 0; graph < graphCount; graph++) {
+                checkGraph(1 + random.nextInt(maxVertices), random, directory);
+            }
+        } finally {
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : files.toList()) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(directory);
+        }
+        System.out.println(graphCount + " random graphs survive every snapshot round trip, and all damage is caught");
+    }
+}
@@ -3,22 +3,23 @@ import java.util.*;
 /**
  * This class represents a Graph using an incidence matrix.
  * It allows adding vertices and edges to the graph.
- * The graph is undirected.
+ * The graph is undirected, and every distinct edge has one column holding how many times it appears.
+ * The edges are stored in an {@link EdgeTable}; the matrix is derived from it when first needed.
  */
 public class IncidenceMatrix {
+    private final EdgeTable edgeTable;
     private int[][] incidenceMatrix;
+    private int matrixVersion = -1;
     private Map<String, Integer> vertexIndexMap;
-    private Map<String, Integer> edgeIndexMap;
 
     /**
      * Constructor for the Graph.
      * @param vertexCount the number of vertices in the graph
-     * @param edgeCount the number of edges in the graph
+     * @param edgeCount the expected number of distinct edges in the graph
      */
     public IncidenceMatrix(int vertexCount, int edgeCount) {
-        incidenceMatrix = new int[vertexCount][edgeCount];
+        edgeTable = new EdgeTable(vertexCount, edgeCount);
         vertexIndexMap = new HashMap<>();
-        edgeIndexMap = new HashMap<>();
     }
 
     /**
@@ -33,26 +34,49 @@ public class IncidenceMatrix {
     }
 
     /**
-     * Adds an edge to the graph.
+     * Adds an edge to the graph. Adding an edge that already exists, in either direction,
+     * adds to the count in its column instead of adding a column.
      * @param vertex1 the first vertex of the edge
      * @param vertex2 the second vertex of the edge
      * @param count the number of times the edge appears
-     * @throws IllegalArgumentException if either vertex does not exist
+     * @return the id of the edge, which is its column in the matrix
+     * @throws IllegalArgumentException if either vertex does not exist or the count is not positive
      */
-    public void addEdge(String vertex1, String vertex2, int count) {
+    public int addEdge(String vertex1, String vertex2, int count) {
         if (!vertexIndexMap.containsKey(vertex1) || !vertexIndexMap.containsKey(vertex2)) {
             throw new IllegalArgumentException("Both vertices must exist");
         }
-        String edge = vertex1 + "-" + vertex2;
-        if (edgeIndexMap.containsKey(edge)) {
-            throw new IllegalArgumentException("Edge already exists: " + edge);
+        int edgeIndex = edgeTable.addEdge(vertexIndexMap.get(vertex1), vertexIndexMap.get(vertex2), false, count);
+        GraphMetrics.increment(GraphMetrics.Counter.EDGES_BUILT);
+        return edgeIndex;
+    }
+
+    /**
+     * Converts the graph to an undirected compact graph whose multiplicities are the edge counts.
+     * @return the compact graph
+     */
+    public CompactGraph toCompactGraph() {
+        return edgeTable.toCompactGraph();
+    }
+
+    /**
+     * Gets the edge table the matrix is derived from.
+     * @return the edge table
+     */
+    public EdgeTable getEdgeTable() {
+        return edgeTable;
+    }
+
+    /**
+     * Gets the incidence matrix, deriving it again if edges were added since it was last derived.
+     * @return the incidence matrix, with one row per vertex and one column per distinct edge
+     */
+    public int[][] getMatrix() {
+        if (matrixVersion != edgeTable.getVersion()) {
+            incidenceMatrix = edgeTable.toIncidenceMatrix();
+            matrixVersion = edgeTable.getVersion();
         }
-        int edgeIndex = edgeIndexMap.size();
-        edgeIndexMap.put(edge, edgeIndex);
-        int vertex1Index = vertexIndexMap.get(vertex1);
-        int vertex2Index = vertexIndexMap.get(vertex2);
-        incidenceMatrix[vertex1Index][edgeIndex] = count;
-        incidenceMatrix[vertex2Index][edgeIndex] = count;
+        return incidenceMatrix;
     }
 
     /**
@@ -60,6 +84,7 @@ public class IncidenceMatrix {
      */
     public void printMatrix() {
         System.out.println("\nThe incidence matrix of the graph: ");
+        int[][] incidenceMatrix = getMatrix();
         for (int i = 0; i < incidenceMatrix.length; i++) {
             for (int j = 0; j < incidenceMatrix[i].length; j++) {
                 System.out.print(incidenceMatrix[i][j] + " ");
@@ -0,0 +1,175 @@
+import java.util.*;
+
+/**
+ * This class represents a min-priority queue of int items 0 .. capacity - 1 with long keys.
+ * Items are kept in a d-ary heap of primitive arrays, and every item's heap position is tracked,
+ * so the key of a queued item can be decreased in place instead of queuing the item again.
+ */
+public class IndexedDaryHeap {
+    private final int arity;
+    private final int[] heap;
+    private final int[] positions;
+    private final long[] keys;
+    private int size;
+
+    /**
+     * Constructs a new empty heap.
+     * @param capacity the number of distinct items, which are numbered 0 .. capacity - 1
+     * @param arity the number of children of every heap node, at least 2
+     * @throws IllegalArgumentException if the arity is less than 2
+     */
+    public IndexedDaryHeap(int capacity, int arity) {
+        if (arity < 2) {
+            throw new IllegalArgumentException("Heap arity must be at least 2");
+        }
+        this.arity = arity;
+        heap = new int[capacity];
+        positions = new int[capacity];
+        keys = new long[capacity];
+        Arrays.fill(positions, -1);
+    }
+
+    /**
+     * Checks if the heap is empty.
+     * @return true if no item is queued, false otherwise
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Gets the number of queued items.
+     * @return the number of queued items
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if an item is queued.
+     * @param item the item to check
+     * @return true if the item is in the heap, false otherwise
+     */
+    public boolean contains(int item) {
+        return positions[item] != -1;
+    }
+
+    /**
+     * Queues an item, or lowers its key if it is already queued with a larger key.
+     * @param item the item to queue
+     * @param key the key of the item
+     * @return true if the item was queued or its key lowered, false if it was already queued with a key no larger
+     */
+    public boolean insertOrDecrease(int item, long key) {
+        int position = positions[item];
+        if (position == -1) {
+            position = size++;
+            heap[position] = item;
+            positions[item] = position;
+        } else if (key >= keys[item]) {
+            return false;
+        }
+        keys[item] = key;
+        siftUp(position);
+        return true;
+    }
+
+    /**
+     * Gets the item with the smallest key without removing it.
+     * @return the item with the smallest key
+     * @throws NoSuchElementException if the heap is empty
+     */
+    public int peek() {
+        if (size == 0) {
+            throw new NoSuchElementException("Heap is empty");
+        }
+        return heap[0];
+    }
+
+    /**
+     * Gets the smallest key in the heap.
+     * @return the smallest key
+     * @throws NoSuchElementException if the heap is empty
+     */
+    public long peekKey() {
+        return keys[peek()];
+    }
+
+    /**
+     * Removes the item with the smallest key.
+     * @return the removed item
+     * @throws NoSuchElementException if the heap is empty
+     */
+    public int poll() {
+        int top = peek();
+        positions[top] = -1;
+        size--;
+        if (size > 0) {
+            heap[0] = heap[size];
+            positions[heap[0]] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    /**
+     * Gets the key an item was last queued with.
+     * @param item the item to look up
+     * @return the key of the item
+     */
+    public long getKey(int item) {
+        return keys[item];
+    }
+
+    /**
+     * Moves the item at a position up until its parent's key is no larger.
+     * @param position the heap position to start from
+     */
+    private void siftUp(int position) {
+        int item = heap[position];
+        long key = keys[item];
+        while (position > 0) {
+            int parentPosition = (position - 1) / arity;
+            int parent = heap[parentPosition];
+            if (keys[parent] <= key) {
+                break;
+            }
+            heap[position] = parent;
+            positions[parent] = position;
+            position = parentPosition;
+        }
+        heap[position] = item;
+        positions[item] = position;
+    }
+
+    /**
+     * Moves the item at a position down until none of its children has a smaller key.
+     * @param position the heap position to start from
+     */
+    private void siftDown(int position) {
+        int item = heap[position];
+        long key = keys[item];
+        while (true) {
+            int firstChild = position * arity + 1;
+            if (firstChild >= size) {
+                break;
+            }
+            int lastChild = Math.min(firstChild + arity, size);
+            int smallestPosition = firstChild;
+            for (int child = firstChild + 1; child < lastChild; child++) {
+                if (keys[heap[child]] < keys[heap[smallestPosition]]) {
+                    smallestPosition = child;
+                }
+            }
+            int smallest = heap[smallestPosition];
+            if (keys[smallest] >= key) {
+                break;
+            }
+            heap[position] = smallest;
+            positions[smallest] = position;
+            position = smallestPosition;
+        }
+        heap[position] = item;
+        positions[item] = position;
+    }
+}
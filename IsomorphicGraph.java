@@ -30,26 +30,34 @@ public class IsomorphicGraph {
     }
 
     /**
-     * Checks if there is a connection between two vertices in the first graph.
+     * Checks if an entry of the first graph matches the entry of the second graph it is mapped to.
      *
-     * @param vertex1 the first vertex
-     * @param vertex2 the second vertex
-     * @return true if there is a connection, false otherwise
+     * @param from1 the row in the first graph
+     * @param to1 the column in the first graph
+     * @param from2 the row in the second graph
+     * @param to2 the column in the second graph
+     * @return true if both graphs hold the same number of edges there, false otherwise
      */
-    private boolean isConnectedInFirstGraph(int vertex1, int vertex2) {
-        return firstGraph[vertex1][vertex2] == 1;
+    private boolean isSameEntry(int from1, int to1, int from2, int to2) {
+        return firstGraph[from1][to1] == secondGraph[from2][to2];
     }
 
     /**
-     * Checks if two vertices are isomorphic.
+     * Checks if a vertex of the first graph can be mapped to a vertex of the second graph,
+     * given the vertices mapped so far: its self-loops and its edges to and from every mapped vertex
+     * must match the edges of its image.
      *
      * @param vertex1 the vertex in the first graph
      * @param vertex2 the vertex in the second graph
      * @return true if the vertices are isomorphic, false otherwise
      */
     private boolean isIsomorphic(int vertex1, int vertex2) {
+        if (!isSameEntry(vertex1, vertex1, vertex2, vertex2)) {
+            return false;
+        }
         for (int i = 0; i < firstGraph.length; i++) {
-            if (vertexMapping[i] != -1 && (isConnectedInFirstGraph(vertex1, i) != isConnectedInFirstGraph(vertex2, vertexMapping[i]))) {
+            if (vertexMapping[i] != -1 && (!isSameEntry(vertex1, i, vertex2, vertexMapping[i])
+                    || !isSameEntry(i, vertex1, vertexMapping[i], vertex2))) {
                 return false;
             }
         }
@@ -65,6 +73,7 @@ public class IsomorphicGraph {
     private boolean checkIsomorphismFromVertex(int vertex) {
         for (int i = 0; i < secondGraph.length; i++) {
             if (!visitedVertices[i] && isIsomorphic(vertex, i)) {
+                GraphMetrics.increment(GraphMetrics.Counter.ISOMORPHISM_NODES);
                 visitedVertices[i] = true;
                 vertexMapping[vertex] = i;
 
@@ -82,11 +91,29 @@ public class IsomorphicGraph {
 
     /**
      * Checks if the two graphs are isomorphic.
+     * The matrices are fingerprinted on every call, which costs far less than the search, and the answer
+     * is cached for that pair of graphs in either order.
      *
      * @return true if the graphs are isomorphic, false otherwise
      */
     public boolean areGraphsIsomorphic() {
-        return checkIsomorphismFromVertex(0);
+        GraphFingerprint.Key key = GraphFingerprint.ofMatrix(firstGraph)
+                .pairKey("isomorphism", GraphFingerprint.ofMatrix(secondGraph));
+        return ResultCache.shared().get(key, this::searchForMapping);
+    }
+
+    /**
+     * Searches for a vertex mapping from the first graph to the second one.
+     *
+     * @return true if a mapping exists, false otherwise
+     */
+    private boolean searchForMapping() {
+        long start = GraphMetrics.startTimer();
+        Arrays.fill(visitedVertices, false);
+        Arrays.fill(vertexMapping, -1);
+        boolean isomorphic = firstGraph.length == 0 || checkIsomorphismFromVertex(0);
+        GraphMetrics.stopTimer(GraphMetrics.Timer.ISOMORPHISM, start);
+        return isomorphic;
     }
 
     /**
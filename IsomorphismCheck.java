@@ -0,0 +1,180 @@
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * This class cross-checks {@link IsomorphicGraph} and the ISOMORPHIC request of {@link GraphQueryServer}
+ * against brute force on random graphs. Every answer is compared with a search over all vertex permutations.
+ * Half of the pairs relabel the same graph, so they must be isomorphic; the other half are random graphs with
+ * the same number of edges, which usually share their degree sequence only by chance. The matrices include
+ * self-loops, and some of them are directed. Any disagreement stops the check with an exception.
+ * Usage: java IsomorphismCheck [pairCount] [maxVertices] [seed]
+ */
+public class IsomorphismCheck {
+
+    /**
+     * Checks every vertex permutation for one that maps the first matrix onto the second.
+     * @param first the first adjacency matrix
+     * @param second the second adjacency matrix
+     * @return true if some permutation maps every entry of the first matrix onto an equal entry of the second
+     */
+    static boolean bruteForce(int[][] first, int[][] second) {
+        int[] permutation = new int[first.length];
+        for (int i = 0; i < permutation.length; i++) {
+            permutation[i] = i;
+        }
+        do {
+            boolean matches = true;
+            for (int i = 0; i < first.length && matches; i++) {
+                for (int j = 0; j < first.length && matches; j++) {
+                    matches = first[i][j] == second[permutation[i]][permutation[j]];
+                }
+            }
+            if (matches) {
+                return true;
+            }
+        } while (nextPermutation(permutation));
+        return false;
+    }
+
+    /**
+     * Moves an array to the next permutation in lexicographic order.
+     * @param values the permutation to advance
+     * @return false if it was the last permutation, true otherwise
+     */
+    private static boolean nextPermutation(int[] values) {
+        int i = values.length - 2;
+        while (i >= 0 && values[i] >= values[i + 1]) {
+            i--;
+        }
+        if (i < 0) {
+            return false;
+        }
+        int j = values.length - 1;
+        while (values[j] <= values[i]) {
+            j--;
+        }
+        int swap = values[i];
+        values[i] = values[j];
+        values[j] = swap;
+        for (int left = i + 1, right = values.length - 1; left < right; left++, right--) {
+            swap = values[left];
+            values[left] = values[right];
+            values[right] = swap;
+        }
+        return true;
+    }
+
+    /**
+     * Builds a random 0/1 adjacency matrix.
+     * @param vertexCount the number of vertices
+     * @param edgeCount the number of edges to draw, some of which may coincide
+     * @param directed whether to set only one entry per edge
+     * @param random the source of randomness
+     * @return the matrix
+     */
+    static int[][] randomMatrix(int vertexCount, int edgeCount, boolean directed, Random random) {
+        int[][] matrix = new int[vertexCount][vertexCount];
+        for (int edge = 0; edge < edgeCount; edge++) {
+            int from = random.nextInt(vertexCount);
+            int to = random.nextInt(vertexCount);
+            matrix[from][to] = 1;
+            if (!directed) {
+                matrix[to][from] = 1;
+            }
+        }
+        return matrix;
+    }
+
+    /**
+     * Relabels the vertices of a matrix with a random permutation.
+     * @param matrix the matrix to relabel
+     * @param random the source of randomness
+     * @return the relabeled matrix
+     */
+    static int[][] relabel(int[][] matrix, Random random) {
+        List<Integer> permutation = new ArrayList<>();
+        for (int i = 0; i < matrix.length; i++) {
+            permutation.add(i);
+        }
+        Collections.shuffle(permutation, random);
+        int[][] relabeled = new int[matrix.length][matrix.length];
+        for (int i = 0; i < matrix.length; i++) {
+            for (int j = 0; j < matrix.length; j++) {
+                relabeled[permutation.get(i)][permutation.get(j)] = matrix[i][j];
+            }
+        }
+        return relabeled;
+    }
+
+    /**
+     * Asks a query server whether its graph is isomorphic to a matrix, the way a client would.
+     * @param first the undirected matrix the server holds
+     * @param second the undirected matrix to send as an edge list
+     * @return the server's answer
+     * @throws IOException if the server cannot be started
+     */
+    static String askServer(int[][] first, int[][] second) throws IOException {
+        int vertexCount = first.length;
+        ConcurrentGraph graph = new ConcurrentGraph(vertexCount);
+        for (int v = 0; v < vertexCount; v++) {
+            graph.addVertex("v" + v);
+        }
+        StringBuilder request = new StringBuilder("ISOMORPHIC");
+        for (int i = 0; i < vertexCount; i++) {
+            for (int j = i; j < vertexCount; j++) {
+                if (first[i][j] != 0) {
+                    graph.createEdge("v" + i, "v" + j);
+                }
+                if (second[i][j] != 0) {
+                    request.append(" u").append(i).append("-u").append(j);
+                }
+            }
+        }
+        try (GraphQueryServer server = new GraphQueryServer(graph, 0)) {
+            return server.answer(request.toString());
+        }
+    }
+
+    /**
+     * The main method that runs the check.
+     * @param args the number of graph pairs, the largest vertex count and the random seed, all optional
+     * @throws IOException if a query server cannot be started
+     */
+    public static void main(String[] args) throws IOException {
+        int pairCount = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int maxVertices = args.length > 1 ? Integer.parseInt(args[1]) : 7;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+
+        Random random = new Random(seed);
+        int isomorphicPairs = 0;
+        for (int pair = 0; pair < pairCount; pair++) {
+            int vertexCount = 1 + random.nextInt(maxVertices);
+            boolean directed = random.nextInt(4) == 0;
+            int edgeCount = random.nextInt(vertexCount * vertexCount / 2 + 2);
+            int[][] first = randomMatrix(vertexCount, edgeCount, directed, random);
+            int[][] second = random.nextBoolean() ? relabel(first, random)
+                    : randomMatrix(vertexCount, edgeCount, directed, random);
+
+            boolean expected = bruteForce(first, second);
+            isomorphicPairs += expected ? 1 : 0;
+            ResultCache.shared().clear();
+            if (new IsomorphicGraph(first, second).areGraphsIsomorphic() != expected) {
+                throw new IllegalStateException("Pair " + pair + ": IsomorphicGraph should answer " + expected
+                        + " for " + Arrays.deepToString(first) + " and " + Arrays.deepToString(second));
+            }
+            // A cached answer must hold for the pair in either order
+            if (new IsomorphicGraph(second, first).areGraphsIsomorphic() != expected) {
+                throw new IllegalStateException("Pair " + pair + ": the cached answer is not " + expected);
+            }
+            if (!directed) {
+                String answer = askServer(first, second);
+                if (!answer.equals(String.valueOf(expected))) {
+                    throw new IllegalStateException("Pair " + pair + ": ISOMORPHIC answered " + answer + " instead of "
+                            + expected + " for " + Arrays.deepToString(first) + " and " + Arrays.deepToString(second));
+                }
+            }
+        }
+        System.out.println(pairCount + " random graph pairs (" + isomorphicPairs
+                + " isomorphic) agree with a brute-force permutation search");
+    }
+}
@@ -0,0 +1,125 @@
+import java.util.*;
+
+/**
+ * This class measures how much {@link VertexOrdering} speeds up the traversals of the graph classes themselves,
+ * rather than of a bare {@link CompactGraph}: the component count of {@link ConnectedGraph}, the cycle search of
+ * {@link CycleGraph} and both bipartite checks of {@link BipartiteGraph}, each timed before and after the class's
+ * own reorderVertices. The graph is a random recursive tree, where every vertex hangs off an earlier one,
+ * with shuffled names and edges added in shuffled order, so that insertion order says nothing about the structure.
+ * A tree has no cycle and is bipartite, so none of the searches stops early.
+ * Usage: java ReorderedTraversalBenchmark [vertexCount] [seed]
+ */
+public class ReorderedTraversalBenchmark {
+    private static final int RUNS = 5;
+
+    /**
+     * Runs a task several times and keeps the fastest run. Cached answers are dropped before every run,
+     * so every run really traverses the graph.
+     * @param task the task to time
+     * @return the fastest time in milliseconds
+     */
+    private static double bestOf(Runnable task) {
+        long best = Long.MAX_VALUE;
+        for (int run = 0; run < RUNS; run++) {
+            ResultCache.shared().clear();
+            long start = System.nanoTime();
+            task.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best / 1e6;
+    }
+
+    /**
+     * Prints one row of the table.
+     * @param name the traversal
+     * @param strategy the ordering applied, or INSERTION for none
+     * @param millis the time of the traversal
+     * @param baseline the time of the traversal before reordering
+     */
+    private static void report(String name, String strategy, double millis, double baseline) {
+        System.out.printf("%-40s %-14s %10.1f %8.2fx%n", name, strategy, millis, baseline / millis);
+    }
+
+    /**
+     * The main method that runs the benchmark.
+     * @param args the vertex count and the random seed, both optional
+     */
+    public static void main(String[] args) {
+        int vertexCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 42;
+
+        Random random = new Random(seed);
+        int[] labels = new int[vertexCount];
+        for (int v = 0; v < vertexCount; v++) {
+            int j = random.nextInt(v + 1);
+            labels[v] = labels[j];
+            labels[j] = v;
+        }
+        int edgeCount = Math.max(vertexCount - 1, 0);
+        int[][] edges = new int[edgeCount][];
+        for (int v = 1; v < vertexCount; v++) {
+            edges[v - 1] = new int[]{labels[random.nextInt(v)], labels[v]};
+        }
+        Collections.shuffle(Arrays.asList(edges), random);
+        String[] names = new String[vertexCount];
+        for (int v = 0; v < vertexCount; v++) {
+            names[v] = "v" + v;
+        }
+        System.out.printf("Random recursive tree: %d vertices, %d edges%n", vertexCount, edgeCount);
+        System.out.printf("%-40s %-14s %10s %9s%n", "Traversal", "Ordering", "Best ms", "Speedup");
+
+        List<String> strategies = new ArrayList<>();
+        strategies.add("INSERTION");
+        for (VertexOrdering.Strategy strategy : VertexOrdering.Strategy.values()) {
+            strategies.add(strategy.name());
+        }
+
+        double baseline = 0;
+        for (String strategy : strategies) {
+            ConnectedGraph graph = new ConnectedGraph(vertexCount);
+            for (int[] edge : edges) {
+                graph.addVertex(names[edge[0]]);
+                graph.addVertex(names[edge[1]]);
+                graph.createEdge(names[edge[0]], names[edge[1]]);
+            }
+            if (!strategy.equals("INSERTION")) {
+                graph.reorderVertices(VertexOrdering.Strategy.valueOf(strategy));
+            }
+            double millis = bestOf(graph::calculateConnectedComponents);
+            baseline = strategy.equals("INSERTION") ? millis : baseline;
+            report("ConnectedGraph components", strategy, millis, baseline);
+        }
+
+        for (String strategy : strategies) {
+            CycleGraph graph = new CycleGraph(vertexCount, false);
+            for (int[] edge : edges) {
+                graph.addEdge(names[edge[0]], names[edge[1]]);
+            }
+            if (!strategy.equals("INSERTION")) {
+                graph.reorderVertices(VertexOrdering.Strategy.valueOf(strategy));
+            }
+            double millis = bestOf(graph::findCycle);
+            baseline = strategy.equals("INSERTION") ? millis : baseline;
+            report("CycleGraph cycle search", strategy, millis, baseline);
+        }
+
+        double compactBaseline = 0;
+        for (String strategy : strategies) {
+            BipartiteGraph graph = new BipartiteGraph(vertexCount);
+            for (int[] edge : edges) {
+                graph.addVertex(names[edge[0]]);
+                graph.addVertex(names[edge[1]]);
+                graph.addEdge(names[edge[0]], names[edge[1]]);
+            }
+            if (!strategy.equals("INSERTION")) {
+                graph.reorderVertices(VertexOrdering.Strategy.valueOf(strategy));
+            }
+            double millis = bestOf(graph::checkIfBipartite);
+            double compactMillis = bestOf(() -> graph.checkIfBipartite(false));
+            baseline = strategy.equals("INSERTION") ? millis : baseline;
+            compactBaseline = strategy.equals("INSERTION") ? compactMillis : compactBaseline;
+            report("BipartiteGraph checkIfBipartite()", strategy, millis, baseline);
+            report("BipartiteGraph checkIfBipartite(false)", strategy, compactMillis, compactBaseline);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * This class represents a bounded cache of analysis results, keyed by {@link GraphFingerprint} keys.
+ * The least recently used results are evicted once either the number of entries or their estimated size
+ * in bytes goes over its limit. Results are computed outside the lock, so a slow analysis never blocks
+ * lookups for other graphs; two threads missing on the same key may both compute it.
+ * The shared cache holds -Dgraph.cache.entries results (1024 by default) and -Dgraph.cache.bytes bytes
+ * (16 MiB by default); setting either to 0 turns caching off.
+ */
+public final class ResultCache {
+    private static final ResultCache SHARED = new ResultCache(Integer.getInteger("graph.cache.entries", 1024),
+            Long.getLong("graph.cache.bytes", 16L << 20));
+    /** A rough size of a key, a map entry and a boxed result, in bytes. */
+    private static final long ENTRY_OVERHEAD = 128;
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final LinkedHashMap<GraphFingerprint.Key, Object> results = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<GraphFingerprint.Key, Long> resultSizes = new HashMap<>();
+    private long totalBytes;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Constructs a new ResultCache with the given limits.
+     * @param maxEntries the largest number of results to keep
+     * @param maxBytes the largest estimated size of the kept results, in bytes
+     * @throws IllegalArgumentException if either limit is negative
+     */
+    public ResultCache(int maxEntries, long maxBytes) {
+        if (maxEntries < 0 || maxBytes < 0) {
+            throw new IllegalArgumentException("Cache limits must not be negative");
+        }
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Gets the cache shared by all graph classes.
+     * @return the shared cache
+     */
+    public static ResultCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * Gets a cached result, computing and caching it if it is missing.
+     * @param key the fingerprint of the graph and the analysis to run on it
+     * @param analysis the analysis, run only on a miss; it must not return null
+     * @param <T> the type of the result, which must be immutable or never modified by callers
+     * @return the cached or computed result
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(GraphFingerprint.Key key, Supplier<T> analysis) {
+        Object cached;
+        synchronized (this) {
+            cached = results.get(key);
+        }
+        if (cached != null) {
+            hits.increment();
+            GraphMetrics.increment(GraphMetrics.Counter.CACHE_HITS);
+            return (T) cached;
+        }
+        misses.increment();
+        GraphMetrics.increment(GraphMetrics.Counter.CACHE_MISSES);
+        T result = analysis.get();
+        put(key, result);
+        return result;
+    }
+
+    private synchronized void put(GraphFingerprint.Key key, Object result) {
+        long size = ENTRY_OVERHEAD + estimateSize(result);
+        if (maxEntries == 0 || size > maxBytes) {
+            return;
+        }
+        if (results.put(key, result) != null) {
+            totalBytes -= resultSizes.get(key);
+        }
+        resultSizes.put(key, size);
+        totalBytes += size;
+        Iterator<Map.Entry<GraphFingerprint.Key, Object>> eldest = results.entrySet().iterator();
+        while (results.size() > maxEntries || totalBytes > maxBytes) {
+            GraphFingerprint.Key evicted = eldest.next().getKey();
+            eldest.remove();
+            totalBytes -= resultSizes.remove(evicted);
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Estimates the memory held by a result beyond the fixed overhead of an entry.
+     * @param result the result
+     * @return the estimated size in bytes
+     */
+    private static long estimateSize(Object result) {
+        if (result instanceof int[]) {
+            return 16 + 4L * ((int[]) result).length;
+        }
+        if (result instanceof long[]) {
+            return 16 + 8L * ((long[]) result).length;
+        }
+        return 0;
+    }
+
+    /**
+     * Removes every cached result. The hit, miss and eviction counts are kept.
+     */
+    public synchronized void clear() {
+        results.clear();
+        resultSizes.clear();
+        totalBytes = 0;
+    }
+
+    /**
+     * Gets the number of lookups answered from the cache.
+     * @return the number of hits
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of lookups that had to run the analysis.
+     * @return the number of misses
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Gets the number of results dropped to stay within the limits.
+     * @return the number of evictions
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Gets the number of cached results.
+     * @return the number of entries
+     */
+    public synchronized int size() {
+        return results.size();
+    }
+
+    /**
+     * Gets the estimated size of the cached results.
+     * @return the estimated size in bytes
+     */
+    public synchronized long getSizeInBytes() {
+        return totalBytes;
+    }
+}
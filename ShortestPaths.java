@@ -0,0 +1,399 @@
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * This class computes shortest paths on a {@link CompactGraph}.
+ * Unweighted searches count hops; weighted searches use every neighbor entry's multiplicity as its length,
+ * which is the edge count held by {@link AdjacencyMatrix}, {@link EdgeCounter} and {@link IncidenceMatrix}.
+ */
+public class ShortestPaths {
+    /** The distance of a vertex that cannot be reached. */
+    public static final long UNREACHABLE = -1;
+
+    private static final int HEAP_ARITY = 4;
+
+    private ShortestPaths() {
+    }
+
+    /**
+     * This class represents the shortest paths from one source to every vertex.
+     */
+    public static final class PathResult {
+        private final int source;
+        private final long[] distances;
+        private final int[] predecessors;
+
+        private PathResult(int source, long[] distances, int[] predecessors) {
+            this.source = source;
+            this.distances = distances;
+            this.predecessors = predecessors;
+        }
+
+        /**
+         * Gets the distance of every vertex from the source, or UNREACHABLE.
+         * @return the distances, indexed by vertex
+         */
+        public long[] getDistances() {
+            return distances;
+        }
+
+        /**
+         * Gets the vertex before every vertex on its shortest path, or -1 for the source and unreachable vertices.
+         * @return the predecessors, indexed by vertex
+         */
+        public int[] getPredecessors() {
+            return predecessors;
+        }
+
+        /**
+         * Gets the shortest path from the source to a vertex.
+         * @param target the vertex to reach
+         * @return the vertices on the path, from the source to the target, or an empty array if it cannot be reached
+         */
+        public int[] getPath(int target) {
+            if (distances[target] == UNREACHABLE) {
+                return new int[0];
+            }
+            int length = 1;
+            for (int v = target; v != source; v = predecessors[v]) {
+                length++;
+            }
+            int[] path = new int[length];
+            for (int v = target, i = length - 1; i >= 0; v = predecessors[v], i--) {
+                path[i] = v;
+            }
+            return path;
+        }
+    }
+
+    /**
+     * This class represents a single shortest path between two vertices.
+     */
+    public static final class Route {
+        private final long distance;
+        private final int[] path;
+
+        private Route(long distance, int[] path) {
+            this.distance = distance;
+            this.path = path;
+        }
+
+        /**
+         * Gets the length of the route.
+         * @return the distance, or UNREACHABLE if there is no route
+         */
+        public long getDistance() {
+            return distance;
+        }
+
+        /**
+         * Gets the vertices on the route.
+         * @return the vertices from source to target, or an empty array if there is no route
+         */
+        public int[] getPath() {
+            return path;
+        }
+    }
+
+    /**
+     * Computes hop distances from a source with breadth-first search (BFS).
+     * @param graph the graph to search
+     * @param source the vertex to start from
+     * @return the distances and predecessors of every vertex
+     */
+    public static PathResult breadthFirst(CompactGraph graph, int source) {
+        long start = GraphMetrics.startTimer();
+        int vertexCount = graph.getVertexCount();
+        long[] distances = new long[vertexCount];
+        int[] predecessors = new int[vertexCount];
+        Arrays.fill(distances, UNREACHABLE);
+        Arrays.fill(predecessors, -1);
+        int[] queue = new int[vertexCount];
+        int head = 0;
+        int tail = 0;
+        distances[source] = 0;
+        queue[tail++] = source;
+        while (head < tail) {
+            int current = queue[head++];
+            for (int i = graph.getRowStart(current); i < graph.getRowEnd(current); i++) {
+                int neighbor = graph.getNeighbor(i);
+                if (distances[neighbor] == UNREACHABLE) {
+                    distances[neighbor] = distances[current] + 1;
+                    predecessors[neighbor] = current;
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+        GraphMetrics.add(GraphMetrics.Counter.TRAVERSAL_VISITS, tail);
+        GraphMetrics.stopTimer(GraphMetrics.Timer.SHORTEST_PATH, start);
+        return new PathResult(source, distances, predecessors);
+    }
+
+    /**
+     * Computes weighted distances from a source with Dijkstra's algorithm on an indexed 4-ary heap.
+     * @param graph the graph to search; every neighbor entry's multiplicity is its length
+     * @param source the vertex to start from
+     * @return the distances and predecessors of every vertex
+     */
+    public static PathResult dijkstra(CompactGraph graph, int source) {
+        long start = GraphMetrics.startTimer();
+        int vertexCount = graph.getVertexCount();
+        long[] distances = new long[vertexCount];
+        int[] predecessors = new int[vertexCount];
+        Arrays.fill(distances, UNREACHABLE);
+        Arrays.fill(predecessors, -1);
+        boolean[] settled = new boolean[vertexCount];
+        IndexedDaryHeap heap = new IndexedDaryHeap(vertexCount, HEAP_ARITY);
+        distances[source] = 0;
+        heap.insertOrDecrease(source, 0);
+        while (!heap.isEmpty()) {
+            int current = heap.poll();
+            settled[current] = true;
+            GraphMetrics.increment(GraphMetrics.Counter.TRAVERSAL_VISITS);
+            for (int i = graph.getRowStart(current); i < graph.getRowEnd(current); i++) {
+                int neighbor = graph.getNeighbor(i);
+                long candidate = distances[current] + graph.getMultiplicity(i);
+                if (!settled[neighbor] && (distances[neighbor] == UNREACHABLE || candidate < distances[neighbor])) {
+                    distances[neighbor] = candidate;
+                    predecessors[neighbor] = current;
+                    heap.insertOrDecrease(neighbor, candidate);
+                }
+            }
+        }
+        GraphMetrics.stopTimer(GraphMetrics.Timer.SHORTEST_PATH, start);
+        return new PathResult(source, distances, predecessors);
+    }
+
+    /**
+     * Finds a fewest-hops route between two vertices by growing a BFS from both ends.
+     * The smaller frontier is expanded one whole level at a time, and the search stops at the first level where the two sides meet.
+     * @param graph the graph to search
+     * @param source the vertex to start from
+     * @param target the vertex to reach
+     * @return the route, with its number of hops as the distance
+     */
+    public static Route bidirectionalBreadthFirst(CompactGraph graph, int source, int target) {
+        long start = GraphMetrics.startTimer();
+        CompactGraph reverse = graph.transpose();
+        int vertexCount = graph.getVertexCount();
+        int[] forwardParents = new int[vertexCount];
+        int[] backwardParents = new int[vertexCount];
+        Arrays.fill(forwardParents, -2);
+        Arrays.fill(backwardParents, -2);
+        forwardParents[source] = -1;
+        backwardParents[target] = -1;
+        int[] forwardFrontier = {source};
+        int[] backwardFrontier = {target};
+        int meetingVertex = source == target ? source : -1;
+
+        while (meetingVertex == -1 && forwardFrontier.length > 0 && backwardFrontier.length > 0) {
+            // The first meeting found in a level is as short as any other one in that level,
+            // because every vertex of a frontier is the same number of hops from its own end
+            if (forwardFrontier.length <= backwardFrontier.length) {
+                int[] result = expandLevel(graph, forwardFrontier, forwardParents, backwardParents);
+                meetingVertex = result.length == 1 && result[0] < 0 ? -result[0] - 1 : -1;
+                forwardFrontier = meetingVertex == -1 ? result : forwardFrontier;
+            } else {
+                int[] result = expandLevel(reverse, backwardFrontier, backwardParents, forwardParents);
+                meetingVertex = result.length == 1 && result[0] < 0 ? -result[0] - 1 : -1;
+                backwardFrontier = meetingVertex == -1 ? result : backwardFrontier;
+            }
+        }
+        GraphMetrics.stopTimer(GraphMetrics.Timer.SHORTEST_PATH, start);
+        if (meetingVertex == -1) {
+            return new Route(UNREACHABLE, new int[0]);
+        }
+        int[] path = joinPaths(meetingVertex, forwardParents, backwardParents);
+        return new Route(path.length - 1, path);
+    }
+
+    /**
+     * Expands one BFS level.
+     * @param graph the graph to expand along
+     * @param frontier the vertices of the current level
+     * @param parents the parents found by this side, updated in place; -2 means not reached
+     * @param otherParents the parents found by the other side
+     * @return the next level, or a single entry -(v + 1) if vertex v was reached by both sides
+     */
+    private static int[] expandLevel(CompactGraph graph, int[] frontier, int[] parents, int[] otherParents) {
+        int[] next = new int[16];
+        int nextSize = 0;
+        for (int current : frontier) {
+            for (int i = graph.getRowStart(current); i < graph.getRowEnd(current); i++) {
+                int neighbor = graph.getNeighbor(i);
+                if (parents[neighbor] != -2) {
+                    continue;
+                }
+                parents[neighbor] = current;
+                if (otherParents[neighbor] != -2) {
+                    return new int[]{-neighbor - 1};
+                }
+                if (nextSize == next.length) {
+                    next = Arrays.copyOf(next, nextSize * 2);
+                }
+                next[nextSize++] = neighbor;
+            }
+        }
+        GraphMetrics.add(GraphMetrics.Counter.TRAVERSAL_VISITS, nextSize);
+        return Arrays.copyOf(next, nextSize);
+    }
+
+    /**
+     * Finds a shortest weighted route between two vertices with bidirectional Dijkstra.
+     * The search alternates between the two ends and stops once the two smallest open keys add up to at least the best route found.
+     * @param graph the graph to search; every neighbor entry's multiplicity is its length
+     * @param source the vertex to start from
+     * @param target the vertex to reach
+     * @return the route and its weighted length
+     */
+    public static Route bidirectionalDijkstra(CompactGraph graph, int source, int target) {
+        long start = GraphMetrics.startTimer();
+        CompactGraph reverse = graph.transpose();
+        int vertexCount = graph.getVertexCount();
+        long[] forwardDistances = new long[vertexCount];
+        long[] backwardDistances = new long[vertexCount];
+        int[] forwardParents = new int[vertexCount];
+        int[] backwardParents = new int[vertexCount];
+        Arrays.fill(forwardDistances, UNREACHABLE);
+        Arrays.fill(backwardDistances, UNREACHABLE);
+        Arrays.fill(forwardParents, -2);
+        Arrays.fill(backwardParents, -2);
+        IndexedDaryHeap forwardHeap = new IndexedDaryHeap(vertexCount, HEAP_ARITY);
+        IndexedDaryHeap backwardHeap = new IndexedDaryHeap(vertexCount, HEAP_ARITY);
+        forwardDistances[source] = 0;
+        backwardDistances[target] = 0;
+        forwardParents[source] = -1;
+        backwardParents[target] = -1;
+        forwardHeap.insertOrDecrease(source, 0);
+        backwardHeap.insertOrDecrease(target, 0);
+
+        long bestDistance = source == target ? 0 : Long.MAX_VALUE;
+        int meetingVertex = source == target ? source : -1;
+        while (!forwardHeap.isEmpty() && !backwardHeap.isEmpty()
+                && forwardHeap.peekKey() + backwardHeap.peekKey() < bestDistance) {
+            boolean isForward = forwardHeap.size() <= backwardHeap.size();
+            CompactGraph side = isForward ? graph : reverse;
+            IndexedDaryHeap heap = isForward ? forwardHeap : backwardHeap;
+            long[] distances = isForward ? forwardDistances : backwardDistances;
+            long[] otherDistances = isForward ? backwardDistances : forwardDistances;
+            int[] parents = isForward ? forwardParents : backwardParents;
+
+            int current = heap.poll();
+            GraphMetrics.increment(GraphMetrics.Counter.TRAVERSAL_VISITS);
+            for (int i = side.getRowStart(current); i < side.getRowEnd(current); i++) {
+                int neighbor = side.getNeighbor(i);
+                long candidate = distances[current] + side.getMultiplicity(i);
+                if (distances[neighbor] == UNREACHABLE || candidate < distances[neighbor]) {
+                    distances[neighbor] = candidate;
+                    parents[neighbor] = current;
+                    heap.insertOrDecrease(neighbor, candidate);
+                }
+                if (otherDistances[neighbor] != UNREACHABLE && distances[neighbor] + otherDistances[neighbor] < bestDistance) {
+                    bestDistance = distances[neighbor] + otherDistances[neighbor];
+                    meetingVertex = neighbor;
+                }
+            }
+        }
+        GraphMetrics.stopTimer(GraphMetrics.Timer.SHORTEST_PATH, start);
+        if (meetingVertex == -1) {
+            return new Route(UNREACHABLE, new int[0]);
+        }
+        return new Route(bestDistance, joinPaths(meetingVertex, forwardParents, backwardParents));
+    }
+
+    /**
+     * Joins the two halves of a bidirectional search at the vertex where they met.
+     * @param meetingVertex the vertex reached by both sides
+     * @param forwardParents the parents found from the source
+     * @param backwardParents the parents found from the target
+     * @return the vertices from source to target
+     */
+    private static int[] joinPaths(int meetingVertex, int[] forwardParents, int[] backwardParents) {
+        List<Integer> path = new ArrayList<>();
+        for (int v = meetingVertex; v >= 0; v = forwardParents[v]) {
+            path.add(v);
+        }
+        Collections.reverse(path);
+        for (int v = backwardParents[meetingVertex]; v >= 0; v = backwardParents[v]) {
+            path.add(v);
+        }
+        return path.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Computes hop distances between every pair of vertices by running one BFS per source in parallel.
+     * Meant for small graphs, since the result takes vertexCount * vertexCount entries.
+     * @param graph the graph to search
+     * @return distances[s][t], the hops from s to t, or -1 if t cannot be reached
+     */
+    public static int[][] allPairsBreadthFirst(CompactGraph graph) {
+        int vertexCount = graph.getVertexCount();
+        int[][] distances = new int[vertexCount][];
+        IntStream.range(0, vertexCount).parallel().forEach(source -> {
+            int[] row = new int[vertexCount];
+            Arrays.fill(row, -1);
+            int[] queue = new int[vertexCount];
+            int head = 0;
+            int tail = 0;
+            row[source] = 0;
+            queue[tail++] = source;
+            while (head < tail) {
+                int current = queue[head++];
+                for (int i = graph.getRowStart(current); i < graph.getRowEnd(current); i++) {
+                    int neighbor = graph.getNeighbor(i);
+                    if (row[neighbor] == -1) {
+                        row[neighbor] = row[current] + 1;
+                        queue[tail++] = neighbor;
+                    }
+                }
+            }
+            distances[source] = row;
+        });
+        return distances;
+    }
+
+    /**
+     * The main method that drives the program.
+     * It reads a graph as a matrix of edge counts and prints the weighted distance from one vertex to every other.
+     * @param args command line arguments (not used)
+     */
+    public static void main(String[] args) {
+        Scanner scanner = new Scanner(System.in);
+
+        System.out.print("Enter the number of vertices: ");
+        int numVertices = scanner.nextInt();
+        scanner.nextLine();
+
+        EdgeCounter graph = new EdgeCounter(numVertices);
+        String[] vertices = new String[numVertices];
+        for (int i = 0; i < numVertices; i++) {
+            System.out.print("Enter vertex " + (i + 1) + ": ");
+            vertices[i] = scanner.nextLine();
+            graph.addVertex(vertices[i]);
+        }
+
+        System.out.println("Enter the adjacency matrix (edge counts are used as lengths):");
+        for (int i = 0; i < numVertices; i++) {
+            for (int j = 0; j < numVertices; j++) {
+                int edgeCount = scanner.nextInt();
+                if (edgeCount > 0) {
+                    graph.addEdge(vertices[i], vertices[j], edgeCount);
+                }
+            }
+        }
+
+        System.out.print("Enter the source vertex: ");
+        String sourceVertex = scanner.next();
+        try {
+            PathResult result = dijkstra(graph.toCompactGraph(), graph.getVertexIndex(sourceVertex));
+            for (int i = 0; i < numVertices; i++) {
+                long distance = result.getDistances()[i];
+                System.out.println("Distance to " + vertices[i] + ": " + (distance == UNREACHABLE ? "unreachable" : distance));
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+        }
+
+        scanner.close();
+    }
+}
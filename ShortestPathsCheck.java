@@ -0,0 +1,199 @@
+import java.util.*;
+
+/**
+ * This class cross-checks {@link ShortestPaths} and {@link IndexedDaryHeap} against brute force on random graphs.
+ * Every search is compared with Floyd–Warshall over the same graph: hop counts for the breadth-first searches and
+ * multiplicities as lengths for the Dijkstra searches. Every returned path must follow existing neighbor entries
+ * and add up to its distance. The heap is compared with a linear scan under random inserts, decreases and polls.
+ * Any disagreement stops the check with an exception.
+ * Usage: java ShortestPathsCheck [graphCount] [maxVertices] [seed]
+ */
+public class ShortestPathsCheck {
+    private static final long INFINITY = Long.MAX_VALUE / 4;
+
+    /**
+     * Computes all-pairs distances with Floyd–Warshall.
+     * @param graph the graph to measure
+     * @param weighted whether every neighbor entry is as long as its multiplicity, rather than one hop
+     * @return distances[s][t], or INFINITY if t cannot be reached from s
+     */
+    static long[][] floydWarshall(CompactGraph graph, boolean weighted) {
+        int vertexCount = graph.getVertexCount();
+        long[][] distances = new long[vertexCount][vertexCount];
+        for (int source = 0; source < vertexCount; source++) {
+            Arrays.fill(distances[source], INFINITY);
+            distances[source][source] = 0;
+            for (int i = graph.getRowStart(source); i < graph.getRowEnd(source); i++) {
+                int neighbor = graph.getNeighbor(i);
+                long length = weighted ? graph.getMultiplicity(i) : 1;
+                distances[source][neighbor] = Math.min(distances[source][neighbor], length);
+            }
+        }
+        for (int middle = 0; middle < vertexCount; middle++) {
+            for (int source = 0; source < vertexCount; source++) {
+                for (int target = 0; target < vertexCount; target++) {
+                    long through = distances[source][middle] + distances[middle][target];
+                    if (through < distances[source][target]) {
+                        distances[source][target] = through;
+                    }
+                }
+            }
+        }
+        return distances;
+    }
+
+    /**
+     * Checks that a path starts and ends at the right vertices, follows neighbor entries and has the given length.
+     * @param graph the graph the path runs in
+     * @param path the vertices of the path
+     * @param source the vertex the path must start at
+     * @param target the vertex the path must end at
+     * @param weighted whether the length counts multiplicities rather than hops
+     * @param expected the length the path must have, or INFINITY if there must be no path
+     * @param what the search that returned the path, for the error message
+     */
+    private static void checkPath(CompactGraph graph, int[] path, int source, int target, boolean weighted,
+                                  long expected, String what) {
+        if (expected == INFINITY) {
+            if (path.length != 0) {
+                throw new IllegalStateException(what + " found a path from " + source + " to unreachable " + target);
+            }
+            return;
+        }
+        if (path.length == 0 || path[0] != source || path[path.length - 1] != target) {
+            throw new IllegalStateException(what + " returned a path with the wrong ends: " + Arrays.toString(path));
+        }
+        long length = 0;
+        for (int step = 1; step < path.length; step++) {
+            long shortestEntry = INFINITY;
+            for (int i = graph.getRowStart(path[step - 1]); i < graph.getRowEnd(path[step - 1]); i++) {
+                if (graph.getNeighbor(i) == path[step]) {
+                    shortestEntry = Math.min(shortestEntry, weighted ? graph.getMultiplicity(i) : 1);
+                }
+            }
+            if (shortestEntry == INFINITY) {
+                throw new IllegalStateException(what + " returned a path through a missing edge: " + Arrays.toString(path));
+            }
+            length += shortestEntry;
+        }
+        if (length != expected) {
+            throw new IllegalStateException(what + " returned a path of length " + length + " instead of " + expected);
+        }
+    }
+
+    private static long distanceOrInfinity(long distance) {
+        return distance == ShortestPaths.UNREACHABLE ? INFINITY : distance;
+    }
+
+    /**
+     * Runs every search on one graph and compares it with Floyd–Warshall.
+     * @param graph the graph to check
+     */
+    static void checkGraph(CompactGraph graph) {
+        int vertexCount = graph.getVertexCount();
+        long[][] hops = floydWarshall(graph, false);
+        long[][] lengths = floydWarshall(graph, true);
+        int[][] allPairs = ShortestPaths.allPairsBreadthFirst(graph);
+        for (int source = 0; source < vertexCount; source++) {
+            ShortestPaths.PathResult breadthFirst = ShortestPaths.breadthFirst(graph, source);
+            ShortestPaths.PathResult dijkstra = ShortestPaths.dijkstra(graph, source);
+            for (int target = 0; target < vertexCount; target++) {
+                if (distanceOrInfinity(breadthFirst.getDistances()[target]) != hops[source][target]
+                        || distanceOrInfinity(allPairs[source][target]) != hops[source][target]) {
+                    throw new IllegalStateException("BFS distance " + source + "->" + target + " differs");
+                }
+                if (distanceOrInfinity(dijkstra.getDistances()[target]) != lengths[source][target]) {
+                    throw new IllegalStateException("Dijkstra distance " + source + "->" + target + " differs");
+                }
+                checkPath(graph, breadthFirst.getPath(target), source, target, false, hops[source][target], "BFS");
+                checkPath(graph, dijkstra.getPath(target), source, target, true, lengths[source][target], "Dijkstra");
+
+                ShortestPaths.Route hopRoute = ShortestPaths.bidirectionalBreadthFirst(graph, source, target);
+                if (distanceOrInfinity(hopRoute.getDistance()) != hops[source][target]) {
+                    throw new IllegalStateException("Bidirectional BFS distance " + source + "->" + target + " differs");
+                }
+                checkPath(graph, hopRoute.getPath(), source, target, false, hops[source][target], "Bidirectional BFS");
+                ShortestPaths.Route weightedRoute = ShortestPaths.bidirectionalDijkstra(graph, source, target);
+                if (distanceOrInfinity(weightedRoute.getDistance()) != lengths[source][target]) {
+                    throw new IllegalStateException("Bidirectional Dijkstra distance " + source + "->" + target + " differs");
+                }
+                checkPath(graph, weightedRoute.getPath(), source, target, true, lengths[source][target],
+                        "Bidirectional Dijkstra");
+            }
+        }
+    }
+
+    /**
+     * Runs random operations on a heap and on a plain array of keys, and compares every poll.
+     * @param capacity the number of items
+     * @param arity the arity of the heap
+     * @param random the source of randomness
+     */
+    static void checkHeap(int capacity, int arity, Random random) {
+        IndexedDaryHeap heap = new IndexedDaryHeap(capacity, arity);
+        long[] keys = new long[capacity];
+        boolean[] queued = new boolean[capacity];
+        for (int operation = 0; operation < capacity * 20; operation++) {
+            if (random.nextInt(3) > 0) {
+                int item = random.nextInt(capacity);
+                long key = random.nextInt(1000);
+                boolean changed = !queued[item] || key < keys[item];
+                if (heap.insertOrDecrease(item, key) != changed) {
+                    throw new IllegalStateException("insertOrDecrease disagrees on item " + item);
+                }
+                if (changed) {
+                    keys[item] = key;
+                    queued[item] = true;
+                }
+            } else if (!heap.isEmpty()) {
+                long smallest = INFINITY;
+                for (int item = 0; item < capacity; item++) {
+                    if (queued[item]) {
+                        smallest = Math.min(smallest, keys[item]);
+                    }
+                }
+                int polled = heap.poll();
+                if (!queued[polled] || keys[polled] != smallest) {
+                    throw new IllegalStateException("poll returned key " + keys[polled] + " instead of " + smallest);
+                }
+                queued[polled] = false;
+            }
+            int queuedCount = 0;
+            for (boolean isQueued : queued) {
+                queuedCount += isQueued ? 1 : 0;
+            }
+            if (heap.size() != queuedCount) {
+                throw new IllegalStateException("Heap size " + heap.size() + " instead of " + queuedCount);
+            }
+        }
+    }
+
+    /**
+     * The main method that runs the check.
+     * @param args the number of graphs, the largest vertex count and the random seed, all optional
+     */
+    public static void main(String[] args) {
+        int graphCount = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int maxVertices = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+
+        Random random = new Random(seed);
+        for (int graph = 0; graph < graphCount; graph++) {
+            int vertexCount = 1 + random.nextInt(maxVertices);
+            int edgeCount = random.nextInt(vertexCount * 3 + 1);
+            int[] sources = new int[edgeCount];
+            int[] targets = new int[edgeCount];
+            int[] counts = new int[edgeCount];
+            for (int edge = 0; edge < edgeCount; edge++) {
+                sources[edge] = random.nextInt(vertexCount);
+                targets[edge] = random.nextInt(vertexCount);
+                counts[edge] = 1 + random.nextInt(9);
+            }
+            boolean isDirected = random.nextBoolean();
+            CompactGraph.DuplicatePolicy policy = CompactGraph.DuplicatePolicy.values()[random.nextInt(3)];
+            checkGraph(CompactGraph.fromEdges(vertexCount, sources, targets, counts, edgeCount, isDirected, policy));
+            checkHeap(1 + random.nextInt(maxVertices), 2 + random.nextInt(4), random);
+        }
+        System.out.println(graphCount + " random graphs and heaps agree with Floyd-Warshall and brute force");
+    }
+}
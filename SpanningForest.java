@@ -0,0 +1,327 @@
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+/**
+ * This class represents a minimum or maximum spanning forest: a spanning tree of every connected component,
+ * with the least or greatest total edge weight. Edge direction is ignored and self-loops are never part of a forest.
+ * Every algorithm compares edges by weight and then by id, packed into one long key, so the order is strict
+ * and all of them return exactly the same forest.
+ */
+public final class SpanningForest {
+    /** The number of edges one parallel Borůvka task handles. */
+    private static final int EDGES_PER_TASK = 1 << 16;
+
+    /**
+     * How to compute the forest.
+     */
+    public enum Algorithm {
+        /** Sorts the edges once and adds each edge that joins two trees, tracked with a union-find. */
+        KRUSKAL,
+        /** Grows one tree per component from a vertex, always adding the lightest edge leaving it, with an indexed heap. */
+        PRIM,
+        /**
+         * Borůvka's rounds, run on all cores: every tree picks its lightest outgoing edge at once, which at least
+         * halves the number of trees per round. Edges inside a tree are dropped after each round.
+         */
+        BORUVKA
+    }
+
+    private final int vertexCount;
+    private final int[] edges;
+    private final long totalWeight;
+
+    private SpanningForest(int vertexCount, int[] edges, long totalWeight) {
+        this.vertexCount = vertexCount;
+        this.edges = edges;
+        this.totalWeight = totalWeight;
+    }
+
+    /**
+     * Computes a spanning forest of the edges of a table, weighted by their multiplicities,
+     * such as the counts of an {@link EdgeCounter}.
+     * @param table the edges to span
+     * @param algorithm how to compute the forest
+     * @param maximum whether to find the heaviest forest instead of the lightest
+     * @return the spanning forest, whose edge ids are the ids of the table
+     */
+    public static SpanningForest compute(EdgeTable table, Algorithm algorithm, boolean maximum) {
+        int edgeCount = table.getEdgeCount();
+        int[] sources = new int[edgeCount];
+        int[] targets = new int[edgeCount];
+        int[] weights = new int[edgeCount];
+        for (int edge = 0; edge < edgeCount; edge++) {
+            sources[edge] = table.getSource(edge);
+            targets[edge] = table.getTarget(edge);
+            weights[edge] = table.getMultiplicity(edge);
+        }
+        return compute(table.getVertexCount(), sources, targets, weights, edgeCount, algorithm, maximum);
+    }
+
+    /**
+     * Computes a spanning forest of weighted edges given as parallel arrays. Edge i joins sources[i] and targets[i].
+     * @param vertexCount the number of vertices
+     * @param sources the first vertex of every edge
+     * @param targets the second vertex of every edge
+     * @param weights the weight of every edge, which may be negative
+     * @param edgeCount the number of edges, which may be less than the length of the arrays
+     * @param algorithm how to compute the forest
+     * @param maximum whether to find the heaviest forest instead of the lightest
+     * @return the spanning forest, whose edge ids are the array indices
+     * @throws IllegalArgumentException if a vertex index is out of range
+     */
+    public static SpanningForest compute(int vertexCount, int[] sources, int[] targets, int[] weights, int edgeCount,
+                                         Algorithm algorithm, boolean maximum) {
+        for (int edge = 0; edge < edgeCount; edge++) {
+            if (sources[edge] < 0 || sources[edge] >= vertexCount || targets[edge] < 0 || targets[edge] >= vertexCount) {
+                throw new IllegalArgumentException("Vertex index out of range: " + sources[edge] + "-" + targets[edge]);
+            }
+        }
+        long start = GraphMetrics.startTimer();
+        int[] forest;
+        switch (algorithm) {
+            case KRUSKAL:
+                forest = kruskal(vertexCount, sources, targets, weights, edgeCount, maximum);
+                break;
+            case PRIM:
+                forest = prim(vertexCount, sources, targets, weights, edgeCount, maximum);
+                break;
+            default:
+                forest = boruvka(vertexCount, sources, targets, weights, edgeCount, maximum);
+                break;
+        }
+        Arrays.sort(forest);
+        long totalWeight = 0;
+        for (int edge : forest) {
+            totalWeight += weights[edge];
+        }
+        GraphMetrics.stopTimer(GraphMetrics.Timer.SPANNING_FOREST, start);
+        return new SpanningForest(vertexCount, forest, totalWeight);
+    }
+
+    /**
+     * Packs the weight and id of an edge so that comparing keys compares weights, then ids.
+     * For a maximum forest the weight is complemented, which reverses its order without overflowing.
+     */
+    private static long key(int[] weights, int edge, boolean maximum) {
+        return (long) (maximum ? ~weights[edge] : weights[edge]) << 32 | edge;
+    }
+
+    private static int[] kruskal(int vertexCount, int[] sources, int[] targets, int[] weights, int edgeCount,
+                                 boolean maximum) {
+        long[] keys = new long[edgeCount];
+        int keyCount = 0;
+        for (int edge = 0; edge < edgeCount; edge++) {
+            if (sources[edge] != targets[edge]) {
+                keys[keyCount++] = key(weights, edge, maximum);
+            }
+        }
+        Arrays.sort(keys, 0, keyCount);
+        UnionFind trees = new UnionFind(vertexCount);
+        int[] forest = new int[Math.max(vertexCount - 1, 0)];
+        int forestSize = 0;
+        for (int i = 0; i < keyCount && forestSize < forest.length; i++) {
+            int edge = (int) keys[i];
+            if (trees.union(sources[edge], targets[edge])) {
+                forest[forestSize++] = edge;
+            }
+        }
+        return Arrays.copyOf(forest, forestSize);
+    }
+
+    private static int[] prim(int vertexCount, int[] sources, int[] targets, int[] weights, int edgeCount,
+                              boolean maximum) {
+        // Every row lists the ids of the edges at a vertex; the other end of edge e at v is sources[e] ^ targets[e] ^ v
+        int[] offsets = new int[vertexCount + 1];
+        for (int edge = 0; edge < edgeCount; edge++) {
+            if (sources[edge] != targets[edge]) {
+                offsets[sources[edge] + 1]++;
+                offsets[targets[edge] + 1]++;
+            }
+        }
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            offsets[vertex + 1] += offsets[vertex];
+        }
+        int[] incidentEdges = new int[offsets[vertexCount]];
+        int[] positions = Arrays.copyOf(offsets, vertexCount);
+        for (int edge = 0; edge < edgeCount; edge++) {
+            if (sources[edge] != targets[edge]) {
+                incidentEdges[positions[sources[edge]]++] = edge;
+                incidentEdges[positions[targets[edge]]++] = edge;
+            }
+        }
+
+        // The key of a queued vertex is the key of its lightest edge to the tree, which also names that edge
+        IndexedDaryHeap heap = new IndexedDaryHeap(vertexCount, 4);
+        boolean[] inTree = new boolean[vertexCount];
+        int[] forest = new int[Math.max(vertexCount - 1, 0)];
+        int forestSize = 0;
+        for (int root = 0; root < vertexCount; root++) {
+            if (inTree[root]) {
+                continue;
+            }
+            heap.insertOrDecrease(root, Long.MIN_VALUE);
+            while (!heap.isEmpty()) {
+                long key = heap.peekKey();
+                int vertex = heap.poll();
+                inTree[vertex] = true;
+                if (vertex != root) {
+                    forest[forestSize++] = (int) key;
+                }
+                for (int i = offsets[vertex]; i < offsets[vertex + 1]; i++) {
+                    int edge = incidentEdges[i];
+                    int neighbor = sources[edge] ^ targets[edge] ^ vertex;
+                    if (!inTree[neighbor]) {
+                        heap.insertOrDecrease(neighbor, key(weights, edge, maximum));
+                    }
+                }
+            }
+        }
+        return Arrays.copyOf(forest, forestSize);
+    }
+
+    private static int[] boruvka(int vertexCount, int[] sources, int[] targets, int[] weights, int edgeCount,
+                                 boolean maximum) {
+        int[] active = new int[edgeCount];
+        int activeCount = 0;
+        for (int edge = 0; edge < edgeCount; edge++) {
+            if (sources[edge] != targets[edge]) {
+                active[activeCount++] = edge;
+            }
+        }
+        // component[v] is the root of v's tree, refreshed after every round so tasks only read it
+        int[] component = new int[vertexCount];
+        Arrays.setAll(component, vertex -> vertex);
+        AtomicLongArray lightest = new AtomicLongArray(vertexCount);
+        UnionFind trees = new UnionFind(vertexCount);
+        int[] forest = new int[Math.max(vertexCount - 1, 0)];
+        int forestSize = 0;
+
+        while (activeCount > 0) {
+            int taskCount = (activeCount + EDGES_PER_TASK - 1) / EDGES_PER_TASK;
+            int currentCount = activeCount;
+            IntStream.range(0, vertexCount).parallel().forEach(vertex -> lightest.set(vertex, Long.MAX_VALUE));
+            IntStream.range(0, taskCount).parallel().forEach(task -> {
+                int end = Math.min(currentCount, (task + 1) * EDGES_PER_TASK);
+                for (int i = task * EDGES_PER_TASK; i < end; i++) {
+                    int edge = active[i];
+                    long key = key(weights, edge, maximum);
+                    lowerTo(lightest, component[sources[edge]], key);
+                    lowerTo(lightest, component[targets[edge]], key);
+                }
+            });
+
+            // Both trees of an edge may pick it; the union-find adds it once
+            for (int vertex = 0; vertex < vertexCount; vertex++) {
+                if (component[vertex] == vertex && lightest.get(vertex) != Long.MAX_VALUE) {
+                    int edge = (int) lightest.get(vertex);
+                    if (trees.union(sources[edge], targets[edge])) {
+                        forest[forestSize++] = edge;
+                    }
+                }
+            }
+            IntStream.range(0, vertexCount).parallel().forEach(vertex -> component[vertex] = trees.root(vertex));
+
+            // Every task drops the edges of its range that now lie inside one tree, then the ranges are joined
+            int[] kept = new int[taskCount];
+            IntStream.range(0, taskCount).parallel().forEach(task -> {
+                int write = task * EDGES_PER_TASK;
+                int end = Math.min(currentCount, (task + 1) * EDGES_PER_TASK);
+                for (int i = task * EDGES_PER_TASK; i < end; i++) {
+                    int edge = active[i];
+                    if (component[sources[edge]] != component[targets[edge]]) {
+                        active[write++] = edge;
+                    }
+                }
+                kept[task] = write - task * EDGES_PER_TASK;
+            });
+            activeCount = 0;
+            for (int task = 0; task < taskCount; task++) {
+                System.arraycopy(active, task * EDGES_PER_TASK, active, activeCount, kept[task]);
+                activeCount += kept[task];
+            }
+        }
+        return Arrays.copyOf(forest, forestSize);
+    }
+
+    private static void lowerTo(AtomicLongArray values, int index, long value) {
+        long current = values.get(index);
+        while (value < current && !values.compareAndSet(index, current, value)) {
+            current = values.get(index);
+        }
+    }
+
+    /**
+     * Gets the ids of the edges in the forest.
+     * @return the edge ids, in ascending order
+     */
+    public int[] getEdges() {
+        return edges;
+    }
+
+    /**
+     * Gets the sum of the weights of the edges in the forest.
+     * @return the total weight
+     */
+    public long getTotalWeight() {
+        return totalWeight;
+    }
+
+    /**
+     * Gets the number of trees in the forest, which is the number of connected components.
+     * @return the number of trees
+     */
+    public int getTreeCount() {
+        return vertexCount - edges.length;
+    }
+
+    /**
+     * This class represents disjoint sets of vertices, joined by rank with path halving.
+     */
+    private static final class UnionFind {
+        private final int[] parents;
+        private final byte[] ranks;
+
+        UnionFind(int vertexCount) {
+            parents = new int[vertexCount];
+            ranks = new byte[vertexCount];
+            Arrays.setAll(parents, vertex -> vertex);
+        }
+
+        /**
+         * Finds the root of a set without changing the sets, so several threads may call it at once.
+         * Union by rank keeps every path shorter than log2 of the number of vertices.
+         */
+        int root(int vertex) {
+            while (parents[vertex] != vertex) {
+                vertex = parents[vertex];
+            }
+            return vertex;
+        }
+
+        boolean union(int vertexOne, int vertexTwo) {
+            int rootOne = find(vertexOne);
+            int rootTwo = find(vertexTwo);
+            if (rootOne == rootTwo) {
+                return false;
+            }
+            if (ranks[rootOne] < ranks[rootTwo]) {
+                parents[rootOne] = rootTwo;
+            } else {
+                if (ranks[rootOne] == ranks[rootTwo]) {
+                    ranks[rootOne]++;
+                }
+                parents[rootTwo] = rootOne;
+            }
+            return true;
+        }
+
+        private int find(int vertex) {
+            while (parents[vertex] != vertex) {
+                parents[vertex] = parents[parents[vertex]];
+                vertex = parents[vertex];
+            }
+            return vertex;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+import java.util.*;
+
+/**
+ * This class times every {@link SpanningForest.Algorithm} on a large random multigraph with random weights,
+ * and checks that they all return the same forest.
+ * The edges are generated straight into arrays, since a graph of this size is loaded from a file rather than named.
+ * Usage: java SpanningForestBenchmark [vertexCount] [edgeCount] [seed]
+ */
+public class SpanningForestBenchmark {
+    private static final int RUNS = 3;
+    private static final int MAX_WEIGHT = 1000;
+
+    /**
+     * The main method that runs the benchmark.
+     * @param args the vertex count, edge count and random seed, all optional
+     */
+    public static void main(String[] args) {
+        int vertexCount = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        int edgeCount = args.length > 1 ? Integer.parseInt(args[1]) : 50_000_000;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] sources = new int[edgeCount];
+        int[] targets = new int[edgeCount];
+        int[] weights = new int[edgeCount];
+        for (int edge = 0; edge < edgeCount; edge++) {
+            sources[edge] = random.nextInt(vertexCount);
+            targets[edge] = random.nextInt(vertexCount);
+            weights[edge] = 1 + random.nextInt(MAX_WEIGHT);
+        }
+        System.out.printf("Random graph: %d vertices, %d edges, weights 1..%d, %d cores%n",
+                vertexCount, edgeCount, MAX_WEIGHT, Runtime.getRuntime().availableProcessors());
+        System.out.printf("%-9s %-8s %10s %16s %8s%n", "Forest", "Method", "Best ms", "Total weight", "Trees");
+
+        for (boolean maximum : new boolean[]{false, true}) {
+            int[] expected = null;
+            for (SpanningForest.Algorithm algorithm : SpanningForest.Algorithm.values()) {
+                SpanningForest forest = null;
+                long best = Long.MAX_VALUE;
+                for (int run = 0; run < RUNS; run++) {
+                    long start = System.nanoTime();
+                    forest = SpanningForest.compute(vertexCount, sources, targets, weights, edgeCount, algorithm, maximum);
+                    best = Math.min(best, System.nanoTime() - start);
+                }
+                if (expected == null) {
+                    expected = forest.getEdges();
+                } else if (!Arrays.equals(expected, forest.getEdges())) {
+                    throw new IllegalStateException(algorithm + " returned a different forest");
+                }
+                System.out.printf("%-9s %-8s %10.1f %16d %8d%n", maximum ? "maximum" : "minimum", algorithm,
+                        best / 1e6, forest.getTotalWeight(), forest.getTreeCount());
+            }
+        }
+    }
+}
@@ -0,0 +1,468 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * This class represents the statistics of an undirected graph gathered in a single pass over its edges:
+ * the degree of every vertex, the connected components, whether the graph is bipartite and whether it has a cycle.
+ * Edges are never stored, so an edge file far larger than memory can be summarized in one sequential read,
+ * in memory proportional to the number of vertices.
+ * One union-find keeps both the components and, for every vertex, the parity of its path to the root of its set.
+ * An edge inside a set closes a cycle, and if its ends have the same parity that cycle is odd.
+ * Like a multigraph, a parallel edge counts as a cycle of length two and a self-loop as an odd cycle of length one.
+ */
+public class StreamingGraphStats {
+    private final NameTable names;
+    private int vertexCount;
+    private long edgeCount;
+    private int componentCount;
+    private boolean isBipartite = true;
+    private boolean hasCycle;
+
+    private int[] degrees;
+    private int[] parents;
+    private byte[] ranks;
+    // The parity of the path from a vertex to its parent, so the parity to the root is the XOR along the path
+    private byte[] parities;
+    private int foundParity;
+
+    /**
+     * Constructs a new StreamingGraphStats with no vertices. The arrays grow as vertices arrive.
+     * @param expectedVertexCount the number of vertices to make room for up front
+     */
+    public StreamingGraphStats(int expectedVertexCount) {
+        int capacity = Math.max(expectedVertexCount, 16);
+        names = new NameTable(capacity);
+        degrees = new int[capacity];
+        parents = new int[capacity];
+        ranks = new byte[capacity];
+        parities = new byte[capacity];
+    }
+
+    /**
+     * Adds a vertex without edges, unless it already exists.
+     * @param vertex the name of the vertex
+     * @return the index of the vertex
+     */
+    public int addVertex(String vertex) {
+        return addVertex(vertex, 0, vertex.length());
+    }
+
+    private int addVertex(String text, int start, int end) {
+        int index = names.find(text, start, end);
+        if (index == -1) {
+            index = vertexCount;
+            names.add(text, start, end, index);
+            ensureVertices(vertexCount + 1);
+        }
+        return index;
+    }
+
+    /**
+     * Adds an edge between two named vertices, adding the vertices first if they are new.
+     * @param vertexOne the first vertex of the edge
+     * @param vertexTwo the second vertex of the edge
+     */
+    public void addEdge(String vertexOne, String vertexTwo) {
+        int indexOne = addVertex(vertexOne);
+        addEdge(indexOne, addVertex(vertexTwo));
+    }
+
+    /**
+     * Adds an edge between two vertex indices. Every index up to the larger one becomes a vertex,
+     * which suits edge files whose vertices are already numbered from 0.
+     * @param vertexOne the index of the first vertex of the edge
+     * @param vertexTwo the index of the second vertex of the edge
+     * @throws IllegalArgumentException if a vertex index is negative
+     */
+    public void addEdge(int vertexOne, int vertexTwo) {
+        if (vertexOne < 0 || vertexTwo < 0) {
+            throw new IllegalArgumentException("Vertex index out of range: " + vertexOne + "-" + vertexTwo);
+        }
+        ensureVertices(Math.max(vertexOne, vertexTwo) + 1);
+        edgeCount++;
+        degrees[vertexOne]++;
+        degrees[vertexTwo]++;
+
+        int rootOne = find(vertexOne);
+        int parityOne = foundParity;
+        int rootTwo = find(vertexTwo);
+        int parityTwo = foundParity;
+        if (rootOne == rootTwo) {
+            hasCycle = true;
+            if (parityOne == parityTwo) {
+                isBipartite = false;
+            }
+            return;
+        }
+        // Union by rank; the parity of the new link puts the two ends of the edge on opposite sides
+        if (ranks[rootOne] < ranks[rootTwo]) {
+            int swap = rootOne;
+            rootOne = rootTwo;
+            rootTwo = swap;
+        } else if (ranks[rootOne] == ranks[rootTwo]) {
+            ranks[rootOne]++;
+        }
+        parents[rootTwo] = rootOne;
+        parities[rootTwo] = (byte) (parityOne ^ parityTwo ^ 1);
+        componentCount--;
+    }
+
+    /**
+     * Finds the root of the set of a vertex and leaves the parity of the vertex relative to it in foundParity.
+     * Every vertex on the way is linked straight to the root, with its parity adjusted to match.
+     * @param vertex the index of the vertex
+     * @return the index of the root
+     */
+    private int find(int vertex) {
+        int root = vertex;
+        int parity = 0;
+        while (parents[root] != root) {
+            parity ^= parities[root];
+            root = parents[root];
+        }
+        int current = vertex;
+        int currentParity = parity;
+        while (parents[current] != root && current != root) {
+            int next = parents[current];
+            int nextParity = currentParity ^ parities[current];
+            parents[current] = root;
+            parities[current] = (byte) currentParity;
+            current = next;
+            currentParity = nextParity;
+        }
+        foundParity = parity;
+        return root;
+    }
+
+    private void ensureVertices(int count) {
+        if (count <= vertexCount) {
+            return;
+        }
+        if (count > degrees.length) {
+            int capacity = (int) Math.min(Math.max(count, degrees.length * 2L), Integer.MAX_VALUE - 8);
+            degrees = Arrays.copyOf(degrees, capacity);
+            parents = Arrays.copyOf(parents, capacity);
+            ranks = Arrays.copyOf(ranks, capacity);
+            parities = Arrays.copyOf(parities, capacity);
+        }
+        for (int vertex = vertexCount; vertex < count; vertex++) {
+            parents[vertex] = vertex;
+        }
+        componentCount += count - vertexCount;
+        vertexCount = count;
+    }
+
+    /**
+     * Reads an edge list with one "vertex1 vertex2" pair per line, the format of {@link GraphQueryServer},
+     * and gathers its statistics in one pass. Lines that do not hold exactly two names are skipped.
+     * @param path the file to read
+     * @return the statistics of the graph in the file
+     * @throws IOException if the file cannot be read
+     */
+    public static StreamingGraphStats scan(Path path) throws IOException {
+        long start = GraphMetrics.startTimer();
+        StreamingGraphStats stats = new StreamingGraphStats(1 << 16);
+        stats.readEdges(path, true, stats::addEdge);
+        GraphMetrics.stopTimer(GraphMetrics.Timer.STREAM_SCAN, start);
+        return stats;
+    }
+
+    /**
+     * Reads the edges of a file that was scanned before, numbering the vertices the way the scan did.
+     * This lets the file serve as an {@link ApproximateAnalytics.EdgeStream} without holding its edges.
+     * @param path the file that was scanned
+     * @param visitor the action to run for every edge
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file names a vertex the scan did not see
+     */
+    void forEachEdge(Path path, ApproximateAnalytics.EdgeVisitor visitor) throws IOException {
+        readEdges(path, false, visitor);
+    }
+
+    private void readEdges(Path path, boolean addNames, ApproximateAnalytics.EdgeVisitor visitor) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                // Split by hand and look names up in place; a regular expression or a substring per name
+                // would dominate the scan of a large file
+                int length = line.length();
+                int firstStart = skipWhitespace(line, 0);
+                int firstEnd = skipToken(line, firstStart);
+                int secondStart = skipWhitespace(line, firstEnd);
+                int secondEnd = skipToken(line, secondStart);
+                if (firstStart == firstEnd || secondStart == secondEnd || skipWhitespace(line, secondEnd) != length) {
+                    continue;
+                }
+                int vertexOne = addNames ? addVertex(line, firstStart, firstEnd) : names.find(line, firstStart, firstEnd);
+                int vertexTwo = addNames ? addVertex(line, secondStart, secondEnd) : names.find(line, secondStart, secondEnd);
+                if (vertexOne == -1 || vertexTwo == -1) {
+                    throw new IllegalArgumentException("The file names a vertex it did not name when it was scanned: " + line);
+                }
+                visitor.visit(vertexOne, vertexTwo);
+            }
+        }
+    }
+
+    private static int skipWhitespace(String line, int position) {
+        while (position < line.length() && Character.isWhitespace(line.charAt(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    private static int skipToken(String line, int position) {
+        while (position < line.length() && !Character.isWhitespace(line.charAt(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    /**
+     * Gets the number of vertices seen so far.
+     * @return the number of vertices
+     */
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    /**
+     * Gets the number of edges seen so far, counting parallel edges and self-loops.
+     * @return the number of edges
+     */
+    public long getEdgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * Gets the degree of a named vertex. A self-loop adds 2, as in {@link VertexDegree}.
+     * @param vertex the name of the vertex
+     * @return the degree of the vertex
+     * @throws IllegalArgumentException if the vertex does not exist
+     */
+    public int getDegree(String vertex) {
+        return getDegree(indexOf(vertex));
+    }
+
+    /**
+     * Gets the degree of a vertex. A self-loop adds 2, as in {@link VertexDegree}.
+     * @param vertex the index of the vertex
+     * @return the degree of the vertex
+     * @throws IllegalArgumentException if the vertex index is out of range
+     */
+    public int getDegree(int vertex) {
+        checkVertex(vertex);
+        return degrees[vertex];
+    }
+
+    /**
+     * Gets the largest degree of any vertex.
+     * @return the largest degree, or 0 for a graph without vertices
+     */
+    public int getMaxDegree() {
+        int maxDegree = 0;
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            maxDegree = Math.max(maxDegree, degrees[vertex]);
+        }
+        return maxDegree;
+    }
+
+    /**
+     * Gets the number of connected components.
+     * @return the number of connected components
+     */
+    public int getComponentCount() {
+        return componentCount;
+    }
+
+    /**
+     * Checks if the graph is connected. A graph without vertices counts as connected.
+     * @return true if the graph is connected, false otherwise
+     */
+    public boolean isConnected() {
+        return componentCount <= 1;
+    }
+
+    /**
+     * Checks if two named vertices are in the same connected component.
+     * @param vertexOne the first vertex
+     * @param vertexTwo the second vertex
+     * @return true if the vertices are connected, false otherwise
+     * @throws IllegalArgumentException if either vertex does not exist
+     */
+    public boolean areConnected(String vertexOne, String vertexTwo) {
+        return find(indexOf(vertexOne)) == find(indexOf(vertexTwo));
+    }
+
+    /**
+     * Checks if the graph is bipartite, which it is as long as no edge has closed an odd cycle.
+     * @return true if the graph is bipartite, false otherwise
+     */
+    public boolean isBipartite() {
+        return isBipartite;
+    }
+
+    /**
+     * Gets the side of a vertex in a two-coloring. The sides are a proper two-coloring as long as the graph is bipartite.
+     * @param vertex the name of the vertex
+     * @return 0 or 1
+     * @throws IllegalArgumentException if the vertex does not exist
+     */
+    public int getSide(String vertex) {
+        find(indexOf(vertex));
+        return foundParity;
+    }
+
+    /**
+     * Checks if the graph has a cycle, which it does as soon as an edge joins two already connected vertices.
+     * @return true if the graph has a cycle, false if it is a forest
+     */
+    public boolean hasCycle() {
+        return hasCycle;
+    }
+
+    private int indexOf(String vertex) {
+        int index = names.find(vertex, 0, vertex.length());
+        if (index == -1) {
+            throw new IllegalArgumentException("Vertex does not exist: " + vertex);
+        }
+        return index;
+    }
+
+    private void checkVertex(int vertex) {
+        if (vertex < 0 || vertex >= vertexCount) {
+            throw new IllegalArgumentException("Vertex index out of range: " + vertex);
+        }
+    }
+
+    /**
+     * This class represents a map from vertex names to indices that looks names up by a range of a line,
+     * so scanning a file allocates no string per name. The names are packed into one char array and the
+     * table is open addressing over int arrays, which takes a fraction of the memory of a HashMap.
+     */
+    private static final class NameTable {
+        private char[] chars;
+        private int charCount;
+        // Entry i spans chars[nameStarts[i]] to chars[nameStarts[i + 1]] and names vertex entryVertices[i]
+        private int[] nameStarts;
+        private int[] entryVertices;
+        private int[] entryHashes;
+        private int entryCount;
+        // Entry index + 1 per slot, so 0 marks an empty slot
+        private int[] slots;
+
+        NameTable(int expectedNames) {
+            chars = new char[Math.max(expectedNames * 8, 64)];
+            nameStarts = new int[expectedNames + 1];
+            entryVertices = new int[expectedNames];
+            entryHashes = new int[expectedNames];
+            slots = new int[Integer.highestOneBit(Math.max(expectedNames, 8) * 2) * 2];
+        }
+
+        /**
+         * Looks up a name.
+         * @param text the text holding the name
+         * @param start the index of the first character of the name
+         * @param end the index after the last character of the name
+         * @return the vertex index of the name, or -1 if the name has not been added
+         */
+        int find(String text, int start, int end) {
+            int hash = hash(text, start, end);
+            int mask = slots.length - 1;
+            for (int slot = hash & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+                int entry = slots[slot] - 1;
+                if (entryHashes[entry] == hash && matches(entry, text, start, end)) {
+                    return entryVertices[entry];
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Adds a name that {@link #find(String, int, int)} did not find.
+         * @param text the text holding the name
+         * @param start the index of the first character of the name
+         * @param end the index after the last character of the name
+         * @param vertex the vertex index of the name
+         */
+        void add(String text, int start, int end, int vertex) {
+            if (entryCount == entryVertices.length) {
+                int capacity = entryCount * 2;
+                nameStarts = Arrays.copyOf(nameStarts, capacity + 1);
+                entryVertices = Arrays.copyOf(entryVertices, capacity);
+                entryHashes = Arrays.copyOf(entryHashes, capacity);
+            }
+            if (chars.length - charCount < end - start) {
+                chars = Arrays.copyOf(chars, Math.max(chars.length * 2, charCount + end - start));
+            }
+            text.getChars(start, end, chars, charCount);
+            charCount += end - start;
+            entryVertices[entryCount] = vertex;
+            entryHashes[entryCount] = hash(text, start, end);
+            nameStarts[++entryCount] = charCount;
+            if (entryCount * 2 > slots.length) {
+                slots = new int[slots.length * 2];
+                for (int entry = 0; entry < entryCount; entry++) {
+                    insert(entry);
+                }
+            } else {
+                insert(entryCount - 1);
+            }
+        }
+
+        private void insert(int entry) {
+            int mask = slots.length - 1;
+            int slot = entryHashes[entry] & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = entry + 1;
+        }
+
+        private boolean matches(int entry, String text, int start, int end) {
+            int nameStart = nameStarts[entry];
+            if (nameStarts[entry + 1] - nameStart != end - start) {
+                return false;
+            }
+            for (int i = start; i < end; i++) {
+                if (chars[nameStart + i - start] != text.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static int hash(String text, int start, int end) {
+            int hash = 0;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + text.charAt(i);
+            }
+            // Spread the bits, since the table index takes only the low ones
+            hash *= 0x9E3779B9;
+            return hash ^ (hash >>> 16);
+        }
+    }
+
+    /**
+     * The main method that summarizes an edge list file.
+     * @param args the edge list file to read
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.out.println("Usage: java StreamingGraphStats <edge list file>");
+            return;
+        }
+        long start = System.nanoTime();
+        StreamingGraphStats stats = scan(Paths.get(args[0]));
+        System.out.printf("Scanned %d edges in %.1f ms%n", stats.getEdgeCount(), (System.nanoTime() - start) / 1e6);
+        System.out.println("Vertices\t\t: " + stats.getVertexCount());
+        System.out.println("Maximum degree\t: " + stats.getMaxDegree());
+        System.out.println("Components\t\t: " + stats.getComponentCount() + (stats.isConnected() ? " (connected)" : ""));
+        System.out.println("Bipartite\t\t: " + (stats.isBipartite() ? "yes" : "no"));
+        System.out.println("Cycle\t\t\t: " + (stats.hasCycle() ? "yes" : "no, the graph is a forest"));
+    }
+}
@@ -1,3 +1,5 @@
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
 
 /**
@@ -6,17 +8,47 @@ import java.util.*;
 public class VertexDegree {
     private final List<List<Integer>> adjacencyList;
     private final Map<String, Integer> vertexIndexMap;
+    private CompressedGraph compressedAdjacency;
+    /** The snapshot whose vertex names have not been read into the index map yet, or null. */
+    private GraphSnapshot unreadNames;
 
     /**
      * Constructs a new VertexDegree with the specified number of vertices.
+     * The adjacency list of a vertex is only allocated once an edge is listed there.
      * @param vertexCount the number of vertices in the graph
      */
     public VertexDegree(int vertexCount) {
-        adjacencyList = new ArrayList<>(vertexCount);
+        adjacencyList = new ArrayList<>(Collections.nCopies(vertexCount, null));
         vertexIndexMap = new HashMap<>();
-        for (int i = 0; i < vertexCount; i++) {
-            adjacencyList.add(new LinkedList<>());
+    }
+
+    /**
+     * Gets the adjacency list of a vertex for adding to it, allocating it on first use.
+     * @param vertex the index of the vertex
+     * @return the listed neighbors of the vertex
+     */
+    private List<Integer> listFor(int vertex) {
+        List<Integer> neighbors = adjacencyList.get(vertex);
+        if (neighbors == null) {
+            neighbors = new LinkedList<>();
+            adjacencyList.set(vertex, neighbors);
+        }
+        return neighbors;
+    }
+
+    /**
+     * Gets the index of every named vertex, reading the names of a restored snapshot on first use,
+     * so that a restore does not pay for names that are never looked up.
+     * @return the map from vertex names to indices
+     */
+    private Map<String, Integer> vertexIndices() {
+        if (unreadNames != null) {
+            for (String vertex : unreadNames.getVertexNames()) {
+                vertexIndexMap.putIfAbsent(vertex, vertexIndexMap.size());
+            }
+            unreadNames = null;
         }
+        return vertexIndexMap;
     }
 
     /**
@@ -25,8 +57,9 @@ public class VertexDegree {
      */
     public void addVertex(String vertex) {
         // If the vertex is not already in the map, add it with a new index
-        if (!vertexIndexMap.containsKey(vertex)) {
-            vertexIndexMap.put(vertex, vertexIndexMap.size());
+        Map<String, Integer> indices = vertexIndices();
+        if (!indices.containsKey(vertex)) {
+            indices.put(vertex, indices.size());
         }
     }
 
@@ -38,15 +71,45 @@ public class VertexDegree {
      */
     public void addEdge(String vertex1, String vertex2) {
         // Ensure both vertices are already added to the graph
-        if (!vertexIndexMap.containsKey(vertex1) || !vertexIndexMap.containsKey(vertex2)) {
+        if (!vertexIndices().containsKey(vertex1) || !vertexIndices().containsKey(vertex2)) {
             throw new IllegalArgumentException("Both vertices must be added before adding an edge.");
         }
         // Get the indices of the vertices from the map
-        int index1 = vertexIndexMap.get(vertex1);
-        int index2 = vertexIndexMap.get(vertex2);
+        int index1 = vertexIndices().get(vertex1);
+        int index2 = vertexIndices().get(vertex2);
         // Add each vertex to the other's adjacency list to create an undirected edge
-        adjacencyList.get(index1).add(index2);
-        adjacencyList.get(index2).add(index1);
+        listFor(index1).add(index2);
+        listFor(index2).add(index1);
+    }
+
+    /**
+     * Adds all edges of a batch, without looking up vertex names. A batch of at least
+     * {@link ConnectedGraph#BULK_BATCH_EDGES} edges, and at least a quarter the size of the compressed storage,
+     * is radix sorted into rows and merged straight into compressed storage in one pass;
+     * smaller batches are appended to the adjacency lists.
+     * @param batch the edges to add, as vertex indices
+     * @throws IllegalArgumentException if a vertex index is out of range
+     */
+    public void addEdges(EdgeBatch batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            int index1 = batch.getSource(i);
+            int index2 = batch.getTarget(i);
+            if (index1 < 0 || index1 >= adjacencyList.size() || index2 < 0 || index2 >= adjacencyList.size()) {
+                throw new IllegalArgumentException("Vertex index out of range: " + index1 + "-" + index2);
+            }
+        }
+        if (batch.size() < ConnectedGraph.BULK_BATCH_EDGES
+                || (compressedAdjacency != null && batch.size() < compressedAdjacency.getArcCount() / 4)) {
+            for (int i = 0; i < batch.size(); i++) {
+                listFor(batch.getSource(i)).add(batch.getTarget(i));
+                listFor(batch.getTarget(i)).add(batch.getSource(i));
+            }
+            return;
+        }
+        CompactGraph rows = batch.build(adjacencyList.size(), false, CompactGraph.DuplicatePolicy.KEEP);
+        compressedAdjacency = compressedAdjacency == null ? CompressedGraph.compress(rows)
+                : compressedAdjacency.merge(rows);
+        ConnectedGraph.listSecondLoopEntries(rows, adjacencyList);
     }
 
     /**
@@ -57,19 +120,102 @@ public class VertexDegree {
      */
     public int getVertexDegree(String vertex) {
         // Ensure the vertex exists in the graph
-        if (!vertexIndexMap.containsKey(vertex)) {
+        if (!vertexIndices().containsKey(vertex)) {
             throw new IllegalArgumentException("Vertex does not exist.");
         }
         // Get the index of the vertex and return the size of its adjacency list
-        int index = vertexIndexMap.get(vertex);
-        return adjacencyList.get(index).size();
+        int index = vertexIndices().get(vertex);
+        int compressedDegree = compressedAdjacency == null ? 0 : compressedAdjacency.getDegree(index);
+        List<Integer> neighbors = adjacencyList.get(index);
+        return compressedDegree + (neighbors == null ? 0 : neighbors.size());
+    }
+
+    /**
+     * Moves every edge into compressed storage, with gap and varint encoded neighbor lists.
+     * A degree is then read from the head of a compressed row, without decoding it.
+     * Edges added afterwards go to the adjacency lists until the next compression.
+     * @return the compressed edges, which report their size
+     */
+    public CompressedGraph compressAdjacency() {
+        if (compressedAdjacency != null) {
+            for (int vertex = 0; vertex < adjacencyList.size(); vertex++) {
+                CompressedGraph.NeighborIterator compressedNeighbors = compressedAdjacency.neighbors(vertex);
+                while (compressedNeighbors.hasNext()) {
+                    listFor(vertex).add(compressedNeighbors.nextInt());
+                }
+            }
+        }
+        compressedAdjacency = CompressedGraph.compress(adjacencyList, false);
+        Collections.fill(adjacencyList, null);
+        return compressedAdjacency;
+    }
+
+    /**
+     * Saves the vertex names and the adjacency, as compressed rows, to a snapshot file.
+     * @param path the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void saveSnapshot(Path path) throws IOException {
+        String[] vertexNames = new String[vertexIndices().size()];
+        for (Map.Entry<String, Integer> entry : vertexIndices().entrySet()) {
+            vertexNames[entry.getValue()] = entry.getKey();
+        }
+        CompactGraph rows = GraphSnapshot.adjacencyRows(compressedAdjacency, adjacencyList);
+        GraphSnapshot.write(path, CompressedGraph.compress(rows), Arrays.asList(vertexNames), null, null);
+    }
+
+    /**
+     * Restores a graph saved with {@link #saveSnapshot(Path)}, without checking the snapshot's payload checksum.
+     * @param path the file to read
+     * @return the restored graph
+     * @throws IOException if the file cannot be read, is not an undirected graph snapshot, or its header is damaged
+     * @see #restoreSnapshot(Path, boolean)
+     */
+    public static VertexDegree restoreSnapshot(Path path) throws IOException {
+        return restoreSnapshot(path, false);
+    }
+
+    /**
+     * Restores a graph saved with {@link #saveSnapshot(Path)}, or an undirected graph written with
+     * {@link GraphSnapshot#write(Path, CompactGraph, List, GraphFingerprint, int[])}. Saved compressed rows are used
+     * in place from the mapped file, while saved compressed sparse row arrays are compressed once here; a degree
+     * is read from the head of its row when asked for, and the vertex names are read on the first lookup by name.
+     * Checking the payload checksum reads the whole file; without it, damage inside the rows only shows once they
+     * are read.
+     * @param path the file to read
+     * @param verifyChecksum whether to check the payload checksum before restoring
+     * @return the restored graph
+     * @throws IOException if the file cannot be read, is not an undirected graph snapshot, or is damaged
+     */
+    public static VertexDegree restoreSnapshot(Path path, boolean verifyChecksum) throws IOException {
+        long start = GraphMetrics.startTimer();
+        GraphSnapshot snapshot = GraphSnapshot.open(path);
+        if (snapshot.isDirected()) {
+            throw new IOException("Not an undirected graph snapshot: " + path);
+        }
+        if (verifyChecksum && !snapshot.verifyChecksum()) {
+            throw new IOException("Snapshot checksum mismatch: " + path);
+        }
+        VertexDegree graph = new VertexDegree(snapshot.getVertexCount());
+        graph.unreadNames = snapshot;
+        CompressedGraph rows = snapshot.getCompressedGraph();
+        if (rows != null) {
+            graph.compressedAdjacency = rows;
+        } else {
+            // A snapshot written with GraphSnapshot.write(Path, CompactGraph, ...) holds compressed sparse row arrays
+            CompactGraph compactRows = snapshot.toCompactGraph();
+            graph.compressedAdjacency = CompressedGraph.compress(compactRows);
+            ConnectedGraph.listSecondLoopEntries(compactRows, graph.adjacencyList);
+        }
+        GraphMetrics.stopTimer(GraphMetrics.Timer.SNAPSHOT_RESTORE, start);
+        return graph;
     }
 
     /**
      * Prints the degree of all vertices.
      */
     public void printAllDegrees() {
-        for (Map.Entry<String, Integer> entry : vertexIndexMap.entrySet()) {
+        for (Map.Entry<String, Integer> entry : vertexIndices().entrySet()) {
             String vertex = entry.getKey();
             System.out.println("Degree of vertex " + vertex + ": " + getVertexDegree(vertex));
         }
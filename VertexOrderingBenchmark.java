@@ -0,0 +1,156 @@
+import java.util.*;
+
+/**
+ * This class measures how much each {@link VertexOrdering} speeds up traversals of a power-law graph.
+ * The graph follows the Chung–Lu model, where vertex i has expected degree proportional to (i + 1)^(-1 / (gamma - 1)),
+ * and its vertices are shuffled so that the starting order is as unrelated to the structure as insertion order is.
+ * Usage: java VertexOrderingBenchmark [vertexCount] [averageDegree] [gamma] [seed]
+ */
+public class VertexOrderingBenchmark {
+    private static final int RUNS = 5;
+
+    /**
+     * Generates a shuffled Chung–Lu graph, dropping parallel edges and self-loops.
+     * @param vertexCount the number of vertices
+     * @param averageDegree the expected average degree
+     * @param gamma the exponent of the degree distribution, normally between 2 and 3
+     * @param random the source of randomness
+     * @return the generated graph
+     */
+    static CompactGraph generatePowerLawGraph(int vertexCount, int averageDegree, double gamma, Random random) {
+        double[] cumulativeWeights = new double[vertexCount];
+        double total = 0;
+        for (int v = 0; v < vertexCount; v++) {
+            total += Math.pow(v + 1, -1 / (gamma - 1));
+            cumulativeWeights[v] = total;
+        }
+        int[] labels = new int[vertexCount];
+        for (int v = 0; v < vertexCount; v++) {
+            int j = random.nextInt(v + 1);
+            labels[v] = labels[j];
+            labels[j] = v;
+        }
+        int edgeCount = (int) ((long) vertexCount * averageDegree / 2);
+        int[] sources = new int[edgeCount];
+        int[] targets = new int[edgeCount];
+        int written = 0;
+        while (written < edgeCount) {
+            int source = sampleVertex(cumulativeWeights, total, random);
+            int target = sampleVertex(cumulativeWeights, total, random);
+            if (source != target) {
+                sources[written] = labels[source];
+                targets[written] = labels[target];
+                written++;
+            }
+        }
+        return CompactGraph.fromEdges(vertexCount, sources, targets, edgeCount, false, CompactGraph.DuplicatePolicy.DROP);
+    }
+
+    private static int sampleVertex(double[] cumulativeWeights, double total, Random random) {
+        int position = Arrays.binarySearch(cumulativeWeights, random.nextDouble() * total);
+        return Math.min(position < 0 ? -position - 1 : position, cumulativeWeights.length - 1);
+    }
+
+    /**
+     * Labels every connected component with a breadth-first search, the traversal behind connectivity checks.
+     * @param graph the graph to traverse
+     * @return the number of connected components
+     */
+    static int countComponents(CompactGraph graph) {
+        int vertexCount = graph.getVertexCount();
+        int[] component = new int[vertexCount];
+        Arrays.fill(component, -1);
+        int[] queue = new int[vertexCount];
+        int componentCount = 0;
+        for (int root = 0; root < vertexCount; root++) {
+            if (component[root] != -1) {
+                continue;
+            }
+            component[root] = componentCount;
+            int tail = 0;
+            queue[tail++] = root;
+            for (int head = 0; head < tail; head++) {
+                int vertex = queue[head];
+                for (int i = graph.getRowStart(vertex); i < graph.getRowEnd(vertex); i++) {
+                    int neighbor = graph.getNeighbor(i);
+                    if (component[neighbor] == -1) {
+                        component[neighbor] = componentCount;
+                        queue[tail++] = neighbor;
+                    }
+                }
+            }
+            componentCount++;
+        }
+        return componentCount;
+    }
+
+    /**
+     * Runs a task several times and keeps the fastest run, which is the one least disturbed by the JIT and GC.
+     * @param task the task to time
+     * @return the fastest time in milliseconds
+     */
+    private static double bestOf(Runnable task) {
+        long best = Long.MAX_VALUE;
+        for (int run = 0; run < RUNS; run++) {
+            long start = System.nanoTime();
+            task.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best / 1e6;
+    }
+
+    /**
+     * The main method that runs the benchmark.
+     * @param args the vertex count, average degree, exponent and random seed, all optional
+     */
+    public static void main(String[] args) {
+        int vertexCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int averageDegree = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        double gamma = args.length > 2 ? Double.parseDouble(args[2]) : 2.1;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 42;
+
+        CompactGraph original = generatePowerLawGraph(vertexCount, averageDegree, gamma, new Random(seed));
+        int hub = 0;
+        for (int v = 0; v < vertexCount; v++) {
+            if (original.getDegree(v) > original.getDegree(hub)) {
+                hub = v;
+            }
+        }
+        System.out.printf("Power-law graph: %d vertices, %d arcs, gamma %.2f, max degree %d%n",
+                vertexCount, original.getArcCount(), gamma, original.getDegree(hub));
+        System.out.printf("%-14s %10s %10s %15s %12s %12s%n",
+                "Ordering", "Reorder ms", "Mean span", "Components", "BFS ms", "Bipartite ms");
+
+        double[] baseline = null;
+        List<String> names = new ArrayList<>();
+        names.add("INSERTION");
+        for (VertexOrdering.Strategy strategy : VertexOrdering.Strategy.values()) {
+            names.add(strategy.name());
+        }
+        for (String name : names) {
+            CompactGraph graph = original;
+            int source = hub;
+            double reorderMillis = 0;
+            if (!name.equals("INSERTION")) {
+                long start = System.nanoTime();
+                VertexOrdering ordering = VertexOrdering.compute(original, VertexOrdering.Strategy.valueOf(name));
+                graph = ordering.apply(original);
+                reorderMillis = (System.nanoTime() - start) / 1e6;
+                source = ordering.getNewIndex(hub);
+            }
+            CompactGraph measured = graph;
+            int bfsSource = source;
+            double[] times = {
+                    bestOf(() -> countComponents(measured)),
+                    bestOf(() -> ShortestPaths.breadthFirst(measured, bfsSource)),
+                    bestOf(() -> BipartiteBfs.isBipartite(measured, false))
+            };
+            if (baseline == null) {
+                baseline = times;
+            }
+            System.out.printf("%-14s %10.1f %10.0f %6.1f ms %4.2fx %6.1f %4.2fx %6.1f %4.2fx%n",
+                    name, reorderMillis, VertexOrdering.averageEdgeSpan(graph),
+                    times[0], baseline[0] / times[0], times[1], baseline[1] / times[1], times[2], baseline[2] / times[2]);
+        }
+    }
+}